@@ -306,6 +306,8 @@ solType
     | SOL_INT_TYPE
     | SOL_STRING_TYPE
     | solType '[' ']'
+    | SOL_SET_TYPE '<' solType '>'
+    | SOL_MAP_TYPE '<' solType ',' solType '>'
     ;
 
 SOL_BYTE_TYPE 
@@ -344,6 +346,16 @@ SOL_STRING_TYPE
     : 'string'
     ;
 
+// 'set' and 'map' are reserved, i.e., they cannot be used as variable or method names,
+// whereas names that only start with them (e.g., settings, mapping) are identifiers.
+SOL_SET_TYPE
+    : 'set'
+    ;
+
+SOL_MAP_TYPE
+    : 'map'
+    ;
+
 
 
 // FRAGMENTS
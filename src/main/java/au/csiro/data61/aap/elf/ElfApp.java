@@ -13,6 +13,7 @@ public class ElfApp {
     private static final String CMD_EXTRACT = "extract";
     private static final String CMD_VALIDATE = "validate";
     private static final String ABORT_EXTRACTION_MODE = "-abort";
+    private static final String RESUME_EXTRACTION_MODE = "-resume";
     private static final String FULL_VALIDATION_MODE = "-full";
     private static final String ERROR_VALIDATION_MODE = "-errors";
 
@@ -41,20 +42,24 @@ public class ElfApp {
             generate(filepath);
         } else if (command.equals(CMD_EXTRACT)) {
             boolean abortOnError = false;
-            if (INDEX_MODE + 1 <= args.length) {
-                if (args[INDEX_MODE].equals(ABORT_EXTRACTION_MODE)) {
+            boolean resume = false;
+            for (int i = INDEX_MODE; i < args.length; i++) {
+                if (args[i].equals(ABORT_EXTRACTION_MODE)) {
                     abortOnError = true;
+                } else if (args[i].equals(RESUME_EXTRACTION_MODE)) {
+                    resume = true;
                 } else {
                     final String message = String.format(
-                        "Invalid extraction mode. Must be '%s' or no argument, but was %s",
+                        "Invalid extraction mode. Must be '%s', '%s' or no argument, but was %s",
                         ABORT_EXTRACTION_MODE,
-                        args[INDEX_MODE]
+                        RESUME_EXTRACTION_MODE,
+                        args[i]
                     );
                     System.out.println(message);
                     return;
                 }
             }
-            extract(filepath, abortOnError);
+            extract(filepath, abortOnError, resume);
         } else if (command.equals(CMD_VALIDATE)) {
             boolean errorsOnly = false;
             if (INDEX_MODE + 1 <= args.length) {
@@ -94,11 +99,11 @@ public class ElfApp {
         }
     }
 
-    private static void extract(String filepath, boolean abortOnError) {
+    private static void extract(String filepath, boolean abortOnError, boolean resume) {
         final Extractor extractor = new Extractor();
 
         try {
-            extractor.extractData(filepath, abortOnError);
+            extractor.extractData(filepath, abortOnError, resume);
         } catch (EthqlProcessingException ex) {
             ex.printStackTrace(System.err);
         }
@@ -1,11 +1,15 @@
 package au.csiro.data61.aap.elf;
 
+import java.util.Set;
+
 import org.antlr.v4.runtime.tree.ParseTree;
 import org.antlr.v4.runtime.tree.ParseTreeWalker;
 
 import au.csiro.data61.aap.elf.configuration.EthqlProgramComposer;
 import au.csiro.data61.aap.elf.core.ProgramState;
 import au.csiro.data61.aap.elf.core.filters.Program;
+import au.csiro.data61.aap.elf.core.readers.DataClass;
+import au.csiro.data61.aap.elf.parsing.DataUsageAnalyzer;
 import au.csiro.data61.aap.elf.parsing.EthqlListener;
 import au.csiro.data61.aap.elf.parsing.VariableExistenceAnalyzer;
 import au.csiro.data61.aap.elf.util.CompositeEthqlListener;
@@ -16,11 +20,20 @@ import au.csiro.data61.aap.elf.util.CompositeEthqlListener;
 public class Extractor {
 
     public void extractData(final String ethqlFilepath, boolean abortOnError) throws EthqlProcessingException {
+        this.extractData(ethqlFilepath, abortOnError, false);
+    }
+
+    /**
+     * Executes the script. If resume is true, the extraction continues from the checkpoint in the output folder.
+     */
+    public void extractData(final String ethqlFilepath, boolean abortOnError, boolean resume) throws EthqlProcessingException {
         final ParseTree parseTree = Validator.createParseTree(ethqlFilepath, true);
 
         final CompositeEthqlListener<EthqlListener> rootListener = new CompositeEthqlListener<>();
         final VariableExistenceAnalyzer analyzer = new VariableExistenceAnalyzer();
         rootListener.addListener(analyzer);
+        final DataUsageAnalyzer dataUsageAnalyzer = new DataUsageAnalyzer();
+        rootListener.addListener(dataUsageAnalyzer);
         final EthqlProgramComposer builder = new EthqlProgramComposer(analyzer);
         rootListener.addListener(builder);
 
@@ -32,12 +45,14 @@ public class Extractor {
         }
 
         final Program program = builder.getProgram();
-        this.executeProgram(program, abortOnError);
+        this.executeProgram(program, dataUsageAnalyzer.getRequiredData(), abortOnError, resume);
     }
 
-    private void executeProgram(Program program, boolean abortOnError) {
+    private void executeProgram(Program program, Set<DataClass> requiredData, boolean abortOnError, boolean resume) {
         final ProgramState state = new ProgramState();
         state.setAbortOnException(abortOnError);
+        state.setResume(resume);
+        state.getReader().setRequiredData(requiredData);
         program.execute(state);
     }
 }
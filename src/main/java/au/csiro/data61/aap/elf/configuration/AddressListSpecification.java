@@ -14,25 +14,44 @@ import au.csiro.data61.aap.elf.core.values.ValueAccessor;
  */
 public class AddressListSpecification {
     private FilterPredicate<String> addressCheck;
+    private List<String> addresses;
 
     private AddressListSpecification(FilterPredicate<String> addressCheck) {
+        this(addressCheck, null);
+    }
+
+    private AddressListSpecification(FilterPredicate<String> addressCheck, List<String> addresses) {
         this.addressCheck = addressCheck;
+        this.addresses = addresses;
     }
 
     FilterPredicate<String> getAddressCheck() {
         return this.addressCheck;
     }
 
+    /**
+     * Returns the addresses, if they are known at build time, or null otherwise.
+     */
+    List<String> getAddresses() {
+        return this.addresses;
+    }
+
     public static AddressListSpecification ofAddress(String expectedAddress) {
         assert expectedAddress != null;
         final String lowerCaseAddress = expectedAddress.toLowerCase();
-        return new AddressListSpecification((state, address) -> address != null && lowerCaseAddress.equals(address.toLowerCase()));
+        return new AddressListSpecification(
+            (state, address) -> address != null && lowerCaseAddress.equals(address.toLowerCase()),
+            List.of(lowerCaseAddress)
+        );
     }
 
     public static AddressListSpecification ofAddresses(List<String> expectedAddresses) {
         assert expectedAddresses != null && expectedAddresses.stream().allMatch(Objects::nonNull);
         final List<String> lowerCaseAddresses = expectedAddresses.stream().map(ad -> ad.toLowerCase()).collect(Collectors.toList());
-        return new AddressListSpecification((state, address) -> address != null && lowerCaseAddresses.contains(address.toLowerCase()));
+        return new AddressListSpecification(
+            (state, address) -> address != null && lowerCaseAddresses.contains(address.toLowerCase()),
+            lowerCaseAddresses
+        );
     }
 
     public static AddressListSpecification ofAddresses(String... expectedAddresses) {
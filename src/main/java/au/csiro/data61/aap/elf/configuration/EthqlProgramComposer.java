@@ -10,7 +10,9 @@ import java.util.stream.Collectors;
 
 import org.antlr.v4.runtime.ParserRuleContext;
 
+import au.csiro.data61.aap.elf.core.filters.ParallelExecution;
 import au.csiro.data61.aap.elf.core.filters.Program;
+import au.csiro.data61.aap.elf.parsing.BlockIndependenceAnalyzer;
 import au.csiro.data61.aap.elf.parsing.EthqlBaseListener;
 import au.csiro.data61.aap.elf.parsing.InterpreterUtils;
 import au.csiro.data61.aap.elf.parsing.VariableExistenceAnalyzer;
@@ -122,7 +124,8 @@ public class EthqlProgramComposer extends EthqlBaseListener {
         LOGGER.info("Build Block Filter");
         BlockNumberSpecification from = this.getBlockNumberSpecification(ctx.from);
         BlockNumberSpecification to = this.getBlockNumberSpecification(ctx.to);
-        this.composer.buildBlockRange(from, to);
+        final ParallelExecution parallelExecution = BlockIndependenceAnalyzer.analyze((ScopeContext) ctx.getParent().getParent());
+        this.composer.buildBlockRange(from, to, parallelExecution);
     }
 
     private BlockNumberSpecification getBlockNumberSpecification(BlockNumberContext ctx) throws BuildException {
@@ -191,6 +194,7 @@ public class EthqlProgramComposer extends EthqlBaseListener {
     private LogEntrySignatureSpecification getLogEntrySignature(LogEntrySignatureContext ctx) throws BuildException {
         final LinkedList<ParameterSpecification> parameters = new LinkedList<>();
         for (LogEntryParameterContext paramCtx : ctx.logEntryParameter()) {
+            this.composer.declareVariable(paramCtx.variableName().getText());
             parameters.add(
                 ParameterSpecification.of(paramCtx.variableName().getText(), paramCtx.solType().getText(), paramCtx.KEY_INDEXED() != null)
             );
@@ -415,10 +419,10 @@ public class EthqlProgramComposer extends EthqlBaseListener {
     }
 
     private SmartContractQuerySpecification handlePublicFunctionQuery(PublicFunctionQueryContext ctx) throws BuildException {
-        final List<ParameterSpecification> outputParams = ctx.smartContractParameter()
-            .stream()
-            .map(paramCtx -> this.createParameterSpecification(paramCtx))
-            .collect(Collectors.toList());
+        final List<ParameterSpecification> outputParams = new ArrayList<>();
+        for (SmartContractParameterContext paramCtx : ctx.smartContractParameter()) {
+            outputParams.add(this.createParameterSpecification(paramCtx));
+        }
 
         final List<TypedValueAccessorSpecification> inputParameters = new ArrayList<>();
         for (SmartContractQueryParameterContext paramCtx : ctx.smartContractQueryParameter()) {
@@ -447,7 +451,8 @@ public class EthqlProgramComposer extends EthqlBaseListener {
         return SmartContractQuerySpecification.ofMemberVariable(createParameterSpecification(ctx.smartContractParameter()));
     }
 
-    private ParameterSpecification createParameterSpecification(SmartContractParameterContext ctx) {
+    private ParameterSpecification createParameterSpecification(SmartContractParameterContext ctx) throws BuildException {
+        this.composer.declareVariable(ctx.variableName().getText());
         return ParameterSpecification.of(ctx.variableName().getText(), ctx.solType().getText());
     }
 
@@ -586,6 +591,7 @@ public class EthqlProgramComposer extends EthqlBaseListener {
     }
 
     private void handleVariableDeclarationStatement(VariableDeclarationStatementContext ctx) throws BuildException {
+        this.composer.declareVariable(ctx.variableName().getText());
         this.addVariableAssignment(ctx.variableName(), ctx.statementExpression());
     }
 
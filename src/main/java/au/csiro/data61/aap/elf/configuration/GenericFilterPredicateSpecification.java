@@ -4,11 +4,15 @@ import java.math.BigInteger;
 import java.util.function.BiPredicate;
 import java.util.function.IntPredicate;
 
-import au.csiro.data61.aap.elf.core.Method;
+import au.csiro.data61.aap.elf.core.BinaryMethod;
+import au.csiro.data61.aap.elf.core.ProgramState;
 import au.csiro.data61.aap.elf.core.exceptions.ProgramException;
 import au.csiro.data61.aap.elf.core.filters.GenericFilterPredicate;
 import au.csiro.data61.aap.elf.core.values.ValueAccessor;
+import au.csiro.data61.aap.elf.library.types.IntegerOperations;
+import au.csiro.data61.aap.elf.library.types.HashedSet;
 import au.csiro.data61.aap.elf.library.types.ListOperations;
+import au.csiro.data61.aap.elf.library.types.SetOperations;
 
 /**
  * GenericFilterSpecification
@@ -30,7 +34,7 @@ public class GenericFilterPredicateSpecification {
     ) {
         final GenericFilterPredicate predicate1 = specification1.getPredicate();
         final GenericFilterPredicate predicate2 = specification2.getPredicate();
-        return new GenericFilterPredicateSpecification(state -> predicate1.test(state) && predicate2.test(state));
+        return new GenericFilterPredicateSpecification(GenericFilterPredicate.and(predicate1, predicate2));
     }
 
     public static GenericFilterPredicateSpecification or(
@@ -39,12 +43,12 @@ public class GenericFilterPredicateSpecification {
     ) {
         final GenericFilterPredicate predicate1 = specification1.getPredicate();
         final GenericFilterPredicate predicate2 = specification2.getPredicate();
-        return new GenericFilterPredicateSpecification(state -> predicate1.test(state) || predicate2.test(state));
+        return new GenericFilterPredicateSpecification(GenericFilterPredicate.or(predicate1, predicate2));
     }
 
     public static GenericFilterPredicateSpecification not(GenericFilterPredicateSpecification specification1) {
         final GenericFilterPredicate predicate1 = specification1.getPredicate();
-        return new GenericFilterPredicateSpecification(state -> !predicate1.test(state));
+        return new GenericFilterPredicateSpecification(GenericFilterPredicate.not(predicate1));
     }
 
     public static GenericFilterPredicateSpecification ofBooleanAccessor(ValueAccessorSpecification valueSpecification) {
@@ -131,26 +135,32 @@ public class GenericFilterPredicateSpecification {
                 throw new ProgramException(String.format("Value '%s' is not an BigInteger.", value2));
             }
 
-            return value1 != null && value2 != null && comparator.test(((BigInteger) value1).compareTo((BigInteger) value2));
+            return value1 != null && value2 != null && comparator.test(IntegerOperations.compare((BigInteger) value1, (BigInteger) value2));
         });
 
     }
 
     public static GenericFilterPredicateSpecification in(ValueAccessorSpecification accessor1, ValueAccessorSpecification accessor2) {
-        return new GenericFilterPredicateSpecification(createFilter(accessor2, accessor1, ListOperations::contains));
+        return new GenericFilterPredicateSpecification(createFilter(accessor2, accessor1, GenericFilterPredicateSpecification::contains));
+    }
+
+    private static Boolean contains(Object collection, Object value, ProgramState state) throws ProgramException {
+        return collection instanceof HashedSet
+            ? SetOperations.contains(collection, value, state)
+            : ListOperations.contains(collection, value, state);
     }
 
     private static final GenericFilterPredicate createFilter(
         ValueAccessorSpecification specification1,
         ValueAccessorSpecification specification2,
-        Method method
+        BinaryMethod method
     ) {
         final ValueAccessor accessor1 = specification1.getValueAccessor();
         final ValueAccessor accessor2 = specification2.getValueAccessor();
         return state -> {
             final Object val1 = accessor1.getValue(state);
             final Object val2 = accessor2.getValue(state);
-            return (Boolean) method.call(new Object[] { val1, val2 }, state);
+            return (Boolean) method.call(val1, val2, state);
         };
     }
 }
@@ -6,6 +6,7 @@ import java.util.Objects;
 import java.util.stream.Collectors;
 
 import au.csiro.data61.aap.elf.core.MethodCall;
+import au.csiro.data61.aap.elf.core.values.ValueAccessor;
 
 /**
  * MethodCallSpecification
@@ -41,12 +42,12 @@ public class MethodCallSpecification extends InstructionSpecification<MethodCall
     ) throws BuildException {
         assert specification != null;
         assert accessors != null && accessors.stream().allMatch(Objects::nonNull);
+        final List<ValueAccessor> valueAccessors = accessors.stream().map(a -> a.getValueAccessor()).collect(Collectors.toList());
+        if (specification.updatesFirstParameter() && !valueAccessors.isEmpty()) {
+            valueAccessors.set(0, valueAccessors.get(0).toUpdateAccessor());
+        }
         return new MethodCallSpecification(
-            new MethodCall(
-                specification.getMethod(),
-                accessors.stream().map(a -> a.getValueAccessor()).collect(Collectors.toList()),
-                mutator == null ? null : mutator.getMutator()
-            )
+            new MethodCall(specification.getMethod(), valueAccessors, mutator == null ? null : mutator.getMutator())
         );
     }
 }
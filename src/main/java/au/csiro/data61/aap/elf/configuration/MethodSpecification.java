@@ -12,15 +12,21 @@ import au.csiro.data61.aap.elf.library.Library;
  */
 public class MethodSpecification {
     private final Method method;
+    private final boolean updatesFirstParameter;
 
-    private MethodSpecification(Method method) {
+    private MethodSpecification(Method method, boolean updatesFirstParameter) {
         this.method = method;
+        this.updatesFirstParameter = updatesFirstParameter;
     }
 
     Method getMethod() {
         return this.method;
     }
 
+    boolean updatesFirstParameter() {
+        return this.updatesFirstParameter;
+    }
+
     public static MethodSpecification of(String name, String... parameterTypes) throws BuildException {
         return of(name, Arrays.asList(parameterTypes));
     }
@@ -31,7 +37,7 @@ public class MethodSpecification {
             final String message = String.format("%s(%s)", name, parameterTypes.stream().collect(Collectors.joining(",")));
             throw new BuildException(message);
         }
-        return new MethodSpecification(method);
+        return new MethodSpecification(method, Library.INSTANCE.updatesFirstParameter(name, parameterTypes));
     }
 
 }
@@ -1,5 +1,6 @@
 package au.csiro.data61.aap.elf.configuration;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
@@ -9,13 +10,16 @@ import java.util.stream.Collectors;
 import au.csiro.data61.aap.elf.configuration.BlockNumberSpecification.Type;
 import au.csiro.data61.aap.elf.core.Instruction;
 import au.csiro.data61.aap.elf.core.filters.BlockFilter;
+import au.csiro.data61.aap.elf.core.filters.Filter;
 import au.csiro.data61.aap.elf.core.filters.GenericFilter;
 import au.csiro.data61.aap.elf.core.filters.LogEntryFilter;
+import au.csiro.data61.aap.elf.core.filters.ParallelExecution;
 import au.csiro.data61.aap.elf.core.filters.Program;
 import au.csiro.data61.aap.elf.core.filters.SmartContractFilter;
 import au.csiro.data61.aap.elf.core.filters.TransactionFilter;
 import au.csiro.data61.aap.elf.core.values.ValueAccessor;
 import au.csiro.data61.aap.elf.core.values.ValueMutator;
+import au.csiro.data61.aap.elf.core.values.VariableSlots;
 
 /**
  * SpecificationComposer
@@ -24,11 +28,13 @@ public class SpecificationComposer {
     private final Stack<FactoryState> states;
     private final Stack<List<Instruction>> instructions;
     private final LinkedList<Instruction> programInstructions;
+    private final Stack<List<Integer>> frames;
 
     public SpecificationComposer() {
         this.instructions = new Stack<>();
         this.programInstructions = new LinkedList<>();
         this.states = new Stack<>();
+        this.frames = new Stack<>();
     }
 
     public void prepareProgramBuild() throws BuildException {
@@ -83,6 +89,17 @@ public class SpecificationComposer {
         this.states.push(newState);
 
         this.instructions.add(newState == FactoryState.PROGRAM ? this.programInstructions : new LinkedList<>());
+        this.frames.push(new ArrayList<>());
+    }
+
+    /**
+     * Resolves the slot of a variable declared in the current scope, so that it is released when the scope is exited.
+     */
+    public void declareVariable(String name) throws BuildException {
+        if (this.frames.isEmpty()) {
+            throw new BuildException(String.format("Variable '%s' cannot be declared outside of a scope.", name));
+        }
+        this.frames.peek().add(VariableSlots.slotOf(name));
     }
 
     public Program buildProgram() throws BuildException {
@@ -98,6 +115,11 @@ public class SpecificationComposer {
     }
 
     public void buildBlockRange(BlockNumberSpecification fromBlock, BlockNumberSpecification toBlock) throws BuildException {
+        this.buildBlockRange(fromBlock, toBlock, ParallelExecution.NONE);
+    }
+
+    public void buildBlockRange(BlockNumberSpecification fromBlock, BlockNumberSpecification toBlock, ParallelExecution parallelExecution)
+        throws BuildException {
         assert fromBlock != null && fromBlock.getType() != Type.CONTINUOUS;
         assert toBlock != null && toBlock.getType() != Type.EARLIEST;
 
@@ -108,6 +130,7 @@ public class SpecificationComposer {
         }
 
         final BlockFilter blockRange = new BlockFilter(fromBlock.getValueAccessor(), toBlock.getStopCriterion(), this.instructions.peek());
+        blockRange.setParallelExecution(parallelExecution);
 
         this.closeScope(blockRange);
     }
@@ -141,7 +164,12 @@ public class SpecificationComposer {
             );
         }
 
-        final LogEntryFilter filter = new LogEntryFilter(contracts.getAddressCheck(), signature.getSignature(), this.instructions.peek());
+        final LogEntryFilter filter = new LogEntryFilter(
+            contracts.getAddressCheck(),
+            contracts.getAddresses(),
+            signature.getSignature(),
+            this.instructions.peek()
+        );
         this.closeScope(filter);
     }
 
@@ -176,6 +204,10 @@ public class SpecificationComposer {
     }
 
     private void closeScope(Instruction instruction) {
+        final int[] frame = this.frames.pop().stream().mapToInt(Integer::intValue).distinct().toArray();
+        if (instruction instanceof Filter && this.states.peek() != FactoryState.PROGRAM) {
+            ((Filter) instruction).setFrame(frame);
+        }
         this.instructions.pop();
         if (!this.instructions.isEmpty()) {
             this.instructions.peek().add(instruction);
@@ -0,0 +1,17 @@
+package au.csiro.data61.aap.elf.core;
+
+import au.csiro.data61.aap.elf.core.exceptions.ProgramException;
+
+/**
+ * A method with two parameters, which can be called without a parameter array.
+ */
+@FunctionalInterface
+public interface BinaryMethod extends Method {
+    public Object call(Object parameter1, Object parameter2, ProgramState state) throws ProgramException;
+
+    @Override
+    public default Object call(Object[] parameters, ProgramState state) throws ProgramException {
+        assert parameters != null && parameters.length == 2;
+        return this.call(parameters[0], parameters[1], state);
+    }
+}
@@ -0,0 +1,81 @@
+package au.csiro.data61.aap.elf.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.math.BigInteger;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The progress of an extraction, i.e., the block filter that was executed, the last block it processed completely and
+ * the variables after that block. A block of null means that the block filter was finished.
+ */
+public class Checkpoint implements Serializable {
+    private static final long serialVersionUID = 1L;
+    public static final String FILENAME = "checkpoint.bin";
+
+    private final int filterIndex;
+    private final BigInteger block;
+    private final HashMap<String, Object> values;
+
+    public Checkpoint(int filterIndex, BigInteger block, Map<String, Object> values) {
+        assert 0 <= filterIndex;
+        assert values != null;
+        this.filterIndex = filterIndex;
+        this.block = block;
+        this.values = new HashMap<>(values);
+    }
+
+    public int getFilterIndex() {
+        return this.filterIndex;
+    }
+
+    public BigInteger getBlock() {
+        return this.block;
+    }
+
+    public Map<String, Object> getValues() {
+        return this.values;
+    }
+
+    /**
+     * Writes the checkpoint to a temporary file and renames it, so that a crash never leaves a partial checkpoint.
+     */
+    public void write(Path folder) throws IOException {
+        assert folder != null;
+        final Path file = folder.resolve(FILENAME);
+        final Path tempFile = folder.resolve(FILENAME + ".tmp");
+        try (OutputStream stream = Files.newOutputStream(tempFile); ObjectOutputStream out = new ObjectOutputStream(stream)) {
+            out.writeObject(this);
+        }
+
+        try {
+            Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Returns the checkpoint stored in the folder or null, if there is none.
+     */
+    public static Checkpoint read(Path folder) throws IOException, ClassNotFoundException {
+        assert folder != null;
+        final Path file = folder.resolve(FILENAME);
+        if (!Files.exists(file)) {
+            return null;
+        }
+
+        try (InputStream stream = Files.newInputStream(file); ObjectInputStream in = new ObjectInputStream(stream)) {
+            return (Checkpoint) in.readObject();
+        }
+    }
+}
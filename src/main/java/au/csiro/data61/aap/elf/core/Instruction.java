@@ -1,5 +1,7 @@
 package au.csiro.data61.aap.elf.core;
 
+import java.lang.invoke.MethodHandle;
+
 import au.csiro.data61.aap.elf.core.exceptions.ProgramException;
 
 /**
@@ -8,4 +10,11 @@ import au.csiro.data61.aap.elf.core.exceptions.ProgramException;
 @FunctionalInterface
 public interface Instruction {
     public void execute(ProgramState state) throws ProgramException;
+
+    /**
+     * Returns a method handle of the {@link InstructionHandles#INSTRUCTION_TYPE} that executes this instruction.
+     */
+    public default MethodHandle toMethodHandle() {
+        return InstructionHandles.ofInstruction(this);
+    }
 }
@@ -0,0 +1,58 @@
+package au.csiro.data61.aap.elf.core;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodType;
+import java.util.List;
+
+/**
+ * Utilities to compile instructions into method handles. Instructions, value accessors and mutators are composed into
+ * one method handle per scope, which the JIT can optimise as a whole instead of walking the instruction tree.
+ */
+public final class InstructionHandles {
+    public static final MethodType INSTRUCTION_TYPE = MethodType.methodType(void.class, ProgramState.class);
+    public static final MethodType ACCESSOR_TYPE = MethodType.methodType(Object.class, ProgramState.class);
+    public static final MethodType MUTATOR_TYPE = MethodType.methodType(void.class, Object.class, ProgramState.class);
+    public static final MethodHandle NO_OP = MethodHandles.empty(INSTRUCTION_TYPE);
+
+    private static final MethodHandle EXECUTE = findVirtual(MethodHandles.lookup(), Instruction.class, "execute", INSTRUCTION_TYPE);
+
+    private InstructionHandles() {}
+
+    /**
+     * Returns a method handle that executes the instruction without compiling it.
+     */
+    public static MethodHandle ofInstruction(Instruction instruction) {
+        assert instruction != null;
+        return EXECUTE.bindTo(instruction);
+    }
+
+    /**
+     * Combines method handles of the {@link #INSTRUCTION_TYPE} into one that executes them in order.
+     */
+    public static MethodHandle sequence(List<MethodHandle> instructions) {
+        assert instructions != null;
+        MethodHandle sequence = NO_OP;
+        for (int i = instructions.size() - 1; 0 <= i; i--) {
+            sequence = MethodHandles.foldArguments(sequence, instructions.get(i));
+        }
+        return sequence;
+    }
+
+    public static MethodHandle findStatic(Lookup lookup, Class<?> owner, String name, MethodType type) {
+        try {
+            return lookup.findStatic(owner, name, type);
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException(String.format("Method '%s' of '%s' not found.", name, owner.getName()), ex);
+        }
+    }
+
+    public static MethodHandle findVirtual(Lookup lookup, Class<?> owner, String name, MethodType type) {
+        try {
+            return lookup.findVirtual(owner, name, type);
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException(String.format("Method '%s' of '%s' not found.", name, owner.getName()), ex);
+        }
+    }
+}
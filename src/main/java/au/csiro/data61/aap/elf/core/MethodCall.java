@@ -1,5 +1,8 @@
 package au.csiro.data61.aap.elf.core;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.util.List;
 import java.util.Objects;
 
@@ -11,29 +14,94 @@ import au.csiro.data61.aap.elf.core.values.ValueMutator;
  * MethodCall
  */
 public class MethodCall implements Instruction {
-    private final List<ValueAccessor> parameterAccessors;
+    private static final MethodHandle CALL = findCall(Method.class, Object[].class);
+    private static final MethodHandle NULLARY_CALL = findCall(NullaryMethod.class);
+    private static final MethodHandle UNARY_CALL = findCall(UnaryMethod.class, Object.class);
+    private static final MethodHandle BINARY_CALL = findCall(BinaryMethod.class, Object.class, Object.class);
+
+    private final ValueAccessor[] parameterAccessors;
     private final Method method;
     private final ValueMutator resultStorer;
+    private final Invoker invoker;
 
     public MethodCall(Method method, List<ValueAccessor> parameterAccessors, ValueMutator resultStorer) {
         assert parameterAccessors != null && parameterAccessors.stream().allMatch(Objects::nonNull);
         assert method != null;
-        this.parameterAccessors = parameterAccessors;
+        this.parameterAccessors = parameterAccessors.toArray(new ValueAccessor[0]);
         this.method = method;
         this.resultStorer = resultStorer;
+        this.invoker = this.createInvoker();
     }
 
     @Override
     public void execute(ProgramState state) throws ProgramException {
-        Object[] parameterValues = new Object[parameterAccessors.size()];
-        for (int i = 0; i < parameterAccessors.size(); i++) {
-            parameterValues[i] = parameterAccessors.get(i).getValue(state);
-        }
-
-        final Object result = method.call(parameterValues, state);
+        final Object result = this.invoker.invoke(state);
         if (resultStorer != null) {
             resultStorer.setValue(result, state);
         }
     }
 
+    /**
+     * Methods with up to two parameters are called with the parameter values directly, all other methods with an array
+     * of parameter values.
+     */
+    private Invoker createInvoker() {
+        final ValueAccessor[] accessors = this.parameterAccessors;
+        if (this.method instanceof NullaryMethod && accessors.length == 0) {
+            final NullaryMethod nullaryMethod = (NullaryMethod) this.method;
+            return nullaryMethod::call;
+        } else if (this.method instanceof UnaryMethod && accessors.length == 1) {
+            final UnaryMethod unaryMethod = (UnaryMethod) this.method;
+            return state -> unaryMethod.call(accessors[0].getValue(state), state);
+        } else if (this.method instanceof BinaryMethod && accessors.length == 2) {
+            final BinaryMethod binaryMethod = (BinaryMethod) this.method;
+            return state -> binaryMethod.call(accessors[0].getValue(state), accessors[1].getValue(state), state);
+        }
+
+        return state -> {
+            final Object[] parameterValues = new Object[accessors.length];
+            for (int i = 0; i < accessors.length; i++) {
+                parameterValues[i] = accessors[i].getValue(state);
+            }
+            return this.method.call(parameterValues, state);
+        };
+    }
+
+    /**
+     * Compiles the call, so that the parameter values are passed to the method without iterating over the accessors.
+     */
+    @Override
+    public MethodHandle toMethodHandle() {
+        final int parameterCount = this.parameterAccessors.length;
+        final MethodHandle[] accessors = new MethodHandle[parameterCount];
+        for (int i = 0; i < parameterCount; i++) {
+            accessors[i] = this.parameterAccessors[i].toMethodHandle();
+        }
+
+        MethodHandle call;
+        if (this.method instanceof NullaryMethod && parameterCount == 0) {
+            call = NULLARY_CALL.bindTo(this.method);
+        } else if (this.method instanceof UnaryMethod && parameterCount == 1) {
+            call = UNARY_CALL.bindTo(this.method);
+        } else if (this.method instanceof BinaryMethod && parameterCount == 2) {
+            call = BINARY_CALL.bindTo(this.method);
+        } else {
+            call = CALL.bindTo(this.method).asCollector(0, Object[].class, parameterCount);
+        }
+        call = MethodHandles.filterArguments(call, 0, accessors);
+        call = MethodHandles.permuteArguments(call, InstructionHandles.ACCESSOR_TYPE, new int[parameterCount + 1]);
+        return this.resultStorer == null
+            ? call.asType(InstructionHandles.INSTRUCTION_TYPE)
+            : MethodHandles.foldArguments(this.resultStorer.toMethodHandle(), call);
+    }
+
+    private static MethodHandle findCall(Class<?> methodType, Class<?>... parameterTypes) {
+        final MethodType type = MethodType.methodType(Object.class, parameterTypes).appendParameterTypes(ProgramState.class);
+        return InstructionHandles.findVirtual(MethodHandles.lookup(), methodType, "call", type);
+    }
+
+    @FunctionalInterface
+    private static interface Invoker {
+        public Object invoke(ProgramState state) throws ProgramException;
+    }
 }
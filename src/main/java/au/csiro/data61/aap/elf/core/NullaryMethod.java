@@ -0,0 +1,17 @@
+package au.csiro.data61.aap.elf.core;
+
+import au.csiro.data61.aap.elf.core.exceptions.ProgramException;
+
+/**
+ * A method without parameters, which can be called without a parameter array.
+ */
+@FunctionalInterface
+public interface NullaryMethod extends Method {
+    public Object call(ProgramState state) throws ProgramException;
+
+    @Override
+    public default Object call(Object[] parameters, ProgramState state) throws ProgramException {
+        assert parameters != null && parameters.length == 0;
+        return this.call(state);
+    }
+}
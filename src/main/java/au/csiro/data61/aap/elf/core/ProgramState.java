@@ -1,5 +1,6 @@
 package au.csiro.data61.aap.elf.core;
 
+import java.math.BigInteger;
 import java.nio.file.Path;
 import java.util.List;
 
@@ -17,6 +18,13 @@ public class ProgramState {
     private final DataReader reader;
     private final DataWriters writers;
     private final ExceptionHandler exceptionHandler;
+    private int checkpointInterval;
+    private boolean resume;
+    private boolean resumeCheckpointLoaded;
+    private Checkpoint resumeCheckpoint;
+    private int filterCount;
+    private int parallelism = 1;
+    private boolean compiledExecution;
 
     public ProgramState() {
         this.valueStore = new ValueStore();
@@ -25,6 +33,36 @@ public class ProgramState {
         this.writers = new DataWriters();
     }
 
+    private ProgramState(ProgramState parent, ValueStore valueStore) throws Throwable {
+        this.valueStore = valueStore;
+        this.reader = parent.reader.createWorkerReader();
+        this.exceptionHandler = parent.exceptionHandler;
+        this.writers = parent.writers.createWorkerWriters();
+        this.compiledExecution = parent.compiledExecution;
+    }
+
+    /**
+     * Creates a state for a worker thread. The worker shares the client and exception handler, but has its own copy of
+     * the variables and its own writers.
+     */
+    public ProgramState createWorkerState() throws ProgramException {
+        final ValueStore workerStore = new ValueStore();
+        workerStore.restore(this.valueStore.snapshot());
+        return this.createWorkerState(workerStore);
+    }
+
+    /**
+     * Creates a state for a worker thread that uses the given variables.
+     */
+    public ProgramState createWorkerState(ValueStore workerStore) throws ProgramException {
+        assert workerStore != null;
+        try {
+            return new ProgramState(this, workerStore);
+        } catch (Throwable cause) {
+            throw new ProgramException("Error when creating a worker state.", cause);
+        }
+    }
+
     public ValueStore getValueStore() {
         return this.valueStore;
     }
@@ -59,6 +97,88 @@ public class ProgramState {
         return this.writers;
     }
 
+    public int getParallelism() {
+        return this.parallelism;
+    }
+
+    /**
+     * Sets the number of threads that process block independent scopes, see {@link #createWorkerState()}.
+     */
+    public void setParallelism(int parallelism) {
+        assert 0 < parallelism;
+        this.parallelism = parallelism;
+    }
+
+    public boolean isCompiledExecution() {
+        return this.compiledExecution;
+    }
+
+    /**
+     * Sets whether filters compile their instructions into method handles before executing them.
+     */
+    public void setCompiledExecution(boolean compiledExecution) {
+        this.compiledExecution = compiledExecution;
+    }
+
+    public int getCheckpointInterval() {
+        return this.checkpointInterval;
+    }
+
+    /**
+     * Sets the number of blocks after which a checkpoint is written to the output folder. Checkpoints line up with the
+     * per block output files, so they are only written for streaming output.
+     */
+    public void setCheckpointInterval(int checkpointInterval) {
+        assert 0 <= checkpointInterval;
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    public boolean isCheckpointing() {
+        return 0 < this.checkpointInterval && this.writers.isStreaming() && this.writers.getOutputFolder() != null;
+    }
+
+    /**
+     * Makes the program continue from the checkpoint in the output folder, if there is one.
+     */
+    public void setResume(boolean resume) {
+        this.resume = resume;
+    }
+
+    /**
+     * Returns the index of the next block filter, which identifies the filter in checkpoints.
+     */
+    public int nextFilterIndex() {
+        return this.filterCount++;
+    }
+
+    /**
+     * Returns the checkpoint to resume from or null, if the program starts from the beginning.
+     */
+    public Checkpoint getResumeCheckpoint() throws ProgramException {
+        if (!this.resume || this.resumeCheckpointLoaded) {
+            return this.resumeCheckpoint;
+        }
+
+        this.resumeCheckpointLoaded = true;
+        if (this.writers.getOutputFolder() == null) {
+            return null;
+        }
+        try {
+            this.resumeCheckpoint = Checkpoint.read(this.writers.getOutputFolder());
+        } catch (Throwable cause) {
+            throw new ProgramException("Error when reading the checkpoint.", cause);
+        }
+        return this.resumeCheckpoint;
+    }
+
+    public void writeCheckpoint(int filterIndex, BigInteger block) throws ProgramException {
+        try {
+            new Checkpoint(filterIndex, block, this.valueStore.snapshot()).write(this.writers.getOutputFolder());
+        } catch (Throwable cause) {
+            throw new ProgramException("Error when writing the checkpoint.", cause);
+        }
+    }
+
     public void close() {
         this.getReader().close();
     }
@@ -71,6 +191,14 @@ public class ProgramState {
         return null;
     }
 
+    public static Object connectHttpClient(Object[] parameters, ProgramState state) throws ProgramException {
+        assert parameters != null && parameters.length == 1;
+        assert parameters[0] instanceof String;
+        final String url = (String) parameters[0];
+        state.getReader().connectHttp(url);
+        return null;
+    }
+
     public static Object connectIpcClient(Object[] parameters, ProgramState state) throws ProgramException {
         assert parameters != null && parameters.length == 1;
         assert parameters[0] instanceof String;
@@ -79,6 +207,166 @@ public class ProgramState {
         return null;
     }
 
+    @SuppressWarnings("unchecked")
+    public static Object connectPool(Object[] parameters, ProgramState state) throws ProgramException {
+        assert parameters != null && parameters.length == 1;
+        assert parameters[0] instanceof List;
+        final List<String> endpoints = (List<String>) parameters[0];
+        state.getReader().connectPool(endpoints);
+        return null;
+    }
+
+    public static Object connectArchive(Object[] parameters, ProgramState state) throws ProgramException {
+        assert parameters != null && parameters.length == 1;
+        assert parameters[0] instanceof String;
+        final String folder = (String) parameters[0];
+        state.getReader().connectArchive(folder);
+        return null;
+    }
+
+    public static Object setBlockPrefetchWindow(Object[] parameters, ProgramState state) throws ProgramException {
+        assert parameters != null && parameters.length == 1;
+        assert parameters[0] instanceof BigInteger;
+        try {
+            final int window = ((BigInteger) parameters[0]).intValueExact();
+            if (window < 0) {
+                throw new IllegalArgumentException(String.format("The prefetch window must not be negative, but was %s.", window));
+            }
+            state.getReader().setPrefetchWindow(window);
+        } catch (Throwable e) {
+            throw new ProgramException("Error when setting the block prefetch window.", e);
+        }
+        return null;
+    }
+
+    public static Object setBackfillWindow(Object[] parameters, ProgramState state) throws ProgramException {
+        assert parameters != null && parameters.length == 1;
+        assert parameters[0] instanceof BigInteger;
+        try {
+            final int window = ((BigInteger) parameters[0]).intValueExact();
+            if (window < 0) {
+                throw new IllegalArgumentException(String.format("The backfill window must not be negative, but was %s.", window));
+            }
+            state.getReader().setBackfillWindow(window);
+        } catch (Throwable e) {
+            throw new ProgramException("Error when setting the backfill window.", e);
+        }
+        return null;
+    }
+
+    public static Object setStreamingOutput(Object[] parameters, ProgramState state) throws ProgramException {
+        assert parameters != null && parameters.length == 1;
+        assert parameters[0] instanceof Boolean;
+        state.getWriters().setStreaming((Boolean) parameters[0]);
+        return null;
+    }
+
+    public static Object setCompiledExecution(Object[] parameters, ProgramState state) throws ProgramException {
+        assert parameters != null && parameters.length == 1;
+        assert parameters[0] instanceof Boolean;
+        state.setCompiledExecution((Boolean) parameters[0]);
+        return null;
+    }
+
+    public static Object setReorgDepth(Object[] parameters, ProgramState state) throws ProgramException {
+        assert parameters != null && parameters.length == 1;
+        assert parameters[0] instanceof BigInteger;
+        try {
+            final int depth = ((BigInteger) parameters[0]).intValueExact();
+            if (depth < 0) {
+                throw new IllegalArgumentException(String.format("The reorg depth must not be negative, but was %s.", depth));
+            }
+            state.getWriters().setReorgDepth(depth);
+            state.getValueStore().setReorgDepth(depth);
+        } catch (Throwable e) {
+            throw new ProgramException("Error when setting the reorg depth.", e);
+        }
+        return null;
+    }
+
+    public static Object setReorgWindow(Object[] parameters, ProgramState state) throws ProgramException {
+        assert parameters != null && parameters.length == 1;
+        assert parameters[0] instanceof BigInteger;
+        try {
+            final int window = ((BigInteger) parameters[0]).intValueExact();
+            if (window <= 0) {
+                throw new IllegalArgumentException(String.format("The reorg window must be positive, but was %s.", window));
+            }
+            state.getReader().setReorgWindow(window);
+        } catch (Throwable e) {
+            throw new ProgramException("Error when setting the reorg window.", e);
+        }
+        return null;
+    }
+
+    public static Object setCheckpointInterval(Object[] parameters, ProgramState state) throws ProgramException {
+        assert parameters != null && parameters.length == 1;
+        assert parameters[0] instanceof BigInteger;
+        try {
+            final int interval = ((BigInteger) parameters[0]).intValueExact();
+            if (interval < 0) {
+                throw new IllegalArgumentException(String.format("The checkpoint interval must not be negative, but was %s.", interval));
+            }
+            state.setCheckpointInterval(interval);
+        } catch (Throwable e) {
+            throw new ProgramException("Error when setting the checkpoint interval.", e);
+        }
+        return null;
+    }
+
+    public static Object setParallelism(Object[] parameters, ProgramState state) throws ProgramException {
+        assert parameters != null && parameters.length == 1;
+        assert parameters[0] instanceof BigInteger;
+        try {
+            final int parallelism = ((BigInteger) parameters[0]).intValueExact();
+            if (parallelism <= 0) {
+                throw new IllegalArgumentException(String.format("The parallelism must be positive, but was %s.", parallelism));
+            }
+            state.setParallelism(parallelism);
+        } catch (Throwable e) {
+            throw new ProgramException("Error when setting the parallelism.", e);
+        }
+        return null;
+    }
+
+    public static Object setRequestHedging(Object[] parameters, ProgramState state) throws ProgramException {
+        assert parameters != null && parameters.length == 2;
+        assert parameters[0] instanceof BigInteger;
+        assert parameters[1] instanceof BigInteger;
+        try {
+            final int percentile = ((BigInteger) parameters[0]).intValueExact();
+            final int maxExtraLoad = ((BigInteger) parameters[1]).intValueExact();
+            if (percentile <= 0 || 100 <= percentile) {
+                throw new IllegalArgumentException(
+                    String.format("The hedging percentile must be between 0 and 100, but was %s.", percentile)
+                );
+            }
+            if (maxExtraLoad < 0) {
+                throw new IllegalArgumentException(String.format("The extra load must not be negative, but was %s%%.", maxExtraLoad));
+            }
+            state.getReader().setRequestHedging(percentile / 100.0, maxExtraLoad / 100.0);
+        } catch (Throwable e) {
+            throw new ProgramException("Error when setting the request hedging.", e);
+        }
+        return null;
+    }
+
+    public static Object setBlockStore(Object[] parameters, ProgramState state) throws ProgramException {
+        assert parameters != null && parameters.length == 2;
+        assert parameters[0] instanceof String;
+        assert parameters[1] instanceof BigInteger;
+        try {
+            final long maxSize = ((BigInteger) parameters[1]).multiply(BigInteger.valueOf(1024 * 1024)).longValueExact();
+            if (maxSize <= 0) {
+                throw new IllegalArgumentException(String.format("The block store size must be positive, but was %s MB.", parameters[1]));
+            }
+            state.getReader().setBlockStore((String) parameters[0], maxSize);
+        } catch (Throwable e) {
+            throw new ProgramException("Error when setting the block store.", e);
+        }
+        return null;
+    }
+
     public static Object setOutputFolder(Object[] parameters, ProgramState state) throws ProgramException {
         assert parameters != null && parameters.length == 1;
         assert parameters[0] instanceof String;
@@ -0,0 +1,17 @@
+package au.csiro.data61.aap.elf.core;
+
+import au.csiro.data61.aap.elf.core.exceptions.ProgramException;
+
+/**
+ * A method with one parameter, which can be called without a parameter array.
+ */
+@FunctionalInterface
+public interface UnaryMethod extends Method {
+    public Object call(Object parameter, ProgramState state) throws ProgramException;
+
+    @Override
+    public default Object call(Object[] parameters, ProgramState state) throws ProgramException {
+        assert parameters != null && parameters.length == 1;
+        return this.call(parameters[0], state);
+    }
+}
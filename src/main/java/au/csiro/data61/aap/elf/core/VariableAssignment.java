@@ -1,5 +1,8 @@
 package au.csiro.data61.aap.elf.core;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+
 import au.csiro.data61.aap.elf.core.exceptions.ProgramException;
 import au.csiro.data61.aap.elf.core.values.ValueAccessor;
 import au.csiro.data61.aap.elf.core.values.ValueMutator;
@@ -23,4 +26,9 @@ public class VariableAssignment implements Instruction {
         final Object value = this.valueAccessor.getValue(state);
         this.valueMutator.setValue(value, state);
     }
+
+    @Override
+    public MethodHandle toMethodHandle() {
+        return MethodHandles.foldArguments(this.valueMutator.toMethodHandle(), this.valueAccessor.toMethodHandle());
+    }
 }
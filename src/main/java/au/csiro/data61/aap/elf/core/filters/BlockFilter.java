@@ -2,25 +2,31 @@ package au.csiro.data61.aap.elf.core.filters;
 
 import java.math.BigInteger;
 import java.util.Arrays;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
 import java.util.logging.Logger;
 
 import au.csiro.data61.aap.elf.core.exceptions.ProgramException;
+import au.csiro.data61.aap.elf.core.Checkpoint;
 import au.csiro.data61.aap.elf.core.Instruction;
 import au.csiro.data61.aap.elf.core.ProgramState;
 import au.csiro.data61.aap.elf.core.values.ValueAccessor;
+import au.csiro.data61.aap.elf.core.readers.BlockPrefetcher;
 import au.csiro.data61.aap.elf.core.readers.EthereumBlock;
+import au.csiro.data61.aap.elf.core.readers.HeadTracker;
+import au.csiro.data61.aap.elf.core.readers.LogBlockScanner;
+import au.csiro.data61.aap.elf.core.readers.LogEntryQuery;
 
 /**
  * BlockRange
  */
 public class BlockFilter extends Filter {
     private final Logger LOGGER = Logger.getLogger(BlockFilter.class.getName());
-    private static final int KNOWN_BLOCKS_LENGTH = 30;
+    static final BigInteger LIVE_DEPTH = BigInteger.valueOf(12);
     private final ValueAccessor fromBlock;
     private final FilterPredicate<BigInteger> stopCriteria;
+    private final LogEntryQuery logEntryQuery;
+    private ParallelExecution parallelExecution;
 
     public BlockFilter(final ValueAccessor fromBlock, FilterPredicate<BigInteger> stopCriteria, Instruction... instructions) {
         this(fromBlock, stopCriteria, Arrays.asList(instructions));
@@ -33,72 +39,303 @@ public class BlockFilter extends Filter {
         assert instructions != null && instructions.stream().allMatch(Objects::nonNull);
         this.fromBlock = fromBlock;
         this.stopCriteria = stopCriteria;
+        this.logEntryQuery = LogEntryQueryPlanner.plan(instructions);
+        this.parallelExecution = ParallelExecution.NONE;
     }
 
+    /**
+     * Returns the query used to skip blocks without relevant log entries or null, if all blocks must be processed.
+     */
+    public LogEntryQuery getLogEntryQuery() {
+        return this.logEntryQuery;
+    }
+
+    public ParallelExecution getParallelExecution() {
+        return this.parallelExecution;
+    }
+
+    /**
+     * Sets how historical blocks may be processed in parallel, if the parallelism of the program state is larger than
+     * one.
+     */
+    public void setParallelExecution(ParallelExecution parallelExecution) {
+        assert parallelExecution != null;
+        this.parallelExecution = parallelExecution;
+    }
+
+    /**
+     * Processes the blocks one by one. Blocks that are at least {@link #LIVE_DEPTH} blocks behind the head are backfilled
+     * with a large prefetch window. Closer to the head, blocks are fetched with the regular prefetch window as soon as they
+     * appear. Both phases hand out the same sequence of blocks, so switching between them neither skips nor repeats
+     * blocks.
+     */
     public void execute(final ProgramState state) throws ProgramException {
-        final LinkedList<EthereumBlock> knownBlocks = new LinkedList<>();
-        final BigInteger startBlock = (BigInteger) fromBlock.getValue(state);
-        BigInteger currentBlock = startBlock;
-        while (!this.stopCriteria.test(state, currentBlock)) {
-            try {
-                this.waitForBlockExistence(state, currentBlock);
+        final int filterIndex = state.nextFilterIndex();
+        final Checkpoint checkpoint = state.getResumeCheckpoint();
+        if (checkpoint != null && filterIndex < checkpoint.getFilterIndex()) {
+            LOGGER.info(String.format("Block filter %s was finished before the checkpoint and is skipped.", filterIndex));
+            return;
+        }
+        final BigInteger startBlock = checkpoint != null && filterIndex == checkpoint.getFilterIndex()
+            ? this.resume(state, checkpoint)
+            : (BigInteger) fromBlock.getValue(state);
+        if (0 < state.getCheckpointInterval() && !state.isCheckpointing()) {
+            LOGGER.warning("Checkpoints are only written for streaming output to an output folder.");
+        }
 
-                final EthereumBlock block = queryConfirmedBlock(state, currentBlock, knownBlocks);
-                if (!block.getNumber().equals(currentBlock)) {
-                    currentBlock = block.getNumber();
+        final ReorgWindow knownBlocks = new ReorgWindow(state.getReader().getReorgWindow());
+        final BlockPrefetcher prefetcher = new BlockPrefetcher(
+            state.getReader().getClient(),
+            state.getReader().getPrefetchWindow(),
+            state.getReader().getRequiredData()
+        );
+        final BlockPrefetcher backfillPrefetcher = new BlockPrefetcher(
+            state.getReader().getClient(),
+            Math.max(state.getReader().getBackfillWindow(), state.getReader().getPrefetchWindow()),
+            state.getReader().getRequiredData()
+        );
+        boolean backfilling = true;
+        final LogBlockScanner scanner = this.logEntryQuery == null
+            ? null
+            : new LogBlockScanner(state.getReader().getClient(), this.logEntryQuery);
+        final HeadTracker headTracker = new HeadTracker(state.getReader().getClient());
+        headTracker.start();
+        BigInteger currentBlock = startBlock;
+        int blocksSinceCheckpoint = 0;
+        try {
+            if (this.isParallelizable(state)) {
+                final BigInteger nextBlock = this.executeInParallel(state, headTracker, currentBlock);
+                if (nextBlock == null) {
+                    return;
                 }
-                LOGGER.info(String.format("Processing of block %s started.", currentBlock));
+                currentBlock = nextBlock;
+            }
 
-                state.getWriters().startNewBlock(currentBlock);
-                state.getReader().setCurrentBlock(block);
+            while (!this.stopCriteria.test(state, currentBlock)) {
+                try {
+                    final BigInteger headBlock = headTracker.awaitBlock(currentBlock);
+                    if (scanner != null) {
+                        final BigInteger lastScanBlock = this.lastBlockBeforeStop(state, currentBlock, headBlock);
+                        final BigInteger nextBlock = scanner.nextBlock(currentBlock, lastScanBlock);
+                        if (nextBlock == null) {
+                            currentBlock = lastScanBlock.add(BigInteger.ONE);
+                            continue;
+                        }
+                        currentBlock = nextBlock;
+                    }
 
-                this.executeInstructions(state);
-                state.getWriters().writeBlock();
+                    backfilling = isBackfilling(headTracker, currentBlock, headBlock, backfilling);
+                    final BlockPrefetcher activePrefetcher = backfilling ? backfillPrefetcher : prefetcher;
+                    final BigInteger prefetchHead = backfilling ? headTracker.getHead().subtract(LIVE_DEPTH) : headBlock;
+                    final BigInteger lastBlock = scanner == null
+                        ? this.lastPrefetchableBlock(state, currentBlock, prefetchHead, activePrefetcher.getWindowSize())
+                        : currentBlock;
 
-                LOGGER.info(String.format("Processing of block %s finished.", currentBlock));
+                    final EthereumBlock block = queryConfirmedBlock(currentBlock, lastBlock, knownBlocks, activePrefetcher);
+                    if (!block.getNumber().equals(currentBlock)) {
+                        this.rollback(state, block.getNumber());
+                        currentBlock = block.getNumber();
+                    }
+                    LOGGER.info(String.format("Processing of block %s started.", currentBlock));
 
-            } catch (final Throwable throwable) {
-                final String message = String.format("Error when processing block number '%s'.", currentBlock.toString());
-                final boolean abort = state.getExceptionHandler().handleExceptionAndDecideOnAbort(message, throwable);
-                if (abort) {
-                    return;
+                    state.getWriters().startNewBlock(currentBlock);
+                    state.getValueStore().startBlock(currentBlock);
+                    state.getReader().setCurrentBlock(block);
+
+                    this.executeInstructions(state);
+                    state.getWriters().writeBlock();
+                    if (state.isCheckpointing() && state.getCheckpointInterval() <= ++blocksSinceCheckpoint) {
+                        state.writeCheckpoint(filterIndex, currentBlock);
+                        blocksSinceCheckpoint = 0;
+                    }
+
+                    LOGGER.info(String.format("Processing of block %s finished.", currentBlock));
+
+                } catch (final Throwable throwable) {
+                    final String message = String.format("Error when processing block number '%s'.", currentBlock.toString());
+                    final boolean abort = state.getExceptionHandler().handleExceptionAndDecideOnAbort(message, throwable);
+                    if (abort) {
+                        return;
+                    }
+                } finally {
+                    state.getReader().setCurrentBlock(null);
                 }
-            } finally {
-                state.getReader().setCurrentBlock(null);
+
+                currentBlock = currentBlock.add(BigInteger.ONE);
+            }
+
+            if (state.isCheckpointing()) {
+                this.finishCheckpoints(state, filterIndex);
+            }
+        } finally {
+            state.getValueStore().clearJournals();
+            headTracker.close();
+            prefetcher.close();
+            backfillPrefetcher.close();
+        }
+    }
+
+    private boolean isParallelizable(final ProgramState state) {
+        return this.parallelExecution != ParallelExecution.NONE
+            && 1 < state.getParallelism()
+            && !state.isCheckpointing()
+            && state.getWriters().getReorgDepth() == 0;
+    }
+
+    /**
+     * Processes the blocks that are at least {@link #LIVE_DEPTH} blocks behind the head in parallel, either in independent
+     * shards or speculatively, depending on {@link #getParallelExecution()}. Returns the next
+     * block to process or null, if the processing was aborted.
+     */
+    private BigInteger executeInParallel(final ProgramState state, final HeadTracker headTracker, final BigInteger fromBlock)
+        throws ProgramException {
+        final int batchSize = Math.max(state.getReader().getBackfillWindow(), state.getReader().getPrefetchWindow());
+        try {
+            final BigInteger safeHead = headTracker.refreshHead().subtract(LIVE_DEPTH);
+            if (safeHead.compareTo(fromBlock) < 0 || this.stopCriteria.test(state, fromBlock)) {
+                return fromBlock;
             }
 
-            currentBlock = currentBlock.add(BigInteger.ONE);
+            final BigInteger toBlock = this.lastBlockBeforeStop(state, fromBlock, safeHead);
+            final boolean aborted = this.parallelExecution == ParallelExecution.SHARDED
+                ? new ParallelBlockExecutor(this, this.logEntryQuery, state.getParallelism(), batchSize).execute(state, fromBlock, toBlock)
+                : new SpeculativeBlockExecutor(this, this.logEntryQuery, state.getParallelism(), batchSize).execute(
+                    state,
+                    fromBlock,
+                    toBlock
+                );
+            return aborted ? null : toBlock.add(BigInteger.ONE);
+        } catch (ProgramException ex) {
+            throw ex;
+        } catch (Throwable cause) {
+            throw new ProgramException("Error when querying the head block.", cause);
         }
     }
 
-    private void waitForBlockExistence(final ProgramState state, final BigInteger currentBlock) throws Throwable, InterruptedException {
-        while (state.getReader().getClient().queryBlockNumber().compareTo(currentBlock) < 0) {
-            Thread.sleep(3000);
+    /**
+     * Restores the variables of the checkpoint and returns the block after the last block processed before the
+     * checkpoint.
+     */
+    private BigInteger resume(final ProgramState state, final Checkpoint checkpoint) throws ProgramException {
+        state.getValueStore().restore(checkpoint.getValues());
+        if (checkpoint.getBlock() == null) {
+            return (BigInteger) fromBlock.getValue(state);
         }
+
+        LOGGER.info(String.format("Resuming after block %s.", checkpoint.getBlock()));
+        try {
+            state.getWriters().resumeAfter(checkpoint.getBlock());
+        } catch (Throwable cause) {
+            throw new ProgramException("Error when resuming the output.", cause);
+        }
+        return checkpoint.getBlock().add(BigInteger.ONE);
     }
 
-    private static EthereumBlock queryConfirmedBlock(
+    /**
+     * Commits all pending output and records that the filter is finished, so that it is skipped when resuming.
+     */
+    private void finishCheckpoints(final ProgramState state, final int filterIndex) throws ProgramException {
+        try {
+            state.getWriters().commitPendingBlocks();
+        } catch (Throwable cause) {
+            throw new ProgramException("Error when committing the pending output.", cause);
+        }
+        state.writeCheckpoint(filterIndex + 1, null);
+    }
+
+    /**
+     * A block is backfilled if it is at least {@link #LIVE_DEPTH} blocks behind the head. Before switching from backfill
+     * to live processing, the head is refreshed, since the known head may be outdated after a long backfill.
+     */
+    private static boolean isBackfilling(
+        final HeadTracker headTracker,
+        final BigInteger currentBlock,
+        final BigInteger headBlock,
+        final boolean backfilling
+    ) throws Throwable {
+        if (currentBlock.compareTo(headBlock.subtract(LIVE_DEPTH)) <= 0) {
+            return true;
+        }
+        if (!backfilling) {
+            return false;
+        }
+        return currentBlock.compareTo(headTracker.refreshHead().subtract(LIVE_DEPTH)) <= 0;
+    }
+
+    /**
+     * Undoes the output and variable changes of blocks that were orphaned by a reorg, so that the blocks of the new chain
+     * can be processed in their place.
+     */
+    private void rollback(final ProgramState state, final BigInteger fromBlock) throws Throwable {
+        if (state.getWriters().getReorgDepth() == 0) {
+            return;
+        }
+
+        LOGGER.info(String.format("Reorg detected, rolling back blocks starting with block %s.", fromBlock));
+        final boolean writersRolledBack = state.getWriters().rollback(fromBlock);
+        final boolean valuesRolledBack = state.getValueStore().rollback(fromBlock);
+        if (!writersRolledBack || !valuesRolledBack) {
+            LOGGER.warning(String.format("Reorg at block %s is deeper than the reorg depth and cannot be fully rolled back.", fromBlock));
+        }
+    }
+
+    private BigInteger lastPrefetchableBlock(
         final ProgramState state,
         final BigInteger currentBlock,
-        final LinkedList<EthereumBlock> knownBlocks
+        final BigInteger headBlock,
+        final int windowSize
+    ) throws ProgramException {
+        BigInteger lastBlock = currentBlock;
+        for (int i = 0; i < windowSize; i++) {
+            final BigInteger candidate = lastBlock.add(BigInteger.ONE);
+            if (headBlock.compareTo(candidate) < 0 || this.stopCriteria.test(state, candidate)) {
+                break;
+            }
+            lastBlock = candidate;
+        }
+        return lastBlock;
+    }
+
+    private BigInteger lastBlockBeforeStop(final ProgramState state, final BigInteger currentBlock, final BigInteger headBlock)
+        throws ProgramException {
+        if (!this.stopCriteria.test(state, headBlock)) {
+            return headBlock;
+        }
+
+        BigInteger lower = currentBlock;
+        BigInteger upper = headBlock;
+        while (lower.add(BigInteger.ONE).compareTo(upper) < 0) {
+            final BigInteger middle = lower.add(upper).shiftRight(1);
+            if (this.stopCriteria.test(state, middle)) {
+                upper = middle;
+            } else {
+                lower = middle;
+            }
+        }
+        return lower;
+    }
+
+    private static EthereumBlock queryConfirmedBlock(
+        final BigInteger currentBlock,
+        final BigInteger lastBlock,
+        final ReorgWindow knownBlocks,
+        final BlockPrefetcher prefetcher
     ) throws Throwable {
         BigInteger queryBlockNumber = currentBlock;
         do {
-            final EthereumBlock block = state.getReader().getClient().queryBlockData(queryBlockNumber);
-            if (knownBlocks.isEmpty() || knownBlocks.getLast().getHash().equals(block.getParentHash())) {
-                appendBlock(knownBlocks, block);
+            final EthereumBlock block = prefetcher.queryBlockData(queryBlockNumber, lastBlock);
+            final long number = block.getNumber().longValueExact();
+            if (!knownBlocks.isEmpty() && knownBlocks.lastNumber() + 1 != number) {
+                knownBlocks.clear();
+            }
+            if (knownBlocks.isEmpty() || knownBlocks.lastHash().equals(block.getParentHash())) {
+                knownBlocks.append(number, block.getHash());
                 return block;
             }
 
+            prefetcher.clear();
             queryBlockNumber = queryBlockNumber.subtract(BigInteger.ONE);
             knownBlocks.removeLast();
         } while (true);
     }
-
-    public static void appendBlock(final LinkedList<EthereumBlock> knownBlocks, final EthereumBlock block) {
-        knownBlocks.addLast(block);
-        if (KNOWN_BLOCKS_LENGTH < knownBlocks.size()) {
-            knownBlocks.removeFirst();
-        }
-    }
 }
@@ -1,27 +1,97 @@
 package au.csiro.data61.aap.elf.core.filters;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
+import java.util.stream.Collectors;
 
 import au.csiro.data61.aap.elf.core.exceptions.ProgramException;
 import au.csiro.data61.aap.elf.core.Instruction;
+import au.csiro.data61.aap.elf.core.InstructionHandles;
 import au.csiro.data61.aap.elf.core.ProgramState;
 
 /**
  * Scope
  */
 public abstract class Filter implements Instruction {
+    private static final MethodHandle RELEASE_FRAME = InstructionHandles.findStatic(
+        MethodHandles.lookup(),
+        Filter.class,
+        "releaseFrame",
+        MethodType.methodType(void.class, Throwable.class, ProgramState.class, int[].class)
+    );
+
     private final List<Instruction> instructions;
+    private int[] frame;
+    private volatile MethodHandle compiledInstructions;
 
     public Filter(List<Instruction> instructions) {
         assert instructions != null && instructions.stream().allMatch(Objects::nonNull);
         this.instructions = new LinkedList<>(instructions);
+        this.frame = new int[0];
+    }
+
+    /**
+     * Sets the slots of the variables declared in the scope of this filter. They are released after each execution of
+     * the scope.
+     */
+    public void setFrame(int[] frame) {
+        assert frame != null;
+        this.frame = frame;
     }
 
     protected void executeInstructions(ProgramState state) throws ProgramException {
-        for (Instruction instruction : this.instructions) {
-            instruction.execute(state);
+        if (state.isCompiledExecution()) {
+            this.executeCompiledInstructions(state);
+            return;
+        }
+
+        try {
+            for (Instruction instruction : this.instructions) {
+                instruction.execute(state);
+            }
+        } finally {
+            state.getValueStore().releaseFrame(this.frame);
+        }
+    }
+
+    private void executeCompiledInstructions(ProgramState state) throws ProgramException {
+        try {
+            this.compileInstructions().invokeExact(state);
+        } catch (ProgramException | RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable cause) {
+            throw new ProgramException("Error when executing compiled instructions.", cause);
         }
     }
+
+    /**
+     * Compiles the instructions of this filter into one method handle of the
+     * {@link InstructionHandles#INSTRUCTION_TYPE}, which also releases the frame. Nested generic filters are compiled
+     * into it, other nested filters compile their instructions when they are executed.
+     */
+    protected MethodHandle compileInstructions() {
+        MethodHandle compiled = this.compiledInstructions;
+        if (compiled == null) {
+            compiled = InstructionHandles.sequence(
+                this.instructions.stream().map(Instruction::toMethodHandle).collect(Collectors.toList())
+            );
+            if (this.frame.length != 0) {
+                compiled = MethodHandles.tryFinally(compiled, MethodHandles.insertArguments(RELEASE_FRAME, 2, (Object) this.frame));
+            }
+            this.compiledInstructions = compiled;
+        }
+        return compiled;
+    }
+
+    public boolean isCompiled() {
+        return this.compiledInstructions != null;
+    }
+
+    private static void releaseFrame(Throwable throwable, ProgramState state, int[] frame) {
+        state.getValueStore().releaseFrame(frame);
+    }
 }
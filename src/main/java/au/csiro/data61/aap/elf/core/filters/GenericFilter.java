@@ -1,8 +1,11 @@
 package au.csiro.data61.aap.elf.core.filters;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.util.List;
 
 import au.csiro.data61.aap.elf.core.Instruction;
+import au.csiro.data61.aap.elf.core.InstructionHandles;
 import au.csiro.data61.aap.elf.core.ProgramState;
 import au.csiro.data61.aap.elf.core.exceptions.ProgramException;
 
@@ -25,4 +28,9 @@ public class GenericFilter extends Filter {
         }
     }
 
+    @Override
+    public MethodHandle toMethodHandle() {
+        return MethodHandles.guardWithTest(this.predicate.toMethodHandle(), this.compileInstructions(), InstructionHandles.NO_OP);
+    }
+
 }
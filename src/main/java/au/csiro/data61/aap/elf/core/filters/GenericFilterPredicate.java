@@ -1,5 +1,10 @@
 package au.csiro.data61.aap.elf.core.filters;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+import au.csiro.data61.aap.elf.core.InstructionHandles;
 import au.csiro.data61.aap.elf.core.ProgramState;
 import au.csiro.data61.aap.elf.core.exceptions.ProgramException;
 
@@ -8,5 +13,63 @@ import au.csiro.data61.aap.elf.core.exceptions.ProgramException;
  */
 @FunctionalInterface
 public interface GenericFilterPredicate {
+    public static final MethodType PREDICATE_TYPE = MethodType.methodType(boolean.class, ProgramState.class);
+
     public boolean test(ProgramState state) throws ProgramException;
+
+    /**
+     * Returns a method handle of the {@link #PREDICATE_TYPE} that evaluates this predicate.
+     */
+    public default MethodHandle toMethodHandle() {
+        return InstructionHandles.findVirtual(MethodHandles.lookup(), GenericFilterPredicate.class, "test", PREDICATE_TYPE).bindTo(this);
+    }
+
+    public static GenericFilterPredicate and(GenericFilterPredicate predicate1, GenericFilterPredicate predicate2) {
+        assert predicate1 != null && predicate2 != null;
+        return new GenericFilterPredicate() {
+            @Override
+            public boolean test(ProgramState state) throws ProgramException {
+                return predicate1.test(state) && predicate2.test(state);
+            }
+
+            @Override
+            public MethodHandle toMethodHandle() {
+                return MethodHandles.guardWithTest(predicate1.toMethodHandle(), predicate2.toMethodHandle(), constant(false));
+            }
+        };
+    }
+
+    public static GenericFilterPredicate or(GenericFilterPredicate predicate1, GenericFilterPredicate predicate2) {
+        assert predicate1 != null && predicate2 != null;
+        return new GenericFilterPredicate() {
+            @Override
+            public boolean test(ProgramState state) throws ProgramException {
+                return predicate1.test(state) || predicate2.test(state);
+            }
+
+            @Override
+            public MethodHandle toMethodHandle() {
+                return MethodHandles.guardWithTest(predicate1.toMethodHandle(), constant(true), predicate2.toMethodHandle());
+            }
+        };
+    }
+
+    public static GenericFilterPredicate not(GenericFilterPredicate predicate) {
+        assert predicate != null;
+        return new GenericFilterPredicate() {
+            @Override
+            public boolean test(ProgramState state) throws ProgramException {
+                return !predicate.test(state);
+            }
+
+            @Override
+            public MethodHandle toMethodHandle() {
+                return MethodHandles.guardWithTest(predicate.toMethodHandle(), constant(false), constant(true));
+            }
+        };
+    }
+
+    private static MethodHandle constant(boolean value) {
+        return MethodHandles.dropArguments(MethodHandles.constant(boolean.class, value), 0, ProgramState.class);
+    }
 }
@@ -1,5 +1,6 @@
 package au.csiro.data61.aap.elf.core.filters;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -16,20 +17,42 @@ import au.csiro.data61.aap.elf.core.ProgramState;
  */
 public class LogEntryFilter extends Filter {
     private final FilterPredicate<String> contractCriterion;
+    private final List<String> contracts;
     private final LogEntrySignature signature;
 
     public LogEntryFilter(FilterPredicate<String> contractCriterion, LogEntrySignature signature, Instruction... instructions) {
-        this(contractCriterion, signature, Arrays.asList(instructions));
+        this(contractCriterion, null, signature, Arrays.asList(instructions));
     }
 
     public LogEntryFilter(FilterPredicate<String> contractCriterion, LogEntrySignature signature, List<Instruction> instructions) {
+        this(contractCriterion, null, signature, instructions);
+    }
+
+    public LogEntryFilter(
+        FilterPredicate<String> contractCriterion,
+        List<String> contracts,
+        LogEntrySignature signature,
+        List<Instruction> instructions
+    ) {
         super(instructions);
         assert signature != null;
         assert instructions != null;
         this.contractCriterion = contractCriterion;
+        this.contracts = contracts == null ? null : new ArrayList<>(contracts);
         this.signature = signature;
     }
 
+    /**
+     * Returns the contract addresses, if they are known before execution, or null otherwise.
+     */
+    public List<String> getContracts() {
+        return this.contracts;
+    }
+
+    public LogEntrySignature getSignature() {
+        return this.signature;
+    }
+
     @Override
     public void execute(ProgramState state) throws ProgramException {
         final List<EthereumLogEntry> logEntries = this.getEntries(state);
@@ -0,0 +1,42 @@
+package au.csiro.data61.aap.elf.core.filters;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import au.csiro.data61.aap.elf.core.Instruction;
+import au.csiro.data61.aap.elf.core.readers.LogEntryQuery;
+
+/**
+ * LogEntryQueryPlanner derives a server-side {@link LogEntryQuery} for a block scope. This is only possible, if the scope
+ * solely consists of log entry filters with contract addresses that are known before execution, as blocks without
+ * matching log entries do not have any effect on the program then.
+ */
+class LogEntryQueryPlanner {
+
+    private LogEntryQueryPlanner() {}
+
+    static LogEntryQuery plan(List<Instruction> instructions) {
+        if (instructions.isEmpty()) {
+            return null;
+        }
+
+        final Set<String> addresses = new LinkedHashSet<>();
+        final Set<String> topics = new LinkedHashSet<>();
+        for (Instruction instruction : instructions) {
+            if (!(instruction instanceof LogEntryFilter)) {
+                return null;
+            }
+
+            final LogEntryFilter filter = (LogEntryFilter) instruction;
+            if (filter.getContracts() == null || filter.getContracts().isEmpty()) {
+                return null;
+            }
+            addresses.addAll(filter.getContracts());
+            topics.add(filter.getSignature().getEncodedSignature());
+        }
+
+        return new LogEntryQuery(new ArrayList<>(addresses), new ArrayList<>(topics));
+    }
+}
@@ -21,6 +21,8 @@ import au.csiro.data61.aap.elf.core.readers.EthereumLogEntry;
 public class LogEntrySignature {
     private final String name;
     private final List<Parameter> parameters;
+    private final List<Parameter> topicParameters;
+    private final List<Parameter> dataParameters;
     private final Event event;
     private final String encodedSignature;
 
@@ -33,6 +35,8 @@ public class LogEntrySignature {
         assert parameters != null && parameters.stream().allMatch(Objects::nonNull);
         this.name = name;
         this.parameters = new ArrayList<>(parameters);
+        this.topicParameters = this.getEntryParameters(true);
+        this.dataParameters = this.getEntryParameters(false);
         this.event = new Event(this.name, parameters.stream().map(Parameter::getType).collect(Collectors.toList()));
         this.encodedSignature = EventEncoder.encode(this.event);
     }
@@ -50,6 +54,10 @@ public class LogEntrySignature {
         return this.parameters.get(index);
     }
 
+    public String getEncodedSignature() {
+        return this.encodedSignature;
+    }
+
     public Stream<Parameter> parameterStream() {
         return this.parameters.stream();
     }
@@ -64,26 +72,22 @@ public class LogEntrySignature {
     }
 
     private void addTopics(ProgramState state, EthereumLogEntry logEntry) throws Throwable {
-        final List<Parameter> topicParameters = this.getEntryParameters(true);
-        assert logEntry.getTopics().size() == topicParameters.size() + 1;
-        for (int i = 0; i < topicParameters.size(); i++) {
-            final Parameter topic = topicParameters.get(i);
+        assert logEntry.getTopics().size() == this.topicParameters.size() + 1;
+        for (int i = 0; i < this.topicParameters.size(); i++) {
+            final Parameter topic = this.topicParameters.get(i);
             Object value = TypeDecoder.instantiateType(topic.getType(), logEntry.getTopics().get(i + 1)).getValue();
-            state.getValueStore().setValue(topic.getName(), value);
+            state.getValueStore().setValue(topic.getSlot(), value);
         }
     }
 
     private void addData(ProgramState state, EthereumLogEntry logEntry) throws Throwable {
-        final List<Parameter> dataVariables = this.getEntryParameters(false);
         final List<Object> results = FunctionReturnDecoder.decode(logEntry.getData(), this.event.getNonIndexedParameters())
             .stream()
             .map(type -> type.getValue())
             .collect(Collectors.toList());
-        assert dataVariables.size() == results.size();
-        for (int i = 0; i < dataVariables.size(); i++) {
-            String name = dataVariables.get(i).getName();
-            Object value = results.get(i);
-            state.getValueStore().setValue(name, value);
+        assert this.dataParameters.size() == results.size();
+        for (int i = 0; i < this.dataParameters.size(); i++) {
+            state.getValueStore().setValue(this.dataParameters.get(i).getSlot(), results.get(i));
         }
     }
 
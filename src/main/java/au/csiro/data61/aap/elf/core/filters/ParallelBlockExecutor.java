@@ -0,0 +1,132 @@
+package au.csiro.data61.aap.elf.core.filters;
+
+import java.math.BigInteger;
+import java.util.LinkedList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+
+import au.csiro.data61.aap.elf.core.ProgramState;
+import au.csiro.data61.aap.elf.core.exceptions.ProgramException;
+import au.csiro.data61.aap.elf.core.readers.BlockPrefetcher;
+import au.csiro.data61.aap.elf.core.readers.EthereumBlock;
+import au.csiro.data61.aap.elf.core.readers.LogBlockScanner;
+import au.csiro.data61.aap.elf.core.readers.LogEntryQuery;
+
+/**
+ * Processes a range of blocks of a block independent scope on several threads. The range is split into shards, which
+ * are processed by workers with their own {@link ProgramState}. The output of the shards is merged in block order, so
+ * it is the same as if the blocks had been processed one by one.
+ */
+class ParallelBlockExecutor {
+    private static final Logger LOGGER = Logger.getLogger(ParallelBlockExecutor.class.getName());
+    static final int MIN_SHARD_SIZE = 10;
+
+    private final BlockFilter filter;
+    private final LogEntryQuery logEntryQuery;
+    private final int parallelism;
+    private final int shardSize;
+
+    ParallelBlockExecutor(BlockFilter filter, LogEntryQuery logEntryQuery, int parallelism, int shardSize) {
+        assert filter != null;
+        assert 1 < parallelism;
+        this.filter = filter;
+        this.logEntryQuery = logEntryQuery;
+        this.parallelism = parallelism;
+        this.shardSize = Math.max(shardSize, MIN_SHARD_SIZE);
+    }
+
+    /**
+     * Processes the blocks from fromBlock to toBlock and returns whether the processing was aborted due to an error.
+     */
+    boolean execute(ProgramState state, BigInteger fromBlock, BigInteger toBlock) throws ProgramException {
+        LOGGER.info(String.format("Parallel processing of blocks %s to %s started.", fromBlock, toBlock));
+        final ExecutorService executor = Executors.newFixedThreadPool(this.parallelism, runnable -> {
+            final Thread thread = new Thread(runnable, "elf-block-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        final LinkedList<Future<Shard>> shards = new LinkedList<>();
+        BigInteger nextShard = fromBlock;
+        try {
+            while (!shards.isEmpty() || nextShard.compareTo(toBlock) <= 0) {
+                while (shards.size() < 2 * this.parallelism && nextShard.compareTo(toBlock) <= 0) {
+                    final BigInteger shardStart = nextShard;
+                    final BigInteger shardEnd = toBlock.min(shardStart.add(BigInteger.valueOf(this.shardSize - 1)));
+                    final ProgramState worker = state.createWorkerState();
+                    shards.addLast(executor.submit(() -> this.processShard(worker, shardStart, shardEnd)));
+                    nextShard = shardEnd.add(BigInteger.ONE);
+                }
+
+                final Shard shard = shards.removeFirst().get();
+                state.getWriters().merge(shard.state.getWriters());
+                if (shard.aborted) {
+                    return true;
+                }
+            }
+        } catch (ProgramException ex) {
+            throw ex;
+        } catch (Throwable cause) {
+            throw new ProgramException("Error when processing blocks in parallel.", cause);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        LOGGER.info(String.format("Parallel processing of blocks %s to %s finished.", fromBlock, toBlock));
+        return false;
+    }
+
+    private Shard processShard(ProgramState state, BigInteger fromBlock, BigInteger toBlock) {
+        final BlockPrefetcher prefetcher = new BlockPrefetcher(
+            state.getReader().getClient(),
+            this.shardSize,
+            state.getReader().getRequiredData()
+        );
+        final LogBlockScanner scanner = this.logEntryQuery == null
+            ? null
+            : new LogBlockScanner(state.getReader().getClient(), this.logEntryQuery);
+        try {
+            BigInteger currentBlock = fromBlock;
+            while (currentBlock.compareTo(toBlock) <= 0) {
+                try {
+                    if (scanner != null) {
+                        currentBlock = scanner.nextBlock(currentBlock, toBlock);
+                        if (currentBlock == null) {
+                            break;
+                        }
+                    }
+
+                    final EthereumBlock block = prefetcher.queryBlockData(currentBlock, toBlock);
+                    state.getWriters().startNewBlock(currentBlock);
+                    state.getReader().setCurrentBlock(block);
+                    this.filter.executeInstructions(state);
+                    state.getWriters().writeBlock();
+                } catch (final Throwable throwable) {
+                    final String message = String.format("Error when processing block number '%s'.", currentBlock);
+                    if (state.getExceptionHandler().handleExceptionAndDecideOnAbort(message, throwable)) {
+                        return new Shard(state, true);
+                    }
+                } finally {
+                    state.getReader().setCurrentBlock(null);
+                }
+
+                currentBlock = currentBlock.add(BigInteger.ONE);
+            }
+        } finally {
+            prefetcher.close();
+        }
+        return new Shard(state, false);
+    }
+
+    private static class Shard {
+        private final ProgramState state;
+        private final boolean aborted;
+
+        private Shard(ProgramState state, boolean aborted) {
+            this.state = state;
+            this.aborted = aborted;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package au.csiro.data61.aap.elf.core.filters;
+
+/**
+ * Describes how the blocks of a block filter may be processed in parallel.
+ */
+public enum ParallelExecution {
+    /** The blocks must be processed one by one. */
+    NONE,
+    /** The blocks share variables, but can be executed speculatively and validated in block order. */
+    SPECULATIVE,
+    /** The blocks are independent of each other and can be processed in shards. */
+    SHARDED
+}
@@ -2,12 +2,15 @@ package au.csiro.data61.aap.elf.core.filters;
 
 import org.web3j.abi.TypeReference;
 
+import au.csiro.data61.aap.elf.core.values.VariableSlots;
+
 /**
  * Parameter
  */
 public class Parameter {
     private final String name;
     private final TypeReference<?> type;
+    private final int slot;
 
     public Parameter(String solType, String name) {
         this(solType, name, false);
@@ -21,6 +24,7 @@ public class Parameter {
 
         this.type = type;
         this.name = name;
+        this.slot = VariableSlots.slotOf(name);
     }
 
     public boolean isIndexed() {
@@ -31,6 +35,13 @@ public class Parameter {
         return this.name;
     }
 
+    /**
+     * Returns the slot of the variable that the parameter value is assigned to.
+     */
+    public int getSlot() {
+        return this.slot;
+    }
+
     public TypeReference<?> getType() {
         return this.type;
     }
@@ -72,8 +72,7 @@ public class PublicMemberQuery implements SmartContractQuery {
 
         IntStream.range(0, values.size()).forEach(i -> {
             final Object value = values.get(i).getValue();
-            final String name = this.outputParameters.get(i).getName();
-            state.getValueStore().setValue(name, value);
+            state.getValueStore().setValue(this.outputParameters.get(i).getSlot(), value);
         });
     }
 
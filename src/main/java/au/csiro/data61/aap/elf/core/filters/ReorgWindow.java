@@ -0,0 +1,65 @@
+package au.csiro.data61.aap.elf.core.filters;
+
+/**
+ * Remembers the numbers and hashes of the most recently processed blocks, so that reorgs can be detected by comparing
+ * the parent hash of the next block with the hash of the previous one. The entries are kept in a ring buffer, so the
+ * window retains neither the blocks nor their transactions and logs.
+ */
+class ReorgWindow {
+    private final long[] numbers;
+    private final String[] hashes;
+    private int last;
+    private int size;
+
+    ReorgWindow(int capacity) {
+        assert 0 < capacity;
+        this.numbers = new long[capacity];
+        this.hashes = new String[capacity];
+        this.last = -1;
+    }
+
+    int capacity() {
+        return this.numbers.length;
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    long lastNumber() {
+        assert !this.isEmpty();
+        return this.numbers[this.last];
+    }
+
+    String lastHash() {
+        assert !this.isEmpty();
+        return this.hashes[this.last];
+    }
+
+    /**
+     * Adds a block, overwriting the oldest one if the window is full.
+     */
+    void append(long number, String hash) {
+        this.last = (this.last + 1) % this.numbers.length;
+        this.numbers[this.last] = number;
+        this.hashes[this.last] = hash;
+        this.size = Math.min(this.size + 1, this.numbers.length);
+    }
+
+    void removeLast() {
+        assert !this.isEmpty();
+        this.hashes[this.last] = null;
+        this.last = (this.last - 1 + this.numbers.length) % this.numbers.length;
+        this.size--;
+    }
+
+    void clear() {
+        while (!this.isEmpty()) {
+            this.removeLast();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package au.csiro.data61.aap.elf.core.filters;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+
+import au.csiro.data61.aap.elf.core.ProgramState;
+import au.csiro.data61.aap.elf.core.exceptions.ProgramException;
+import au.csiro.data61.aap.elf.core.readers.BlockPrefetcher;
+import au.csiro.data61.aap.elf.core.readers.EthereumBlock;
+import au.csiro.data61.aap.elf.core.readers.LogBlockScanner;
+import au.csiro.data61.aap.elf.core.readers.LogEntryQuery;
+import au.csiro.data61.aap.elf.core.values.MultiVersionValueStore;
+import au.csiro.data61.aap.elf.core.values.MultiVersionValueStore.BlockValueStore;
+
+/**
+ * Processes a range of blocks whose scope shares variables across blocks on several threads. The blocks of a batch are
+ * executed speculatively against a {@link MultiVersionValueStore}. They are then validated in block order, and blocks
+ * that read outdated variables are executed again. Output, variables and errors of a block are only committed once the
+ * block is valid, so the result is the same as if the blocks had been processed one by one.
+ */
+class SpeculativeBlockExecutor {
+    private static final Logger LOGGER = Logger.getLogger(SpeculativeBlockExecutor.class.getName());
+
+    private final BlockFilter filter;
+    private final LogEntryQuery logEntryQuery;
+    private final int parallelism;
+    private final int batchSize;
+    private int reexecutions;
+
+    SpeculativeBlockExecutor(BlockFilter filter, LogEntryQuery logEntryQuery, int parallelism, int batchSize) {
+        assert filter != null;
+        assert 1 < parallelism;
+        this.filter = filter;
+        this.logEntryQuery = logEntryQuery;
+        this.parallelism = parallelism;
+        this.batchSize = Math.max(batchSize, ParallelBlockExecutor.MIN_SHARD_SIZE);
+    }
+
+    int getReexecutions() {
+        return this.reexecutions;
+    }
+
+    /**
+     * Processes the blocks from fromBlock to toBlock and returns whether the processing was aborted due to an error.
+     */
+    boolean execute(ProgramState state, BigInteger fromBlock, BigInteger toBlock) throws ProgramException {
+        LOGGER.info(String.format("Speculative processing of blocks %s to %s started.", fromBlock, toBlock));
+        final ExecutorService executor = Executors.newFixedThreadPool(this.parallelism, runnable -> {
+            final Thread thread = new Thread(runnable, "elf-block-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final BlockPrefetcher prefetcher = new BlockPrefetcher(
+            state.getReader().getClient(),
+            this.batchSize,
+            state.getReader().getRequiredData()
+        );
+        final LogBlockScanner scanner = this.logEntryQuery == null
+            ? null
+            : new LogBlockScanner(state.getReader().getClient(), this.logEntryQuery);
+
+        try {
+            BigInteger batchStart = fromBlock;
+            while (batchStart.compareTo(toBlock) <= 0) {
+                final BigInteger batchEnd = toBlock.min(batchStart.add(BigInteger.valueOf(this.batchSize - 1)));
+                final List<EthereumBlock> blocks = this.queryBlocks(prefetcher, scanner, batchStart, batchEnd);
+                if (this.executeBatch(state, executor, blocks)) {
+                    return true;
+                }
+                batchStart = batchEnd.add(BigInteger.ONE);
+            }
+        } catch (ProgramException ex) {
+            throw ex;
+        } catch (Throwable cause) {
+            throw new ProgramException("Error when processing blocks speculatively.", cause);
+        } finally {
+            executor.shutdownNow();
+            prefetcher.close();
+        }
+
+        LOGGER.info(
+            String.format(
+                "Speculative processing of blocks %s to %s finished, %s blocks were executed again.",
+                fromBlock,
+                toBlock,
+                this.reexecutions
+            )
+        );
+        return false;
+    }
+
+    private List<EthereumBlock> queryBlocks(BlockPrefetcher prefetcher, LogBlockScanner scanner, BigInteger fromBlock, BigInteger toBlock)
+        throws Throwable {
+        final List<EthereumBlock> blocks = new ArrayList<>();
+        BigInteger number = fromBlock;
+        while (number != null && number.compareTo(toBlock) <= 0) {
+            number = scanner == null ? number : scanner.nextBlock(number, toBlock);
+            if (number != null) {
+                blocks.add(prefetcher.queryBlockData(number, toBlock));
+                number = number.add(BigInteger.ONE);
+            }
+        }
+        return blocks;
+    }
+
+    private boolean executeBatch(ProgramState state, ExecutorService executor, List<EthereumBlock> blocks) throws Throwable {
+        final MultiVersionValueStore store = new MultiVersionValueStore(state.getValueStore());
+        final List<Future<Execution>> executions = new ArrayList<>();
+        for (int i = 0; i < blocks.size(); i++) {
+            final int index = i;
+            executions.add(executor.submit(() -> this.executeBlock(state, store, blocks.get(index), index, 0)));
+        }
+
+        for (int i = 0; i < blocks.size(); i++) {
+            Execution execution = executions.get(i).get();
+            if (!store.validate(execution.values)) {
+                this.reexecutions++;
+                execution = this.executeBlock(state, store, blocks.get(i), i, execution.values.getIncarnation() + 1);
+            }
+
+            store.commit(execution.values);
+            if (this.commitOutput(state, blocks.get(i).getNumber(), execution)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Execution executeBlock(ProgramState state, MultiVersionValueStore store, EthereumBlock block, int index, int incarnation)
+        throws ProgramException {
+        final BlockValueStore values = store.createBlockStore(index, incarnation);
+        final ProgramState worker = state.createWorkerState(values);
+        worker.getWriters().setStreaming(false);
+        Throwable error = null;
+        try {
+            worker.getWriters().startNewBlock(block.getNumber());
+            worker.getReader().setCurrentBlock(block);
+            this.filter.executeInstructions(worker);
+        } catch (Throwable throwable) {
+            error = throwable;
+        } finally {
+            worker.getReader().setCurrentBlock(null);
+        }
+
+        store.publish(values);
+        return new Execution(worker, values, error);
+    }
+
+    /**
+     * Merges the output of the block into the writers of the program and handles its error. Returns whether the
+     * processing has to be aborted.
+     */
+    private boolean commitOutput(ProgramState state, BigInteger blockNumber, Execution execution) throws Throwable {
+        state.getWriters().startNewBlock(blockNumber);
+        state.getWriters().merge(execution.worker.getWriters());
+        if (execution.error == null) {
+            state.getWriters().writeBlock();
+            return false;
+        }
+
+        final String message = String.format("Error when processing block number '%s'.", blockNumber);
+        return state.getExceptionHandler().handleExceptionAndDecideOnAbort(message, execution.error);
+    }
+
+    private static class Execution {
+        private final ProgramState worker;
+        private final BlockValueStore values;
+        private final Throwable error;
+
+        private Execution(ProgramState worker, BlockValueStore values, Throwable error) {
+            this.worker = worker;
+            this.values = values;
+            this.error = error;
+        }
+    }
+}
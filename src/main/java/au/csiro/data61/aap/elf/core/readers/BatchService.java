@@ -0,0 +1,120 @@
+package au.csiro.data61.aap.elf.core.readers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.web3j.protocol.http.HttpService;
+import org.web3j.protocol.ipc.UnixIpcService;
+import org.web3j.protocol.ipc.WindowsIpcService;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+
+/**
+ * A transport that is able to send a JSON-RPC batch, i.e., an array of requests, and to return the raw reply.
+ */
+interface BatchService {
+
+    /**
+     * Sends the payload and waits for the reply.
+     *
+     * @param ids     the ids of the requests contained in the payload
+     * @param payload the serialized array of requests
+     * @return the serialized array of responses
+     * @throws IOException if the batch could not be sent or no reply was received
+     */
+    String sendBatch(List<Long> ids, String payload) throws IOException;
+
+    private static String readReply(InputStream stream) throws IOException {
+        try (stream) {
+            return new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    static class UnixIpc extends UnixIpcService implements BatchService {
+        UnixIpc(String path) {
+            super(path);
+        }
+
+        /**
+         * Single requests and batches share the socket, so writing a payload and reading its reply must not interleave.
+         */
+        @Override
+        protected synchronized InputStream performIO(String payload) throws IOException {
+            return super.performIO(payload);
+        }
+
+        @Override
+        public String sendBatch(List<Long> ids, String payload) throws IOException {
+            return readReply(this.performIO(payload));
+        }
+    }
+
+    static class WindowsIpc extends WindowsIpcService implements BatchService {
+        WindowsIpc(String path) {
+            super(path);
+        }
+
+        /**
+         * Single requests and batches share the socket, so writing a payload and reading its reply must not interleave.
+         */
+        @Override
+        protected synchronized InputStream performIO(String payload) throws IOException {
+            return super.performIO(payload);
+        }
+
+        @Override
+        public String sendBatch(List<Long> ids, String payload) throws IOException {
+            return readReply(this.performIO(payload));
+        }
+    }
+
+    /**
+     * An HTTP transport that keeps connections alive in a pool and allows several requests in flight at once. Responses
+     * are requested gzip-compressed and transparently decompressed by OkHttp.
+     */
+    static class Http extends HttpService implements BatchService {
+        static final int MAX_CONNECTIONS = 16;
+        static final long KEEP_ALIVE_SECONDS = 300;
+        static final long TIMEOUT_SECONDS = 60;
+
+        private final OkHttpClient httpClient;
+
+        Http(String url) {
+            this(url, createHttpClient());
+        }
+
+        private Http(String url, OkHttpClient httpClient) {
+            super(url, httpClient);
+            this.httpClient = httpClient;
+        }
+
+        private static OkHttpClient createHttpClient() {
+            final Dispatcher dispatcher = new Dispatcher();
+            dispatcher.setMaxRequests(MAX_CONNECTIONS);
+            dispatcher.setMaxRequestsPerHost(MAX_CONNECTIONS);
+            return new OkHttpClient.Builder().connectionPool(new ConnectionPool(MAX_CONNECTIONS, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS))
+                .dispatcher(dispatcher)
+                .connectTimeout(TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .readTimeout(TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .writeTimeout(TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .build();
+        }
+
+        @Override
+        public String sendBatch(List<Long> ids, String payload) throws IOException {
+            return readReply(this.performIO(payload));
+        }
+
+        @Override
+        public void close() throws IOException {
+            super.close();
+            this.httpClient.dispatcher().executorService().shutdown();
+            this.httpClient.connectionPool().evictAll();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package au.csiro.data61.aap.elf.core.readers;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.web3j.protocol.ObjectMapperFactory;
+import org.web3j.protocol.websocket.WebSocketClient;
+
+/**
+ * A {@link WebSocketClient} that additionally sends JSON-RPC batches. The {@link org.web3j.protocol.websocket.WebSocketService}
+ * only understands single replies, so array replies are intercepted here and matched to the pending batch by their ids.
+ */
+class BatchWebSocketClient extends WebSocketClient implements BatchService {
+    private static final Logger LOGGER = Logger.getLogger(BatchWebSocketClient.class.getName());
+    private static final long REQUEST_TIMEOUT = 60;
+
+    private final ObjectMapper objectMapper;
+    private final Map<Long, PendingBatch> pendingBatches;
+
+    BatchWebSocketClient(URI uri) {
+        super(uri);
+        this.objectMapper = ObjectMapperFactory.getObjectMapper();
+        this.pendingBatches = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public String sendBatch(List<Long> ids, String payload) throws IOException {
+        assert ids != null && !ids.isEmpty();
+        assert payload != null;
+
+        final PendingBatch batch = new PendingBatch(ids);
+        ids.forEach(id -> this.pendingBatches.put(id, batch));
+        try {
+            this.send(payload);
+            return batch.reply.get(REQUEST_TIMEOUT, TimeUnit.SECONDS);
+        } catch (ExecutionException ex) {
+            throw new IOException("Error when sending JSON-RPC batch.", ex.getCause());
+        } catch (TimeoutException ex) {
+            throw new IOException(String.format("No reply to JSON-RPC batch after %s seconds.", REQUEST_TIMEOUT), ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for JSON-RPC batch reply.", ex);
+        } catch (RuntimeException ex) {
+            throw new IOException("Error when sending JSON-RPC batch.", ex);
+        } finally {
+            batch.ids.forEach(this.pendingBatches::remove);
+        }
+    }
+
+    @Override
+    public void onMessage(String message) {
+        if (message.stripLeading().startsWith("[")) {
+            this.onBatchReply(message);
+        } else {
+            super.onMessage(message);
+        }
+    }
+
+    private void onBatchReply(String message) {
+        try {
+            final JsonNode reply = this.objectMapper.readTree(message);
+            for (JsonNode response : reply) {
+                final JsonNode id = response.get("id");
+                final PendingBatch batch = id == null ? null : this.pendingBatches.get(id.asLong());
+                if (batch != null) {
+                    batch.reply.complete(message);
+                    return;
+                }
+            }
+            LOGGER.warning("Received JSON-RPC batch reply without pending batch.");
+        } catch (IOException ex) {
+            LOGGER.log(Level.SEVERE, "Error when parsing JSON-RPC batch reply.", ex);
+        }
+    }
+
+    @Override
+    public void onClose(int code, String reason, boolean remote) {
+        super.onClose(code, reason, remote);
+        final IOException ex = new IOException(String.format("Websocket connection closed: %s", reason));
+        this.pendingBatches.values().forEach(batch -> batch.reply.completeExceptionally(ex));
+    }
+
+    private static class PendingBatch {
+        private final List<Long> ids;
+        private final CompletableFuture<String> reply;
+
+        private PendingBatch(List<Long> ids) {
+            this.ids = ids;
+            this.reply = new CompletableFuture<>();
+        }
+    }
+}
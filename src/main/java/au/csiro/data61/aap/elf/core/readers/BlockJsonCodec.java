@@ -0,0 +1,199 @@
+package au.csiro.data61.aap.elf.core.readers;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import au.csiro.data61.aap.elf.core.exceptions.ProgramException;
+
+/**
+ * Converts blocks into JSON documents and back into {@link RawBlock}, {@link RawTransaction} and {@link RawLogEntry}
+ * objects. Each document records the data classes it contains.
+ */
+class BlockJsonCodec {
+    private final ObjectMapper objectMapper;
+
+    BlockJsonCodec() {
+        this.objectMapper = new ObjectMapper();
+    }
+
+    ObjectMapper getObjectMapper() {
+        return this.objectMapper;
+    }
+
+    // #region encoding
+
+    ObjectNode encode(EthereumBlock block, Set<DataClass> data) throws ProgramException {
+        final ObjectNode node = this.objectMapper.createObjectNode();
+        final ArrayNode dataNode = node.putArray("data");
+        data.forEach(dataClass -> dataNode.add(dataClass.name()));
+
+        node.put("number", block.getNumber());
+        node.put("hash", block.getHash());
+        node.put("parentHash", block.getParentHash());
+        node.put("nonce", block.getNonce());
+        node.put("sha3Uncles", block.getSha3uncles());
+        node.put("logsBloom", block.getLogsBloom());
+        node.put("transactionsRoot", block.getTransactionsRoot());
+        node.put("stateRoot", block.getStateRoot());
+        node.put("receiptsRoot", block.getReceiptsRoot());
+        node.put("miner", block.getMiner());
+        node.put("difficulty", block.getDifficulty());
+        node.put("totalDifficulty", block.getTotalDifficulty());
+        node.put("extraData", block.getExtraData());
+        node.put("size", block.getSize());
+        node.put("gasLimit", block.getGasLimit());
+        node.put("gasUsed", block.getGasUsed());
+        node.put("timestamp", block.getTimestamp());
+        final ArrayNode uncles = node.putArray("uncles");
+        if (block.getUncles() != null) {
+            block.getUncles().forEach(uncles::add);
+        }
+
+        final ArrayNode transactions = node.putArray("transactions");
+        for (EthereumTransaction tx : block) {
+            transactions.add(this.encode(tx, data));
+        }
+        return node;
+    }
+
+    private ObjectNode encode(EthereumTransaction tx, Set<DataClass> data) throws ProgramException {
+        final ObjectNode node = this.objectMapper.createObjectNode();
+        node.put("hash", tx.getHash());
+        node.put("transactionIndex", tx.getTransactionIndex());
+
+        if (data.contains(DataClass.TRANSACTIONS)) {
+            node.put("from", tx.getFrom());
+            node.put("to", tx.getTo());
+            node.put("gas", tx.getGas());
+            node.put("gasPrice", tx.getGasPrice());
+            node.put("input", tx.getInput());
+            node.put("nonce", tx.getNonce());
+            node.put("value", tx.getValue());
+            node.put("v", tx.getV());
+            node.put("r", tx.getR());
+            node.put("s", tx.getS());
+        }
+
+        if (data.contains(DataClass.RECEIPTS)) {
+            node.put("cumulativeGasUsed", tx.getCumulativeGasUsed());
+            node.put("gasUsed", tx.getGasUsed());
+            node.put("contractAddress", tx.getContractAddress());
+            node.put("logsBloom", tx.getLogsBloom());
+            node.put("root", tx.getRoot());
+            node.put("status", tx.getStatus());
+        }
+
+        final ArrayNode logs = node.putArray("logs");
+        tx.logStream().forEach(log -> logs.add(this.encode(log)));
+        return node;
+    }
+
+    private ObjectNode encode(EthereumLogEntry log) {
+        final ObjectNode node = this.objectMapper.createObjectNode();
+        node.put("logIndex", log.getLogIndex());
+        node.put("address", log.getAddress());
+        node.put("data", log.getData());
+        node.put("removed", log.isRemoved());
+        final ArrayNode topics = node.putArray("topics");
+        log.getTopics().forEach(topics::add);
+        return node;
+    }
+
+    // #endregion encoding
+
+    // #region decoding
+
+    Set<DataClass> decodeDataClasses(JsonNode node) {
+        final Set<DataClass> data = EnumSet.noneOf(DataClass.class);
+        node.path("data").forEach(dataClass -> data.add(DataClass.valueOf(dataClass.asText())));
+        return data;
+    }
+
+    RawBlock decode(JsonNode node) {
+        final RawBlock block = new RawBlock();
+        block.setNumber(bigInteger(node, "number"));
+        block.setHash(string(node, "hash"));
+        block.setParentHash(string(node, "parentHash"));
+        block.setNonce(bigInteger(node, "nonce"));
+        block.setSha3uncles(string(node, "sha3Uncles"));
+        block.setLogsBloom(string(node, "logsBloom"));
+        block.setTransactionsRoot(string(node, "transactionsRoot"));
+        block.setStateRoot(string(node, "stateRoot"));
+        block.setReceiptsRoot(string(node, "receiptsRoot"));
+        block.setMiner(string(node, "miner"));
+        block.setDifficulty(bigInteger(node, "difficulty"));
+        block.setTotalDifficulty(bigInteger(node, "totalDifficulty"));
+        block.setExtraData(string(node, "extraData"));
+        block.setSize(bigInteger(node, "size"));
+        block.setGasLimit(bigInteger(node, "gasLimit"));
+        block.setGasUsed(bigInteger(node, "gasUsed"));
+        block.setTimestamp(bigInteger(node, "timestamp"));
+        block.setUncles(strings(node, "uncles"));
+
+        node.path("transactions").forEach(txNode -> block.addTransaction(this.decode(block, txNode)));
+        return block;
+    }
+
+    private RawTransaction decode(RawBlock block, JsonNode node) {
+        final RawTransaction tx = new RawTransaction();
+        tx.setBlock(block);
+        tx.setHash(string(node, "hash"));
+        tx.setTransactionIndex(bigInteger(node, "transactionIndex"));
+        tx.setFrom(string(node, "from"));
+        tx.setTo(string(node, "to"));
+        tx.setGas(bigInteger(node, "gas"));
+        tx.setGasPrice(bigInteger(node, "gasPrice"));
+        tx.setInput(string(node, "input"));
+        tx.setNonce(bigInteger(node, "nonce"));
+        tx.setValue(bigInteger(node, "value"));
+        tx.setV(bigInteger(node, "v"));
+        tx.setR(string(node, "r"));
+        tx.setS(string(node, "s"));
+        tx.setCumulativeGasUsed(bigInteger(node, "cumulativeGasUsed"));
+        tx.setGasUsed(bigInteger(node, "gasUsed"));
+        tx.setContractAddress(string(node, "contractAddress"));
+        tx.setLogsBloom(string(node, "logsBloom"));
+        tx.setRoot(string(node, "root"));
+        tx.setStatus(string(node, "status"));
+
+        node.path("logs").forEach(logNode -> tx.addLog(this.decode(tx, logNode)));
+        return tx;
+    }
+
+    private RawLogEntry decode(RawTransaction tx, JsonNode node) {
+        final RawLogEntry log = new RawLogEntry();
+        log.setTransaction(tx);
+        log.setLogIndex(bigInteger(node, "logIndex"));
+        log.setAddress(string(node, "address"));
+        log.setData(string(node, "data"));
+        log.setRemoved(node.path("removed").asBoolean());
+        log.setTopics(strings(node, "topics"));
+        return log;
+    }
+
+    private static String string(JsonNode node, String field) {
+        final JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    private static BigInteger bigInteger(JsonNode node, String field) {
+        final JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.bigIntegerValue();
+    }
+
+    private static List<String> strings(JsonNode node, String field) {
+        final List<String> values = new ArrayList<>();
+        node.path(field).forEach(value -> values.add(value.asText()));
+        return values;
+    }
+
+    // #endregion decoding
+}
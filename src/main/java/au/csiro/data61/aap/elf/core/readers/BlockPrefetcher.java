@@ -0,0 +1,144 @@
+package au.csiro.data61.aap.elf.core.readers;
+
+import java.math.BigInteger;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+
+import au.csiro.data61.aap.elf.core.exceptions.ProgramException;
+
+/**
+ * BlockPrefetcher keeps a window of future blocks in flight against an {@link EthereumClient}, while the current block is
+ * processed. Blocks are handed out strictly in the order in which they are requested. Missing blocks are requested as
+ * ranges once the window is half empty, so that clients can fetch them in bulk.
+ */
+public class BlockPrefetcher {
+    private static final Logger LOGGER = Logger.getLogger(BlockPrefetcher.class.getName());
+
+    private final EthereumClient client;
+    private final int windowSize;
+    private final Set<DataClass> data;
+    private final ExecutorService executor;
+    private final LinkedList<PendingBlock> pendingBlocks;
+
+    public BlockPrefetcher(EthereumClient client, int windowSize) {
+        this(client, windowSize, DataClass.defaults());
+    }
+
+    public BlockPrefetcher(EthereumClient client, int windowSize, Set<DataClass> data) {
+        assert client != null;
+        assert data != null;
+        this.client = client;
+        this.data = data;
+        this.windowSize = Math.max(0, windowSize);
+        this.executor = this.windowSize == 0
+            ? null
+            : Executors.newFixedThreadPool(Math.min(2, this.windowSize), BlockPrefetcher::createThread);
+        this.pendingBlocks = new LinkedList<>();
+    }
+
+    public int getWindowSize() {
+        return this.windowSize;
+    }
+
+    public EthereumBlock queryBlockData(BigInteger blockNumber, BigInteger lastBlock) throws Throwable {
+        assert blockNumber != null;
+        assert lastBlock != null;
+
+        PendingBlock pendingBlock = this.takePendingBlock(blockNumber);
+        if (pendingBlock == null) {
+            this.fillWindow(blockNumber, lastBlock);
+            pendingBlock = this.takePendingBlock(blockNumber);
+        }
+        this.fillWindow(blockNumber.add(BigInteger.ONE), lastBlock);
+
+        if (pendingBlock == null) {
+            return this.client.queryBlockData(blockNumber, blockNumber, this.data).get(0);
+        }
+
+        try {
+            return pendingBlock.blocks.get().get(pendingBlock.index);
+        } catch (ExecutionException ex) {
+            throw ex.getCause() == null ? ex : ex.getCause();
+        }
+    }
+
+    private PendingBlock takePendingBlock(BigInteger blockNumber) {
+        while (!this.pendingBlocks.isEmpty()) {
+            final int comparison = this.pendingBlocks.getFirst().number.compareTo(blockNumber);
+            if (comparison == 0) {
+                return this.pendingBlocks.removeFirst();
+            } else if (comparison < 0) {
+                this.pendingBlocks.removeFirst();
+            } else {
+                this.clear();
+            }
+        }
+        return null;
+    }
+
+    private void fillWindow(BigInteger nextBlock, BigInteger lastBlock) {
+        if (this.windowSize == 0 || this.pendingBlocks.size() > this.windowSize / 2) {
+            return;
+        }
+
+        final BigInteger fromBlock = this.pendingBlocks.isEmpty() ? nextBlock : this.pendingBlocks.getLast().number.add(BigInteger.ONE);
+        final BigInteger toBlock = lastBlock.min(fromBlock.add(BigInteger.valueOf(this.windowSize - this.pendingBlocks.size() - 1)));
+        if (fromBlock.compareTo(toBlock) > 0) {
+            return;
+        }
+
+        final Future<List<EthereumBlock>> blocks = this.executor.submit(() -> this.fetchBlocks(fromBlock, toBlock));
+        for (int i = 0; i <= toBlock.subtract(fromBlock).intValueExact(); i++) {
+            this.pendingBlocks.addLast(new PendingBlock(fromBlock.add(BigInteger.valueOf(i)), blocks, i));
+        }
+    }
+
+    private List<EthereumBlock> fetchBlocks(BigInteger fromBlock, BigInteger toBlock) throws Exception {
+        try {
+            return this.client.queryBlockData(fromBlock, toBlock, this.data);
+        } catch (Exception | Error ex) {
+            throw ex;
+        } catch (Throwable cause) {
+            throw new ProgramException(String.format("Error when prefetching blocks '%s' to '%s'.", fromBlock, toBlock), cause);
+        }
+    }
+
+    public void clear() {
+        if (!this.pendingBlocks.isEmpty()) {
+            LOGGER.info(String.format("Discarding %s prefetched blocks.", this.pendingBlocks.size()));
+        }
+        this.pendingBlocks.forEach(block -> block.blocks.cancel(true));
+        this.pendingBlocks.clear();
+    }
+
+    public void close() {
+        this.clear();
+        if (this.executor != null) {
+            this.executor.shutdownNow();
+        }
+    }
+
+    private static Thread createThread(Runnable runnable) {
+        final Thread thread = new Thread(runnable, "elf-block-prefetcher");
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private static class PendingBlock {
+        private final BigInteger number;
+        private final Future<List<EthereumBlock>> blocks;
+        private final int index;
+
+        private PendingBlock(BigInteger number, Future<List<EthereumBlock>> blocks, int index) {
+            this.number = number;
+            this.blocks = blocks;
+            this.index = index;
+        }
+    }
+}
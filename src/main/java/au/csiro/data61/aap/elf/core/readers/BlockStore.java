@@ -0,0 +1,159 @@
+package au.csiro.data61.aap.elf.core.readers;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import au.csiro.data61.aap.elf.core.exceptions.ProgramException;
+
+/**
+ * BlockStore persists blocks in a folder, one file per block. When the files exceed the maximum size, the least
+ * recently used blocks are evicted.
+ */
+public class BlockStore {
+    private static final Logger LOGGER = Logger.getLogger(BlockStore.class.getName());
+    private static final String FILE_EXTENSION = ".json";
+    private static final BigInteger BLOCKS_PER_FOLDER = BigInteger.valueOf(10000);
+
+    private final Path folder;
+    private final long maxSize;
+    private final BlockJsonCodec codec;
+    private final LinkedHashMap<BigInteger, Long> fileSizes;
+    private long size;
+
+    public BlockStore(Path folder, long maxSize) throws IOException {
+        assert folder != null;
+        assert 0 < maxSize;
+        this.folder = folder;
+        this.maxSize = maxSize;
+        this.codec = new BlockJsonCodec();
+        this.fileSizes = new LinkedHashMap<>(16, 0.75f, true);
+        Files.createDirectories(folder);
+        this.loadIndex();
+    }
+
+    private void loadIndex() throws IOException {
+        try (Stream<Path> files = Files.walk(this.folder, 2)) {
+            final List<Path> blockFiles = files.filter(file -> file.getFileName().toString().endsWith(FILE_EXTENSION))
+                .sorted(Comparator.comparingLong(BlockStore::lastModified))
+                .collect(Collectors.toList());
+            for (Path file : blockFiles) {
+                final String name = file.getFileName().toString();
+                try {
+                    final BigInteger number = new BigInteger(name.substring(0, name.length() - FILE_EXTENSION.length()));
+                    final long fileSize = Files.size(file);
+                    this.fileSizes.put(number, fileSize);
+                    this.size += fileSize;
+                } catch (NumberFormatException ex) {
+                    LOGGER.warning(String.format("Ignoring file '%s' in block store.", file));
+                }
+            }
+        }
+        LOGGER.info(String.format("Block store '%s' contains %s blocks (%s bytes).", this.folder, this.fileSizes.size(), this.size));
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException ex) {
+            return 0;
+        }
+    }
+
+    public Path getFolder() {
+        return this.folder;
+    }
+
+    public long getMaxSize() {
+        return this.maxSize;
+    }
+
+    public synchronized long getSize() {
+        return this.size;
+    }
+
+    public synchronized int blockCount() {
+        return this.fileSizes.size();
+    }
+
+    public synchronized boolean contains(BigInteger blockNumber) {
+        return this.fileSizes.containsKey(blockNumber);
+    }
+
+    /**
+     * Returns the highest block number in the store or null, if the store is empty.
+     */
+    public synchronized BigInteger highestBlock() {
+        return this.fileSizes.keySet().stream().max(Comparator.naturalOrder()).orElse(null);
+    }
+
+    /**
+     * Loads a block.
+     *
+     * @return the block or null, if the block is not stored or lacks some of the requested data classes
+     */
+    public synchronized RawBlock load(BigInteger blockNumber, Set<DataClass> data) throws IOException {
+        assert blockNumber != null;
+        assert data != null;
+        // get instead of containsKey to mark the block as recently used
+        if (this.fileSizes.get(blockNumber) == null) {
+            return null;
+        }
+
+        final var node = this.codec.getObjectMapper().readTree(this.blockFile(blockNumber).toFile());
+        if (!this.codec.decodeDataClasses(node).containsAll(data)) {
+            return null;
+        }
+        return this.codec.decode(node);
+    }
+
+    /**
+     * Stores a block, replacing any previously stored version of it.
+     */
+    public synchronized void store(EthereumBlock block, Set<DataClass> data) throws IOException, ProgramException {
+        assert block != null;
+        assert data != null;
+        final Path file = this.blockFile(block.getNumber());
+        Files.createDirectories(file.getParent());
+
+        final Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        this.codec.getObjectMapper().writeValue(tempFile.toFile(), this.codec.encode(block, data));
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        final Long previousSize = this.fileSizes.put(block.getNumber(), Files.size(file));
+        this.size += this.fileSizes.get(block.getNumber()) - (previousSize == null ? 0 : previousSize);
+        this.evict();
+    }
+
+    private void evict() {
+        final Iterator<Map.Entry<BigInteger, Long>> entries = this.fileSizes.entrySet().iterator();
+        while (this.maxSize < this.size && entries.hasNext()) {
+            final Map.Entry<BigInteger, Long> entry = entries.next();
+            try {
+                Files.deleteIfExists(this.blockFile(entry.getKey()));
+                this.size -= entry.getValue();
+                entries.remove();
+            } catch (IOException ex) {
+                LOGGER.log(Level.WARNING, String.format("Error when evicting block '%s' from block store.", entry.getKey()), ex);
+                return;
+            }
+        }
+    }
+
+    private Path blockFile(BigInteger blockNumber) {
+        final String subFolder = blockNumber.divide(BLOCKS_PER_FOLDER).toString();
+        return this.folder.resolve(subFolder).resolve(blockNumber + FILE_EXTENSION);
+    }
+}
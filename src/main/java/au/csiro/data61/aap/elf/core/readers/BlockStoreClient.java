@@ -0,0 +1,174 @@
+package au.csiro.data61.aap.elf.core.readers;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.web3j.abi.TypeReference;
+import org.web3j.abi.datatypes.Type;
+
+import au.csiro.data61.aap.elf.core.exceptions.ProgramException;
+
+/**
+ * An {@link EthereumClient} that serves blocks from a {@link BlockStore}. Missing blocks are fetched from the delegate
+ * client and written through to the store once they have enough confirmations to be safe from reorgs. Without a
+ * delegate, the client works offline and only serves stored blocks.
+ */
+public class BlockStoreClient implements EthereumClient {
+    private static final Logger LOGGER = Logger.getLogger(BlockStoreClient.class.getName());
+    static final BigInteger CONFIRMATIONS = BigInteger.valueOf(12);
+
+    private final BlockStore store;
+    private final EthereumClient delegate;
+    private final AtomicReference<BigInteger> knownHead = new AtomicReference<>();
+
+    public BlockStoreClient(BlockStore store, EthereumClient delegate) {
+        assert store != null;
+        this.store = store;
+        this.delegate = delegate;
+    }
+
+    public BlockStore getStore() {
+        return this.store;
+    }
+
+    public EthereumClient getDelegate() {
+        return this.delegate;
+    }
+
+    public boolean isOffline() {
+        return this.delegate == null;
+    }
+
+    @Override
+    public void close() {
+        if (this.delegate != null) {
+            this.delegate.close();
+        }
+    }
+
+    @Override
+    public BigInteger queryBlockNumber() throws Throwable {
+        if (this.delegate == null) {
+            final BigInteger highestBlock = this.store.highestBlock();
+            if (highestBlock == null) {
+                throw new ProgramException("Block store is empty.");
+            }
+            return highestBlock;
+        }
+        final BigInteger head = this.delegate.queryBlockNumber();
+        this.updateKnownHead(head);
+        return head;
+    }
+
+    @Override
+    public EthereumBlock queryBlockData(BigInteger blockNumber) throws Throwable {
+        return this.queryBlockData(blockNumber, blockNumber, DataClass.defaults()).get(0);
+    }
+
+    @Override
+    public List<EthereumBlock> queryBlockData(BigInteger fromBlock, BigInteger toBlock) throws Throwable {
+        return this.queryBlockData(fromBlock, toBlock, DataClass.defaults());
+    }
+
+    @Override
+    public List<EthereumBlock> queryBlockData(BigInteger fromBlock, BigInteger toBlock, Set<DataClass> data) throws Throwable {
+        assert fromBlock != null && toBlock != null && data != null;
+        final List<EthereumBlock> blocks = new ArrayList<>();
+        BigInteger missingFrom = null;
+        for (BigInteger number = fromBlock; number.compareTo(toBlock) <= 0; number = number.add(BigInteger.ONE)) {
+            final EthereumBlock block = this.store.load(number, data);
+            if (block == null) {
+                missingFrom = missingFrom == null ? number : missingFrom;
+                continue;
+            }
+
+            if (missingFrom != null) {
+                blocks.addAll(this.fetchBlocks(missingFrom, number.subtract(BigInteger.ONE), data));
+                missingFrom = null;
+            }
+            blocks.add(block);
+        }
+
+        if (missingFrom != null) {
+            blocks.addAll(this.fetchBlocks(missingFrom, toBlock, data));
+        }
+        return blocks;
+    }
+
+    @Override
+    public List<EthereumBlock> queryBlockHeaders(BigInteger fromBlock, BigInteger toBlock) throws Throwable {
+        return this.queryBlockData(fromBlock, toBlock, EnumSet.of(DataClass.HEADER));
+    }
+
+    private List<EthereumBlock> fetchBlocks(BigInteger fromBlock, BigInteger toBlock, Set<DataClass> data) throws Throwable {
+        if (this.delegate == null) {
+            throw new ProgramException(String.format("Block store does not contain the blocks %s to %s.", fromBlock, toBlock));
+        }
+
+        final List<EthereumBlock> blocks = this.delegate.queryBlockData(fromBlock, toBlock, data);
+        for (EthereumBlock block : blocks) {
+            if (this.isConfirmed(block.getNumber())) {
+                this.storeBlock(block, data);
+            }
+        }
+        return blocks;
+    }
+
+    private boolean isConfirmed(BigInteger blockNumber) throws Throwable {
+        BigInteger head = this.knownHead.get();
+        if (head == null || head.subtract(CONFIRMATIONS).compareTo(blockNumber) < 0) {
+            head = this.updateKnownHead(this.delegate.queryBlockNumber());
+        }
+        return blockNumber.compareTo(head.subtract(CONFIRMATIONS)) <= 0;
+    }
+
+    /**
+     * Prefetcher threads may report heads out of order, so the known head only ever moves forward.
+     */
+    private BigInteger updateKnownHead(BigInteger head) {
+        return this.knownHead.accumulateAndGet(head, (known, update) -> known == null || known.compareTo(update) < 0 ? update : known);
+    }
+
+    private void storeBlock(EthereumBlock block, Set<DataClass> data) {
+        try {
+            this.store.store(block, data);
+        } catch (Throwable ex) {
+            LOGGER.log(Level.WARNING, String.format("Error when writing block %s to block store.", block.getNumber()), ex);
+        }
+    }
+
+    @Override
+    public AutoCloseable subscribeNewHeads(Consumer<BigInteger> onNewHead, Consumer<Throwable> onError) throws Throwable {
+        return this.delegate == null ? null : this.delegate.subscribeNewHeads(onNewHead, onError);
+    }
+
+    @Override
+    public List<BigInteger> queryLogBlockNumbers(BigInteger fromBlock, BigInteger toBlock, LogEntryQuery query) throws Throwable {
+        if (this.delegate == null) {
+            return EthereumClient.super.queryLogBlockNumbers(fromBlock, toBlock, query);
+        }
+        return this.delegate.queryLogBlockNumbers(fromBlock, toBlock, query);
+    }
+
+    @Override
+    @SuppressWarnings("all")
+    public List<Type> queryPublicMember(
+        String contract,
+        BigInteger block,
+        String memberName,
+        List<Type> inputParameters,
+        List<TypeReference<?>> returnTypes
+    ) throws Throwable {
+        if (this.delegate == null) {
+            throw new ProgramException("Public members cannot be queried without connection to an Ethereum node.");
+        }
+        return this.delegate.queryPublicMember(contract, block, memberName, inputParameters, returnTypes);
+    }
+}
@@ -0,0 +1,30 @@
+package au.csiro.data61.aap.elf.core.readers;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * The classes of data that can be retrieved for a block. Clients may omit data classes that a program does not use.
+ */
+public enum DataClass {
+    /** Block header attributes, which are always retrieved. */
+    HEADER,
+    /** Full transaction objects. Without them, transactions only provide their hash and index. */
+    TRANSACTIONS,
+    /** Transaction receipts. */
+    RECEIPTS,
+    /** Log entries. */
+    LOGS;
+
+    /**
+     * Returns the data classes that are retrieved if the data a program uses is unknown. Receipts are left out, because
+     * transactions load them lazily when a receipt attribute is accessed.
+     */
+    public static Set<DataClass> defaults() {
+        return EnumSet.of(HEADER, TRANSACTIONS, LOGS);
+    }
+
+    public static Set<DataClass> all() {
+        return EnumSet.allOf(DataClass.class);
+    }
+}
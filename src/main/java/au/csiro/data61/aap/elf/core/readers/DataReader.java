@@ -1,7 +1,13 @@
 package au.csiro.data61.aap.elf.core.readers;
 
+import java.io.IOException;
 import java.net.ConnectException;
 import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
 import java.util.stream.Stream;
 
 import au.csiro.data61.aap.elf.core.exceptions.ProgramException;
@@ -10,10 +16,37 @@ import au.csiro.data61.aap.elf.core.exceptions.ProgramException;
  * EthereumSources
  */
 public class DataReader {
+    public static final int DEFAULT_BACKFILL_WINDOW = 100;
+    public static final int DEFAULT_REORG_WINDOW = 30;
+
     private EthereumClient client;
     private EthereumBlock currentBlock;
     private EthereumTransaction currentTransaction;
     private EthereumLogEntry currentLogEntry;
+    private int prefetchWindow;
+    private Integer backfillWindow;
+    private boolean ipcConnection;
+    private int reorgWindow = DEFAULT_REORG_WINDOW;
+    private Set<DataClass> requiredData = DataClass.defaults();
+    private BlockStore blockStore;
+    private double hedgingPercentile;
+    private double hedgingMaxExtraLoad;
+
+    /**
+     * Creates a reader for a worker thread, which shares the client and settings of this reader, but tracks its own
+     * current block, transaction and log entry.
+     */
+    public DataReader createWorkerReader() {
+        final DataReader worker = new DataReader();
+        worker.client = this.client;
+        worker.prefetchWindow = this.prefetchWindow;
+        worker.backfillWindow = this.backfillWindow;
+        worker.ipcConnection = this.ipcConnection;
+        worker.reorgWindow = this.reorgWindow;
+        worker.requiredData = EnumSet.copyOf(this.requiredData);
+        worker.blockStore = this.blockStore;
+        return worker;
+    }
 
     public EthereumClient getClient() {
         return this.client;
@@ -43,6 +76,105 @@ public class DataReader {
         this.currentLogEntry = currentLogEntry;
     }
 
+    public int getPrefetchWindow() {
+        return this.prefetchWindow;
+    }
+
+    public void setPrefetchWindow(int prefetchWindow) {
+        assert 0 <= prefetchWindow;
+        this.prefetchWindow = prefetchWindow;
+    }
+
+    /**
+     * Returns the number of blocks prefetched while catching up with blocks that are well behind the head. Unless set
+     * explicitly, blocks are not prefetched over ipc, as ipc requests share a single socket with the main thread.
+     */
+    public int getBackfillWindow() {
+        if (this.backfillWindow != null) {
+            return this.backfillWindow;
+        }
+        return this.ipcConnection ? 0 : DEFAULT_BACKFILL_WINDOW;
+    }
+
+    public void setBackfillWindow(int backfillWindow) {
+        assert 0 <= backfillWindow;
+        this.backfillWindow = backfillWindow;
+    }
+
+    public int getReorgWindow() {
+        return this.reorgWindow;
+    }
+
+    /**
+     * Sets the number of processed blocks whose hashes are remembered to detect reorgs.
+     */
+    public void setReorgWindow(int reorgWindow) {
+        assert 0 < reorgWindow;
+        this.reorgWindow = reorgWindow;
+    }
+
+    public Set<DataClass> getRequiredData() {
+        return this.requiredData;
+    }
+
+    public void setRequiredData(Set<DataClass> requiredData) {
+        assert requiredData != null;
+        this.requiredData = EnumSet.copyOf(requiredData);
+        this.requiredData.add(DataClass.HEADER);
+    }
+
+    public BlockStore getBlockStore() {
+        return this.blockStore;
+    }
+
+    /**
+     * Routes block queries through a block store in the folder. If the reader is not connected to an Ethereum node,
+     * the blocks are only read from the store.
+     */
+    public void setBlockStore(String folder, long maxSize) throws ProgramException {
+        assert folder != null;
+        if (this.blockStore != null) {
+            throw new ProgramException("Block store already set.");
+        }
+
+        try {
+            this.blockStore = new BlockStore(Path.of(folder), maxSize);
+        } catch (IOException e) {
+            throw new ProgramException(String.format("Error when opening block store in folder '%s'.", folder), e);
+        }
+        this.client = new BlockStoreClient(this.blockStore, this.client);
+    }
+
+    /**
+     * Enables request hedging for node pools, see {@link NodePoolClient#setHedging(double, double)}.
+     */
+    public void setRequestHedging(double percentile, double maxExtraLoad) {
+        this.hedgingPercentile = percentile;
+        this.hedgingMaxExtraLoad = maxExtraLoad;
+        final NodePoolClient pool = this.getNodePool();
+        if (pool != null) {
+            pool.setHedging(percentile, maxExtraLoad);
+        }
+    }
+
+    private NodePoolClient getNodePool() {
+        final EthereumClient connectedClient = this.client instanceof BlockStoreClient
+            ? ((BlockStoreClient) this.client).getDelegate()
+            : this.client;
+        return connectedClient instanceof NodePoolClient ? (NodePoolClient) connectedClient : null;
+    }
+
+    private boolean isConnected() {
+        if (this.client instanceof BlockStoreClient) {
+            return !((BlockStoreClient) this.client).isOffline();
+        }
+        return this.client != null;
+    }
+
+    private void setConnectedClient(EthereumClient client) {
+        this.client = this.blockStore == null ? client : new BlockStoreClient(this.blockStore, client);
+    }
+
     public Stream<EthereumTransaction> transactionStream() {
         return this.currentBlock == null ? Stream.empty() : this.currentBlock.transactionStream();
     }
@@ -55,30 +187,112 @@ public class DataReader {
 
     public void connect(String url) throws ProgramException {
         assert url != null;
-        if (this.client != null) {
+        if (this.isConnected()) {
             throw new ProgramException("Already connected to Ethereum node.");
         }
 
         try {
-            this.client = Web3jClient.connectWebsocket(url);
+            this.setConnectedClient(Web3jClient.connectWebsocket(url));
         } catch (ConnectException | URISyntaxException e) {
             throw new ProgramException(String.format("Error when connecting to Ethereum node via websocket using URL '%s'.", url), e);
         }
     }
 
+    public void connectHttp(String url) throws ProgramException {
+        assert url != null;
+        if (this.isConnected()) {
+            throw new ProgramException("Already connected to Ethereum node.");
+        }
+
+        try {
+            this.setConnectedClient(Web3jClient.connectHttp(url));
+        } catch (ConnectException e) {
+            throw new ProgramException(String.format("Error when connecting to Ethereum node via http using URL '%s'.", url), e);
+        }
+    }
+
     public void connectIpc(String path) throws ProgramException {
         assert path != null;
-        if (this.client != null) {
+        if (this.isConnected()) {
             throw new ProgramException("Already connected to Ethereum node.");
         }
 
         try {
-            this.client = Web3jClient.connectIpc(path);
+            this.setConnectedClient(Web3jClient.connectIpc(path));
+            this.ipcConnection = true;
         } catch (ConnectException e) {
             throw new ProgramException(String.format("Error when connecting to Ethereum node via ipc.", path), e);
         }
     }
 
+    /**
+     * Connects to several Ethereum nodes and spreads the requests across them. Endpoints starting with 'ws://' or
+     * 'wss://' are websocket URLs, endpoints starting with 'http://' or 'https://' are http URLs, all other endpoints
+     * are ipc paths.
+     */
+    public void connectPool(List<String> endpoints) throws ProgramException {
+        assert endpoints != null;
+        if (this.isConnected()) {
+            throw new ProgramException("Already connected to Ethereum node.");
+        }
+        if (endpoints.isEmpty()) {
+            throw new ProgramException("The node pool requires at least one endpoint.");
+        }
+
+        final List<EthereumClient> clients = new ArrayList<>();
+        try {
+            for (String endpoint : endpoints) {
+                clients.add(connectEndpoint(endpoint));
+            }
+        } catch (ProgramException e) {
+            clients.forEach(EthereumClient::close);
+            throw e;
+        }
+        final NodePoolClient pool = new NodePoolClient(clients);
+        if (this.hedgingPercentile != 0) {
+            pool.setHedging(this.hedgingPercentile, this.hedgingMaxExtraLoad);
+        }
+        this.setConnectedClient(pool);
+        this.ipcConnection = endpoints.stream().anyMatch(DataReader::isIpcEndpoint);
+    }
+
+    private static boolean isIpcEndpoint(String endpoint) {
+        return !endpoint.startsWith("ws://")
+            && !endpoint.startsWith("wss://")
+            && !endpoint.startsWith("http://")
+            && !endpoint.startsWith("https://");
+    }
+
+    private static EthereumClient connectEndpoint(String endpoint) throws ProgramException {
+        try {
+            if (endpoint.startsWith("ws://") || endpoint.startsWith("wss://")) {
+                return Web3jClient.connectWebsocket(endpoint);
+            }
+            if (endpoint.startsWith("http://") || endpoint.startsWith("https://")) {
+                return Web3jClient.connectHttp(endpoint);
+            }
+            return Web3jClient.connectIpc(endpoint);
+        } catch (ConnectException | URISyntaxException e) {
+            throw new ProgramException(String.format("Error when connecting to Ethereum node '%s'.", endpoint), e);
+        }
+    }
+
+    /**
+     * Replays the blocks from the segment files in the folder instead of querying an Ethereum node.
+     */
+    public void connectArchive(String folder) throws ProgramException {
+        assert folder != null;
+        if (this.client != null) {
+            throw new ProgramException("Already connected to Ethereum node.");
+        }
+
+        try {
+            this.client = new SegmentArchiveClient(Path.of(folder));
+        } catch (IOException e) {
+            throw new ProgramException(String.format("Error when opening segment archive in folder '%s'.", folder), e);
+        }
+    }
+
     public void close() {
         if (this.client != null) {
             this.client.close();
@@ -0,0 +1,17 @@
+package au.csiro.data61.aap.elf.core.readers;
+
+import java.util.List;
+
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.core.methods.response.TransactionReceipt;
+
+/**
+ * Response of the eth_getBlockReceipts method, which web3j does not provide.
+ */
+class EthGetBlockReceipts extends Response<List<TransactionReceipt>> {
+    static final String METHOD = "eth_getBlockReceipts";
+
+    List<TransactionReceipt> getReceipts() {
+        return this.getResult();
+    }
+}
@@ -16,6 +16,11 @@ public abstract class EthereumBlock implements Iterable<EthereumTransaction> {
         this.transactions = new ArrayList<>();
     }
 
+    protected EthereumBlock(int expectedTransactionCount) {
+        assert 0 <= expectedTransactionCount;
+        this.transactions = new ArrayList<>(expectedTransactionCount);
+    }
+
     public abstract String getHash();
 
     public abstract BigInteger getDifficulty();
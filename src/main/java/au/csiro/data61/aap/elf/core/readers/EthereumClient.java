@@ -1,7 +1,10 @@
 package au.csiro.data61.aap.elf.core.readers;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 import org.web3j.abi.TypeReference;
 import org.web3j.abi.datatypes.Type;
@@ -16,6 +19,53 @@ public interface EthereumClient {
 
     public EthereumBlock queryBlockData(BigInteger blockNumber) throws Throwable;
 
+    public default List<EthereumBlock> queryBlockData(BigInteger fromBlock, BigInteger toBlock) throws Throwable {
+        assert fromBlock != null && toBlock != null;
+        final List<EthereumBlock> blocks = new ArrayList<>();
+        for (BigInteger number = fromBlock; number.compareTo(toBlock) <= 0; number = number.add(BigInteger.ONE)) {
+            blocks.add(this.queryBlockData(number));
+        }
+        return blocks;
+    }
+
+    /**
+     * Returns the blocks in [fromBlock, toBlock], which must at least contain the requested data classes. Clients that
+     * cannot restrict the retrieved data return the full blocks.
+     */
+    public default List<EthereumBlock> queryBlockData(BigInteger fromBlock, BigInteger toBlock, Set<DataClass> data) throws Throwable {
+        return this.queryBlockData(fromBlock, toBlock);
+    }
+
+    /**
+     * Returns the blocks in [fromBlock, toBlock], which must at least contain their header attributes. Clients that cannot
+     * retrieve headers separately return the full blocks.
+     */
+    public default List<EthereumBlock> queryBlockHeaders(BigInteger fromBlock, BigInteger toBlock) throws Throwable {
+        return this.queryBlockData(fromBlock, toBlock);
+    }
+
+    /**
+     * Returns the number of the block of each log entry in [fromBlock, toBlock] that matches the query in ascending
+     * order. Clients that cannot evaluate the query on the server return every block in the range.
+     */
+    public default List<BigInteger> queryLogBlockNumbers(BigInteger fromBlock, BigInteger toBlock, LogEntryQuery query) throws Throwable {
+        assert fromBlock != null && toBlock != null && query != null;
+        final List<BigInteger> blocks = new ArrayList<>();
+        for (BigInteger number = fromBlock; number.compareTo(toBlock) <= 0; number = number.add(BigInteger.ONE)) {
+            blocks.add(number);
+        }
+        return blocks;
+    }
+
+    /**
+     * Subscribes to the numbers of new blocks at the head of the chain. Clients that cannot push new heads return null.
+     *
+     * @return a handle that cancels the subscription when closed or null, if subscriptions are not supported
+     */
+    public default AutoCloseable subscribeNewHeads(Consumer<BigInteger> onNewHead, Consumer<Throwable> onError) throws Throwable {
+        return null;
+    }
+
     @SuppressWarnings("all")
     public List<Type> queryPublicMember(
         String contract,
@@ -0,0 +1,159 @@
+package au.csiro.data61.aap.elf.core.readers;
+
+import java.math.BigInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps track of the latest block of the chain. The tracker subscribes to new heads if the client supports it and polls
+ * the client otherwise. Polls are timed based on the observed block time, so that new blocks are noticed quickly without
+ * querying the client constantly.
+ */
+public class HeadTracker implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(HeadTracker.class.getName());
+    static final long MIN_POLL_INTERVAL = 250;
+    static final long MAX_POLL_INTERVAL = 3000;
+    static final long SUBSCRIPTION_CHECK_INTERVAL = 30000;
+    private static final double BLOCK_TIME_SMOOTHING = 0.2;
+
+    private final EthereumClient client;
+    private AutoCloseable subscription;
+    private BigInteger head;
+    private long lastHeadChange;
+    private double blockTime;
+    private int unsuccessfulPolls;
+
+    public HeadTracker(EthereumClient client) {
+        assert client != null;
+        this.client = client;
+        this.blockTime = MAX_POLL_INTERVAL;
+    }
+
+    /**
+     * Subscribes to new heads. If the client does not support subscriptions, the head is polled instead.
+     */
+    public synchronized void start() {
+        if (this.subscription != null) {
+            return;
+        }
+
+        try {
+            this.subscription = this.client.subscribeNewHeads(this::onNewHead, this::onSubscriptionError);
+        } catch (Throwable ex) {
+            LOGGER.log(Level.WARNING, "Error when subscribing to new heads, polling the head instead.", ex);
+        }
+    }
+
+    public synchronized boolean isSubscribed() {
+        return this.subscription != null;
+    }
+
+    public synchronized BigInteger getHead() {
+        return this.head;
+    }
+
+    /**
+     * Queries the client for the current head.
+     */
+    public BigInteger refreshHead() throws Throwable {
+        this.updateHead(this.client.queryBlockNumber());
+        return this.getHead();
+    }
+
+    /**
+     * Returns the current head once it has reached the block. The client is only queried if the known head is behind
+     * the block.
+     */
+    public BigInteger awaitBlock(BigInteger block) throws Throwable {
+        assert block != null;
+        synchronized (this) {
+            if (this.head != null && block.compareTo(this.head) <= 0) {
+                return this.head;
+            }
+        }
+
+        boolean poll = !this.isSubscribed() || this.getHead() == null;
+        while (true) {
+            if (poll) {
+                this.updateHead(this.client.queryBlockNumber());
+            }
+            poll = true;
+
+            synchronized (this) {
+                if (block.compareTo(this.head) <= 0) {
+                    this.unsuccessfulPolls = 0;
+                    return this.head;
+                }
+                this.unsuccessfulPolls++;
+
+                final boolean subscribed = this.subscription != null;
+                final long deadline = System.currentTimeMillis() + this.nextPollDelay();
+                for (long now = System.currentTimeMillis(); now < deadline; now = System.currentTimeMillis()) {
+                    if (block.compareTo(this.head) <= 0) {
+                        return this.head;
+                    }
+                    if (subscribed && this.subscription == null) {
+                        break;
+                    }
+                    this.wait(deadline - now);
+                }
+            }
+        }
+    }
+
+    private long nextPollDelay() {
+        if (this.subscription != null) {
+            return SUBSCRIPTION_CHECK_INTERVAL;
+        }
+
+        final long expectedHead = this.lastHeadChange + (long) this.blockTime;
+        final long untilExpectedHead = expectedHead - System.currentTimeMillis();
+        if (MIN_POLL_INTERVAL < untilExpectedHead) {
+            return Math.min(untilExpectedHead, MAX_POLL_INTERVAL);
+        }
+        return Math.min(MAX_POLL_INTERVAL, MIN_POLL_INTERVAL << Math.min(this.unsuccessfulPolls - 1, 8));
+    }
+
+    private void onNewHead(BigInteger newHead) {
+        this.updateHead(newHead);
+    }
+
+    private synchronized void updateHead(BigInteger newHead) {
+        if (newHead == null || (this.head != null && newHead.compareTo(this.head) <= 0)) {
+            return;
+        }
+
+        final long now = System.currentTimeMillis();
+        if (this.head != null && this.lastHeadChange != 0) {
+            final double observed = (now - this.lastHeadChange) / newHead.subtract(this.head).doubleValue();
+            this.blockTime = (1 - BLOCK_TIME_SMOOTHING) * this.blockTime + BLOCK_TIME_SMOOTHING * observed;
+        }
+        this.head = newHead;
+        this.lastHeadChange = now;
+        this.notifyAll();
+    }
+
+    private synchronized void onSubscriptionError(Throwable error) {
+        LOGGER.log(Level.WARNING, "New heads subscription failed, polling the head instead.", error);
+        this.closeSubscription();
+        this.notifyAll();
+    }
+
+    private void closeSubscription() {
+        if (this.subscription == null) {
+            return;
+        }
+
+        try {
+            this.subscription.close();
+        } catch (Exception ex) {
+            LOGGER.log(Level.WARNING, "Error when closing new heads subscription.", ex);
+        }
+        this.subscription = null;
+    }
+
+    @Override
+    public synchronized void close() {
+        this.closeSubscription();
+    }
+}
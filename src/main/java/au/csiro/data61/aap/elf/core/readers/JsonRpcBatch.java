@@ -0,0 +1,79 @@
+package au.csiro.data61.aap.elf.core.readers;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.web3j.protocol.ObjectMapperFactory;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+
+/**
+ * Collects web3j requests and sends them as a single JSON-RPC batch via a {@link BatchService}. Without a batch service,
+ * the requests are sent one by one.
+ */
+class JsonRpcBatch {
+    private final BatchService service;
+    private final ObjectMapper objectMapper;
+    private final List<Request<?, ?>> requests;
+    private final List<Class<? extends Response<?>>> responseTypes;
+
+    JsonRpcBatch(BatchService service) {
+        this.service = service;
+        this.objectMapper = ObjectMapperFactory.getObjectMapper();
+        this.requests = new ArrayList<>();
+        this.responseTypes = new ArrayList<>();
+    }
+
+    <T extends Response<?>> int add(Request<?, T> request, Class<T> responseType) {
+        assert request != null;
+        assert responseType != null;
+        this.requests.add(request);
+        this.responseTypes.add(responseType);
+        return this.requests.size() - 1;
+    }
+
+    int size() {
+        return this.requests.size();
+    }
+
+    List<Response<?>> send() throws IOException {
+        if (this.requests.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        if (this.service == null) {
+            final List<Response<?>> responses = new ArrayList<>(this.requests.size());
+            for (Request<?, ?> request : this.requests) {
+                responses.add(request.send());
+            }
+            return responses;
+        }
+
+        final List<Long> ids = this.requests.stream().map(Request::getId).collect(Collectors.toList());
+        final String payload = this.objectMapper.writeValueAsString(this.requests);
+        final JsonNode reply = this.objectMapper.readTree(this.service.sendBatch(ids, payload));
+        if (!reply.isArray()) {
+            throw new IOException(String.format("Expected an array as JSON-RPC batch reply, but received: %s", reply));
+        }
+
+        final Map<Long, JsonNode> responsesById = new HashMap<>();
+        reply.forEach(response -> responsesById.put(response.path("id").asLong(), response));
+
+        final List<Response<?>> responses = new ArrayList<>(this.requests.size());
+        for (int i = 0; i < this.requests.size(); i++) {
+            final JsonNode response = responsesById.get(ids.get(i));
+            if (response == null) {
+                throw new IOException(String.format("JSON-RPC batch reply misses response for request '%s'.", ids.get(i)));
+            }
+            responses.add(this.objectMapper.treeToValue(response, this.responseTypes.get(i)));
+        }
+        return responses;
+    }
+}
@@ -0,0 +1,24 @@
+package au.csiro.data61.aap.elf.core.readers;
+
+import java.io.IOException;
+
+import org.web3j.protocol.core.Response;
+
+/**
+ * An error object returned by an Ethereum node. Unlike other {@link IOException}s, it means that the node is reachable
+ * and answered the request, so another node will most likely answer the same way.
+ */
+public class JsonRpcException extends IOException {
+    private static final long serialVersionUID = 6519584338416620427L;
+
+    private final int code;
+
+    public JsonRpcException(Response.Error error) {
+        super(error.getMessage());
+        this.code = error.getCode();
+    }
+
+    public int getCode() {
+        return this.code;
+    }
+}
@@ -0,0 +1,59 @@
+package au.csiro.data61.aap.elf.core.readers;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A thread-safe histogram of request latencies. The buckets grow exponentially with four buckets per power of two, so
+ * percentiles are accurate to about 20% from microseconds up to hours.
+ */
+class LatencyHistogram {
+    private static final int BUCKETS_PER_POWER = 4;
+    private static final int BUCKET_COUNT = 40 * BUCKETS_PER_POWER;
+
+    private final AtomicLongArray buckets;
+    private final AtomicLong count;
+
+    LatencyHistogram() {
+        this.buckets = new AtomicLongArray(BUCKET_COUNT);
+        this.count = new AtomicLong();
+    }
+
+    void record(long nanos) {
+        this.buckets.incrementAndGet(bucket(TimeUnit.NANOSECONDS.toMicros(nanos)));
+        this.count.incrementAndGet();
+    }
+
+    long count() {
+        return this.count.get();
+    }
+
+    /**
+     * Returns the latency in microseconds below which the given fraction of the recorded requests completed.
+     */
+    long percentile(double fraction) {
+        assert 0 < fraction && fraction <= 1;
+        final long threshold = (long) Math.ceil(fraction * this.count.get());
+        long cumulative = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            cumulative += this.buckets.get(i);
+            if (threshold <= cumulative) {
+                return upperBound(i);
+            }
+        }
+        return upperBound(BUCKET_COUNT - 1);
+    }
+
+    private static int bucket(long micros) {
+        if (micros <= 1) {
+            return 0;
+        }
+        final int bucket = (int) (Math.log(micros) / Math.log(2) * BUCKETS_PER_POWER);
+        return Math.min(bucket, BUCKET_COUNT - 1);
+    }
+
+    private static long upperBound(int bucket) {
+        return (long) Math.ceil(Math.pow(2, (bucket + 1) / (double) BUCKETS_PER_POWER));
+    }
+}
@@ -0,0 +1,98 @@
+package au.csiro.data61.aap.elf.core.readers;
+
+import java.math.BigInteger;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * LogBlockScanner determines the blocks that contain log entries matching a {@link LogEntryQuery} by scanning block
+ * ranges with server-side log queries. The range sizes are adapted by a {@link LogRangeController}. Short ranges, e.g.,
+ * when following the head of the chain, are instead pre-screened with the logs blooms of the block headers. Blocks are
+ * returned in ascending order.
+ */
+public class LogBlockScanner {
+    private static final BigInteger BLOOM_SCAN_LIMIT = BigInteger.valueOf(16);
+    private final EthereumClient client;
+    private final LogEntryQuery query;
+    private final LogRangeController rangeController;
+    private final LinkedList<BigInteger> matchingBlocks;
+    private BigInteger scannedBlock;
+
+    public LogBlockScanner(EthereumClient client, LogEntryQuery query) {
+        this(client, query, new LogRangeController());
+    }
+
+    public LogBlockScanner(EthereumClient client, LogEntryQuery query, LogRangeController rangeController) {
+        assert client != null;
+        assert query != null;
+        assert rangeController != null;
+        this.client = client;
+        this.query = query;
+        this.rangeController = rangeController;
+        this.matchingBlocks = new LinkedList<>();
+    }
+
+    /**
+     * Returns the first block in [fromBlock, toBlock] that contains matching log entries.
+     *
+     * @return the block number or null, if no block in the range contains a matching log entry
+     */
+    public BigInteger nextBlock(BigInteger fromBlock, BigInteger toBlock) throws Throwable {
+        assert fromBlock != null && toBlock != null;
+        if (this.scannedBlock != null && this.scannedBlock.compareTo(fromBlock) < 0) {
+            this.matchingBlocks.clear();
+            this.scannedBlock = null;
+        }
+
+        do {
+            while (!this.matchingBlocks.isEmpty() && this.matchingBlocks.getFirst().compareTo(fromBlock) < 0) {
+                this.matchingBlocks.removeFirst();
+            }
+            if (!this.matchingBlocks.isEmpty()) {
+                final BigInteger block = this.matchingBlocks.getFirst();
+                return block.compareTo(toBlock) <= 0 ? block : null;
+            }
+        } while (this.scanNextRange(fromBlock, toBlock));
+
+        return null;
+    }
+
+    private boolean scanNextRange(BigInteger fromBlock, BigInteger toBlock) throws Throwable {
+        final BigInteger rangeStart = this.scannedBlock == null ? fromBlock : this.scannedBlock.add(BigInteger.ONE);
+        if (toBlock.compareTo(rangeStart) < 0) {
+            return false;
+        }
+
+        if (toBlock.subtract(rangeStart).compareTo(BLOOM_SCAN_LIMIT) < 0) {
+            this.screenLogsBlooms(rangeStart, toBlock);
+            return true;
+        }
+
+        final BigInteger rangeEnd = this.rangeController.rangeEnd(rangeStart, toBlock);
+        final List<BigInteger> blocks;
+        try {
+            blocks = this.client.queryLogBlockNumbers(rangeStart, rangeEnd, this.query);
+        } catch (Throwable cause) {
+            if (this.rangeController.reportFailure(cause)) {
+                return true;
+            }
+            throw cause;
+        }
+        this.rangeController.reportSuccess(blocks.size());
+
+        blocks.stream()
+            .filter(block -> this.matchingBlocks.isEmpty() || this.matchingBlocks.getLast().compareTo(block) < 0)
+            .forEach(this.matchingBlocks::addLast);
+        this.scannedBlock = rangeEnd;
+        return true;
+    }
+
+    private void screenLogsBlooms(BigInteger fromBlock, BigInteger toBlock) throws Throwable {
+        for (EthereumBlock header : this.client.queryBlockHeaders(fromBlock, toBlock)) {
+            if (this.query.mightMatch(header.getLogsBloom())) {
+                this.matchingBlocks.addLast(header.getNumber());
+            }
+        }
+        this.scannedBlock = toBlock;
+    }
+}
@@ -0,0 +1,42 @@
+package au.csiro.data61.aap.elf.core.readers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A server-side log entry query, i.e., the contract addresses and first topics (event signatures) of the log entries a
+ * program is interested in. An empty list does not restrict the respective criterion.
+ */
+public class LogEntryQuery {
+    private final List<String> addresses;
+    private final List<String> topics;
+
+    public LogEntryQuery(List<String> addresses, List<String> topics) {
+        assert addresses != null && addresses.stream().allMatch(Objects::nonNull);
+        assert topics != null && topics.stream().allMatch(Objects::nonNull);
+        this.addresses = Collections.unmodifiableList(new ArrayList<>(addresses));
+        this.topics = Collections.unmodifiableList(new ArrayList<>(topics));
+    }
+
+    public List<String> getAddresses() {
+        return this.addresses;
+    }
+
+    public List<String> getTopics() {
+        return this.topics;
+    }
+
+    /**
+     * Returns false, if the logs bloom guarantees that no log entry of the block matches this query.
+     */
+    public boolean mightMatch(String logsBloom) {
+        return LogsBloom.mightContainAny(logsBloom, this.addresses) && LogsBloom.mightContainAny(logsBloom, this.topics);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("addresses: %s, topics: %s", this.addresses, this.topics);
+    }
+}
@@ -0,0 +1,99 @@
+package au.csiro.data61.aap.elf.core.readers;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * LogRangeController adapts the size of the block ranges used for server-side log queries. The range is halved when a
+ * node rejects a query because of its range or result limits, or when a response exceeds the result target. It is
+ * doubled again on sparse stretches. Other failures, e.g., lost connections, do not affect the range.
+ */
+public class LogRangeController {
+    private static final Logger LOGGER = Logger.getLogger(LogRangeController.class.getName());
+    private static final int LIMIT_EXCEEDED_CODE = -32005;
+    private static final List<String> LIMIT_MESSAGES = List.of("range", "limit", "exceed", "more than", "too many", "too large");
+    public static final int DEFAULT_INITIAL_RANGE = 2000;
+    public static final int DEFAULT_MAX_RANGE = 100000;
+    public static final int DEFAULT_RESULT_TARGET = 5000;
+
+    private final int maxRange;
+    private final int resultTarget;
+    private int range;
+
+    public LogRangeController() {
+        this(DEFAULT_INITIAL_RANGE, DEFAULT_MAX_RANGE, DEFAULT_RESULT_TARGET);
+    }
+
+    public LogRangeController(int initialRange, int maxRange, int resultTarget) {
+        assert 1 <= initialRange && initialRange <= maxRange;
+        assert 0 < resultTarget;
+        this.range = initialRange;
+        this.maxRange = maxRange;
+        this.resultTarget = resultTarget;
+    }
+
+    public int getRange() {
+        return this.range;
+    }
+
+    public BigInteger rangeEnd(BigInteger rangeStart, BigInteger lastBlock) {
+        assert rangeStart != null && lastBlock != null;
+        return lastBlock.min(rangeStart.add(BigInteger.valueOf(this.range - 1)));
+    }
+
+    public void reportSuccess(int resultCount) {
+        if (this.resultTarget < resultCount) {
+            this.shrink();
+        } else if (resultCount < this.resultTarget / 4) {
+            this.range = Math.min(this.maxRange, this.range * 2);
+        }
+    }
+
+    /**
+     * Shrinks the range after a query that the node rejected because of its range or result limits.
+     *
+     * @return true, if the query should be retried with the smaller range, false if the failure is not caused by the
+     *         range or the range cannot be split anymore
+     */
+    public boolean reportFailure(Throwable cause) {
+        return this.reportFailure(cause, this.range);
+    }
+
+    /**
+     * Shrinks the range to half of the rejected range, which may be shorter than the current range, e.g., at the end
+     * of a scan.
+     *
+     * @return true, if the query should be retried with the smaller range, false if the failure is not caused by the
+     *         range or the range cannot be split anymore
+     */
+    public boolean reportFailure(Throwable cause, int failedRange) {
+        assert 1 <= failedRange;
+        if (failedRange == 1 || !isRangeLimitError(cause)) {
+            return false;
+        }
+        this.range = Math.max(1, Math.min(this.range, failedRange) / 2);
+        LOGGER.info(String.format("Log query failed (%s), retrying with range of %s blocks.", cause.getMessage(), this.range));
+        return true;
+    }
+
+    /**
+     * Returns whether the node rejected a log query, because the block range was too wide or the query returned too
+     * many results. Nodes do not agree on an error code, so the message is checked as well. Rate limits are not caused
+     * by the range.
+     */
+    public static boolean isRangeLimitError(Throwable cause) {
+        if (!(cause instanceof JsonRpcException)) {
+            return false;
+        }
+        final String message = cause.getMessage() == null ? "" : cause.getMessage().toLowerCase();
+        if (message.contains("rate limit") || message.contains("request rate")) {
+            return false;
+        }
+        return ((JsonRpcException) cause).getCode() == LIMIT_EXCEEDED_CODE || LIMIT_MESSAGES.stream().anyMatch(message::contains);
+    }
+
+    private void shrink() {
+        this.range = Math.max(1, this.range / 2);
+    }
+}
@@ -0,0 +1,45 @@
+package au.csiro.data61.aap.elf.core.readers;
+
+import org.web3j.crypto.Hash;
+import org.web3j.utils.Numeric;
+
+/**
+ * LogsBloom tests values, i.e., contract addresses and topics, against the 2048 bit bloom filter that block headers
+ * contain for their log entries. A negative result guarantees that the block contains no log entry with the value.
+ */
+public class LogsBloom {
+    private static final int BLOOM_BYTE_LENGTH = 256;
+
+    public static boolean mightContain(String logsBloom, String value) {
+        assert value != null;
+        if (logsBloom == null || logsBloom.isEmpty()) {
+            return true;
+        }
+
+        final byte[] bloom = Numeric.hexStringToByteArray(logsBloom);
+        if (bloom.length != BLOOM_BYTE_LENGTH) {
+            return true;
+        }
+
+        final byte[] hash = Hash.sha3(Numeric.hexStringToByteArray(value));
+        for (int i = 0; i < 6; i += 2) {
+            final int bit = ((hash[i] & 0xFF) << 8 | hash[i + 1] & 0xFF) & 2047;
+            if ((bloom[BLOOM_BYTE_LENGTH - 1 - bit / 8] & 1 << bit % 8) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static boolean mightContainAny(String logsBloom, Iterable<String> values) {
+        assert values != null;
+        boolean isEmpty = true;
+        for (String value : values) {
+            if (mightContain(logsBloom, value)) {
+                return true;
+            }
+            isEmpty = false;
+        }
+        return isEmpty;
+    }
+}
@@ -0,0 +1,415 @@
+package au.csiro.data61.aap.elf.core.readers;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+import org.web3j.abi.TypeReference;
+import org.web3j.abi.datatypes.Type;
+
+import au.csiro.data61.aap.elf.core.exceptions.ProgramException;
+
+/**
+ * An {@link EthereumClient} that spreads requests across several nodes. Each request goes to the least loaded node that
+ * has reached the requested block. Nodes that fail are taken out of rotation for a back-off period, which doubles with
+ * every consecutive failure. Optionally, slow requests are hedged, i.e., duplicated to a second node.
+ */
+public class NodePoolClient implements EthereumClient {
+    private static final Logger LOGGER = Logger.getLogger(NodePoolClient.class.getName());
+    static final long MIN_BACKOFF = 1000;
+    static final long MAX_BACKOFF = 60000;
+    static final int MIN_HEDGING_SAMPLES = 20;
+
+    private final List<Node> nodes;
+    private final Map<String, LatencyHistogram> latencies;
+    private final AtomicLong requests;
+    private final AtomicLong hedges;
+    private double hedgingPercentile;
+    private double maxExtraLoad;
+    private ExecutorService hedgingExecutor;
+
+    public NodePoolClient(List<? extends EthereumClient> clients) {
+        assert clients != null && !clients.isEmpty();
+        this.nodes = clients.stream().map(Node::new).collect(Collectors.toUnmodifiableList());
+        this.latencies = new ConcurrentHashMap<>();
+        this.requests = new AtomicLong();
+        this.hedges = new AtomicLong();
+    }
+
+    public int size() {
+        return this.nodes.size();
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (this.hedgingExecutor != null) {
+                this.hedgingExecutor.shutdownNow();
+            }
+        }
+        this.nodes.forEach(node -> node.client.close());
+    }
+
+    @Override
+    public BigInteger queryBlockNumber() throws Throwable {
+        BigInteger head = null;
+        Throwable error = null;
+        for (Node node : this.nodes) {
+            if (!node.isAvailable()) {
+                continue;
+            }
+
+            try {
+                final BigInteger nodeHead = node.refreshHead();
+                head = head == null ? nodeHead : head.max(nodeHead);
+            } catch (Throwable ex) {
+                node.reportFailure(ex);
+                error = ex;
+            }
+        }
+
+        if (head == null) {
+            throw new ProgramException("No Ethereum node in the pool is available.", error);
+        }
+        return head;
+    }
+
+    /**
+     * Subscribes to the new heads of every node that supports subscriptions. Each node's head is updated as well, and
+     * onNewHead only receives heads beyond the highest head reported so far. Errors are only reported once no
+     * subscription is left.
+     */
+    @Override
+    public AutoCloseable subscribeNewHeads(Consumer<BigInteger> onNewHead, Consumer<Throwable> onError) throws Throwable {
+        final List<AutoCloseable> subscriptions = new ArrayList<>();
+        final AtomicReference<BigInteger> highestHead = new AtomicReference<>();
+        final AtomicInteger activeSubscriptions = new AtomicInteger();
+        for (Node node : this.nodes) {
+            final AutoCloseable subscription = node.client.subscribeNewHeads(head -> {
+                node.head = head;
+                final BigInteger previous = highestHead.getAndAccumulate(
+                    head,
+                    (current, update) -> current == null ? update : current.max(update)
+                );
+                if (previous == null || previous.compareTo(head) < 0) {
+                    onNewHead.accept(head);
+                }
+            }, error -> {
+                if (activeSubscriptions.decrementAndGet() == 0) {
+                    onError.accept(error);
+                }
+            });
+            if (subscription != null) {
+                subscriptions.add(subscription);
+                activeSubscriptions.incrementAndGet();
+            }
+        }
+
+        if (subscriptions.isEmpty()) {
+            return null;
+        }
+        return () -> {
+            for (AutoCloseable subscription : subscriptions) {
+                subscription.close();
+            }
+        };
+    }
+
+    @Override
+    public EthereumBlock queryBlockData(BigInteger blockNumber) throws Throwable {
+        final String key = blockDataKey(blockNumber, blockNumber, DataClass.defaults());
+        return this.execute(key, blockNumber, client -> client.queryBlockData(blockNumber));
+    }
+
+    @Override
+    public List<EthereumBlock> queryBlockData(BigInteger fromBlock, BigInteger toBlock) throws Throwable {
+        final String key = blockDataKey(fromBlock, toBlock, DataClass.defaults());
+        return this.execute(key, toBlock, client -> client.queryBlockData(fromBlock, toBlock));
+    }
+
+    @Override
+    public List<EthereumBlock> queryBlockData(BigInteger fromBlock, BigInteger toBlock, Set<DataClass> data) throws Throwable {
+        final String key = blockDataKey(fromBlock, toBlock, data);
+        return this.execute(key, toBlock, client -> client.queryBlockData(fromBlock, toBlock, data));
+    }
+
+    @Override
+    public List<EthereumBlock> queryBlockHeaders(BigInteger fromBlock, BigInteger toBlock) throws Throwable {
+        final String key = latencyKey("queryBlockHeaders", fromBlock, toBlock);
+        return this.execute(key, toBlock, client -> client.queryBlockHeaders(fromBlock, toBlock));
+    }
+
+    @Override
+    public List<BigInteger> queryLogBlockNumbers(BigInteger fromBlock, BigInteger toBlock, LogEntryQuery query) throws Throwable {
+        final String key = latencyKey("queryLogBlockNumbers", fromBlock, toBlock);
+        return this.execute(key, toBlock, client -> client.queryLogBlockNumbers(fromBlock, toBlock, query));
+    }
+
+    @Override
+    @SuppressWarnings("all")
+    public List<Type> queryPublicMember(
+        String contract,
+        BigInteger block,
+        String memberName,
+        List<Type> inputParameters,
+        List<TypeReference<?>> returnTypes
+    ) throws Throwable {
+        return this.execute(
+            "queryPublicMember",
+            block,
+            client -> client.queryPublicMember(contract, block, memberName, inputParameters, returnTypes)
+        );
+    }
+
+    /**
+     * Enables request hedging. If a request has not been answered after the given percentile of the latencies of
+     * previous requests of the same kind and size, a duplicate is sent to another node and the first answer wins. On
+     * average, at most maxExtraLoad duplicates are sent per request.
+     */
+    public synchronized void setHedging(double percentile, double maxExtraLoad) {
+        assert 0 < percentile && percentile < 1;
+        assert 0 <= maxExtraLoad;
+        this.hedgingPercentile = percentile;
+        this.maxExtraLoad = maxExtraLoad;
+        if (this.hedgingExecutor == null) {
+            this.hedgingExecutor = Executors.newCachedThreadPool(runnable -> {
+                final Thread thread = new Thread(runnable, "elf-node-pool");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public synchronized void disableHedging() {
+        this.hedgingPercentile = 0;
+    }
+
+    LatencyHistogram getLatencies(String key) {
+        return this.latencies.computeIfAbsent(key, k -> new LatencyHistogram());
+    }
+
+    /**
+     * Returns the key of the latencies of a query over a block range. Latencies grow with the number of blocks, so
+     * ranges are bucketed by the next power of two of their size, e.g., queryBlockHeaders[1] or
+     * queryBlockHeaders[128].
+     */
+    static String latencyKey(String method, BigInteger fromBlock, BigInteger toBlock) {
+        final BigInteger size = toBlock.subtract(fromBlock).add(BigInteger.ONE).max(BigInteger.ONE);
+        final BigInteger bucket = BigInteger.ONE.shiftLeft(size.subtract(BigInteger.ONE).bitLength());
+        return String.format("%s[%s]", method, bucket);
+    }
+
+    static String blockDataKey(BigInteger fromBlock, BigInteger toBlock, Set<DataClass> data) {
+        final String method = data.equals(DataClass.defaults()) ? "queryBlockData" : "queryBlockData" + data;
+        return latencyKey(method, fromBlock, toBlock);
+    }
+
+    private <T> T execute(String key, BigInteger block, Request<T> request) throws Throwable {
+        this.requests.incrementAndGet();
+        final double percentile;
+        final ExecutorService executor;
+        synchronized (this) {
+            percentile = this.hedgingPercentile;
+            executor = percentile == 0 || this.nodes.size() < 2 ? null : this.hedgingExecutor;
+        }
+
+        return executor == null
+            ? this.executeSequentially(key, block, request, new HashSet<>())
+            : this.executeHedged(key, block, request, percentile, executor);
+    }
+
+    private <T> T executeHedged(String key, BigInteger block, Request<T> request, double percentile, ExecutorService executor)
+        throws Throwable {
+        final Set<Node> usedNodes = ConcurrentHashMap.newKeySet();
+        final CompletableFuture<T> primary = this.submit(key, block, request, usedNodes, executor);
+
+        final LatencyHistogram histogram = this.getLatencies(key);
+        if (histogram.count() < MIN_HEDGING_SAMPLES) {
+            return await(primary);
+        }
+
+        try {
+            return primary.get(histogram.percentile(percentile), TimeUnit.MICROSECONDS);
+        } catch (TimeoutException ex) {
+            if (!this.tryAcquireHedge()) {
+                return await(primary);
+            }
+        } catch (ExecutionException ex) {
+            throw unwrap(ex);
+        }
+
+        final CompletableFuture<T> hedge = this.submit(key, block, request, usedNodes, executor);
+        final CompletableFuture<T> firstAnswer = new CompletableFuture<>();
+        final AtomicInteger failures = new AtomicInteger();
+        for (CompletableFuture<T> attempt : List.of(primary, hedge)) {
+            attempt.whenComplete((value, error) -> {
+                if (error == null) {
+                    firstAnswer.complete(value);
+                } else if (failures.incrementAndGet() == 2) {
+                    firstAnswer.completeExceptionally(error);
+                }
+            });
+        }
+        return await(firstAnswer);
+    }
+
+    private synchronized boolean tryAcquireHedge() {
+        if (this.maxExtraLoad * this.requests.get() < this.hedges.get() + 1) {
+            return false;
+        }
+        this.hedges.incrementAndGet();
+        return true;
+    }
+
+    private <T> CompletableFuture<T> submit(
+        String key,
+        BigInteger block,
+        Request<T> request,
+        Set<Node> usedNodes,
+        ExecutorService executor
+    ) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return this.executeSequentially(key, block, request, usedNodes);
+            } catch (Throwable ex) {
+                throw new CompletionException(ex);
+            }
+        }, executor);
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws Throwable {
+        try {
+            return future.get();
+        } catch (ExecutionException ex) {
+            throw unwrap(ex);
+        }
+    }
+
+    private static Throwable unwrap(ExecutionException ex) {
+        final Throwable cause = ex.getCause();
+        return cause instanceof CompletionException && cause.getCause() != null ? cause.getCause() : cause;
+    }
+
+    /**
+     * Sends the request to the available nodes in the order of their load until one of them succeeds. Nodes whose known
+     * head is behind the block are asked for their current head first and skipped if they still lag behind. Nodes that
+     * are in usedNodes are skipped and every node that is tried is added to it. Error objects returned by a node are
+     * rethrown right away, as only transport errors say something about the node. The latency of successful attempts
+     * is recorded per method and range size, so that hedging delays are based on the response times of single nodes
+     * to comparable requests.
+     */
+    private <T> T executeSequentially(String key, BigInteger block, Request<T> request, Set<Node> usedNodes) throws Throwable {
+        final List<Node> candidates = new ArrayList<>(this.nodes);
+        Collections.shuffle(candidates);
+        candidates.sort(Comparator.comparingInt(Node::load));
+
+        Throwable error = null;
+        boolean lagging = false;
+        for (Node node : candidates) {
+            if (!node.isAvailable() || !usedNodes.add(node)) {
+                continue;
+            }
+
+            node.inFlight.incrementAndGet();
+            try {
+                if (!node.hasReached(block)) {
+                    lagging = true;
+                    continue;
+                }
+                final long start = System.nanoTime();
+                final T result = request.send(node.client);
+                this.getLatencies(key).record(System.nanoTime() - start);
+                node.reportSuccess();
+                return result;
+            } catch (JsonRpcException ex) {
+                node.reportSuccess();
+                throw ex;
+            } catch (Throwable ex) {
+                node.reportFailure(ex);
+                error = ex;
+            } finally {
+                node.inFlight.decrementAndGet();
+            }
+        }
+
+        if (error != null) {
+            throw error;
+        }
+        final String reason = lagging ? String.format("has reached block %s", block) : "is available";
+        throw new ProgramException(String.format("No Ethereum node in the pool %s.", reason));
+    }
+
+    @FunctionalInterface
+    private interface Request<T> {
+        T send(EthereumClient client) throws Throwable;
+    }
+
+    private static class Node {
+        private final EthereumClient client;
+        private final AtomicInteger inFlight;
+        private volatile BigInteger head;
+        private int failures;
+        private long unavailableUntil;
+
+        private Node(EthereumClient client) {
+            this.client = client;
+            this.inFlight = new AtomicInteger();
+        }
+
+        private int load() {
+            return this.inFlight.get();
+        }
+
+        private synchronized boolean isAvailable() {
+            return this.unavailableUntil <= System.currentTimeMillis();
+        }
+
+        private boolean hasReached(BigInteger block) throws Throwable {
+            if (block == null) {
+                return true;
+            }
+            final BigInteger knownHead = this.head;
+            if (knownHead != null && block.compareTo(knownHead) <= 0) {
+                return true;
+            }
+            return block.compareTo(this.refreshHead()) <= 0;
+        }
+
+        private BigInteger refreshHead() throws Throwable {
+            final BigInteger currentHead = this.client.queryBlockNumber();
+            this.head = currentHead;
+            return currentHead;
+        }
+
+        private synchronized void reportSuccess() {
+            this.failures = 0;
+        }
+
+        private synchronized void reportFailure(Throwable cause) {
+            final long backoff = Math.min(MAX_BACKOFF, MIN_BACKOFF << Math.min(this.failures, 16));
+            this.failures++;
+            this.unavailableUntil = System.currentTimeMillis() + backoff;
+            LOGGER.log(Level.WARNING, String.format("Ethereum node failed, removing it from the pool for %s ms.", backoff), cause);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package au.csiro.data61.aap.elf.core.readers;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.web3j.abi.TypeReference;
+import org.web3j.abi.datatypes.Type;
+
+import au.csiro.data61.aap.elf.core.exceptions.ProgramException;
+
+/**
+ * An offline {@link EthereumClient} that replays the blocks of the segment files in a folder.
+ */
+public class SegmentArchiveClient implements EthereumClient {
+    private static final Logger LOGGER = Logger.getLogger(SegmentArchiveClient.class.getName());
+    static final String FILE_EXTENSION = ".seg";
+
+    private final Path folder;
+    private final TreeMap<BigInteger, SegmentReader> segments;
+
+    public SegmentArchiveClient(Path folder) throws IOException {
+        assert folder != null;
+        this.folder = folder;
+        this.segments = new TreeMap<>();
+
+        final List<Path> files;
+        try (Stream<Path> stream = Files.list(folder)) {
+            files = stream.filter(file -> file.getFileName().toString().endsWith(FILE_EXTENSION)).collect(Collectors.toList());
+        }
+
+        try {
+            for (Path file : files) {
+                final SegmentReader segment = new SegmentReader(file);
+                if (0 < segment.blockCount()) {
+                    this.segments.put(segment.getFirstBlock(), segment);
+                } else {
+                    segment.close();
+                }
+            }
+        } catch (IOException ex) {
+            this.close();
+            throw ex;
+        }
+        LOGGER.info(String.format("Segment archive '%s' contains %s segments.", folder, this.segments.size()));
+    }
+
+    public Path getFolder() {
+        return this.folder;
+    }
+
+    @Override
+    public void close() {
+        for (SegmentReader segment : this.segments.values()) {
+            try {
+                segment.close();
+            } catch (IOException ex) {
+                LOGGER.log(Level.WARNING, String.format("Error when closing segment '%s'.", segment.getFile()), ex);
+            }
+        }
+        this.segments.clear();
+    }
+
+    @Override
+    public BigInteger queryBlockNumber() throws Throwable {
+        if (this.segments.isEmpty()) {
+            throw new ProgramException(String.format("Segment archive '%s' is empty.", this.folder));
+        }
+        return this.segments.lastEntry().getValue().getLastBlock();
+    }
+
+    /**
+     * Returns the block with whatever data classes its segment contains.
+     */
+    @Override
+    public EthereumBlock queryBlockData(BigInteger blockNumber) throws Throwable {
+        return this.findSegment(blockNumber, EnumSet.of(DataClass.HEADER)).readBlock(blockNumber);
+    }
+
+    /**
+     * Returns the blocks with whatever data classes their segments contain.
+     */
+    @Override
+    public List<EthereumBlock> queryBlockData(BigInteger fromBlock, BigInteger toBlock) throws Throwable {
+        return this.queryBlockData(fromBlock, toBlock, EnumSet.of(DataClass.HEADER));
+    }
+
+    @Override
+    public List<EthereumBlock> queryBlockData(BigInteger fromBlock, BigInteger toBlock, Set<DataClass> data) throws Throwable {
+        assert fromBlock != null && toBlock != null && data != null;
+        final List<EthereumBlock> blocks = new ArrayList<>();
+        SegmentReader segment = null;
+        for (BigInteger number = fromBlock; number.compareTo(toBlock) <= 0; number = number.add(BigInteger.ONE)) {
+            if (segment == null || !segment.contains(number)) {
+                segment = this.findSegment(number, data);
+            }
+            blocks.add(segment.readBlock(number));
+        }
+        return blocks;
+    }
+
+    @Override
+    public List<EthereumBlock> queryBlockHeaders(BigInteger fromBlock, BigInteger toBlock) throws Throwable {
+        return this.queryBlockData(fromBlock, toBlock, EnumSet.of(DataClass.HEADER));
+    }
+
+    private SegmentReader findSegment(BigInteger blockNumber, Set<DataClass> data) throws ProgramException {
+        final Entry<BigInteger, SegmentReader> entry = this.segments.floorEntry(blockNumber);
+        if (entry == null || !entry.getValue().contains(blockNumber)) {
+            throw new ProgramException(String.format("Segment archive '%s' does not contain block %s.", this.folder, blockNumber));
+        }
+
+        final SegmentReader segment = entry.getValue();
+        if (!segment.getDataClasses().containsAll(data)) {
+            throw new ProgramException(
+                String.format("Segment '%s' contains %s, but %s are required.", segment.getFile(), segment.getDataClasses(), data)
+            );
+        }
+        return segment;
+    }
+
+    @Override
+    @SuppressWarnings("all")
+    public List<Type> queryPublicMember(
+        String contract,
+        BigInteger block,
+        String memberName,
+        List<Type> inputParameters,
+        List<TypeReference<?>> returnTypes
+    ) throws Throwable {
+        throw new ProgramException("Public members cannot be queried from a segment archive.");
+    }
+
+    /**
+     * Writes the blocks in [fromBlock, toBlock] into segment files of at most segmentSize blocks each.
+     */
+    public static void export(
+        EthereumClient client,
+        BigInteger fromBlock,
+        BigInteger toBlock,
+        int segmentSize,
+        Path folder,
+        Set<DataClass> data
+    ) throws Throwable {
+        assert client != null && fromBlock != null && toBlock != null && folder != null && data != null;
+        assert 0 < segmentSize;
+        Files.createDirectories(folder);
+        final BigInteger size = BigInteger.valueOf(segmentSize);
+        for (BigInteger start = fromBlock; start.compareTo(toBlock) <= 0; start = start.add(size)) {
+            final BigInteger end = start.add(size).subtract(BigInteger.ONE).min(toBlock);
+            final Path file = folder.resolve(String.format("%s-%s%s", start, end, FILE_EXTENSION));
+            try (SegmentWriter writer = new SegmentWriter(file, data)) {
+                for (EthereumBlock block : client.queryBlockData(start, end, data)) {
+                    writer.append(block);
+                }
+            }
+        }
+    }
+}
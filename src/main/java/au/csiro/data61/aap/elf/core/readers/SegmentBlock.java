@@ -0,0 +1,193 @@
+package au.csiro.data61.aap.elf.core.readers;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A block of a segment file, whose attributes are decoded from the record only when they are read. The record is
+ * scanned once by {@link SegmentCodec} for the offsets of its fields, which are shared with the
+ * {@link SegmentTransaction} and {@link SegmentLogEntry} views of the block. An offset of -1 marks a field that the
+ * record does not contain.
+ */
+class SegmentBlock extends EthereumBlock {
+    private static final int NUMBER = 0;
+    private static final int HASH = 1;
+    private static final int PARENT_HASH = 2;
+    private static final int NONCE = 3;
+    private static final int SHA3_UNCLES = 4;
+    private static final int LOGS_BLOOM = 5;
+    private static final int TRANSACTIONS_ROOT = 6;
+    private static final int STATE_ROOT = 7;
+    private static final int RECEIPTS_ROOT = 8;
+    private static final int MINER = 9;
+    private static final int DIFFICULTY = 10;
+    private static final int TOTAL_DIFFICULTY = 11;
+    private static final int EXTRA_DATA = 12;
+    private static final int SIZE = 13;
+    private static final int GAS_LIMIT = 14;
+    private static final int GAS_USED = 15;
+    private static final int TIMESTAMP = 16;
+
+    private final ByteBuffer record;
+    private final int[] headerOffsets;
+    private final int[] txOffsets;
+    private final int[] logOffsets;
+    private final int txCount;
+    private final int logCount;
+    private BigInteger number;
+    private int decodedFields;
+
+    SegmentBlock(ByteBuffer record, int[] headerOffsets, int txCount, int[] txOffsets, int logCount, int[] logOffsets) {
+        super(txCount);
+        assert record != null;
+        assert headerOffsets != null && txOffsets != null && logOffsets != null;
+        this.record = record;
+        this.headerOffsets = headerOffsets;
+        this.txCount = txCount;
+        this.txOffsets = txOffsets;
+        this.logCount = logCount;
+        this.logOffsets = logOffsets;
+    }
+
+    /**
+     * Returns how many fields have been decoded from the record so far.
+     */
+    int decodedFieldCount() {
+        return this.decodedFields;
+    }
+
+    int txOffset(int column, int index) {
+        return this.txOffsets[column * this.txCount + index];
+    }
+
+    int logOffset(int column, int index) {
+        return this.logOffsets[column * this.logCount + index];
+    }
+
+    String hex(int offset) {
+        if (offset == -1) {
+            return null;
+        }
+        this.decodedFields++;
+        return SegmentCodec.readHex(this.record, offset);
+    }
+
+    BigInteger quantity(int offset) {
+        if (offset == -1) {
+            return null;
+        }
+        this.decodedFields++;
+        return SegmentCodec.readQuantity(this.record, offset);
+    }
+
+    boolean flag(int offset) {
+        this.decodedFields++;
+        return this.record.get(offset) != 0;
+    }
+
+    List<String> hexList(int countOffset, int offset) {
+        final int count = (int) SegmentCodec.readVarLong(this.record, countOffset);
+        final List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(this.hex(offset));
+            offset = SegmentCodec.skipHex(this.record, offset);
+        }
+        return values;
+    }
+
+    @Override
+    public BigInteger getNumber() {
+        if (this.number == null) {
+            this.number = this.quantity(this.headerOffsets[NUMBER]);
+        }
+        return this.number;
+    }
+
+    @Override
+    public String getHash() {
+        return this.hex(this.headerOffsets[HASH]);
+    }
+
+    @Override
+    public String getParentHash() {
+        return this.hex(this.headerOffsets[PARENT_HASH]);
+    }
+
+    @Override
+    public BigInteger getNonce() {
+        return this.quantity(this.headerOffsets[NONCE]);
+    }
+
+    @Override
+    public String getSha3uncles() {
+        return this.hex(this.headerOffsets[SHA3_UNCLES]);
+    }
+
+    @Override
+    public String getLogsBloom() {
+        return this.hex(this.headerOffsets[LOGS_BLOOM]);
+    }
+
+    @Override
+    public String getTransactionsRoot() {
+        return this.hex(this.headerOffsets[TRANSACTIONS_ROOT]);
+    }
+
+    @Override
+    public String getStateRoot() {
+        return this.hex(this.headerOffsets[STATE_ROOT]);
+    }
+
+    @Override
+    public String getReceiptsRoot() {
+        return this.hex(this.headerOffsets[RECEIPTS_ROOT]);
+    }
+
+    @Override
+    public String getMiner() {
+        return this.hex(this.headerOffsets[MINER]);
+    }
+
+    @Override
+    public BigInteger getDifficulty() {
+        return this.quantity(this.headerOffsets[DIFFICULTY]);
+    }
+
+    @Override
+    public BigInteger getTotalDifficulty() {
+        return this.quantity(this.headerOffsets[TOTAL_DIFFICULTY]);
+    }
+
+    @Override
+    public String getExtraData() {
+        return this.hex(this.headerOffsets[EXTRA_DATA]);
+    }
+
+    @Override
+    public BigInteger getSize() {
+        return this.quantity(this.headerOffsets[SIZE]);
+    }
+
+    @Override
+    public BigInteger getGasLimit() {
+        return this.quantity(this.headerOffsets[GAS_LIMIT]);
+    }
+
+    @Override
+    public BigInteger getGasUsed() {
+        return this.quantity(this.headerOffsets[GAS_USED]);
+    }
+
+    @Override
+    public BigInteger getTimestamp() {
+        return this.quantity(this.headerOffsets[TIMESTAMP]);
+    }
+
+    @Override
+    public List<String> getUncles() {
+        final int countOffset = this.headerOffsets[SegmentCodec.HEADER_UNCLES];
+        return this.hexList(countOffset, SegmentCodec.skipVarLong(this.record, countOffset));
+    }
+}
@@ -0,0 +1,444 @@
+package au.csiro.data61.aap.elf.core.readers;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import au.csiro.data61.aap.elf.core.exceptions.ProgramException;
+
+/**
+ * Encodes blocks into the binary records of a segment file and decodes them into {@link SegmentBlock} views. Hex strings
+ * such as hashes and addresses are stored as raw bytes and quantities as varints. Within a record, the transaction and
+ * log entry attributes are stored column by column, i.e., all transaction hashes, then all senders, etc.
+ */
+class SegmentCodec {
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private static final int NULL = 0;
+    private static final int EVEN_HEX = 1;
+    private static final int ODD_HEX = 2;
+    private static final int TEXT = 3;
+
+    private static final int SMALL_QUANTITY = 1;
+    private static final int LARGE_QUANTITY = 2;
+
+    private SegmentCodec() {}
+
+    // #region encoding
+
+    static byte[] encode(EthereumBlock block, Set<DataClass> data) throws ProgramException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(1024);
+        writeQuantity(out, block.getNumber());
+        writeHex(out, block.getHash());
+        writeHex(out, block.getParentHash());
+        writeQuantity(out, block.getNonce());
+        writeHex(out, block.getSha3uncles());
+        writeHex(out, block.getLogsBloom());
+        writeHex(out, block.getTransactionsRoot());
+        writeHex(out, block.getStateRoot());
+        writeHex(out, block.getReceiptsRoot());
+        writeHex(out, block.getMiner());
+        writeQuantity(out, block.getDifficulty());
+        writeQuantity(out, block.getTotalDifficulty());
+        writeHex(out, block.getExtraData());
+        writeQuantity(out, block.getSize());
+        writeQuantity(out, block.getGasLimit());
+        writeQuantity(out, block.getGasUsed());
+        writeQuantity(out, block.getTimestamp());
+        final List<String> uncles = block.getUncles() == null ? List.of() : block.getUncles();
+        writeVarLong(out, uncles.size());
+        uncles.forEach(uncle -> writeHex(out, uncle));
+
+        final List<EthereumTransaction> txs = new ArrayList<>(block.transactionCount());
+        block.forEach(txs::add);
+        writeVarLong(out, txs.size());
+        for (EthereumTransaction tx : txs) {
+            writeHex(out, tx.getHash());
+        }
+        for (EthereumTransaction tx : txs) {
+            writeQuantity(out, tx.getTransactionIndex());
+        }
+
+        if (data.contains(DataClass.TRANSACTIONS)) {
+            encodeTransactionColumns(out, txs);
+        }
+
+        if (data.contains(DataClass.RECEIPTS)) {
+            encodeReceiptColumns(out, txs);
+        }
+
+        final List<EthereumLogEntry> logs = new ArrayList<>();
+        for (EthereumTransaction tx : txs) {
+            writeVarLong(out, tx.logCount());
+            tx.logStream().forEach(logs::add);
+        }
+        encodeLogColumns(out, logs);
+        return out.toByteArray();
+    }
+
+    private static void encodeTransactionColumns(ByteArrayOutputStream out, List<EthereumTransaction> txs) {
+        txs.forEach(tx -> writeHex(out, tx.getFrom()));
+        txs.forEach(tx -> writeHex(out, tx.getTo()));
+        txs.forEach(tx -> writeQuantity(out, tx.getGas()));
+        txs.forEach(tx -> writeQuantity(out, tx.getGasPrice()));
+        txs.forEach(tx -> writeHex(out, tx.getInput()));
+        txs.forEach(tx -> writeQuantity(out, tx.getNonce()));
+        txs.forEach(tx -> writeQuantity(out, tx.getValue()));
+        txs.forEach(tx -> writeQuantity(out, tx.getV()));
+        txs.forEach(tx -> writeHex(out, tx.getR()));
+        txs.forEach(tx -> writeHex(out, tx.getS()));
+    }
+
+    private static void encodeReceiptColumns(ByteArrayOutputStream out, List<EthereumTransaction> txs) throws ProgramException {
+        for (EthereumTransaction tx : txs) {
+            writeQuantity(out, tx.getCumulativeGasUsed());
+        }
+        for (EthereumTransaction tx : txs) {
+            writeQuantity(out, tx.getGasUsed());
+        }
+        for (EthereumTransaction tx : txs) {
+            writeHex(out, tx.getContractAddress());
+        }
+        for (EthereumTransaction tx : txs) {
+            writeHex(out, tx.getLogsBloom());
+        }
+        for (EthereumTransaction tx : txs) {
+            writeHex(out, tx.getRoot());
+        }
+        for (EthereumTransaction tx : txs) {
+            writeHex(out, tx.getStatus());
+        }
+    }
+
+    private static void encodeLogColumns(ByteArrayOutputStream out, List<EthereumLogEntry> logs) {
+        logs.forEach(log -> writeQuantity(out, log.getLogIndex()));
+        logs.forEach(log -> writeHex(out, log.getAddress()));
+        logs.forEach(log -> writeHex(out, log.getData()));
+        logs.forEach(log -> out.write(log.isRemoved() ? 1 : 0));
+        logs.forEach(log -> writeVarLong(out, log.getTopics().size()));
+        logs.forEach(log -> log.getTopics().forEach(topic -> writeHex(out, topic)));
+    }
+
+    static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    static void writeQuantity(ByteArrayOutputStream out, BigInteger value) {
+        if (value == null) {
+            out.write(NULL);
+        } else if (0 <= value.signum() && value.bitLength() < Long.SIZE) {
+            out.write(SMALL_QUANTITY);
+            writeVarLong(out, value.longValue());
+        } else {
+            final byte[] bytes = value.toByteArray();
+            out.write(LARGE_QUANTITY);
+            writeVarLong(out, bytes.length);
+            out.write(bytes, 0, bytes.length);
+        }
+    }
+
+    /**
+     * Writes a string as raw bytes if it is a lower case hex string and as UTF-8 text otherwise. The header combines the
+     * length with the kind of the string.
+     */
+    static void writeHex(ByteArrayOutputStream out, String value) {
+        if (value == null) {
+            writeVarLong(out, NULL);
+            return;
+        }
+
+        if (!isLowerCaseHex(value)) {
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(out, ((long) bytes.length << 2) | TEXT);
+            out.write(bytes, 0, bytes.length);
+            return;
+        }
+
+        final int digits = value.length() - 2;
+        final int length = (digits + 1) / 2;
+        writeVarLong(out, ((long) length << 2) | (digits % 2 == 0 ? EVEN_HEX : ODD_HEX));
+        int position = 2;
+        if (digits % 2 != 0) {
+            out.write(Character.digit(value.charAt(position++), 16));
+        }
+        for (; position < value.length(); position += 2) {
+            out.write((Character.digit(value.charAt(position), 16) << 4) | Character.digit(value.charAt(position + 1), 16));
+        }
+    }
+
+    private static boolean isLowerCaseHex(String value) {
+        if (!value.startsWith("0x")) {
+            return false;
+        }
+        for (int i = 2; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (!('0' <= c && c <= '9') && !('a' <= c && c <= 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // #endregion encoding
+
+    // #region decoding
+
+    static final int HEADER_UNCLES = 17;
+    private static final boolean[] HEADER_QUANTITIES = {
+        true,
+        false,
+        false,
+        true,
+        false,
+        false,
+        false,
+        false,
+        false,
+        false,
+        true,
+        true,
+        false,
+        true,
+        true,
+        true,
+        true };
+
+    static final int TX_HASH = 0;
+    static final int TX_INDEX = 1;
+    static final int TX_FROM = 2;
+    static final int TX_TO = 3;
+    static final int TX_GAS = 4;
+    static final int TX_GAS_PRICE = 5;
+    static final int TX_INPUT = 6;
+    static final int TX_NONCE = 7;
+    static final int TX_VALUE = 8;
+    static final int TX_V = 9;
+    static final int TX_R = 10;
+    static final int TX_S = 11;
+    static final int TX_CUMULATIVE_GAS_USED = 12;
+    static final int TX_GAS_USED = 13;
+    static final int TX_CONTRACT_ADDRESS = 14;
+    static final int TX_LOGS_BLOOM = 15;
+    static final int TX_ROOT = 16;
+    static final int TX_STATUS = 17;
+    private static final boolean[] TX_QUANTITIES = {
+        false,
+        true,
+        false,
+        false,
+        true,
+        true,
+        false,
+        true,
+        true,
+        true,
+        false,
+        false,
+        true,
+        true,
+        false,
+        false,
+        false,
+        false };
+
+    static final int LOG_INDEX = 0;
+    static final int LOG_ADDRESS = 1;
+    static final int LOG_DATA = 2;
+    static final int LOG_REMOVED = 3;
+    static final int LOG_TOPIC_COUNT = 4;
+    static final int LOG_TOPICS = 5;
+    private static final int LOG_COLUMNS = 6;
+
+    /**
+     * Scans a record for the offsets of its fields, without decoding them, and returns a view of the block that decodes
+     * a field when it is read. The record must not be modified afterwards. Fields of data classes that the record does
+     * not contain are null.
+     */
+    static SegmentBlock decode(ByteBuffer in, Set<DataClass> data) {
+        int offset = in.position();
+        final int[] header = new int[HEADER_UNCLES + 1];
+        for (int field = 0; field < HEADER_QUANTITIES.length; field++) {
+            header[field] = offset;
+            offset = HEADER_QUANTITIES[field] ? skipQuantity(in, offset) : skipHex(in, offset);
+        }
+        header[HEADER_UNCLES] = offset;
+        final int uncleCount = (int) readVarLong(in, offset);
+        offset = skipVarLong(in, offset);
+        for (int i = 0; i < uncleCount; i++) {
+            offset = skipHex(in, offset);
+        }
+
+        final int txCount = (int) readVarLong(in, offset);
+        offset = skipVarLong(in, offset);
+        final int[] txOffsets = new int[TX_QUANTITIES.length * txCount];
+        Arrays.fill(txOffsets, -1);
+        offset = scanColumns(in, offset, txOffsets, txCount, TX_HASH, TX_INDEX);
+        if (data.contains(DataClass.TRANSACTIONS)) {
+            offset = scanColumns(in, offset, txOffsets, txCount, TX_FROM, TX_S);
+        }
+        if (data.contains(DataClass.RECEIPTS)) {
+            offset = scanColumns(in, offset, txOffsets, txCount, TX_CUMULATIVE_GAS_USED, TX_STATUS);
+        }
+
+        final int[] firstLogs = new int[txCount + 1];
+        for (int i = 0; i < txCount; i++) {
+            firstLogs[i + 1] = firstLogs[i] + (int) readVarLong(in, offset);
+            offset = skipVarLong(in, offset);
+        }
+        final int logCount = firstLogs[txCount];
+        final int[] logOffsets = new int[LOG_COLUMNS * logCount];
+        for (int column = LOG_INDEX; column <= LOG_TOPIC_COUNT; column++) {
+            for (int i = 0; i < logCount; i++) {
+                logOffsets[column * logCount + i] = offset;
+                switch (column) {
+                    case LOG_INDEX:
+                        offset = skipQuantity(in, offset);
+                        break;
+                    case LOG_REMOVED:
+                        offset++;
+                        break;
+                    case LOG_TOPIC_COUNT:
+                        offset = skipVarLong(in, offset);
+                        break;
+                    default:
+                        offset = skipHex(in, offset);
+                }
+            }
+        }
+        for (int i = 0; i < logCount; i++) {
+            logOffsets[LOG_TOPICS * logCount + i] = offset;
+            final long topicCount = readVarLong(in, logOffsets[LOG_TOPIC_COUNT * logCount + i]);
+            for (long j = 0; j < topicCount; j++) {
+                offset = skipHex(in, offset);
+            }
+        }
+
+        final SegmentBlock block = new SegmentBlock(in, header, txCount, txOffsets, logCount, logOffsets);
+        for (int i = 0; i < txCount; i++) {
+            final SegmentTransaction tx = new SegmentTransaction(block, i);
+            block.addTransaction(tx);
+            for (int log = firstLogs[i]; log < firstLogs[i + 1]; log++) {
+                tx.addLog(new SegmentLogEntry(block, tx, log));
+            }
+        }
+        return block;
+    }
+
+    private static int scanColumns(ByteBuffer in, int offset, int[] offsets, int count, int firstColumn, int lastColumn) {
+        for (int column = firstColumn; column <= lastColumn; column++) {
+            for (int i = 0; i < count; i++) {
+                offsets[column * count + i] = offset;
+                offset = TX_QUANTITIES[column] ? skipQuantity(in, offset) : skipHex(in, offset);
+            }
+        }
+        return offset;
+    }
+
+    static long readVarLong(ByteBuffer in) {
+        final int offset = in.position();
+        in.position(skipVarLong(in, offset));
+        return readVarLong(in, offset);
+    }
+
+    static BigInteger readQuantity(ByteBuffer in) {
+        final int offset = in.position();
+        in.position(skipQuantity(in, offset));
+        return readQuantity(in, offset);
+    }
+
+    static String readHex(ByteBuffer in) {
+        final int offset = in.position();
+        in.position(skipHex(in, offset));
+        return readHex(in, offset);
+    }
+
+    static long readVarLong(ByteBuffer in, int offset) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get(offset++);
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    static BigInteger readQuantity(ByteBuffer in, int offset) {
+        final int kind = in.get(offset);
+        switch (kind) {
+            case NULL:
+                return null;
+            case SMALL_QUANTITY:
+                return BigInteger.valueOf(readVarLong(in, offset + 1));
+            case LARGE_QUANTITY:
+                final byte[] bytes = new byte[(int) readVarLong(in, offset + 1)];
+                in.get(skipVarLong(in, offset + 1), bytes);
+                return new BigInteger(bytes);
+            default:
+                throw new IllegalStateException(String.format("Unknown quantity kind '%s' in segment.", kind));
+        }
+    }
+
+    static String readHex(ByteBuffer in, int offset) {
+        final long header = readVarLong(in, offset);
+        final int kind = (int) (header & 0x3);
+        final int length = (int) (header >>> 2);
+        int position = skipVarLong(in, offset);
+        switch (kind) {
+            case NULL:
+                return null;
+            case TEXT:
+                final byte[] bytes = new byte[length];
+                in.get(position, bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            default:
+                final boolean odd = kind == ODD_HEX;
+                final char[] chars = new char[2 + 2 * length - (odd ? 1 : 0)];
+                chars[0] = '0';
+                chars[1] = 'x';
+                int index = 2;
+                for (int i = 0; i < length; i++) {
+                    final int b = in.get(position++) & 0xFF;
+                    if (!odd || i != 0) {
+                        chars[index++] = HEX_DIGITS[b >>> 4];
+                    }
+                    chars[index++] = HEX_DIGITS[b & 0xF];
+                }
+                return new String(chars);
+        }
+    }
+
+    static int skipVarLong(ByteBuffer in, int offset) {
+        while ((in.get(offset) & 0x80) != 0) {
+            offset++;
+        }
+        return offset + 1;
+    }
+
+    private static int skipQuantity(ByteBuffer in, int offset) {
+        switch (in.get(offset)) {
+            case SMALL_QUANTITY:
+                return skipVarLong(in, offset + 1);
+            case LARGE_QUANTITY:
+                return skipVarLong(in, offset + 1) + (int) readVarLong(in, offset + 1);
+            default:
+                return offset + 1;
+        }
+    }
+
+    static int skipHex(ByteBuffer in, int offset) {
+        return skipVarLong(in, offset) + (int) (readVarLong(in, offset) >>> 2);
+    }
+
+    // #endregion decoding
+}
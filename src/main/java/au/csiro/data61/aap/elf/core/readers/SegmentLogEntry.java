@@ -0,0 +1,49 @@
+package au.csiro.data61.aap.elf.core.readers;
+
+import java.math.BigInteger;
+import java.util.List;
+
+/**
+ * A log entry of a {@link SegmentBlock}, whose attributes are decoded from the record only when they are read.
+ */
+class SegmentLogEntry extends EthereumLogEntry {
+    private final SegmentBlock block;
+    private final int index;
+
+    SegmentLogEntry(SegmentBlock block, SegmentTransaction tx, int index) {
+        assert block != null;
+        assert tx != null;
+        assert 0 <= index;
+        this.block = block;
+        this.index = index;
+        this.setTransaction(tx);
+    }
+
+    @Override
+    public String getAddress() {
+        return this.block.hex(this.block.logOffset(SegmentCodec.LOG_ADDRESS, this.index));
+    }
+
+    @Override
+    public String getData() {
+        return this.block.hex(this.block.logOffset(SegmentCodec.LOG_DATA, this.index));
+    }
+
+    @Override
+    public BigInteger getLogIndex() {
+        return this.block.quantity(this.block.logOffset(SegmentCodec.LOG_INDEX, this.index));
+    }
+
+    @Override
+    public boolean isRemoved() {
+        return this.block.flag(this.block.logOffset(SegmentCodec.LOG_REMOVED, this.index));
+    }
+
+    @Override
+    public List<String> getTopics() {
+        return this.block.hexList(
+            this.block.logOffset(SegmentCodec.LOG_TOPIC_COUNT, this.index),
+            this.block.logOffset(SegmentCodec.LOG_TOPICS, this.index)
+        );
+    }
+}
@@ -0,0 +1,115 @@
+package au.csiro.data61.aap.elf.core.readers;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads blocks from a memory-mapped segment file written by a {@link SegmentWriter}. The compressed records are
+ * inflated straight from the mapped file into one array per block, over which {@link SegmentBlock} views decode the
+ * fields that are actually read.
+ */
+public class SegmentReader implements AutoCloseable {
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final Set<DataClass> data;
+    private final long firstBlock;
+    private final int blockCount;
+    private final int indexOffset;
+    private final Inflater inflater;
+
+    public SegmentReader(Path file) throws IOException {
+        assert file != null;
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            if (Integer.MAX_VALUE < this.channel.size()) {
+                throw new IOException(String.format("Segment '%s' exceeds the maximum size of 2 GB.", file));
+            }
+            this.buffer = this.channel.map(MapMode.READ_ONLY, 0, this.channel.size());
+            if (this.buffer.capacity() < SegmentWriter.HEADER_SIZE + SegmentWriter.FOOTER_SIZE) {
+                throw new IOException(String.format("'%s' is not a segment file.", file));
+            }
+
+            final int footer = this.buffer.capacity() - SegmentWriter.FOOTER_SIZE;
+            if (this.buffer.getInt(0) != SegmentWriter.MAGIC || this.buffer.getInt(footer + 8) != SegmentWriter.MAGIC) {
+                throw new IOException(String.format("'%s' is not a segment file.", file));
+            }
+            if (this.buffer.get(4) != SegmentWriter.VERSION) {
+                throw new IOException(String.format("Segment '%s' has unsupported version %s.", file, this.buffer.get(4)));
+            }
+        } catch (IOException ex) {
+            this.channel.close();
+            throw ex;
+        }
+
+        this.data = SegmentWriter.decodeDataClasses(this.buffer.get(5));
+        this.firstBlock = this.buffer.getLong(6);
+        this.blockCount = this.buffer.getInt(14);
+        this.indexOffset = (int) this.buffer.getLong(this.buffer.capacity() - SegmentWriter.FOOTER_SIZE);
+        this.inflater = new Inflater();
+    }
+
+    public Path getFile() {
+        return this.file;
+    }
+
+    public Set<DataClass> getDataClasses() {
+        return this.data;
+    }
+
+    public int blockCount() {
+        return this.blockCount;
+    }
+
+    public BigInteger getFirstBlock() {
+        return BigInteger.valueOf(this.firstBlock);
+    }
+
+    public BigInteger getLastBlock() {
+        return BigInteger.valueOf(this.firstBlock + this.blockCount - 1);
+    }
+
+    public boolean contains(BigInteger blockNumber) {
+        return this.getFirstBlock().compareTo(blockNumber) <= 0 && blockNumber.compareTo(this.getLastBlock()) <= 0;
+    }
+
+    public synchronized EthereumBlock readBlock(BigInteger blockNumber) throws IOException {
+        assert blockNumber != null && this.contains(blockNumber);
+        final int entry = this.indexOffset + (int) (blockNumber.longValueExact() - this.firstBlock) * SegmentWriter.INDEX_ENTRY_SIZE;
+        final int offset = (int) this.buffer.getLong(entry);
+        final int compressedLength = this.buffer.getInt(entry + 8);
+        final int rawLength = this.buffer.getInt(entry + 12);
+
+        final byte[] raw = new byte[rawLength];
+        final ByteBuffer record = this.buffer.duplicate();
+        record.position(offset).limit(offset + compressedLength);
+        this.inflater.reset();
+        this.inflater.setInput(record);
+        try {
+            int length = 0;
+            while (length < rawLength && !this.inflater.finished()) {
+                length += this.inflater.inflate(raw, length, rawLength - length);
+            }
+        } catch (DataFormatException ex) {
+            throw new IOException(String.format("Corrupted record of block %s in segment '%s'.", blockNumber, this.file), ex);
+        }
+
+        return SegmentCodec.decode(ByteBuffer.wrap(raw), this.data);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        this.inflater.end();
+        this.channel.close();
+    }
+}
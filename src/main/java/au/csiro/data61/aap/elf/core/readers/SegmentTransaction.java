@@ -0,0 +1,117 @@
+package au.csiro.data61.aap.elf.core.readers;
+
+import java.math.BigInteger;
+
+/**
+ * A transaction of a {@link SegmentBlock}, whose attributes are decoded from the record only when they are read.
+ */
+class SegmentTransaction extends EthereumTransaction {
+    private final SegmentBlock block;
+    private final int index;
+
+    SegmentTransaction(SegmentBlock block, int index) {
+        assert block != null;
+        assert 0 <= index;
+        this.block = block;
+        this.index = index;
+        this.setBlock(block);
+    }
+
+    private String hex(int column) {
+        return this.block.hex(this.block.txOffset(column, this.index));
+    }
+
+    private BigInteger quantity(int column) {
+        return this.block.quantity(this.block.txOffset(column, this.index));
+    }
+
+    @Override
+    public String getHash() {
+        return this.hex(SegmentCodec.TX_HASH);
+    }
+
+    @Override
+    public BigInteger getTransactionIndex() {
+        return this.quantity(SegmentCodec.TX_INDEX);
+    }
+
+    @Override
+    public String getFrom() {
+        return this.hex(SegmentCodec.TX_FROM);
+    }
+
+    @Override
+    public String getTo() {
+        return this.hex(SegmentCodec.TX_TO);
+    }
+
+    @Override
+    public BigInteger getGas() {
+        return this.quantity(SegmentCodec.TX_GAS);
+    }
+
+    @Override
+    public BigInteger getGasPrice() {
+        return this.quantity(SegmentCodec.TX_GAS_PRICE);
+    }
+
+    @Override
+    public String getInput() {
+        return this.hex(SegmentCodec.TX_INPUT);
+    }
+
+    @Override
+    public BigInteger getNonce() {
+        return this.quantity(SegmentCodec.TX_NONCE);
+    }
+
+    @Override
+    public BigInteger getValue() {
+        return this.quantity(SegmentCodec.TX_VALUE);
+    }
+
+    @Override
+    public BigInteger getV() {
+        return this.quantity(SegmentCodec.TX_V);
+    }
+
+    @Override
+    public String getR() {
+        return this.hex(SegmentCodec.TX_R);
+    }
+
+    @Override
+    public String getS() {
+        return this.hex(SegmentCodec.TX_S);
+    }
+
+    @Override
+    public BigInteger getCumulativeGasUsed() {
+        return this.quantity(SegmentCodec.TX_CUMULATIVE_GAS_USED);
+    }
+
+    @Override
+    public BigInteger getGasUsed() {
+        return this.quantity(SegmentCodec.TX_GAS_USED);
+    }
+
+    @Override
+    public String getContractAddress() {
+        return this.hex(SegmentCodec.TX_CONTRACT_ADDRESS);
+    }
+
+    @Override
+    public String getLogsBloom() {
+        return this.hex(SegmentCodec.TX_LOGS_BLOOM);
+    }
+
+    @Override
+    public String getRoot() {
+        return this.hex(SegmentCodec.TX_ROOT);
+    }
+
+    @Override
+    public String getStatus() {
+        return this.hex(SegmentCodec.TX_STATUS);
+    }
+}
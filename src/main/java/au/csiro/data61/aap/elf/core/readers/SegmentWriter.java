@@ -0,0 +1,162 @@
+package au.csiro.data61.aap.elf.core.readers;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.Deflater;
+
+import au.csiro.data61.aap.elf.core.exceptions.ProgramException;
+
+/**
+ * Writes consecutive blocks into a segment file. A segment consists of a header, one compressed record per block, an
+ * index with the position of each record and a footer pointing to the index. The file only becomes visible under its
+ * name when the writer is closed.
+ *
+ * <pre>
+ * header: magic (int), version (byte), data classes (byte), first block (long), block count (int)
+ * record: deflated {@link SegmentCodec} encoding of a block
+ * index:  per block: offset (long), compressed length (int), raw length (int)
+ * footer: index offset (long), magic (int)
+ * </pre>
+ */
+public class SegmentWriter implements AutoCloseable {
+    static final int MAGIC = 0x454C4653;
+    static final byte VERSION = 1;
+    static final int HEADER_SIZE = 4 + 1 + 1 + 8 + 4;
+    static final int INDEX_ENTRY_SIZE = 8 + 4 + 4;
+    static final int FOOTER_SIZE = 8 + 4;
+
+    private final Path file;
+    private final Path tempFile;
+    private final Set<DataClass> data;
+    private final DataOutputStream out;
+    private final Deflater deflater;
+    private final List<long[]> index;
+    private BigInteger firstBlock;
+    private BigInteger nextBlock;
+    private long position;
+    private byte[] compressed;
+
+    public SegmentWriter(Path file, Set<DataClass> data) throws IOException {
+        assert file != null;
+        assert data != null;
+        this.file = file;
+        this.tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        this.data = EnumSet.copyOf(data);
+        this.data.add(DataClass.HEADER);
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(this.tempFile), 1 << 16));
+        this.deflater = new Deflater(Deflater.BEST_SPEED);
+        this.index = new ArrayList<>();
+        this.compressed = new byte[1 << 16];
+
+        // the header is rewritten once the block range is known
+        this.out.write(new byte[HEADER_SIZE]);
+        this.position = HEADER_SIZE;
+    }
+
+    public Path getFile() {
+        return this.file;
+    }
+
+    public int blockCount() {
+        return this.index.size();
+    }
+
+    public void append(EthereumBlock block) throws IOException, ProgramException {
+        assert block != null;
+        if (this.nextBlock != null && !this.nextBlock.equals(block.getNumber())) {
+            throw new ProgramException(
+                String.format("Expected block %s in segment, but received block %s.", this.nextBlock, block.getNumber())
+            );
+        }
+
+        final byte[] raw = SegmentCodec.encode(block, this.data);
+        final int compressedLength = this.compress(raw);
+        this.out.write(this.compressed, 0, compressedLength);
+        this.index.add(new long[] { this.position, compressedLength, raw.length });
+        this.position += compressedLength;
+
+        this.firstBlock = this.firstBlock == null ? block.getNumber() : this.firstBlock;
+        this.nextBlock = block.getNumber().add(BigInteger.ONE);
+    }
+
+    private int compress(byte[] raw) {
+        this.deflater.reset();
+        this.deflater.setInput(raw);
+        this.deflater.finish();
+        int length = 0;
+        while (!this.deflater.finished()) {
+            if (length == this.compressed.length) {
+                final byte[] larger = new byte[this.compressed.length * 2];
+                System.arraycopy(this.compressed, 0, larger, 0, length);
+                this.compressed = larger;
+            }
+            length += this.deflater.deflate(this.compressed, length, this.compressed.length - length);
+        }
+        return length;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            final long indexOffset = this.position;
+            for (long[] entry : this.index) {
+                this.out.writeLong(entry[0]);
+                this.out.writeInt((int) entry[1]);
+                this.out.writeInt((int) entry[2]);
+            }
+            this.out.writeLong(indexOffset);
+            this.out.writeInt(MAGIC);
+        } finally {
+            this.out.close();
+            this.deflater.end();
+        }
+
+        this.writeHeader();
+        Files.move(this.tempFile, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void writeHeader() throws IOException {
+        try (FileChannel channel = FileChannel.open(this.tempFile, StandardOpenOption.WRITE)) {
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC);
+            header.put(VERSION);
+            header.put(encodeDataClasses(this.data));
+            header.putLong(this.firstBlock == null ? 0 : this.firstBlock.longValueExact());
+            header.putInt(this.index.size());
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+        }
+    }
+
+    static byte encodeDataClasses(Set<DataClass> data) {
+        int mask = 0;
+        for (DataClass dataClass : data) {
+            mask |= 1 << dataClass.ordinal();
+        }
+        return (byte) mask;
+    }
+
+    static Set<DataClass> decodeDataClasses(byte mask) {
+        final Set<DataClass> data = EnumSet.noneOf(DataClass.class);
+        for (DataClass dataClass : DataClass.values()) {
+            if ((mask & (1 << dataClass.ordinal())) != 0) {
+                data.add(dataClass);
+            }
+        }
+        return data;
+    }
+}
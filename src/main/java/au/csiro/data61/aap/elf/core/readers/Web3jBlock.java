@@ -12,10 +12,15 @@ class Web3jBlock extends EthereumBlock {
     private final Block block;
 
     public Web3jBlock(Block block) {
-        assert block != null;
+        super(transactionCount(block));
         this.block = block;
     }
 
+    private static int transactionCount(Block block) {
+        assert block != null;
+        return block.getTransactions() == null ? 0 : block.getTransactions().size();
+    }
+
     @Override
     public String getHash() {
         return this.block.getHash();
@@ -6,8 +6,13 @@ import java.net.ConnectException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -20,6 +25,8 @@ import org.web3j.abi.datatypes.Type;
 import org.web3j.protocol.Service;
 import org.web3j.protocol.Web3j;
 import org.web3j.protocol.core.DefaultBlockParameterNumber;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
 import org.web3j.protocol.core.methods.request.EthFilter;
 import org.web3j.protocol.core.methods.response.Transaction;
 import org.web3j.protocol.core.methods.response.EthBlock;
@@ -30,10 +37,11 @@ import org.web3j.protocol.core.methods.response.EthLog;
 import org.web3j.protocol.core.methods.response.Log;
 import org.web3j.protocol.core.methods.response.TransactionReceipt;
 import org.web3j.protocol.core.methods.response.EthBlock.Block;
-import org.web3j.protocol.ipc.UnixIpcService;
-import org.web3j.protocol.ipc.WindowsIpcService;
-import org.web3j.protocol.websocket.WebSocketClient;
+import org.web3j.protocol.core.methods.response.EthBlock.TransactionResult;
 import org.web3j.protocol.websocket.WebSocketService;
+import org.web3j.utils.Numeric;
+
+import io.reactivex.disposables.Disposable;
 
 /**
  * Web3jClient
@@ -41,20 +49,31 @@ import org.web3j.protocol.websocket.WebSocketService;
 public class Web3jClient implements EthereumClient {
     private static final Logger LOGGER = Logger.getLogger(EthereumClient.class.getName());
     private static final String URL = "ws://localhost:8546/";
+    private static final int BATCH_SIZE = 100;
+    private static final int METHOD_NOT_FOUND_CODE = -32601;
 
     private final Service service;
     private final WebSocketService wsService;
+    private final BatchService batchService;
     private final Web3j web3j;
-
-    private Web3jClient(WebSocketService wsService) {
+    private final LogRangeController logRangeController = new LogRangeController(
+        BATCH_SIZE,
+        BATCH_SIZE,
+        LogRangeController.DEFAULT_RESULT_TARGET
+    );
+    private volatile Boolean blockReceiptsSupported;
+
+    private Web3jClient(WebSocketService wsService, BatchService batchService) {
         this.wsService = wsService;
         this.service = null;
+        this.batchService = batchService;
         this.web3j = Web3j.build(wsService);
     }
 
     private Web3jClient(Service service) {
         this.service = service;
         this.wsService = null;
+        this.batchService = service instanceof BatchService ? (BatchService) service : null;
         this.web3j = Web3j.build(service);
     }
 
@@ -66,10 +85,10 @@ public class Web3jClient implements EthereumClient {
         assert url != null && !url.isBlank();
 
         try {
-            final WebSocketClient wsClient = new WebSocketClient(new URI(url));
+            final BatchWebSocketClient wsClient = new BatchWebSocketClient(new URI(url));
             final WebSocketService wsService = new WebSocketService(wsClient, false);
             wsService.connect();
-            return new Web3jClient(wsService);
+            return new Web3jClient(wsService, wsClient);
         } catch (URISyntaxException | ConnectException ex) {
             final String message = String.format("Error when connecting to the ethereum client via Websocket with url '%s'.", url);
             LOGGER.log(Level.SEVERE, message, ex);
@@ -77,6 +96,22 @@ public class Web3jClient implements EthereumClient {
         }
     }
 
+    public static Web3jClient connectHttp(String url) throws ConnectException {
+        assert url != null && !url.isBlank();
+        final Web3jClient client = new Web3jClient(new BatchService.Http(url));
+        try {
+            client.queryBlockNumber();
+        } catch (Throwable ex) {
+            client.close();
+            final String message = String.format("Error when connecting to the ethereum client via http with url '%s'.", url);
+            LOGGER.log(Level.SEVERE, message, ex);
+            final ConnectException connectException = new ConnectException(message);
+            connectException.initCause(ex);
+            throw connectException;
+        }
+        return client;
+    }
+
     public static Web3jClient connectIpc(String path) throws ConnectException {
         assert path != null && !path.isBlank();
 
@@ -92,9 +127,9 @@ public class Web3jClient implements EthereumClient {
 
     private static Service createIpcService(String path) {
         if (isWindowsOS()) {
-            return new WindowsIpcService(path);
+            return new BatchService.WindowsIpc(path);
         } else if (isUnixOs() || isLinuxOs()) {
-            return new UnixIpcService(path);
+            return new BatchService.UnixIpc(path);
         } else {
             return null;
         }
@@ -129,11 +164,25 @@ public class Web3jClient implements EthereumClient {
         }
     }
 
+    @Override
+    public AutoCloseable subscribeNewHeads(Consumer<BigInteger> onNewHead, Consumer<Throwable> onError) throws Throwable {
+        if (this.wsService == null) {
+            return null;
+        }
+
+        final Disposable subscription = this.web3j.newHeadsNotifications()
+            .subscribe(
+                notification -> onNewHead.accept(Numeric.decodeQuantity(notification.getParams().getResult().getNumber())),
+                onError::accept
+            );
+        return subscription::dispose;
+    }
+
     public BigInteger queryBlockNumber() throws Throwable {
         try {
             final EthBlockNumber queryResult = this.web3j.ethBlockNumber().send();
             if (queryResult.hasError()) {
-                throw new IOException(queryResult.getError().getMessage());
+                throw new JsonRpcException(queryResult.getError());
             } else {
                 return queryResult.getBlockNumber();
             }
@@ -170,70 +219,296 @@ public class Web3jClient implements EthereumClient {
     }
 
     public EthereumBlock queryBlockData(BigInteger blockNumber) throws IOException {
-        final DefaultBlockParameterNumber number = new DefaultBlockParameterNumber(blockNumber);
+        return this.queryBlockData(blockNumber, blockNumber, DataClass.defaults()).get(0);
+    }
+
+    @Override
+    public List<EthereumBlock> queryBlockData(BigInteger fromBlock, BigInteger toBlock) throws IOException {
+        return this.queryBlockData(fromBlock, toBlock, DataClass.defaults());
+    }
+
+    @Override
+    public List<EthereumBlock> queryBlockHeaders(BigInteger fromBlock, BigInteger toBlock) throws IOException {
+        return this.queryBlockData(fromBlock, toBlock, EnumSet.of(DataClass.HEADER));
+    }
+
+    @Override
+    public List<EthereumBlock> queryBlockData(BigInteger fromBlock, BigInteger toBlock, Set<DataClass> data) throws IOException {
+        assert fromBlock != null && toBlock != null;
+        assert data != null;
+        final List<EthereumBlock> blocks = new ArrayList<>();
+        BigInteger start = fromBlock;
+        while (start.compareTo(toBlock) <= 0) {
+            final BigInteger end = toBlock.min(start.add(BigInteger.valueOf(BATCH_SIZE - 1)));
+            blocks.addAll(this.queryBlocks(start, end, data));
+            start = end.add(BigInteger.ONE);
+        }
+        return blocks;
+    }
+
+    private List<EthereumBlock> queryBlocks(BigInteger fromBlock, BigInteger toBlock, Set<DataClass> data) throws IOException {
         try {
-            final EthBlock blockResult = this.web3j.ethGetBlockByNumber(number, true).send();
-            if (blockResult.hasError()) {
-                throw new IOException(blockResult.getError().getMessage());
+            final boolean fullTransactions = data.contains(DataClass.TRANSACTIONS);
+            final JsonRpcBatch batch = new JsonRpcBatch(this.batchService);
+            for (BigInteger number = fromBlock; number.compareTo(toBlock) <= 0; number = number.add(BigInteger.ONE)) {
+                batch.add(this.web3j.ethGetBlockByNumber(new DefaultBlockParameterNumber(number), fullTransactions), EthBlock.class);
+            }
+            final int blockCount = batch.size();
+            final boolean batchedLogs = data.contains(DataClass.LOGS) && blockCount <= this.logRangeController.getRange();
+            if (batchedLogs) {
+                batch.add(this.web3j.ethGetLogs(this.createLogFilter(fromBlock, toBlock)), EthLog.class);
+            }
+
+            final List<Response<?>> results = batch.send();
+            final Map<BigInteger, List<Log>> logsByBlock = new HashMap<>();
+            if (batchedLogs) {
+                final EthLog logResult = (EthLog) results.get(blockCount);
+                if (!logResult.hasError()) {
+                    final List<Log> logs = this.getLogs(logResult);
+                    this.logRangeController.reportSuccess(logs.size());
+                    logsByBlock.putAll(this.groupLogsByBlock(logs));
+                } else if (this.logRangeController.reportFailure(new JsonRpcException(logResult.getError()), blockCount)) {
+                    logsByBlock.putAll(this.groupLogsByBlock(this.queryLogs(fromBlock, toBlock)));
+                } else {
+                    throw new JsonRpcException(logResult.getError());
+                }
+            } else if (data.contains(DataClass.LOGS)) {
+                logsByBlock.putAll(this.groupLogsByBlock(this.queryLogs(fromBlock, toBlock)));
+            }
+
+            final List<EthereumBlock> blocks = new ArrayList<>(blockCount);
+            for (int i = 0; i < blockCount; i++) {
+                final EthBlock blockResult = (EthBlock) results.get(i);
+                if (blockResult.hasError()) {
+                    throw new JsonRpcException(blockResult.getError());
+                }
+                if (blockResult.getBlock() == null) {
+                    throw new IOException(String.format("Block '%s' does not exist.", fromBlock.add(BigInteger.valueOf(i))));
+                }
+                final List<Log> logs = logsByBlock.getOrDefault(blockResult.getBlock().getNumber(), new ArrayList<>());
+                final EthereumBlock block = this.transformBlockResults(blockResult, logs);
+                if (data.contains(DataClass.RECEIPTS)) {
+                    this.queryTransactionReceipts(block);
+                }
+                blocks.add(block);
             }
+            return blocks;
+        } catch (IOException ex) {
+            final String message = String.format("Error when retrieving the data for blocks '%s' to '%s'.", fromBlock, toBlock);
+            LOGGER.log(Level.SEVERE, message, ex);
+            throw ex;
+        }
+    }
+
+    /**
+     * Queries all log entries of the blocks in ranges that the node accepts. A range is split whenever the node rejects
+     * it because of its range or result limits, down to single blocks.
+     */
+    private List<Log> queryLogs(BigInteger fromBlock, BigInteger toBlock) throws IOException {
+        final List<Log> logs = new ArrayList<>();
+        BigInteger start = fromBlock;
+        while (start.compareTo(toBlock) <= 0) {
+            final BigInteger end = this.logRangeController.rangeEnd(start, toBlock);
+            final EthLog logResult = this.web3j.ethGetLogs(this.createLogFilter(start, end)).send();
+            if (!logResult.hasError()) {
+                final List<Log> rangeLogs = this.getLogs(logResult);
+                this.logRangeController.reportSuccess(rangeLogs.size());
+                logs.addAll(rangeLogs);
+                start = end.add(BigInteger.ONE);
+            } else if (!this.logRangeController.reportFailure(new JsonRpcException(logResult.getError()), rangeSize(start, end))) {
+                throw new JsonRpcException(logResult.getError());
+            }
+        }
+        return logs;
+    }
+
+    private static int rangeSize(BigInteger fromBlock, BigInteger toBlock) {
+        return toBlock.subtract(fromBlock).intValueExact() + 1;
+    }
 
-            final EthFilter filter = new EthFilter(number, number, new ArrayList<>());
+    private EthFilter createLogFilter(BigInteger fromBlock, BigInteger toBlock) {
+        return new EthFilter(new DefaultBlockParameterNumber(fromBlock), new DefaultBlockParameterNumber(toBlock), new ArrayList<>());
+    }
+
+    @Override
+    public List<BigInteger> queryLogBlockNumbers(BigInteger fromBlock, BigInteger toBlock, LogEntryQuery query) throws IOException {
+        assert fromBlock != null && toBlock != null && query != null;
+        final EthFilter filter = new EthFilter(
+            new DefaultBlockParameterNumber(fromBlock),
+            new DefaultBlockParameterNumber(toBlock),
+            query.getAddresses()
+        );
+        if (!query.getTopics().isEmpty()) {
+            filter.addOptionalTopics(query.getTopics().toArray(new String[0]));
+        }
+
+        try {
             final EthLog logResult = this.web3j.ethGetLogs(filter).send();
             if (logResult.hasError()) {
-                throw new IOException(logResult.getError().getMessage());
+                throw new JsonRpcException(logResult.getError());
             }
-
-            return this.transformBlockResults(blockResult, logResult);
+            return this.getLogs(logResult).stream().map(Log::getBlockNumber).sorted().collect(Collectors.toList());
         } catch (IOException ex) {
-            final String message = String.format("Error when retrieving the data for blocknumber '%s'.", blockNumber);
+            final String message = String.format(
+                "Error when querying log entries (%s) for blocks '%s' to '%s'.",
+                query,
+                fromBlock,
+                toBlock
+            );
             LOGGER.log(Level.SEVERE, message, ex);
             throw ex;
         }
     }
 
-    TransactionReceipt queryTransactionReceipt(String hash) throws IOException {
-        final EthGetTransactionReceipt transactionReceipt = this.web3j.ethGetTransactionReceipt(hash).send();
-        return transactionReceipt.getResult();
+    void queryTransactionReceipts(EthereumBlock block) throws IOException {
+        List<Web3jTransaction> transactions = this.transactionsWithoutReceipt(block);
+        if (!transactions.isEmpty() && !Boolean.FALSE.equals(this.blockReceiptsSupported)) {
+            this.queryBlockReceipts(block, transactions);
+            transactions = this.transactionsWithoutReceipt(block);
+        }
+
+        for (int start = 0; start < transactions.size(); start += BATCH_SIZE) {
+            final List<Web3jTransaction> chunk = transactions.subList(start, Math.min(start + BATCH_SIZE, transactions.size()));
+            final JsonRpcBatch batch = new JsonRpcBatch(this.batchService);
+            chunk.forEach(tx -> batch.add(this.web3j.ethGetTransactionReceipt(tx.getHash()), EthGetTransactionReceipt.class));
+
+            final List<Response<?>> results = batch.send();
+            for (int i = 0; i < chunk.size(); i++) {
+                final EthGetTransactionReceipt receiptResult = (EthGetTransactionReceipt) results.get(i);
+                if (receiptResult.hasError()) {
+                    throw new JsonRpcException(receiptResult.getError());
+                }
+                chunk.get(i).setReceipt(receiptResult.getResult());
+            }
+        }
+    }
+
+    private List<Web3jTransaction> transactionsWithoutReceipt(EthereumBlock block) {
+        return block.transactionStream()
+            .filter(tx -> tx instanceof Web3jTransaction)
+            .map(tx -> (Web3jTransaction) tx)
+            .filter(tx -> !tx.hasReceipt())
+            .collect(Collectors.toList());
+    }
+
+    private void queryBlockReceipts(EthereumBlock block, List<Web3jTransaction> transactions) throws IOException {
+        final Request<String, EthGetBlockReceipts> request = new Request<>(
+            EthGetBlockReceipts.METHOD,
+            List.of(block.getHash()),
+            this.wsService != null ? this.wsService : this.service,
+            EthGetBlockReceipts.class
+        );
+
+        final EthGetBlockReceipts receiptsResult = request.send();
+        if (receiptsResult.hasError()) {
+            if (isUnsupportedMethodError(receiptsResult.getError())) {
+                this.blockReceiptsSupported = Boolean.FALSE;
+                LOGGER.info(String.format("%s is not supported, receipts are requested per transaction.", EthGetBlockReceipts.METHOD));
+                return;
+            }
+            throw new JsonRpcException(receiptsResult.getError());
+        }
+        if (receiptsResult.getReceipts() == null) {
+            throw new IOException(String.format("Error when retrieving receipts of block '%s': no receipts", block.getHash()));
+        }
+        this.blockReceiptsSupported = Boolean.TRUE;
+
+        final Map<String, TransactionReceipt> receipts = new HashMap<>();
+        receiptsResult.getReceipts().forEach(receipt -> receipts.put(receipt.getTransactionHash(), receipt));
+        for (Web3jTransaction tx : transactions) {
+            final TransactionReceipt receipt = receipts.get(tx.getHash());
+            if (receipt != null) {
+                tx.setReceipt(receipt);
+            }
+        }
+    }
+
+    /**
+     * Returns whether the node rejected a request, because it does not know or support the method. Other errors, e.g.,
+     * timeouts, are transient and do not disable the method.
+     */
+    static boolean isUnsupportedMethodError(Response.Error error) {
+        if (error.getCode() == METHOD_NOT_FOUND_CODE) {
+            return true;
+        }
+        final String message = error.getMessage() == null ? "" : error.getMessage().toLowerCase();
+        return message.contains("not supported") || message.contains("method not found");
     }
 
-    private EthereumBlock transformBlockResults(EthBlock blockResult, EthLog logResult) {
+    private EthereumBlock transformBlockResults(EthBlock blockResult, List<Log> logs) {
         final EthereumBlock ethBlock = new Web3jBlock(blockResult.getBlock());
         this.addTransactions(ethBlock, blockResult.getBlock());
-        this.addLogs(ethBlock, logResult);
+        this.addLogs(ethBlock, logs);
         return ethBlock;
     }
 
+    private List<Log> getLogs(EthLog logResult) {
+        return logResult.getLogs().stream().map(log -> (Log) log).collect(Collectors.toList());
+    }
+
+    private Map<BigInteger, List<Log>> groupLogsByBlock(List<Log> logs) {
+        final Map<BigInteger, List<Log>> logsByBlock = new HashMap<>();
+        logs.forEach(log -> logsByBlock.computeIfAbsent(log.getBlockNumber(), number -> new ArrayList<>()).add(log));
+        return logsByBlock;
+    }
+
     private void addTransactions(EthereumBlock ethBlock, Block block) {
         for (int i = 0; i < block.getTransactions().size(); i++) {
-            final Transaction tx = (Transaction) block.getTransactions().get(i);
+            final TransactionResult<?> result = block.getTransactions().get(i);
+            final Transaction tx = result instanceof Transaction ? (Transaction) result : this.createTransactionStub(block, result, i);
             addEthereumTransaction(ethBlock, tx);
         }
     }
 
+    private Transaction createTransactionStub(Block block, TransactionResult<?> result, int index) {
+        final Transaction tx = new Transaction();
+        tx.setHash((String) result.get());
+        tx.setTransactionIndex(Numeric.encodeQuantity(BigInteger.valueOf(index)));
+        tx.setBlockHash(block.getHash());
+        tx.setBlockNumber(Numeric.encodeQuantity(block.getNumber()));
+        return tx;
+    }
+
     private void addEthereumTransaction(EthereumBlock block, Transaction tx) {
         final EthereumTransaction ethTx = new Web3jTransaction(this, block, tx);
         block.addTransaction(ethTx);
     }
 
-    private void addLogs(EthereumBlock ethBlock, EthLog logResult) {
-        for (int i = 0; i < logResult.getLogs().size(); i++) {
-            final Log log = (Log) logResult.getLogs().get(i);
-            this.addLog(ethBlock, log);
+    private void addLogs(EthereumBlock ethBlock, List<Log> logs) {
+        Map<String, EthereumTransaction> transactionsByHash = null;
+        for (Log log : logs) {
+            EthereumTransaction tx = this.findTransactionByIndex(ethBlock, log);
+            if (tx == null) {
+                if (transactionsByHash == null) {
+                    transactionsByHash = this.indexTransactionsByHash(ethBlock);
+                }
+                tx = transactionsByHash.get(log.getTransactionHash());
+            }
+
+            if (tx == null) {
+                LOGGER.log(Level.WARNING, String.format("Couldn't find transaction with hash '%s'.", log.getTransactionHash()));
+                continue;
+            }
+
+            final EthereumLogEntry ethLog = new Web3jLogEntry(tx, log);
+            tx.addLog(ethLog);
         }
     }
 
-    private void addLog(EthereumBlock ethBlock, Log log) {
-        final EthereumTransaction tx = ethBlock.transactionStream()
-            .filter(t -> t.getHash().equals(log.getTransactionHash()))
-            .findAny()
-            .orElse(null);
-        if (tx == null) {
-            LOGGER.log(Level.WARNING, String.format("Couldn't find transaction with hash '%s'.", log.getTransactionHash()));
-            return;
+    private EthereumTransaction findTransactionByIndex(EthereumBlock ethBlock, Log log) {
+        final BigInteger index = log.getTransactionIndex();
+        if (index == null || index.signum() < 0 || BigInteger.valueOf(ethBlock.transactionCount()).compareTo(index) <= 0) {
+            return null;
         }
 
-        final EthereumLogEntry ethLog = new Web3jLogEntry(tx, log);
-        tx.addLog(ethLog);
+        final EthereumTransaction tx = ethBlock.getTransaction(index.intValue());
+        return tx.getHash().equals(log.getTransactionHash()) ? tx : null;
+    }
+
+    private Map<String, EthereumTransaction> indexTransactionsByHash(EthereumBlock ethBlock) {
+        final Map<String, EthereumTransaction> transactionsByHash = new HashMap<>(2 * ethBlock.transactionCount());
+        ethBlock.forEach(tx -> transactionsByHash.put(tx.getHash(), tx));
+        return transactionsByHash;
     }
 
 }
@@ -115,10 +115,18 @@ class Web3jTransaction extends EthereumTransaction {
         return this.loadReceipt(TransactionReceipt::getStatus);
     }
 
+    boolean hasReceipt() {
+        return this.receipt != null;
+    }
+
+    void setReceipt(TransactionReceipt receipt) {
+        this.receipt = receipt;
+    }
+
     private <T> T loadReceipt(Function<TransactionReceipt, T> attributeAccessor) throws ProgramException {
         if (this.receipt == null) {
             try {
-                this.receipt = this.client.queryTransactionReceipt(this.getHash());
+                this.client.queryTransactionReceipts(this.getBlock());
             } catch (Throwable cause) {
                 throw new ProgramException(String.format("Error loading attributes for transaction '%s'.", this.getHash()), cause);
             }
@@ -0,0 +1,206 @@
+package au.csiro.data61.aap.elf.core.values;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Holds the versions of variables written by speculatively executed blocks. Blocks are identified by their index in the
+ * execution order. A block reads the latest version written by a block with a lower index or the value of the base
+ * store, if there is no such version. Each block records which versions it read, so that it can be validated once all
+ * blocks with lower indices are final.
+ */
+public class MultiVersionValueStore {
+    private static final Object ABSENT = new Object();
+    private static final Version BASE_VERSION = new Version(null);
+
+    private final ValueStore base;
+    private final Map<Integer, ConcurrentNavigableMap<Integer, Version>> versions;
+    private final Map<Integer, Set<Integer>> writtenSlots;
+
+    public MultiVersionValueStore(ValueStore base) {
+        assert base != null;
+        this.base = base;
+        this.versions = new ConcurrentHashMap<>();
+        this.writtenSlots = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Creates the store for an execution of a block.
+     */
+    public BlockValueStore createBlockStore(int index, int incarnation) {
+        assert 0 <= index && 0 <= incarnation;
+        return new BlockValueStore(index, incarnation);
+    }
+
+    /**
+     * Makes the writes of an execution visible to blocks with higher indices. Versions of previous executions of the same
+     * block that were not written again are removed.
+     */
+    public void publish(BlockValueStore store) {
+        assert store != null;
+        final Map<Integer, Object> writes = store.getWrites();
+        for (Entry<Integer, Object> write : writes.entrySet()) {
+            this.versions.computeIfAbsent(write.getKey(), slot -> new ConcurrentSkipListMap<>())
+                .put(store.index, new Version(write.getValue()));
+        }
+
+        final Set<Integer> previousSlots = this.writtenSlots.put(store.index, new HashSet<>(writes.keySet()));
+        if (previousSlots != null) {
+            previousSlots.stream().filter(slot -> !writes.containsKey(slot)).forEach(slot -> this.versions.get(slot).remove(store.index));
+        }
+    }
+
+    /**
+     * Checks whether the versions read by an execution are still the latest versions. The result is only final, if all
+     * blocks with lower indices are final.
+     */
+    public boolean validate(BlockValueStore store) {
+        assert store != null;
+        return store.reads.entrySet().stream().allMatch(read -> this.latestVersion(read.getKey(), store.index) == read.getValue());
+    }
+
+    /**
+     * Applies the writes of a validated execution to the base store.
+     */
+    public void commit(BlockValueStore store) {
+        assert store != null;
+        synchronized (this.base) {
+            for (Entry<Integer, Object> write : store.getWrites().entrySet()) {
+                if (write.getValue() == ABSENT) {
+                    this.base.removeValue((int) write.getKey());
+                } else {
+                    this.base.setValue((int) write.getKey(), write.getValue());
+                }
+            }
+        }
+    }
+
+    private Version latestVersion(int slot, int index) {
+        final ConcurrentNavigableMap<Integer, Version> slotVersions = this.versions.get(slot);
+        final Entry<Integer, Version> entry = slotVersions == null ? null : slotVersions.lowerEntry(index);
+        return entry == null ? BASE_VERSION : entry.getValue();
+    }
+
+    private Object readBase(int slot) {
+        synchronized (this.base) {
+            final Object value = this.base.getValue(slot);
+            return value == null ? ABSENT : value;
+        }
+    }
+
+    /**
+     * A value written by an execution of a block. Versions are compared by identity, so that the versions of different
+     * executions of the same block are distinguished.
+     */
+    private static class Version {
+        private final Object value;
+
+        private Version(Object value) {
+            this.value = value;
+        }
+    }
+
+    /**
+     * The variables as seen by one execution of a block. Lists and other mutable values are shared with other blocks
+     * while they are only read. They are copied when a library method is about to change them and then count as written.
+     */
+    public class BlockValueStore extends ValueStore {
+        private final int index;
+        private final int incarnation;
+        private final Map<Integer, Version> reads;
+        private final Map<Integer, Object> writes;
+        private final Map<Integer, Object> readValues;
+        private final Set<Integer> copiedSlots;
+
+        private BlockValueStore(int index, int incarnation) {
+            this.index = index;
+            this.incarnation = incarnation;
+            this.reads = new HashMap<>();
+            this.writes = new HashMap<>();
+            this.readValues = new HashMap<>();
+            this.copiedSlots = new HashSet<>();
+        }
+
+        public int getIndex() {
+            return this.index;
+        }
+
+        public int getIncarnation() {
+            return this.incarnation;
+        }
+
+        @Override
+        public void setValue(int slot, Object value) {
+            assert 0 <= slot;
+            this.copiedSlots.remove(slot);
+            this.writes.put(slot, value == null ? ABSENT : value);
+        }
+
+        @Override
+        public Object getValue(int slot) {
+            final Object value = this.read(slot);
+            return value == ABSENT ? null : value;
+        }
+
+        /**
+         * Values written by this execution may be shared with other variables or blocks, so a mutable value is copied
+         * on its first update, even if the slot was written before.
+         */
+        @Override
+        public Object getValueForUpdate(int slot) {
+            final Object value = this.getValue(slot);
+            if (this.copiedSlots.contains(slot)) {
+                return value;
+            }
+
+            final Object copy = copyMutableValue(value);
+            if (copy == null) {
+                return value;
+            }
+            this.writes.put(slot, copy);
+            this.copiedSlots.add(slot);
+            return copy;
+        }
+
+        @Override
+        public void removeValue(int slot) {
+            assert 0 <= slot;
+            this.copiedSlots.remove(slot);
+            this.writes.put(slot, ABSENT);
+        }
+
+        @Override
+        public boolean containsSlot(int slot) {
+            return this.read(slot) != ABSENT;
+        }
+
+        private Object read(int slot) {
+            if (slot < 0) {
+                return ABSENT;
+            }
+            if (this.writes.containsKey(slot)) {
+                return this.writes.get(slot);
+            }
+            if (this.readValues.containsKey(slot)) {
+                return this.readValues.get(slot);
+            }
+
+            final Version version = MultiVersionValueStore.this.latestVersion(slot, this.index);
+            this.reads.put(slot, version);
+            final Object value = version == BASE_VERSION ? MultiVersionValueStore.this.readBase(slot) : version.value;
+            this.readValues.put(slot, value);
+            return value;
+        }
+
+        private Map<Integer, Object> getWrites() {
+            return Collections.unmodifiableMap(this.writes);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package au.csiro.data61.aap.elf.core.values;
+
+import java.io.Serializable;
+import java.util.Collection;
+
+/**
+ * A value that library methods change in place, e.g., a set or a map. Like lists, such values are copied whenever the
+ * previous state of a variable has to be kept.
+ */
+public interface MutableValue extends Serializable {
+
+    MutableValue copy();
+
+    /**
+     * Returns the elements of the value, or its entries if it is a map, e.g., to write them.
+     */
+    Collection<?> toCollection();
+
+}
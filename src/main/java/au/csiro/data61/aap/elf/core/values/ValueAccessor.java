@@ -1,5 +1,10 @@
 package au.csiro.data61.aap.elf.core.values;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+import au.csiro.data61.aap.elf.core.InstructionHandles;
 import au.csiro.data61.aap.elf.core.ProgramState;
 import au.csiro.data61.aap.elf.core.exceptions.ProgramException;
 
@@ -7,6 +12,25 @@ import au.csiro.data61.aap.elf.core.exceptions.ProgramException;
  * ValueGetter
  */
 public abstract class ValueAccessor {
+    private static final MethodHandle GET_VALUE = InstructionHandles.findVirtual(
+        MethodHandles.lookup(),
+        ValueAccessor.class,
+        "getValue",
+        InstructionHandles.ACCESSOR_TYPE
+    );
+    private static final MethodHandle READ_SLOT = InstructionHandles.findStatic(
+        MethodHandles.lookup(),
+        VariableAccessor.class,
+        "readSlot",
+        MethodType.methodType(Object.class, ProgramState.class, int.class, String.class)
+    );
+    private static final MethodHandle UPDATE_SLOT = InstructionHandles.findStatic(
+        MethodHandles.lookup(),
+        VariableAccessor.class,
+        "updateSlot",
+        MethodType.methodType(Object.class, ProgramState.class, int.class, String.class)
+    );
+
     private Type type;
 
     protected ValueAccessor(Type type) {
@@ -19,12 +43,34 @@ public abstract class ValueAccessor {
 
     public abstract Object getValue(ProgramState state) throws ProgramException;
 
+    /**
+     * Returns a method handle of the {@link InstructionHandles#ACCESSOR_TYPE} that returns the value.
+     */
+    public MethodHandle toMethodHandle() {
+        return GET_VALUE.bindTo(this);
+    }
+
+    /**
+     * Returns an accessor for a parameter that a library method changes in place, so that the value store can keep the
+     * previous state of the variable.
+     */
+    public ValueAccessor toUpdateAccessor() {
+        return this;
+    }
+
     public static ValueAccessor createLiteralAccessor(Object value) {
         return new LiteralAccessor(value);
     }
 
     public static ValueAccessor createVariableAccessor(String name) {
-        return new VariableAccessor(name);
+        return new VariableAccessor(name, false, false);
+    }
+
+    /**
+     * Creates an accessor that throws an exception, if the variable does not exist.
+     */
+    public static ValueAccessor createRequiredVariableAccessor(String name) {
+        return new VariableAccessor(name, true, false);
     }
 
     public static ValueAccessor createFunctionAccessor(ProgramFunction function) {
@@ -49,19 +95,55 @@ public abstract class ValueAccessor {
         public Object getValue(ProgramState state) throws ProgramException {
             return this.value;
         }
+
+        @Override
+        public MethodHandle toMethodHandle() {
+            return MethodHandles.dropArguments(MethodHandles.constant(Object.class, this.value), 0, ProgramState.class);
+        }
     }
 
     private static class VariableAccessor extends ValueAccessor {
-        private final String variableName;
+        private final String name;
+        private final int slot;
+        private final String requiredName;
+        private final boolean update;
 
-        private VariableAccessor(String name) {
+        private VariableAccessor(String name, boolean required, boolean update) {
             super(Type.VARIABLE);
-            this.variableName = name;
+            this.name = name;
+            this.slot = VariableSlots.slotOf(name);
+            this.requiredName = required ? name : null;
+            this.update = update;
         }
 
         @Override
         public Object getValue(ProgramState state) throws ProgramException {
-            return state.getValueStore().getValue(this.variableName);
+            return this.update ? updateSlot(state, this.slot, this.requiredName) : readSlot(state, this.slot, this.requiredName);
+        }
+
+        @Override
+        public MethodHandle toMethodHandle() {
+            return MethodHandles.insertArguments(this.update ? UPDATE_SLOT : READ_SLOT, 1, this.slot, this.requiredName);
+        }
+
+        @Override
+        public ValueAccessor toUpdateAccessor() {
+            return this.update ? this : new VariableAccessor(this.name, this.requiredName != null, true);
+        }
+
+        private static Object readSlot(ProgramState state, int slot, String requiredName) throws ProgramException {
+            return checkExists(state.getValueStore().getValue(slot), requiredName);
+        }
+
+        private static Object updateSlot(ProgramState state, int slot, String requiredName) throws ProgramException {
+            return checkExists(state.getValueStore().getValueForUpdate(slot), requiredName);
+        }
+
+        private static Object checkExists(Object value, String requiredName) throws ProgramException {
+            if (value == null && requiredName != null) {
+                throw new ProgramException(String.format("Variable '%s' does not exist.", requiredName));
+            }
+            return value;
         }
     }
 
@@ -1,5 +1,8 @@
 package au.csiro.data61.aap.elf.core.values;
 
+import java.lang.invoke.MethodHandle;
+
+import au.csiro.data61.aap.elf.core.InstructionHandles;
 import au.csiro.data61.aap.elf.core.ProgramState;
 import au.csiro.data61.aap.elf.core.exceptions.ProgramException;
 
@@ -10,8 +13,15 @@ import au.csiro.data61.aap.elf.core.exceptions.ProgramException;
 public interface ValueMutator {
     public void setValue(Object value, ProgramState state) throws ProgramException;
 
+    /**
+     * Returns a method handle of the {@link InstructionHandles#MUTATOR_TYPE} that sets the value.
+     */
+    public default MethodHandle toMethodHandle() {
+        return VariableMutator.SET_VALUE.bindTo(this);
+    }
+
     public static ValueMutator createVariableMutator(String name) {
         assert name != null;
-        return (value, state) -> state.getValueStore().setValue(name, value);
+        return new VariableMutator(VariableSlots.slotOf(name));
     }
 }
@@ -1,32 +1,45 @@
 package au.csiro.data61.aap.elf.core.values;
 
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 
 /**
- * ValueStore
+ * Holds the values of variables in an array that is indexed by the slots of {@link VariableSlots}. A variable without a
+ * value does not exist.
  */
 public class ValueStore {
-    private Map<String, Object> values;
+    private Object[] values;
+    private final LinkedList<BlockJournal> journals;
+    private int reorgDepth;
+    private BigInteger forgottenBlock;
 
     public ValueStore() {
-        this.values = new HashMap<>();
+        this.values = new Object[VariableSlots.size()];
+        this.journals = new LinkedList<>();
     }
 
     public void setValue(String name, Object value) {
         assert name != null;
-        this.values.put(name, value);
+        this.setValue(VariableSlots.slotOf(name), value);
     }
 
     public Object getValue(String name) {
         assert name != null;
-        return this.values.get(name);
+        return this.getValue(VariableSlots.findSlot(name));
     }
 
     public void removeValue(String name) {
         assert name != null;
-        this.values.remove(name);
+        final int slot = VariableSlots.findSlot(name);
+        if (slot != VariableSlots.NO_SLOT) {
+            this.removeValue(slot);
+        }
     }
 
     public void removeValues(List<String> names) {
@@ -35,6 +48,163 @@ public class ValueStore {
     }
 
     public boolean containsName(String name) {
-        return this.values.containsKey(name);
+        return this.containsSlot(VariableSlots.findSlot(name));
+    }
+
+    public void setValue(int slot, Object value) {
+        assert 0 <= slot;
+        this.recordPreviousValue(slot);
+        if (this.values.length <= slot) {
+            this.values = Arrays.copyOf(this.values, Math.max(slot + 1, VariableSlots.size()));
+        }
+        this.values[slot] = value;
+    }
+
+    public Object getValue(int slot) {
+        return 0 <= slot && slot < this.values.length ? this.values[slot] : null;
+    }
+
+    /**
+     * Returns the value of a slot that a library method is about to change in place. While changes are recorded, a
+     * list or other mutable value is copied the first time it is changed in a block, so that it can be rolled back.
+     */
+    public Object getValueForUpdate(int slot) {
+        final Object value = this.getValue(slot);
+        if (!this.journals.isEmpty()) {
+            final Map<Integer, Object> previousValues = this.journals.getLast().previousValues;
+            if (!previousValues.containsKey(slot)) {
+                final Object copy = copyMutableValue(value);
+                previousValues.put(slot, copy == null ? value : copy);
+            }
+        }
+        return value;
+    }
+
+    public void removeValue(int slot) {
+        if (this.getValue(slot) != null) {
+            this.setValue(slot, null);
+        }
+    }
+
+    public boolean containsSlot(int slot) {
+        return this.getValue(slot) != null;
+    }
+
+    /**
+     * Removes the variables declared in a scope, when the scope is exited.
+     */
+    public void releaseFrame(int[] slots) {
+        assert slots != null;
+        for (int slot : slots) {
+            this.removeValue(slot);
+        }
+    }
+
+    /**
+     * Returns a copy of all variables, e.g., to checkpoint them.
+     */
+    public Map<String, Object> snapshot() {
+        final Map<String, Object> snapshot = new HashMap<>();
+        for (int slot = 0; slot < this.values.length; slot++) {
+            if (this.values[slot] != null) {
+                snapshot.put(VariableSlots.nameOf(slot), this.values[slot]);
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Replaces all variables with the ones of a snapshot.
+     */
+    public void restore(Map<String, Object> snapshot) {
+        assert snapshot != null;
+        this.clearJournals();
+        this.values = new Object[VariableSlots.size()];
+        snapshot.forEach(this::setValue);
+    }
+
+    /**
+     * Sets the number of blocks whose changes can be rolled back with {@link #rollback(BigInteger)}.
+     */
+    public void setReorgDepth(int reorgDepth) {
+        assert 0 <= reorgDepth;
+        this.reorgDepth = reorgDepth;
+        this.trimJournals();
+    }
+
+    /**
+     * Starts recording the changes of a block, so that they can be undone if the block is orphaned. Mutable values are
+     * only copied once they are changed, see {@link #getValueForUpdate(int)}.
+     */
+    public void startBlock(BigInteger blockNumber) {
+        assert blockNumber != null;
+        if (this.reorgDepth == 0) {
+            return;
+        }
+
+        this.journals.addLast(new BlockJournal(blockNumber));
+        this.trimJournals();
+    }
+
+    /**
+     * Undoes the changes of all blocks starting with the given block. Returns false, if the changes of such a block are
+     * no longer recorded, i.e., the reorg was deeper than the reorg depth.
+     */
+    public boolean rollback(BigInteger fromBlock) {
+        assert fromBlock != null;
+        while (!this.journals.isEmpty() && fromBlock.compareTo(this.journals.getLast().blockNumber) <= 0) {
+            for (Entry<Integer, Object> entry : this.journals.removeLast().previousValues.entrySet()) {
+                this.values[entry.getKey()] = entry.getValue();
+            }
+        }
+        return this.forgottenBlock == null || this.forgottenBlock.compareTo(fromBlock) < 0;
+    }
+
+    /**
+     * Stops recording changes, e.g., once all blocks have been processed.
+     */
+    public void clearJournals() {
+        this.journals.clear();
+        this.forgottenBlock = null;
+    }
+
+    /**
+     * Returns a copy of a value that library methods change in place, or null if the value is immutable.
+     */
+    static Object copyMutableValue(Object value) {
+        if (value instanceof List) {
+            return new ArrayList<>((List<?>) value);
+        } else if (value instanceof MutableValue) {
+            return ((MutableValue) value).copy();
+        } else {
+            return null;
+        }
+    }
+
+    private void recordPreviousValue(int slot) {
+        if (this.journals.isEmpty()) {
+            return;
+        }
+
+        final Map<Integer, Object> previousValues = this.journals.getLast().previousValues;
+        if (!previousValues.containsKey(slot)) {
+            previousValues.put(slot, this.getValue(slot));
+        }
+    }
+
+    private void trimJournals() {
+        while (this.reorgDepth < this.journals.size()) {
+            this.forgottenBlock = this.journals.removeFirst().blockNumber;
+        }
+    }
+
+    private static class BlockJournal {
+        private final BigInteger blockNumber;
+        private final Map<Integer, Object> previousValues;
+
+        private BlockJournal(BigInteger blockNumber) {
+            this.blockNumber = blockNumber;
+            this.previousValues = new HashMap<>();
+        }
     }
 }
@@ -0,0 +1,47 @@
+package au.csiro.data61.aap.elf.core.values;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+import au.csiro.data61.aap.elf.core.InstructionHandles;
+import au.csiro.data61.aap.elf.core.ProgramState;
+
+/**
+ * Sets the value of a variable, which is identified by its slot.
+ */
+class VariableMutator implements ValueMutator {
+    static final MethodHandle SET_VALUE = InstructionHandles.findVirtual(
+        MethodHandles.lookup(),
+        ValueMutator.class,
+        "setValue",
+        InstructionHandles.MUTATOR_TYPE
+    );
+    private static final MethodHandle WRITE_SLOT = InstructionHandles.findStatic(
+        MethodHandles.lookup(),
+        VariableMutator.class,
+        "writeSlot",
+        MethodType.methodType(void.class, Object.class, ProgramState.class, int.class)
+    );
+
+    private final int slot;
+
+    VariableMutator(int slot) {
+        assert 0 <= slot;
+        this.slot = slot;
+    }
+
+    @Override
+    public void setValue(Object value, ProgramState state) {
+        writeSlot(value, state, this.slot);
+    }
+
+    @Override
+    public MethodHandle toMethodHandle() {
+        return MethodHandles.insertArguments(WRITE_SLOT, 2, this.slot);
+    }
+
+    private static void writeSlot(Object value, ProgramState state, int slot) {
+        state.getValueStore().setValue(slot, value);
+    }
+}
@@ -0,0 +1,48 @@
+package au.csiro.data61.aap.elf.core.values;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assigns each variable name an index into the slots of a {@link ValueStore}. Names are resolved when a program is
+ * composed, so that variables are accessed by index when it is executed. The validation ensures that visible variables
+ * have distinct names, hence one slot per name suffices for all scopes.
+ */
+public final class VariableSlots {
+    public static final int NO_SLOT = -1;
+
+    private static final Map<String, Integer> SLOTS = new HashMap<>();
+    private static final List<String> NAMES = new ArrayList<>();
+
+    private VariableSlots() {}
+
+    /**
+     * Returns the slot of the variable and assigns a new slot, if the name has none yet.
+     */
+    public static synchronized int slotOf(String name) {
+        assert name != null;
+        return SLOTS.computeIfAbsent(name, key -> {
+            NAMES.add(key);
+            return NAMES.size() - 1;
+        });
+    }
+
+    /**
+     * Returns the slot of the variable or {@link #NO_SLOT}, if the name has no slot.
+     */
+    public static synchronized int findSlot(String name) {
+        assert name != null;
+        return SLOTS.getOrDefault(name, NO_SLOT);
+    }
+
+    public static synchronized String nameOf(int slot) {
+        assert 0 <= slot && slot < NAMES.size();
+        return NAMES.get(slot);
+    }
+
+    public static synchronized int size() {
+        return NAMES.size();
+    }
+}
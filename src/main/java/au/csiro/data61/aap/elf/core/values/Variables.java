@@ -1,7 +1,5 @@
 package au.csiro.data61.aap.elf.core.values;
 
-import au.csiro.data61.aap.elf.core.exceptions.ProgramException;
-
 /**
  * Variables
  */
@@ -14,16 +12,10 @@ public class Variables {
             return accessor;
         }
 
-        return ValueAccessor.createFunctionAccessor(state -> {
-            if (!state.getValueStore().containsName(name)) {
-                throw new ProgramException(String.format("Variable '%s' does not exist.", name));
-            }
-            return state.getValueStore().getValue(name);
-        });
+        return ValueAccessor.createRequiredVariableAccessor(name);
     }
 
     public static ValueMutator createValueMutator(String name) {
-        assert name != null;
-        return (value, state) -> state.getValueStore().setValue(name, value);
+        return ValueMutator.createVariableMutator(name);
     }
 }
@@ -74,6 +74,27 @@ public class CsvWriter extends DataWriter {
         this.tables.get(tableName).values().stream().filter(column -> column.size() != rowCount).forEach(column -> column.add(null));
     }
 
+    /**
+     * Appends the rows of the other writer. Columns are added in the order in which they appear in the other writer, so
+     * that the result is the same as if the rows had been added to this writer.
+     */
+    void merge(CsvWriter writer) {
+        assert writer != null;
+        for (Map.Entry<String, List<String>> entry : writer.columnNames.entrySet()) {
+            final String tableName = entry.getKey();
+            final Map<String, ArrayList<Object>> table = writer.tables.get(tableName);
+            this.tables.putIfAbsent(tableName, new HashMap<>());
+            this.rowCounts.putIfAbsent(tableName, 0);
+            this.columnNames.putIfAbsent(tableName, new ArrayList<>());
+            for (int i = 0; i < writer.rowCounts.get(tableName); i++) {
+                for (String column : entry.getValue()) {
+                    this.addCell(tableName, column, table.get(column).get(i));
+                }
+                this.endRow(tableName);
+            }
+        }
+    }
+
     @Override
     protected void writeState(String namePrefix) throws Throwable {
         List<String> tableNames = new LinkedList<>(this.tables.keySet());
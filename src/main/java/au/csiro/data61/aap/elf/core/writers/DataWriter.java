@@ -3,8 +3,11 @@ package au.csiro.data61.aap.elf.core.writers;
 import java.math.BigInteger;
 import java.nio.file.Path;
 import java.util.Collection;
+import java.util.Map.Entry;
 import java.util.stream.Collectors;
 
+import au.csiro.data61.aap.elf.core.values.MutableValue;
+
 /**
  * Exporter
  */
@@ -48,17 +51,29 @@ public abstract class DataWriter {
 
     protected abstract void writeState(String filenameSuffix) throws Throwable;
 
+    /**
+     * Lists, sets and maps are written as {a, b}, the entries of maps as key=value.
+     */
     @SuppressWarnings("unchecked")
     protected final String asString(Object object) {
         if (object == null) {
             return "";
         }
 
+        if (object instanceof MutableValue) {
+            return this.asString(((MutableValue) object).toCollection());
+        }
+
         if (Collection.class.isAssignableFrom(object.getClass())) {
             String value = ((Collection<Object>) object).stream().map(obj -> asString(obj)).collect(Collectors.joining(", "));
             return String.format("{%s}", value);
         }
 
+        if (object instanceof Entry) {
+            final Entry<?, ?> entry = (Entry<?, ?>) object;
+            return String.format("%s=%s", this.asString(entry.getKey()), this.asString(entry.getValue()));
+        }
+
         return object.toString();
     }
 }
@@ -1,26 +1,66 @@
 package au.csiro.data61.aap.elf.core.writers;
 
+import java.io.File;
+import java.io.IOException;
 import java.math.BigInteger;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.TreeSet;
+import java.util.logging.Logger;
 
 /**
  * Sinks
  */
 public class DataWriters {
+    private static final Logger LOGGER = Logger.getLogger(DataWriters.class.getName());
+    static final String PENDING_FOLDER = ".pending";
+
     private final DataWriter[] writers;
     private final CsvWriter csvWriter;
     private final LogWriter logWriter;
     private final XesWriter xesWriter;
+    private final LinkedList<BigInteger> pendingBlocks;
+    private Path outputFolder;
+    private boolean streaming;
+    private int reorgDepth;
+    private BigInteger currentBlock;
+    private BigInteger lastCommittedBlock;
 
     public DataWriters() {
         this.csvWriter = new CsvWriter();
         this.logWriter = new LogWriter();
         this.xesWriter = new XesWriter();
+        this.pendingBlocks = new LinkedList<>();
 
         this.writers = new DataWriter[] { this.csvWriter, this.logWriter, this.xesWriter };
     }
 
+    /**
+     * Creates writers for a worker thread, which write streamed output directly to the output folder. Other output is
+     * kept in memory until it is merged with {@link #merge(DataWriters)}.
+     */
+    public DataWriters createWorkerWriters() throws Throwable {
+        final DataWriters worker = new DataWriters();
+        if (this.outputFolder != null) {
+            worker.setOutputFolder(this.outputFolder);
+        }
+        worker.setStreaming(this.streaming);
+        return worker;
+    }
+
+    /**
+     * Appends the CSV rows and log lines of the worker writers. XES elements are not merged.
+     */
+    public void merge(DataWriters worker) {
+        assert worker != null;
+        this.csvWriter.merge(worker.csvWriter);
+        this.logWriter.merge(worker.logWriter);
+    }
+
     public XesWriter getXesWriter() {
         return this.xesWriter;
     }
@@ -35,22 +75,153 @@ public class DataWriters {
 
     public void setOutputFolder(Path folderPath) throws Throwable {
         assert folderPath != null;
+        this.outputFolder = folderPath;
         Arrays.stream(this.writers).forEach(e -> e.setOutputFolder(folderPath));
     }
 
+    public Path getOutputFolder() {
+        return this.outputFolder;
+    }
+
+    public boolean isStreaming() {
+        return this.streaming;
+    }
+
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+        Arrays.stream(this.writers).forEach(e -> e.setStreaming(streaming));
+    }
+
+    public int getReorgDepth() {
+        return this.reorgDepth;
+    }
+
+    /**
+     * Sets the number of blocks for which streamed output is held back. The output of a block is written to a pending
+     * folder and only moved to the output folder once the block is this many blocks deep, so that the output of blocks
+     * orphaned by a reorg can be discarded with {@link #rollback(BigInteger)}.
+     */
+    public void setReorgDepth(int reorgDepth) {
+        assert 0 <= reorgDepth;
+        this.reorgDepth = reorgDepth;
+    }
+
     public void startNewBlock(BigInteger blockNumber) {
+        this.currentBlock = blockNumber;
         Arrays.stream(this.writers).forEach(e -> e.startBlock(blockNumber));
     }
 
     public void writeBlock() throws Throwable {
-        for (DataWriter ex : this.writers) {
-            ex.endBlock();
+        if (!this.isBuffering()) {
+            for (DataWriter ex : this.writers) {
+                ex.endBlock();
+            }
+            return;
+        }
+
+        final Path pendingFolder = this.pendingFolder(this.currentBlock);
+        Files.createDirectories(pendingFolder);
+        this.pendingBlocks.addLast(this.currentBlock);
+        try {
+            for (DataWriter ex : this.writers) {
+                ex.setOutputFolder(pendingFolder);
+                ex.endBlock();
+            }
+        } finally {
+            Arrays.stream(this.writers).forEach(e -> e.setOutputFolder(this.outputFolder));
+        }
+        this.commitBlocks(this.currentBlock.subtract(BigInteger.valueOf(this.reorgDepth)));
+    }
+
+    /**
+     * Discards the pending output of all blocks starting with the given block. Returns false, if output of such a block
+     * has already been committed, i.e., the reorg was deeper than the reorg depth.
+     */
+    public boolean rollback(BigInteger fromBlock) throws Throwable {
+        assert fromBlock != null;
+        while (!this.pendingBlocks.isEmpty() && fromBlock.compareTo(this.pendingBlocks.getLast()) <= 0) {
+            deleteFolder(this.pendingFolder(this.pendingBlocks.removeLast()).toFile());
+        }
+        return this.lastCommittedBlock == null || this.lastCommittedBlock.compareTo(fromBlock) < 0;
+    }
+
+    /**
+     * Moves the pending output of all blocks up to the given block to the output folder.
+     */
+    public void commitBlocks(BigInteger toBlock) throws Throwable {
+        while (!this.pendingBlocks.isEmpty() && this.pendingBlocks.getFirst().compareTo(toBlock) <= 0) {
+            final BigInteger block = this.pendingBlocks.removeFirst();
+            final Path pendingFolder = this.pendingFolder(block);
+            for (File file : pendingFolder.toFile().listFiles()) {
+                moveFile(file.toPath(), this.outputFolder.resolve(file.getName()));
+            }
+            deleteFolder(pendingFolder.toFile());
+            this.lastCommittedBlock = block;
+        }
+    }
+
+    /**
+     * Continues after the given block, e.g., when resuming from a checkpoint. Pending output of blocks up to that block
+     * is kept, while pending output of later blocks is discarded, since these blocks will be processed again.
+     */
+    public void resumeAfter(BigInteger block) throws Throwable {
+        assert block != null;
+        this.pendingBlocks.clear();
+        final File[] folders = this.outputFolder == null ? null : this.outputFolder.resolve(PENDING_FOLDER).toFile().listFiles();
+        if (folders == null) {
+            return;
+        }
+
+        final TreeSet<BigInteger> blocks = new TreeSet<>();
+        for (File folder : folders) {
+            final BigInteger pendingBlock = new BigInteger(folder.getName());
+            if (pendingBlock.compareTo(block) <= 0) {
+                blocks.add(pendingBlock);
+            } else {
+                deleteFolder(folder);
+            }
+        }
+        this.pendingBlocks.addAll(blocks);
+    }
+
+    public void commitPendingBlocks() throws Throwable {
+        if (!this.pendingBlocks.isEmpty()) {
+            this.commitBlocks(this.pendingBlocks.getLast());
         }
     }
 
     public void writeAllData() throws Throwable {
+        this.commitPendingBlocks();
+
         for (DataWriter ex : this.writers) {
             ex.endProgram();
         }
     }
+
+    private boolean isBuffering() {
+        return this.streaming && 0 < this.reorgDepth && this.outputFolder != null;
+    }
+
+    private Path pendingFolder(BigInteger block) {
+        return this.outputFolder.resolve(PENDING_FOLDER).resolve(block.toString());
+    }
+
+    private static void moveFile(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException ex) {
+            LOGGER.fine(String.format("Atomic move not supported, moving %s non-atomically.", source));
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void deleteFolder(File folder) throws IOException {
+        final File[] files = folder.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                Files.deleteIfExists(file.toPath());
+            }
+        }
+        Files.deleteIfExists(folder.toPath());
+    }
 }
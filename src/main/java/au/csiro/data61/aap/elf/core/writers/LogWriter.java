@@ -24,9 +24,13 @@ public class LogWriter extends DataWriter {
         this.lines.add(itemParts.stream().map(obj -> this.asString(obj)).collect(Collectors.joining()));
     }
 
+    void merge(LogWriter writer) {
+        assert writer != null;
+        this.lines.addAll(writer.lines);
+    }
+
     @Override
     protected void writeState(String filenameSuffix) throws Throwable {
-        assert filenameSuffix != null;
         if (!this.lines.isEmpty()) {
             final String filename = filenameSuffix == null ? "log.txt" : String.format("log_%s.txt", filenameSuffix);
             final Path outputPath = Paths.get(this.getOutputFolder().toString(), filename);
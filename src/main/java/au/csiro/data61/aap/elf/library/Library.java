@@ -1,8 +1,8 @@
 package au.csiro.data61.aap.elf.library;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -10,12 +10,18 @@ import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import au.csiro.data61.aap.elf.core.BinaryMethod;
 import au.csiro.data61.aap.elf.core.Method;
+import au.csiro.data61.aap.elf.core.NullaryMethod;
 import au.csiro.data61.aap.elf.core.ProgramState;
+import au.csiro.data61.aap.elf.core.UnaryMethod;
 import au.csiro.data61.aap.elf.library.compression.BitMapping;
 import au.csiro.data61.aap.elf.library.compression.ValueDictionary;
 import au.csiro.data61.aap.elf.library.types.IntegerOperations;
 import au.csiro.data61.aap.elf.library.types.ListOperations;
+import au.csiro.data61.aap.elf.library.types.MapOperations;
+import au.csiro.data61.aap.elf.library.types.SetOperations;
+import au.csiro.data61.aap.elf.util.TypeUtils;
 
 /**
  * Library
@@ -24,6 +30,13 @@ public class Library {
     public static final String ADD_XES_EVENT_CLASSIFIER = "addXesEventClassifier";
     public static final String ADD_XES_GLOBAL_EVENT_ATTRIBUTE = "addGlobalXesEventAttribute";
 
+    private static final List<String> MAP_VALUE_TYPES = List.of(
+        TypeUtils.ADDRESS_TYPE_KEYWORD,
+        TypeUtils.BOOL_TYPE_KEYWORD,
+        TypeUtils.INT_TYPE_KEYWORD,
+        TypeUtils.STRING_TYPE_KEYWORD
+    );
+
     private static final Logger LOGGER = Logger.getLogger(Library.class.getName());
     public static Library INSTANCE = new Library();
 
@@ -34,18 +47,37 @@ public class Library {
 
         try {
             this.addMethod(new MethodSignature("connect", null, "string"), ProgramState::connectWebsocketClient);
+            this.addMethod(new MethodSignature("connectHttp", null, "string"), ProgramState::connectHttpClient);
             this.addMethod(new MethodSignature("connectIpc", null, "string"), ProgramState::connectIpcClient);
+            this.addMethod(new MethodSignature("connectPool", null, "string[]"), ProgramState::connectPool);
+            this.addMethod(new MethodSignature("connectArchive", null, "string"), ProgramState::connectArchive);
             this.addMethod(new MethodSignature("setOutputFolder", null, "string"), ProgramState::setOutputFolder);
-            this.addMethod(new MethodSignature("add", "int", "int", "int"), IntegerOperations::add);
-            this.addMethod(new MethodSignature("multiply", "int", "int", "int"), IntegerOperations::multiply);
-            this.addMethod(new MethodSignature("subtract", "int", "int", "int"), IntegerOperations::subtract);
-            this.addMethod(new MethodSignature("divide", "int", "int", "int"), IntegerOperations::divide);
-            this.addMethod(new MethodSignature("contains", "bool", "address[]", "address"), ListOperations::contains);
-            this.addMethod(new MethodSignature("contains", "bool", "int[]", "int"), ListOperations::contains);
-            this.addMethod(new MethodSignature("add", null, "int[]", "int"), ListOperations::addElement);
-            this.addMethod(new MethodSignature("add", null, "address[]", "address"), ListOperations::addElement);
-            this.addMethod(new MethodSignature("remove", null, "address[]", "address"), ListOperations::removeElement);
-            this.addMethod(new MethodSignature("clear", null, "address[]"), ListOperations::clear);
+            this.addMethod(new MethodSignature("setBlockPrefetchWindow", null, "int"), ProgramState::setBlockPrefetchWindow);
+            this.addMethod(new MethodSignature("setBackfillWindow", null, "int"), ProgramState::setBackfillWindow);
+            this.addMethod(new MethodSignature("setRequestHedging", null, "int", "int"), ProgramState::setRequestHedging);
+            this.addMethod(new MethodSignature("setBlockStore", null, "string", "int"), ProgramState::setBlockStore);
+            this.addMethod(new MethodSignature("setStreamingOutput", null, "bool"), ProgramState::setStreamingOutput);
+            this.addMethod(new MethodSignature("setReorgDepth", null, "int"), ProgramState::setReorgDepth);
+            this.addMethod(new MethodSignature("setReorgWindow", null, "int"), ProgramState::setReorgWindow);
+            this.addMethod(new MethodSignature("setCheckpointInterval", null, "int"), ProgramState::setCheckpointInterval);
+            this.addMethod(new MethodSignature("setParallelism", null, "int"), ProgramState::setParallelism);
+            this.addMethod(new MethodSignature("setCompiledExecution", null, "bool"), ProgramState::setCompiledExecution);
+            this.addMethod(new MethodSignature("add", "int", "int", "int"), (BinaryMethod) IntegerOperations::add);
+            this.addMethod(new MethodSignature("multiply", "int", "int", "int"), (BinaryMethod) IntegerOperations::multiply);
+            this.addMethod(new MethodSignature("subtract", "int", "int", "int"), (BinaryMethod) IntegerOperations::subtract);
+            this.addMethod(new MethodSignature("divide", "int", "int", "int"), (BinaryMethod) IntegerOperations::divide);
+            this.addMethod(new MethodSignature("contains", "bool", "address[]", "address"), (BinaryMethod) ListOperations::contains);
+            this.addMethod(new MethodSignature("contains", "bool", "int[]", "int"), (BinaryMethod) ListOperations::contains);
+            this.addUpdatingMethod((BinaryMethod) ListOperations::addElement, null, "add", "int[]", "int");
+            this.addUpdatingMethod((BinaryMethod) ListOperations::addElement, null, "add", "address[]", "address");
+            this.addUpdatingMethod((BinaryMethod) ListOperations::removeElement, null, "remove", "address[]", "address");
+            this.addUpdatingMethod((UnaryMethod) ListOperations::clear, null, "clear", "address[]");
+            this.addSetMethods(TypeUtils.INT_TYPE_KEYWORD, SetOperations::newIntSet);
+            this.addSetMethods(TypeUtils.ADDRESS_TYPE_KEYWORD, SetOperations::newAddressSet);
+            for (String valueType : MAP_VALUE_TYPES) {
+                this.addMapMethods(TypeUtils.INT_TYPE_KEYWORD, valueType, MapOperations::newIntMap);
+                this.addMapMethods(TypeUtils.ADDRESS_TYPE_KEYWORD, valueType, MapOperations::newAddressMap);
+            }
 
             this.addMethod(ValueDictionary::boolToBool, "bool", ValueDictionary.METHOD_NAME, "bool", "bool", "bool[]", "bool[]");
             this.addMethod(ValueDictionary::stringToBool, "bool", ValueDictionary.METHOD_NAME, "byte", "bool", "byte[]", "bool[]");
@@ -76,11 +108,11 @@ public class Library {
             this.addMethod(BitMapping::mapBitsToInt, "int", BitMapping.METHOD_NAME, "int", "int", "int", "int[]");
             this.addMethod(BitMapping::mapBitsToBool, "bool", BitMapping.METHOD_NAME, "int", "int", "int", "bool[]");
 
-            this.addMethod(ListOperations::newAddressArray, "address[]", "newAddressArray");
-            this.addMethod(ListOperations::newBoolArray, "bool[]", "newBoolArray");
-            this.addMethod(ListOperations::newByteArray, "byte[]", "newByteArray");
-            this.addMethod(ListOperations::newIntArray, "int[]", "newIntArray");
-            this.addMethod(ListOperations::newStringArray, "string[]", "newStringArray");
+            this.addMethod((NullaryMethod) ListOperations::newAddressArray, "address[]", "newAddressArray");
+            this.addMethod((NullaryMethod) ListOperations::newBoolArray, "bool[]", "newBoolArray");
+            this.addMethod((NullaryMethod) ListOperations::newByteArray, "byte[]", "newByteArray");
+            this.addMethod((NullaryMethod) ListOperations::newIntArray, "int[]", "newIntArray");
+            this.addMethod((NullaryMethod) ListOperations::newStringArray, "string[]", "newStringArray");
 
             this.addMethod(ProgramState::setXesGlobalEventAttribte, null, ADD_XES_GLOBAL_EVENT_ATTRIBUTE, "string", "string", "bool");
             this.addMethod(ProgramState::setXesGlobalEventAttribte, null, ADD_XES_GLOBAL_EVENT_ATTRIBUTE, "string", "string", "byte");
@@ -92,24 +124,64 @@ public class Library {
         }
     }
 
+    private void addSetMethods(String elementType, NullaryMethod constructor) {
+        final String setType = TypeUtils.toSetType(elementType);
+        this.addMethod(constructor, setType, String.format("new%sSet", capitalize(elementType)));
+        this.addUpdatingMethod((BinaryMethod) SetOperations::addElement, null, "add", setType, elementType);
+        this.addUpdatingMethod((BinaryMethod) SetOperations::removeElement, null, "remove", setType, elementType);
+        this.addMethod((BinaryMethod) SetOperations::contains, TypeUtils.BOOL_TYPE_KEYWORD, "contains", setType, elementType);
+        this.addUpdatingMethod((UnaryMethod) SetOperations::clear, null, "clear", setType);
+        this.addMethod((UnaryMethod) SetOperations::size, TypeUtils.INT_TYPE_KEYWORD, "size", setType);
+    }
+
+    private void addMapMethods(String keyType, String valueType, NullaryMethod constructor) {
+        final String mapType = TypeUtils.toMapType(keyType, valueType);
+        this.addMethod(constructor, mapType, String.format("new%sTo%sMap", capitalize(keyType), capitalize(valueType)));
+        this.addUpdatingMethod(MapOperations::put, null, "put", mapType, keyType, valueType);
+        this.addMethod((BinaryMethod) MapOperations::get, valueType, "get", mapType, keyType);
+        this.addMethod((BinaryMethod) MapOperations::containsKey, TypeUtils.BOOL_TYPE_KEYWORD, "containsKey", mapType, keyType);
+        this.addUpdatingMethod((BinaryMethod) MapOperations::removeKey, null, "remove", mapType, keyType);
+        this.addUpdatingMethod((UnaryMethod) MapOperations::clear, null, "clear", mapType);
+        this.addMethod((UnaryMethod) MapOperations::size, TypeUtils.INT_TYPE_KEYWORD, "size", mapType);
+    }
+
+    private static String capitalize(String type) {
+        return Character.toUpperCase(type.charAt(0)) + type.substring(1);
+    }
+
     private void addMethod(Method method, String returnType, String methodName, String... parameterTypes) {
+        this.addMethod(method, false, returnType, methodName, parameterTypes);
+    }
+
+    /**
+     * Adds a method that changes its first parameter, e.g., a list, in place.
+     */
+    private void addUpdatingMethod(Method method, String returnType, String methodName, String... parameterTypes) {
+        this.addMethod(method, true, returnType, methodName, parameterTypes);
+    }
+
+    private void addMethod(Method method, boolean updatesFirstParameter, String returnType, String methodName, String... parameterTypes) {
         final MethodSignature signature = new MethodSignature(methodName, returnType, parameterTypes);
         try {
-            this.addMethod(signature, method);
+            this.addMethod(signature, method, updatesFirstParameter);
         } catch (LibraryException ex) {
             LOGGER.log(Level.SEVERE, "Error during initialization of Library!", ex);
         }
     }
 
     public void addMethod(MethodSignature signature, Method method) throws LibraryException {
+        this.addMethod(signature, method, false);
+    }
+
+    private void addMethod(MethodSignature signature, Method method, boolean updatesFirstParameter) throws LibraryException {
         assert signature != null;
         assert method != null;
-        this.registeredMethods.putIfAbsent(signature.getMethodName(), new LinkedList<>());
+        this.registeredMethods.putIfAbsent(signature.getMethodName(), new ArrayList<>());
         final List<LibraryEntry> entries = this.registeredMethods.get(signature.getMethodName());
         if (this.containsEntry(entries, signature)) {
             throw new LibraryException(String.format("Entry with signature '%s' already exists.", signature.getSignature()));
         }
-        entries.add(new LibraryEntry(method, signature));
+        entries.add(new LibraryEntry(method, signature, updatesFirstParameter));
     }
 
     public boolean isMethodNameKnown(String methodName) {
@@ -124,6 +196,13 @@ public class Library {
         return this.findEntry(methodName, parameterTypes, LibraryEntry::getSignature);
     }
 
+    /**
+     * Returns whether the method changes the value of its first parameter in place.
+     */
+    public boolean updatesFirstParameter(String methodName, List<String> parameterTypes) {
+        return Boolean.TRUE.equals(this.findEntry(methodName, parameterTypes, LibraryEntry::updatesFirstParameter));
+    }
+
     private <T> T findEntry(String methodName, List<String> parameterTypes, Function<LibraryEntry, T> mapper) {
         assert methodName != null;
         assert parameterTypes != null && parameterTypes.stream().allMatch(Objects::nonNull);
@@ -143,12 +222,14 @@ public class Library {
     private static class LibraryEntry {
         private final Method method;
         private final MethodSignature signature;
+        private final boolean updatesFirstParameter;
 
-        private LibraryEntry(Method method, MethodSignature signature) {
+        private LibraryEntry(Method method, MethodSignature signature, boolean updatesFirstParameter) {
             assert method != null;
             assert signature != null;
             this.method = method;
             this.signature = signature;
+            this.updatesFirstParameter = updatesFirstParameter;
         }
 
         private Method getMethod() {
@@ -159,6 +240,10 @@ public class Library {
             return this.signature;
         }
 
+        private boolean updatesFirstParameter() {
+            return this.updatesFirstParameter;
+        }
+
         private boolean isCompatibleWith(MethodSignature signature) {
             return this.signature.isCompatibleWith(signature);
         }
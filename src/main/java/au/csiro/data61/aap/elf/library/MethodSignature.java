@@ -36,6 +36,10 @@ public class MethodSignature {
     private boolean isValidType(String type) {
         if (type == null) {
             return false;
+        } else if (TypeUtils.isSetType(type)) {
+            return this.isValidType(TypeUtils.getElementType(type));
+        } else if (TypeUtils.isMapType(type)) {
+            return this.isValidType(TypeUtils.getKeyType(type)) && this.isValidType(TypeUtils.getValueType(type));
         }
 
         try {
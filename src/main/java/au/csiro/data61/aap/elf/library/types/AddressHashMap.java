@@ -0,0 +1,91 @@
+package au.csiro.data61.aap.elf.library.types;
+
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * Value of the map&lt;address,V&gt; types. Keys are stored as 20 bytes, so that their case does not matter. The
+ * spelling of the first added key is kept.
+ */
+public class AddressHashMap extends HashedMap {
+    private static final long serialVersionUID = 1L;
+
+    private final LongKeyTable table;
+
+    public AddressHashMap() {
+        this.table = new LongKeyTable(AddressKeys.WIDTH, true, true);
+    }
+
+    private AddressHashMap(AddressHashMap map) {
+        this.table = map.table.copy();
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        final String address = AddressKeys.verify(key);
+        this.table.put(
+            AddressKeys.word(address, 0),
+            AddressKeys.word(address, 1),
+            AddressKeys.word(address, 2),
+            AddressKeys.caseMask(address),
+            value
+        );
+    }
+
+    @Override
+    public Object get(Object key) {
+        final int index = this.indexOf(key);
+        return index == -1 ? null : this.table.value(index);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return this.indexOf(key) != -1;
+    }
+
+    @Override
+    public boolean remove(Object key) {
+        final String address = AddressKeys.verify(key);
+        return this.table.remove(AddressKeys.word(address, 0), AddressKeys.word(address, 1), AddressKeys.word(address, 2));
+    }
+
+    @Override
+    public int size() {
+        return this.table.size();
+    }
+
+    @Override
+    public void clear() {
+        this.table.clear();
+    }
+
+    @Override
+    public void forEach(BiConsumer<Object, Object> consumer) {
+        for (int index = 0; index < this.table.capacity(); index++) {
+            if (this.table.isUsed(index)) {
+                consumer.accept(AddressKeys.decode(this.table, index), this.table.value(index));
+            }
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        int hashCode = 0;
+        for (int index = 0; index < this.table.capacity(); index++) {
+            if (this.table.isUsed(index)) {
+                hashCode += AddressKeys.hashCode(this.table, index) ^ Objects.hashCode(this.table.value(index));
+            }
+        }
+        return hashCode;
+    }
+
+    @Override
+    public AddressHashMap copy() {
+        return new AddressHashMap(this);
+    }
+
+    private int indexOf(Object key) {
+        final String address = AddressKeys.verify(key);
+        return this.table.indexOf(AddressKeys.word(address, 0), AddressKeys.word(address, 1), AddressKeys.word(address, 2));
+    }
+}
@@ -0,0 +1,80 @@
+package au.csiro.data61.aap.elf.library.types;
+
+import java.util.function.Consumer;
+
+/**
+ * Value of the set&lt;address&gt; type. Addresses are stored as 20 bytes, so that their case does not matter. The
+ * spelling of the first added address is kept.
+ */
+public class AddressHashSet extends HashedSet {
+    private static final long serialVersionUID = 1L;
+
+    private final LongKeyTable table;
+
+    public AddressHashSet() {
+        this.table = new LongKeyTable(AddressKeys.WIDTH, false, true);
+    }
+
+    private AddressHashSet(AddressHashSet set) {
+        this.table = set.table.copy();
+    }
+
+    @Override
+    public boolean add(Object element) {
+        final String address = AddressKeys.verify(element);
+        return this.table.put(
+            AddressKeys.word(address, 0),
+            AddressKeys.word(address, 1),
+            AddressKeys.word(address, 2),
+            AddressKeys.caseMask(address),
+            null
+        );
+    }
+
+    @Override
+    public boolean remove(Object element) {
+        final String address = AddressKeys.verify(element);
+        return this.table.remove(AddressKeys.word(address, 0), AddressKeys.word(address, 1), AddressKeys.word(address, 2));
+    }
+
+    @Override
+    public boolean contains(Object element) {
+        final String address = AddressKeys.verify(element);
+        return this.table.indexOf(AddressKeys.word(address, 0), AddressKeys.word(address, 1), AddressKeys.word(address, 2)) != -1;
+    }
+
+    @Override
+    public int size() {
+        return this.table.size();
+    }
+
+    @Override
+    public void clear() {
+        this.table.clear();
+    }
+
+    @Override
+    public void forEach(Consumer<Object> consumer) {
+        for (int index = 0; index < this.table.capacity(); index++) {
+            if (this.table.isUsed(index)) {
+                consumer.accept(AddressKeys.decode(this.table, index));
+            }
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        int hashCode = 0;
+        for (int index = 0; index < this.table.capacity(); index++) {
+            if (this.table.isUsed(index)) {
+                hashCode += AddressKeys.hashCode(this.table, index);
+            }
+        }
+        return hashCode;
+    }
+
+    @Override
+    public AddressHashSet copy() {
+        return new AddressHashSet(this);
+    }
+}
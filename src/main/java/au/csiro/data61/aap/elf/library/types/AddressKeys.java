@@ -0,0 +1,64 @@
+package au.csiro.data61.aap.elf.library.types;
+
+/**
+ * Encodes addresses, i.e., hex strings of 20 bytes, as the three longs of a {@link LongKeyTable} key. The first two
+ * longs hold 8 bytes each and the third one the remaining 4 bytes. The case of the hex digits, e.g., of checksummed
+ * addresses, is kept in the tag of the entry, with one bit per digit.
+ */
+final class AddressKeys {
+    static final int WIDTH = 3;
+    private static final int PREFIX_LENGTH = 2;
+    private static final int ADDRESS_LENGTH = PREFIX_LENGTH + 40;
+    private static final int[] WORD_STARTS = { PREFIX_LENGTH, PREFIX_LENGTH + 16, PREFIX_LENGTH + 32, ADDRESS_LENGTH };
+
+    private AddressKeys() {}
+
+    static String verify(Object address) {
+        if (!(address instanceof String) || ((String) address).length() != ADDRESS_LENGTH || !((String) address).startsWith("0x")) {
+            throw new IllegalArgumentException(String.format("Value '%s' is not an address.", address));
+        }
+        return (String) address;
+    }
+
+    static long word(String address, int word) {
+        long value = 0;
+        for (int i = WORD_STARTS[word]; i < WORD_STARTS[word + 1]; i++) {
+            final int digit = Character.digit(address.charAt(i), 16);
+            if (digit < 0) {
+                throw new IllegalArgumentException(String.format("Value '%s' is not an address.", address));
+            }
+            value = (value << 4) | digit;
+        }
+        return value;
+    }
+
+    static long caseMask(String address) {
+        long mask = 0;
+        for (int i = PREFIX_LENGTH; i < ADDRESS_LENGTH; i++) {
+            if (Character.isUpperCase(address.charAt(i))) {
+                mask |= 1L << (i - PREFIX_LENGTH);
+            }
+        }
+        return mask;
+    }
+
+    static String decode(LongKeyTable table, int index) {
+        final String address = String.format("0x%016x%016x%08x", table.key(index, 0), table.key(index, 1), table.key(index, 2));
+        final long mask = table.tag(index);
+        if (mask == 0) {
+            return address;
+        }
+
+        final char[] chars = address.toCharArray();
+        for (int i = PREFIX_LENGTH; i < ADDRESS_LENGTH; i++) {
+            if ((mask & (1L << (i - PREFIX_LENGTH))) != 0) {
+                chars[i] = Character.toUpperCase(chars[i]);
+            }
+        }
+        return new String(chars);
+    }
+
+    static int hashCode(LongKeyTable table, int index) {
+        return Long.hashCode(table.key(index, 0) * 31 + table.key(index, 1)) * 31 + Long.hashCode(table.key(index, 2));
+    }
+}
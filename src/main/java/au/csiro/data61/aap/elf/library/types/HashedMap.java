@@ -0,0 +1,72 @@
+package au.csiro.data61.aap.elf.library.types;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.StringJoiner;
+import java.util.function.BiConsumer;
+
+import au.csiro.data61.aap.elf.core.values.MutableValue;
+
+/**
+ * Base class of the values of map types, which hash their keys into a {@link LongKeyTable}.
+ */
+public abstract class HashedMap implements MutableValue {
+    private static final long serialVersionUID = 1L;
+
+    public abstract void put(Object key, Object value);
+
+    public abstract Object get(Object key);
+
+    public abstract boolean containsKey(Object key);
+
+    public abstract boolean remove(Object key);
+
+    public abstract int size();
+
+    public abstract void clear();
+
+    public abstract void forEach(BiConsumer<Object, Object> consumer);
+
+    @Override
+    public abstract HashedMap copy();
+
+    @Override
+    public List<Map.Entry<Object, Object>> toCollection() {
+        final List<Map.Entry<Object, Object>> entries = new ArrayList<>(this.size());
+        this.forEach((key, value) -> entries.add(new SimpleImmutableEntry<>(key, value)));
+        return entries;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (object == null || object.getClass() != this.getClass()) {
+            return false;
+        }
+
+        final HashedMap map = (HashedMap) object;
+        if (map.size() != this.size()) {
+            return false;
+        }
+
+        final boolean[] equal = { true };
+        this.forEach((key, value) -> equal[0] &= map.containsKey(key) && Objects.equals(value, map.get(key)));
+        return equal[0];
+    }
+
+    @Override
+    public int hashCode() {
+        final int[] hashCode = { 0 };
+        this.forEach((key, value) -> hashCode[0] += key.hashCode() ^ Objects.hashCode(value));
+        return hashCode[0];
+    }
+
+    @Override
+    public String toString() {
+        final StringJoiner joiner = new StringJoiner(", ", "{", "}");
+        this.forEach((key, value) -> joiner.add(String.format("%s=%s", key, value)));
+        return joiner.toString();
+    }
+}
@@ -0,0 +1,67 @@
+package au.csiro.data61.aap.elf.library.types;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.function.Consumer;
+
+import au.csiro.data61.aap.elf.core.values.MutableValue;
+
+/**
+ * Base class of the values of set types, which hash their elements into a {@link LongKeyTable}.
+ */
+public abstract class HashedSet implements MutableValue {
+    private static final long serialVersionUID = 1L;
+
+    public abstract boolean add(Object element);
+
+    public abstract boolean remove(Object element);
+
+    public abstract boolean contains(Object element);
+
+    public abstract int size();
+
+    public abstract void clear();
+
+    public abstract void forEach(Consumer<Object> consumer);
+
+    @Override
+    public abstract HashedSet copy();
+
+    @Override
+    public List<Object> toCollection() {
+        final List<Object> elements = new ArrayList<>(this.size());
+        this.forEach(elements::add);
+        return elements;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (object == null || object.getClass() != this.getClass()) {
+            return false;
+        }
+
+        final HashedSet set = (HashedSet) object;
+        if (set.size() != this.size()) {
+            return false;
+        }
+
+        final boolean[] equal = { true };
+        this.forEach(element -> equal[0] &= set.contains(element));
+        return equal[0];
+    }
+
+    @Override
+    public int hashCode() {
+        final int[] hashCode = { 0 };
+        this.forEach(element -> hashCode[0] += element.hashCode());
+        return hashCode[0];
+    }
+
+    @Override
+    public String toString() {
+        final StringJoiner joiner = new StringJoiner(", ", "[", "]");
+        this.forEach(element -> joiner.add(element.toString()));
+        return joiner.toString();
+    }
+}
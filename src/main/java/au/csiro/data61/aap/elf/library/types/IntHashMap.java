@@ -0,0 +1,90 @@
+package au.csiro.data61.aap.elf.library.types;
+
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Value of the map&lt;int,V&gt; types. Keys that fit into a long are stored unboxed, larger ones in a regular hash map.
+ */
+public class IntHashMap extends HashedMap {
+    private static final long serialVersionUID = 1L;
+
+    private final LongKeyTable table;
+    private final HashMap<BigInteger, Object> largeEntries;
+
+    public IntHashMap() {
+        this.table = new LongKeyTable(1, true);
+        this.largeEntries = new HashMap<>();
+    }
+
+    private IntHashMap(IntHashMap map) {
+        this.table = map.table.copy();
+        this.largeEntries = new HashMap<>(map.largeEntries);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        final BigInteger number = (BigInteger) key;
+        if (IntegerOperations.fitsLong(number)) {
+            this.table.put(number.longValue(), 0, 0, value);
+        } else {
+            this.largeEntries.put(number, value);
+        }
+    }
+
+    @Override
+    public Object get(Object key) {
+        final BigInteger number = (BigInteger) key;
+        if (!IntegerOperations.fitsLong(number)) {
+            return this.largeEntries.get(number);
+        }
+        final int index = this.table.indexOf(number.longValue(), 0, 0);
+        return index == -1 ? null : this.table.value(index);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        final BigInteger number = (BigInteger) key;
+        return IntegerOperations.fitsLong(number)
+            ? this.table.indexOf(number.longValue(), 0, 0) != -1
+            : this.largeEntries.containsKey(number);
+    }
+
+    @Override
+    public boolean remove(Object key) {
+        final BigInteger number = (BigInteger) key;
+        if (IntegerOperations.fitsLong(number)) {
+            return this.table.remove(number.longValue(), 0, 0);
+        }
+        final boolean contained = this.largeEntries.containsKey(number);
+        this.largeEntries.remove(number);
+        return contained;
+    }
+
+    @Override
+    public int size() {
+        return this.table.size() + this.largeEntries.size();
+    }
+
+    @Override
+    public void clear() {
+        this.table.clear();
+        this.largeEntries.clear();
+    }
+
+    @Override
+    public void forEach(BiConsumer<Object, Object> consumer) {
+        for (int index = 0; index < this.table.capacity(); index++) {
+            if (this.table.isUsed(index)) {
+                consumer.accept(IntegerOperations.valueOf(this.table.key(index, 0)), this.table.value(index));
+            }
+        }
+        this.largeEntries.forEach(consumer);
+    }
+
+    @Override
+    public IntHashMap copy() {
+        return new IntHashMap(this);
+    }
+}
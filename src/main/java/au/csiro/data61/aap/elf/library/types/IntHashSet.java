@@ -0,0 +1,69 @@
+package au.csiro.data61.aap.elf.library.types;
+
+import java.math.BigInteger;
+import java.util.HashSet;
+import java.util.function.Consumer;
+
+/**
+ * Value of the set&lt;int&gt; type. Elements that fit into a long are stored unboxed, larger ones in a regular hash set.
+ */
+public class IntHashSet extends HashedSet {
+    private static final long serialVersionUID = 1L;
+
+    private final LongKeyTable table;
+    private final HashSet<BigInteger> largeElements;
+
+    public IntHashSet() {
+        this.table = new LongKeyTable(1, false);
+        this.largeElements = new HashSet<>();
+    }
+
+    private IntHashSet(IntHashSet set) {
+        this.table = set.table.copy();
+        this.largeElements = new HashSet<>(set.largeElements);
+    }
+
+    @Override
+    public boolean add(Object element) {
+        final BigInteger value = (BigInteger) element;
+        return IntegerOperations.fitsLong(value) ? this.table.put(value.longValue(), 0, 0, null) : this.largeElements.add(value);
+    }
+
+    @Override
+    public boolean remove(Object element) {
+        final BigInteger value = (BigInteger) element;
+        return IntegerOperations.fitsLong(value) ? this.table.remove(value.longValue(), 0, 0) : this.largeElements.remove(value);
+    }
+
+    @Override
+    public boolean contains(Object element) {
+        final BigInteger value = (BigInteger) element;
+        return IntegerOperations.fitsLong(value) ? this.table.indexOf(value.longValue(), 0, 0) != -1 : this.largeElements.contains(value);
+    }
+
+    @Override
+    public int size() {
+        return this.table.size() + this.largeElements.size();
+    }
+
+    @Override
+    public void clear() {
+        this.table.clear();
+        this.largeElements.clear();
+    }
+
+    @Override
+    public void forEach(Consumer<Object> consumer) {
+        for (int index = 0; index < this.table.capacity(); index++) {
+            if (this.table.isUsed(index)) {
+                consumer.accept(IntegerOperations.valueOf(this.table.key(index, 0)));
+            }
+        }
+        this.largeElements.forEach(consumer);
+    }
+
+    @Override
+    public IntHashSet copy() {
+        return new IntHashSet(this);
+    }
+}
@@ -2,38 +2,94 @@ package au.csiro.data61.aap.elf.library.types;
 
 import java.math.BigInteger;
 import java.util.function.BiFunction;
+import java.util.function.LongBinaryOperator;
 
 import au.csiro.data61.aap.elf.core.ProgramState;
 
 /**
  * IntegerOperations
+ *
+ * Integer values remain BigIntegers, but operands that fit into a long are computed with overflow-checked long
+ * arithmetic. Only operations that overflow a long fall back to BigInteger arithmetic. Results in the range of
+ * {@link #CACHE_LOW} to {@link #CACHE_HIGH} are shared instances, so that small counters and indexes do not allocate.
  */
 public class IntegerOperations {
+    static final int CACHE_LOW = -128;
+    static final int CACHE_HIGH = 1024;
+    private static final BigInteger[] CACHE = createCache();
 
-    public static Object add(Object[] parameters, ProgramState state) {
-        return operate(parameters, BigInteger::add);
+    public static Object add(Object operand1, Object operand2, ProgramState state) {
+        return operate(operand1, operand2, Math::addExact, BigInteger::add);
     }
 
-    public static Object multiply(Object[] parameters, ProgramState state) {
-        return operate(parameters, BigInteger::multiply);
+    public static Object multiply(Object operand1, Object operand2, ProgramState state) {
+        return operate(operand1, operand2, Math::multiplyExact, BigInteger::multiply);
     }
 
-    public static Object subtract(Object[] parameters, ProgramState state) {
-        return operate(parameters, BigInteger::subtract);
+    public static Object subtract(Object operand1, Object operand2, ProgramState state) {
+        return operate(operand1, operand2, Math::subtractExact, BigInteger::subtract);
     }
 
-    public static Object divide(Object[] parameters, ProgramState state) {
-        return operate(parameters, BigInteger::divide);
+    public static Object divide(Object operand1, Object operand2, ProgramState state) {
+        return operate(operand1, operand2, IntegerOperations::divideExact, BigInteger::divide);
     }
 
-    private static Object operate(Object[] parameters, BiFunction<BigInteger, BigInteger, BigInteger> operation) {
-        assert areValidParameters(parameters);
-        final BigInteger operand1 = (BigInteger) parameters[0];
-        final BigInteger operand2 = (BigInteger) parameters[1];
-        return operation.apply(operand1, operand2);
+    private static Object operate(
+        Object operand1,
+        Object operand2,
+        LongBinaryOperator longOperation,
+        BiFunction<BigInteger, BigInteger, BigInteger> operation
+    ) {
+        assert operand1 instanceof BigInteger && operand2 instanceof BigInteger;
+        final BigInteger value1 = (BigInteger) operand1;
+        final BigInteger value2 = (BigInteger) operand2;
+        if (fitsLong(value1) && fitsLong(value2)) {
+            try {
+                return valueOf(longOperation.applyAsLong(value1.longValue(), value2.longValue()));
+            } catch (ArithmeticException ex) {
+                // the result overflows a long or the divisor is zero, which BigInteger arithmetic handles
+            }
+        }
+        return operation.apply(value1, value2);
     }
 
-    private static boolean areValidParameters(Object[] parameters) {
-        return parameters != null && parameters.length == 2 && parameters[0] instanceof BigInteger && parameters[1] instanceof BigInteger;
+    private static long divideExact(long dividend, long divisor) {
+        if (divisor == 0 || (dividend == Long.MIN_VALUE && divisor == -1)) {
+            throw new ArithmeticException("long overflow");
+        }
+        return dividend / divisor;
+    }
+
+    /**
+     * Compares two integer values like {@link BigInteger#compareTo(BigInteger)}, but on longs when both values fit
+     * into a long.
+     */
+    public static int compare(BigInteger value1, BigInteger value2) {
+        if (fitsLong(value1) && fitsLong(value2)) {
+            return Long.compare(value1.longValue(), value2.longValue());
+        }
+        return value1.compareTo(value2);
+    }
+
+    /**
+     * Returns the integer value for the given long, sharing instances for small values.
+     */
+    public static BigInteger valueOf(long value) {
+        if (CACHE_LOW <= value && value <= CACHE_HIGH) {
+            return CACHE[(int) value - CACHE_LOW];
+        }
+        return BigInteger.valueOf(value);
+    }
+
+    static boolean fitsLong(BigInteger value) {
+        return value.bitLength() < Long.SIZE;
+    }
+
+    private static BigInteger[] createCache() {
+        final BigInteger[] cache = new BigInteger[CACHE_HIGH - CACHE_LOW + 1];
+        for (int i = 0; i < cache.length; i++) {
+            cache[i] = BigInteger.valueOf(i + CACHE_LOW);
+        }
+        return cache;
     }
 }
@@ -12,74 +12,72 @@ import io.reactivex.functions.BiFunction;
  */
 public class ListOperations {
 
-    public static Object newAddressArray(Object[] parameters, ProgramState state) {
+    public static Object newAddressArray(ProgramState state) {
         return new ArrayList<>();
     }
 
-    public static Object newBoolArray(Object[] parameters, ProgramState state) {
+    public static Object newBoolArray(ProgramState state) {
         return new ArrayList<>();
     }
 
-    public static Object newByteArray(Object[] parameters, ProgramState state) {
+    public static Object newByteArray(ProgramState state) {
         return new ArrayList<>();
     }
 
-    public static Object newIntArray(Object[] parameters, ProgramState state) {
+    public static Object newIntArray(ProgramState state) {
         return new ArrayList<>();
     }
 
-    public static Object newStringArray(Object[] parameters, ProgramState state) {
+    public static Object newStringArray(ProgramState state) {
         return new ArrayList<>();
     }
 
-    public static Object addElement(Object[] parameters, ProgramState state) throws ProgramException {
-        return operate(parameters, (list, value) -> {
+    public static Object addElement(Object operand1, Object operand2, ProgramState state) throws ProgramException {
+        return operate(operand1, operand2, (list, value) -> {
             list.add(value);
             return null;
         });
     }
 
-    public static Object removeElement(Object[] parameters, ProgramState state) throws ProgramException {
-        return operate(parameters, (list, value) -> {
+    public static Object removeElement(Object operand1, Object operand2, ProgramState state) throws ProgramException {
+        return operate(operand1, operand2, (list, value) -> {
             list.remove(value);
             return null;
         });
     }
 
-    public static Object clear(Object[] parameters, ProgramState state) throws ProgramException {
-        return operate(parameters, (list, value) -> {
-            list.clear();
-            return null;
-        });
+    public static Object clear(Object list, ProgramState state) throws ProgramException {
+        if (!(list instanceof List)) {
+            throw new ProgramException("Invalid parameters for method call.");
+        }
+
+        try {
+            ((List<?>) list).clear();
+        } catch (Throwable cause) {
+            throw new ProgramException("Error executing method call.", cause);
+        }
+        return null;
     }
 
-    public static Boolean contains(Object[] parameters, ProgramState state) throws ProgramException {
-        return operate(parameters, (list, value) -> (Boolean) list.contains(value));
+    public static Boolean contains(Object operand1, Object operand2, ProgramState state) throws ProgramException {
+        return operate(operand1, operand2, (list, value) -> (Boolean) list.contains(value));
     }
 
     @SuppressWarnings("unchecked")
-    private static <T> T operate(Object[] parameters, BiFunction<List<Object>, Object, T> operation) throws ProgramException {
-        if (!areValidParameters(parameters)) {
+    private static <T> T operate(Object list, Object value, BiFunction<List<Object>, Object, T> operation) throws ProgramException {
+        if (!areValidParameters(list, value)) {
             throw new ProgramException("Invalid parameters for method call.");
         }
 
-        final List<Object> operand1 = (List<Object>) parameters[0];
-        final Object operand2 = parameters[1];
-
         try {
-            return operation.apply(operand1, operand2);
+            return operation.apply((List<Object>) list, value);
         } catch (Throwable cause) {
             throw new ProgramException("Error executing method call.", cause);
         }
     }
 
-    private static boolean areValidParameters(Object[] parameters) {
-        return parameters != null
-            && parameters.length == 2
-            && parameters[0] != null
-            && parameters[1] != null
-            && List.class.isAssignableFrom(parameters[0].getClass());
-
+    private static boolean areValidParameters(Object list, Object value) {
+        return list instanceof List && value != null;
     }
 
     public static void main(String[] args) {
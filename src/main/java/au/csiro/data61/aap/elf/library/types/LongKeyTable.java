@@ -0,0 +1,230 @@
+package au.csiro.data61.aap.elf.library.types;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * An open addressing hash table with linear probing, whose keys consist of one to three longs. Keys are stored in a
+ * flat long array, so that an entry costs a few words instead of a boxed key object. Removed entries are filled by
+ * shifting the following entries of their probe sequence backwards, so that no tombstones are needed. Optionally, each
+ * entry has a value and a tag, i.e., a long that is kept with the key but does not take part in lookups.
+ */
+final class LongKeyTable implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int width;
+    private final boolean hasValues;
+    private final boolean hasTags;
+    private long[] keys;
+    private long[] tags;
+    private boolean[] used;
+    private Object[] values;
+    private int size;
+
+    LongKeyTable(int width, boolean hasValues) {
+        this(width, hasValues, false);
+    }
+
+    LongKeyTable(int width, boolean hasValues, boolean hasTags) {
+        assert 1 <= width && width <= 3;
+        this.width = width;
+        this.hasValues = hasValues;
+        this.hasTags = hasTags;
+        this.allocate(INITIAL_CAPACITY);
+    }
+
+    private LongKeyTable(LongKeyTable table) {
+        this.width = table.width;
+        this.hasValues = table.hasValues;
+        this.hasTags = table.hasTags;
+        this.keys = table.keys.clone();
+        this.tags = table.tags == null ? null : table.tags.clone();
+        this.used = table.used.clone();
+        this.values = table.values == null ? null : table.values.clone();
+        this.size = table.size;
+    }
+
+    LongKeyTable copy() {
+        return new LongKeyTable(this);
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    int capacity() {
+        return this.used.length;
+    }
+
+    boolean isUsed(int index) {
+        return this.used[index];
+    }
+
+    long key(int index, int word) {
+        assert 0 <= word && word < this.width;
+        return this.keys[index * this.width + word];
+    }
+
+    Object value(int index) {
+        assert this.hasValues;
+        return this.values[index];
+    }
+
+    long tag(int index) {
+        assert this.hasTags;
+        return this.tags[index];
+    }
+
+    /**
+     * Returns the index of the key, or -1 if the table does not contain it.
+     */
+    int indexOf(long key0, long key1, long key2) {
+        final int mask = this.capacity() - 1;
+        for (int index = this.home(key0, key1, key2); this.used[index]; index = (index + 1) & mask) {
+            if (this.matches(index, key0, key1, key2)) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Adds the key with the given value and returns whether it was not contained before.
+     */
+    boolean put(long key0, long key1, long key2, Object value) {
+        return this.put(key0, key1, key2, 0, value);
+    }
+
+    /**
+     * Adds the key with the given tag and value and returns whether it was not contained before. The tag of a key that
+     * is already contained is kept.
+     */
+    boolean put(long key0, long key1, long key2, long tag, Object value) {
+        final int mask = this.capacity() - 1;
+        int index = this.home(key0, key1, key2);
+        for (; this.used[index]; index = (index + 1) & mask) {
+            if (this.matches(index, key0, key1, key2)) {
+                if (this.hasValues) {
+                    this.values[index] = value;
+                }
+                return false;
+            }
+        }
+
+        this.used[index] = true;
+        this.setKey(index, key0, key1, key2);
+        if (this.hasTags) {
+            this.tags[index] = tag;
+        }
+        if (this.hasValues) {
+            this.values[index] = value;
+        }
+        this.size++;
+        if (3 * this.size > 2 * this.capacity()) {
+            this.rehash(2 * this.capacity());
+        }
+        return true;
+    }
+
+    /**
+     * Removes the key and returns whether it was contained.
+     */
+    boolean remove(long key0, long key1, long key2) {
+        int hole = this.indexOf(key0, key1, key2);
+        if (hole == -1) {
+            return false;
+        }
+
+        final int mask = this.capacity() - 1;
+        for (int index = (hole + 1) & mask; this.used[index]; index = (index + 1) & mask) {
+            final int home = this.home(this.keyAt(index, 0), this.keyAt(index, 1), this.keyAt(index, 2));
+            if (((index - home) & mask) >= ((index - hole) & mask)) {
+                this.move(index, hole);
+                hole = index;
+            }
+        }
+
+        this.used[hole] = false;
+        if (this.hasValues) {
+            this.values[hole] = null;
+        }
+        this.size--;
+        return true;
+    }
+
+    void clear() {
+        Arrays.fill(this.used, false);
+        if (this.hasValues) {
+            Arrays.fill(this.values, null);
+        }
+        this.size = 0;
+    }
+
+    private void allocate(int capacity) {
+        this.keys = new long[capacity * this.width];
+        this.tags = this.hasTags ? new long[capacity] : null;
+        this.used = new boolean[capacity];
+        this.values = this.hasValues ? new Object[capacity] : null;
+        this.size = 0;
+    }
+
+    private void rehash(int capacity) {
+        final long[] oldKeys = this.keys;
+        final long[] oldTags = this.tags;
+        final boolean[] oldUsed = this.used;
+        final Object[] oldValues = this.values;
+        this.allocate(capacity);
+        for (int index = 0; index < oldUsed.length; index++) {
+            if (oldUsed[index]) {
+                final int base = index * this.width;
+                this.put(
+                    oldKeys[base],
+                    this.width < 2 ? 0 : oldKeys[base + 1],
+                    this.width < 3 ? 0 : oldKeys[base + 2],
+                    oldTags == null ? 0 : oldTags[index],
+                    oldValues == null ? null : oldValues[index]
+                );
+            }
+        }
+    }
+
+    private int home(long key0, long key1, long key2) {
+        long hash = key0 * 0x9E3779B97F4A7C15L + key1 * 0xC2B2AE3D27D4EB4FL + key2 * 0x165667B19E3779F9L;
+        hash ^= hash >>> 32;
+        hash ^= hash >>> 16;
+        return (int) hash & (this.capacity() - 1);
+    }
+
+    private boolean matches(int index, long key0, long key1, long key2) {
+        final int base = index * this.width;
+        return this.keys[base] == key0
+            && (this.width < 2 || this.keys[base + 1] == key1)
+            && (this.width < 3 || this.keys[base + 2] == key2);
+    }
+
+    private long keyAt(int index, int word) {
+        return word < this.width ? this.keys[index * this.width + word] : 0;
+    }
+
+    private void setKey(int index, long key0, long key1, long key2) {
+        final int base = index * this.width;
+        this.keys[base] = key0;
+        if (1 < this.width) {
+            this.keys[base + 1] = key1;
+        }
+        if (2 < this.width) {
+            this.keys[base + 2] = key2;
+        }
+    }
+
+    private void move(int from, int to) {
+        System.arraycopy(this.keys, from * this.width, this.keys, to * this.width, this.width);
+        if (this.hasTags) {
+            this.tags[to] = this.tags[from];
+        }
+        if (this.hasValues) {
+            this.values[to] = this.values[from];
+        }
+    }
+}
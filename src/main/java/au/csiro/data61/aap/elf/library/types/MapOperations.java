@@ -0,0 +1,75 @@
+package au.csiro.data61.aap.elf.library.types;
+
+import java.util.function.BiFunction;
+
+import au.csiro.data61.aap.elf.core.ProgramState;
+import au.csiro.data61.aap.elf.core.exceptions.ProgramException;
+
+/**
+ * MapOperations
+ */
+public class MapOperations {
+
+    public static Object newIntMap(ProgramState state) {
+        return new IntHashMap();
+    }
+
+    public static Object newAddressMap(ProgramState state) {
+        return new AddressHashMap();
+    }
+
+    public static Object put(Object[] parameters, ProgramState state) throws ProgramException {
+        if (parameters.length != 3 || parameters[2] == null) {
+            throw new ProgramException("Invalid parameters for method call.");
+        }
+
+        return operate(parameters[0], parameters[1], (map, key) -> {
+            map.put(key, parameters[2]);
+            return null;
+        });
+    }
+
+    public static Object get(Object operand1, Object operand2, ProgramState state) throws ProgramException {
+        return operate(operand1, operand2, HashedMap::get);
+    }
+
+    public static Boolean containsKey(Object operand1, Object operand2, ProgramState state) throws ProgramException {
+        return operate(operand1, operand2, HashedMap::containsKey);
+    }
+
+    public static Object removeKey(Object operand1, Object operand2, ProgramState state) throws ProgramException {
+        return operate(operand1, operand2, (map, key) -> {
+            map.remove(key);
+            return null;
+        });
+    }
+
+    public static Object clear(Object map, ProgramState state) throws ProgramException {
+        if (!(map instanceof HashedMap)) {
+            throw new ProgramException("Invalid parameters for method call.");
+        }
+
+        ((HashedMap) map).clear();
+        return null;
+    }
+
+    public static Object size(Object map, ProgramState state) throws ProgramException {
+        if (!(map instanceof HashedMap)) {
+            throw new ProgramException("Invalid parameters for method call.");
+        }
+
+        return IntegerOperations.valueOf(((HashedMap) map).size());
+    }
+
+    private static <T> T operate(Object map, Object key, BiFunction<HashedMap, Object, T> operation) throws ProgramException {
+        if (!(map instanceof HashedMap) || key == null) {
+            throw new ProgramException("Invalid parameters for method call.");
+        }
+
+        try {
+            return operation.apply((HashedMap) map, key);
+        } catch (Throwable cause) {
+            throw new ProgramException("Error executing method call.", cause);
+        }
+    }
+}
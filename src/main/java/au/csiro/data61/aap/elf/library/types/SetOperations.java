@@ -0,0 +1,67 @@
+package au.csiro.data61.aap.elf.library.types;
+
+import java.util.function.BiFunction;
+
+import au.csiro.data61.aap.elf.core.ProgramState;
+import au.csiro.data61.aap.elf.core.exceptions.ProgramException;
+
+/**
+ * SetOperations
+ */
+public class SetOperations {
+
+    public static Object newIntSet(ProgramState state) {
+        return new IntHashSet();
+    }
+
+    public static Object newAddressSet(ProgramState state) {
+        return new AddressHashSet();
+    }
+
+    public static Object addElement(Object operand1, Object operand2, ProgramState state) throws ProgramException {
+        return operate(operand1, operand2, (set, value) -> {
+            set.add(value);
+            return null;
+        });
+    }
+
+    public static Object removeElement(Object operand1, Object operand2, ProgramState state) throws ProgramException {
+        return operate(operand1, operand2, (set, value) -> {
+            set.remove(value);
+            return null;
+        });
+    }
+
+    public static Boolean contains(Object operand1, Object operand2, ProgramState state) throws ProgramException {
+        return operate(operand1, operand2, HashedSet::contains);
+    }
+
+    public static Object clear(Object set, ProgramState state) throws ProgramException {
+        if (!(set instanceof HashedSet)) {
+            throw new ProgramException("Invalid parameters for method call.");
+        }
+
+        ((HashedSet) set).clear();
+        return null;
+    }
+
+    public static Object size(Object set, ProgramState state) throws ProgramException {
+        if (!(set instanceof HashedSet)) {
+            throw new ProgramException("Invalid parameters for method call.");
+        }
+
+        return IntegerOperations.valueOf(((HashedSet) set).size());
+    }
+
+    private static <T> T operate(Object set, Object value, BiFunction<HashedSet, Object, T> operation) throws ProgramException {
+        if (!(set instanceof HashedSet) || value == null) {
+            throw new ProgramException("Invalid parameters for method call.");
+        }
+
+        try {
+            return operation.apply((HashedSet) set, value);
+        } catch (Throwable cause) {
+            throw new ProgramException("Error executing method call.", cause);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package au.csiro.data61.aap.elf.parsing;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+
+import au.csiro.data61.aap.elf.core.filters.ParallelExecution;
+import au.csiro.data61.aap.elf.core.values.EthereumVariables;
+import au.csiro.data61.aap.elf.parsing.EthqlParser.BlockFilterContext;
+import au.csiro.data61.aap.elf.parsing.EthqlParser.EmitStatementXesEventContext;
+import au.csiro.data61.aap.elf.parsing.EthqlParser.EmitStatementXesTraceContext;
+import au.csiro.data61.aap.elf.parsing.EthqlParser.LogEntryParameterContext;
+import au.csiro.data61.aap.elf.parsing.EthqlParser.MethodInvocationContext;
+import au.csiro.data61.aap.elf.parsing.EthqlParser.NamedEmitVariableContext;
+import au.csiro.data61.aap.elf.parsing.EthqlParser.ScopeContext;
+import au.csiro.data61.aap.elf.parsing.EthqlParser.SmartContractParameterContext;
+import au.csiro.data61.aap.elf.parsing.EthqlParser.StatementContext;
+import au.csiro.data61.aap.elf.parsing.EthqlParser.VariableDeclarationStatementContext;
+import au.csiro.data61.aap.elf.parsing.EthqlParser.VariableNameContext;
+import au.csiro.data61.aap.elf.parsing.EthqlParser.XesEmitVariableContext;
+
+/**
+ * BlockIndependenceAnalyzer determines how the blocks of a block scope can be processed in parallel. Blocks can be
+ * processed in parallel, if the scope does not change the configuration of the program and only emits CSV rows or log
+ * lines, which can be merged in block order. XES traces and events are excluded, as they are merged across blocks and
+ * numbered globally. If the scope also only uses Ethereum variables and variables that it declares itself, the blocks
+ * are independent of each other.
+ */
+public class BlockIndependenceAnalyzer extends EthqlBaseListener {
+    private static final List<String> CONFIGURATION_METHOD_PREFIXES = List.of("connect", "set");
+
+    private final Set<String> declaredVariables;
+    private final Set<String> usedVariables;
+    private boolean parallelizable;
+
+    private BlockIndependenceAnalyzer() {
+        this.declaredVariables = new HashSet<>();
+        this.usedVariables = new HashSet<>();
+        this.parallelizable = true;
+    }
+
+    public static ParallelExecution analyze(ScopeContext ctx) {
+        assert ctx != null && ctx.filter().blockFilter() != null;
+        final BlockIndependenceAnalyzer analyzer = new BlockIndependenceAnalyzer();
+        final ParseTreeWalker walker = new ParseTreeWalker();
+        for (StatementContext statement : ctx.statement()) {
+            walker.walk(analyzer, statement);
+        }
+
+        analyzer.usedVariables.removeAll(analyzer.declaredVariables);
+        if (!analyzer.parallelizable) {
+            return ParallelExecution.NONE;
+        }
+        return analyzer.usedVariables.isEmpty() ? ParallelExecution.SHARDED : ParallelExecution.SPECULATIVE;
+    }
+
+    @Override
+    public void enterVariableDeclarationStatement(VariableDeclarationStatementContext ctx) {
+        this.declaredVariables.add(ctx.variableName().getText());
+    }
+
+    @Override
+    public void enterLogEntryParameter(LogEntryParameterContext ctx) {
+        this.declaredVariables.add(ctx.variableName().getText());
+    }
+
+    @Override
+    public void enterSmartContractParameter(SmartContractParameterContext ctx) {
+        this.declaredVariables.add(ctx.variableName().getText());
+    }
+
+    @Override
+    public void enterVariableName(VariableNameContext ctx) {
+        if (ctx.getParent() instanceof NamedEmitVariableContext || ctx.getParent() instanceof XesEmitVariableContext) {
+            return;
+        }
+
+        final String name = ctx.getText();
+        if (!EthereumVariables.isEthereumVariable(name)) {
+            this.usedVariables.add(name);
+        }
+    }
+
+    @Override
+    public void enterMethodInvocation(MethodInvocationContext ctx) {
+        final String name = ctx.methodName.getText();
+        if (CONFIGURATION_METHOD_PREFIXES.stream().anyMatch(name::startsWith)) {
+            this.parallelizable = false;
+        }
+    }
+
+    @Override
+    public void enterBlockFilter(BlockFilterContext ctx) {
+        this.parallelizable = false;
+    }
+
+    @Override
+    public void enterEmitStatementXesEvent(EmitStatementXesEventContext ctx) {
+        this.parallelizable = false;
+    }
+
+    @Override
+    public void enterEmitStatementXesTrace(EmitStatementXesTraceContext ctx) {
+        this.parallelizable = false;
+    }
+}
@@ -0,0 +1,81 @@
+package au.csiro.data61.aap.elf.parsing;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import au.csiro.data61.aap.elf.core.readers.DataClass;
+import au.csiro.data61.aap.elf.core.values.EthereumVariables;
+import au.csiro.data61.aap.elf.core.values.TransactionVariables;
+import au.csiro.data61.aap.elf.parsing.EthqlParser.LogEntryFilterContext;
+import au.csiro.data61.aap.elf.parsing.EthqlParser.TransactionFilterContext;
+import au.csiro.data61.aap.elf.parsing.EthqlParser.VariableNameContext;
+
+/**
+ * DataUsageAnalyzer determines the classes of block data that a script uses, so that data which is never accessed does
+ * not have to be retrieved. Block headers are always required.
+ */
+public class DataUsageAnalyzer extends SemanticAnalyzer {
+    private static final Set<String> RECEIPT_VARIABLES = Set.of(
+        TransactionVariables.TX_CUMULATIVE_GAS_USED,
+        TransactionVariables.TX_GAS_USED,
+        TransactionVariables.TX_CONTRACT_ADRESS,
+        TransactionVariables.TX_LOGS_BLOOM,
+        TransactionVariables.TX_ROOT,
+        TransactionVariables.TX_STATUS,
+        TransactionVariables.TX_SUCCESS
+    );
+    private static final Set<String> TRANSACTION_STUB_VARIABLES = Set.of(
+        TransactionVariables.TX_HASH,
+        TransactionVariables.TX_TRANSACTIONINDEX,
+        TransactionVariables.TX_BLOCKHASH,
+        TransactionVariables.TX_BLOCKNUMBER
+    );
+
+    private final Set<DataClass> requiredData;
+
+    public DataUsageAnalyzer() {
+        this(new EventCollector());
+    }
+
+    public DataUsageAnalyzer(EventCollector errorCollector) {
+        super(errorCollector);
+        this.requiredData = EnumSet.of(DataClass.HEADER);
+    }
+
+    public Set<DataClass> getRequiredData() {
+        return EnumSet.copyOf(this.requiredData);
+    }
+
+    @Override
+    public void clear() {
+        this.requiredData.clear();
+        this.requiredData.add(DataClass.HEADER);
+    }
+
+    @Override
+    public void enterTransactionFilter(TransactionFilterContext ctx) {
+        this.requiredData.add(DataClass.TRANSACTIONS);
+    }
+
+    @Override
+    public void enterLogEntryFilter(LogEntryFilterContext ctx) {
+        this.requiredData.add(DataClass.LOGS);
+    }
+
+    @Override
+    public void enterVariableName(VariableNameContext ctx) {
+        final String name = ctx.getText();
+        if (RECEIPT_VARIABLES.contains(name)) {
+            this.requiredData.add(DataClass.TRANSACTIONS);
+            this.requiredData.add(DataClass.RECEIPTS);
+        } else if (this.requiresTransactionObject(name)) {
+            this.requiredData.add(DataClass.TRANSACTIONS);
+        } else if (EthereumVariables.getLogEntryVariableNamesAndTypes().containsKey(name)) {
+            this.requiredData.add(DataClass.LOGS);
+        }
+    }
+
+    private boolean requiresTransactionObject(String name) {
+        return EthereumVariables.getTransactionVariableNamesAndTypes().containsKey(name) && !TRANSACTION_STUB_VARIABLES.contains(name);
+    }
+}
@@ -242,7 +242,7 @@ public class FilterDefinitionAnalyzer extends SemanticAnalyzer {
         if (typeRight.equals(TYPE_ERROR_FLAG) || typeLeft.equals(TYPE_ERROR_FLAG)) {
             result = TYPE_ERROR_FLAG;
         } else if (comparators.KEY_IN() != null) {
-            if (!TypeUtils.isArrayType(typeRight, typeLeft)) {
+            if (!TypeUtils.isArrayType(typeRight, typeLeft) && !TypeUtils.isSetType(typeRight, typeLeft)) {
                 this.addError(token, String.format("Types are not compatible, cannot check containment of %s in %s.", typeLeft, typeRight));
                 result = TYPE_ERROR_FLAG;
             }
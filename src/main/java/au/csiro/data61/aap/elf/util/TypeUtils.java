@@ -15,6 +15,8 @@ public class TypeUtils {
     public static final String BYTES_TYPE_KEYWORD = "byte";
     public static final String INT_TYPE_KEYWORD = "int";
     public static final String STRING_TYPE_KEYWORD = "string";
+    public static final String SET_TYPE_KEYWORD = "set";
+    public static final String MAP_TYPE_KEYWORD = "map";
     private static final String ARRAY_PATTERN = "[a-zA-Z0-9]+\\[\\]";
 
     public static boolean areCompatible(String type, String expectedType) {
@@ -24,6 +26,15 @@ public class TypeUtils {
             return true;
         }
 
+        if (isSetType(type) || isSetType(expectedType)) {
+            return isSetType(type) && isSetType(expectedType) && areCompatible(getElementType(type), getElementType(expectedType));
+        } else if (isMapType(type) || isMapType(expectedType)) {
+            return isMapType(type)
+                && isMapType(expectedType)
+                && areCompatible(getKeyType(type), getKeyType(expectedType))
+                && areCompatible(getValueType(type), getValueType(expectedType));
+        }
+
         final boolean typeIsArray = type.matches(ARRAY_PATTERN);
         final boolean expectedTypeIsArray = type.matches(ARRAY_PATTERN);
         if (typeIsArray && expectedTypeIsArray) {
@@ -71,6 +82,59 @@ public class TypeUtils {
         return solType != null && solType.matches(ARRAY_PATTERN);
     }
 
+    public static String toSetType(String elementType) {
+        assert elementType != null;
+        return String.format("%s<%s>", SET_TYPE_KEYWORD, elementType);
+    }
+
+    public static String toMapType(String keyType, String valueType) {
+        assert keyType != null && valueType != null;
+        return String.format("%s<%s,%s>", MAP_TYPE_KEYWORD, keyType, valueType);
+    }
+
+    public static boolean isSetType(String solType) {
+        return solType != null && solType.startsWith(SET_TYPE_KEYWORD + "<") && solType.endsWith(">");
+    }
+
+    public static boolean isSetType(String setType, String elementType) {
+        assert setType != null && elementType != null;
+        return isSetType(setType) && areCompatible(elementType, getElementType(setType));
+    }
+
+    public static boolean isMapType(String solType) {
+        return solType != null && solType.startsWith(MAP_TYPE_KEYWORD + "<") && solType.endsWith(">");
+    }
+
+    public static String getElementType(String setType) {
+        assert isSetType(setType);
+        return setType.substring(SET_TYPE_KEYWORD.length() + 1, setType.length() - 1);
+    }
+
+    public static String getKeyType(String mapType) {
+        assert isMapType(mapType);
+        return mapType.substring(MAP_TYPE_KEYWORD.length() + 1, findKeySeparator(mapType));
+    }
+
+    public static String getValueType(String mapType) {
+        assert isMapType(mapType);
+        return mapType.substring(findKeySeparator(mapType) + 1, mapType.length() - 1);
+    }
+
+    private static int findKeySeparator(String mapType) {
+        int depth = 0;
+        for (int i = MAP_TYPE_KEYWORD.length() + 1; i < mapType.length(); i++) {
+            final char character = mapType.charAt(i);
+            if (character == '<') {
+                depth++;
+            } else if (character == '>') {
+                depth--;
+            } else if (character == ',' && depth == 0) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException(String.format("'%s' is not a valid map type.", mapType));
+    }
+
     public static boolean isAddressType(String solType) {
         return solType != null && (solType.equals(ADDRESS_TYPE_KEYWORD) || solType.equals(ADDRESS_TYPE_ALIAS_KEYWORD));
     }
@@ -84,11 +148,11 @@ public class TypeUtils {
     }
 
     public static boolean isIntegerType(String solType) {
-        return solType != null && solType.contains(INT_TYPE_KEYWORD);
+        return solType != null && solType.contains(INT_TYPE_KEYWORD) && !isSetType(solType) && !isMapType(solType);
     }
 
     public static boolean isStringType(String solType) {
-        return solType != null && solType.contains(STRING_TYPE_KEYWORD);
+        return solType != null && solType.contains(STRING_TYPE_KEYWORD) && !isSetType(solType) && !isMapType(solType);
     }
 
     /*public static Object convertValueTo(String solidityType, Object value) throws ProgramException {
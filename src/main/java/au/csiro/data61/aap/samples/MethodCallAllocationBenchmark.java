@@ -0,0 +1,96 @@
+package au.csiro.data61.aap.samples;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.management.ManagementFactory;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.sun.management.ThreadMXBean;
+
+import au.csiro.data61.aap.elf.core.Instruction;
+import au.csiro.data61.aap.elf.core.Method;
+import au.csiro.data61.aap.elf.core.MethodCall;
+import au.csiro.data61.aap.elf.core.ProgramState;
+import au.csiro.data61.aap.elf.core.values.ValueAccessor;
+import au.csiro.data61.aap.elf.core.values.ValueMutator;
+import au.csiro.data61.aap.elf.library.Library;
+
+/**
+ * Measures the bytes allocated per library call, both for interpreted and compiled method calls. Calls of methods with
+ * up to two parameters should not allocate anything besides their result.
+ */
+public class MethodCallAllocationBenchmark {
+    private static final int WARMUP_CALLS = 200_000;
+    private static final int MEASURED_CALLS = 1_000_000;
+
+    public static void main(String[] args) throws Throwable {
+        final ProgramState state = new ProgramState();
+        state.getValueStore().setValue("owners", Arrays.asList("0xa", "0xb", "0xc"));
+        state.getValueStore().setValue("owner", "0xc");
+        state.getValueStore().setValue("amount", BigInteger.valueOf(42));
+
+        final MethodCall contains = call("contains", Arrays.asList("address[]", "address"), "isOwner", "owners", "owner");
+        final MethodCall clear = call("clear", Arrays.asList("address[]"), null, "empty");
+        final MethodCall subtract = call("subtract", Arrays.asList("int", "int"), "difference", "amount", "amount");
+        final MethodCall accumulate = call("add", Arrays.asList("int", "int"), "total", "amount", "total");
+        state.getValueStore().setValue("empty", new ArrayList<>());
+        state.getValueStore().setValue("total", BigInteger.ZERO);
+
+        report("contains(address[], address)", contains, state);
+        report("clear(address[])", clear, state);
+        report("subtract(int, int)", subtract, state);
+        report("add(int, int) accumulator", accumulate, state);
+    }
+
+    private static MethodCall call(String name, List<String> types, String result, String... parameters) {
+        final Method method = Library.INSTANCE.findMethod(name, types);
+        final ValueMutator mutator = result == null ? null : ValueMutator.createVariableMutator(result);
+        final List<ValueAccessor> accessors = Arrays.stream(parameters)
+            .map(ValueAccessor::createVariableAccessor)
+            .collect(Collectors.toList());
+        return new MethodCall(method, accessors, mutator);
+    }
+
+    private static void report(String name, MethodCall call, ProgramState state) throws Throwable {
+        final Instruction compiled = compile(call);
+        System.out.println(
+            String.format(
+                "%-30s interpreted: %6.2f bytes/call, compiled: %6.2f bytes/call",
+                name,
+                measure(call, state),
+                measure(compiled, state)
+            )
+        );
+    }
+
+    private static Instruction compile(MethodCall call) {
+        final MethodHandle handle = call.toMethodHandle();
+        return state -> {
+            try {
+                handle.invokeExact(state);
+            } catch (RuntimeException | Error ex) {
+                throw ex;
+            } catch (Throwable cause) {
+                throw new IllegalStateException(cause);
+            }
+        };
+    }
+
+    private static double measure(Instruction instruction, ProgramState state) throws Throwable {
+        final ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final long threadId = Thread.currentThread().getId();
+        for (int i = 0; i < WARMUP_CALLS; i++) {
+            instruction.execute(state);
+        }
+
+        final long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURED_CALLS; i++) {
+            instruction.execute(state);
+        }
+        final long allocatedAfter = threads.getThreadAllocatedBytes(threadId);
+        return (allocatedAfter - allocatedBefore) / (double) MEASURED_CALLS;
+    }
+}
@@ -90,6 +90,20 @@ class ValidatorSemanticSpec extends Specification {
         | int i = 5;
         | if (i in {4,5,6}) {}
         """.stripMargin()                   | []
+        """
+        | set<int> ids = newIntSet();
+        | if (5 in ids) {}
+        """.stripMargin()                   | []
+        """
+        | map<address,int> balances = newAddressToIntMap();
+        | int balance = get(balances, 0x931D387731bBbC988B312206c74F77D004D6B84c);
+        | if (balance > 0) {}
+        """.stripMargin()                   | []
+        """
+        | int settings = 5;
+        | int mapping = 4;
+        | if (settings > mapping) {}
+        """.stripMargin()                   | []
         "if (true == (5 == 4)) {}"          | []
         """
         | if (!false) {}
@@ -100,6 +114,10 @@ class ValidatorSemanticSpec extends Specification {
         | int i = 4; 
         | if (i in \"[5,3]\") {}
         """.stripMargin()                   | ["Types are not compatible, cannot check containment of int in string."]
+        """
+        | set<address> owners = newAddressSet();
+        | if (5 in owners) {}
+        """.stripMargin()                   | ["Types are not compatible, cannot check containment of int in set<address>."]
     }
 
     /*
@@ -2,9 +2,9 @@ package au.csiro.data61.aap.elf.configuration
 
 import au.csiro.data61.aap.elf.EthqlProcessingException
 import au.csiro.data61.aap.elf.EthqlProcessingResult
-import au.csiro.data61.aap.elf.Validator
 import au.csiro.data61.aap.elf.core.ProgramState
 import au.csiro.data61.aap.elf.core.filters.Program
+import au.csiro.data61.aap.elf.parsing.EthqlInterpreter
 import au.csiro.data61.aap.elf.parsing.VariableExistenceAnalyzer
 import org.antlr.v4.runtime.tree.ParseTree
 import org.antlr.v4.runtime.tree.ParseTreeWalker
@@ -49,9 +49,92 @@ class EthqlProgramComposerSpec extends Specification {
     }
     */
 
+    def "variables declared in a scope should be released when the scope is exited"() {
+        given:
+        ProgramState state = new ProgramState()
+        Program p = program("""
+            | int total = 1;
+            | IF (total == 1) {
+            |   int inner = 2;
+            |   total = inner;
+            | }""".stripMargin(), composer)
+
+        when:
+        p.executeInstructions(state)
+
+        then:
+        state.getValueStore().getValue("total") == 2 as BigInteger
+        !state.getValueStore().containsName("inner")
+    }
+
+    @Unroll
+    def "execution with compiled = #compiled should produce the same variables"() {
+        given:
+        EthqlProgramComposer typedComposer = new EthqlProgramComposer(Stub(VariableExistenceAnalyzer) {
+            getVariableType(_) >> "int"
+        })
+        Program p = program("""
+            | int total = 1;
+            | IF (total == 1) {
+            |   int inner = add(total, 2);
+            |   total = multiply(inner, 10);
+            | }
+            | IF ((total > 2) && !(total == 5)) {
+            |   total = add(total, 1);
+            | }
+            | IF (total == 31) {
+            |   total = multiply(total, 2);
+            | }""".stripMargin(), typedComposer)
+        ProgramState state = new ProgramState()
+        state.setCompiledExecution(compiled)
+
+        when:
+        p.executeInstructions(state)
+
+        then:
+        state.getValueStore().getValue("total") == 62 as BigInteger
+        !state.getValueStore().containsName("inner")
+        p.isCompiled() == compiled
+
+        where:
+        compiled << [false, true]
+    }
+
+    def "sets and maps should be usable as variables"() {
+        given:
+        Map<String, String> types = [
+            ids: "set<int>", known: "bool", count: "int", balances: "map<address,int>", balance: "int"
+        ]
+        EthqlProgramComposer typedComposer = new EthqlProgramComposer(Stub(VariableExistenceAnalyzer) {
+            getVariableType(_) >> { String name -> types[name] }
+        })
+        Program p = program("""
+            | set<int> ids = newIntSet();
+            | add(ids, 7);
+            | add(ids, 7);
+            | add(ids, 9);
+            | remove(ids, 9);
+            | bool known = contains(ids, 7);
+            | int count = size(ids);
+            | IF (7 in ids) {
+            |   count = add(count, 10);
+            | }
+            | map<address,int> balances = newAddressToIntMap();
+            | put(balances, 0x931D387731bBbC988B312206c74F77D004D6B84b, 5);
+            | int balance = get(balances, 0x931d387731bbbc988b312206c74f77d004d6b84b);""".stripMargin(), typedComposer)
+        ProgramState state = new ProgramState()
+
+        when:
+        p.executeInstructions(state)
+
+        then:
+        state.getValueStore().getValue("known") == true
+        state.getValueStore().getValue("count") == 11 as BigInteger
+        state.getValueStore().getValue("balance") == 5 as BigInteger
+    }
+
     static Program program(String script, EthqlProgramComposer composer) {
-        Validator validator = new Validator()
-        EthqlProcessingResult<ParseTree> result = validator.parseScript(new ByteArrayInputStream(script.getBytes()))
+        EthqlProcessingResult<ParseTree> result = new EthqlInterpreter().parseDocument(new ByteArrayInputStream(script.getBytes()), true)
         assert result.isSuccessful()
 
         ParseTree tree = result.getResult()
@@ -0,0 +1,108 @@
+package au.csiro.data61.aap.elf.core
+
+import au.csiro.data61.aap.elf.core.exceptions.ProgramException
+import au.csiro.data61.aap.elf.core.values.ValueAccessor
+import au.csiro.data61.aap.elf.core.values.ValueMutator
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class MethodCallSpec extends Specification {
+
+    @Unroll
+    def "methods with #parameters.size() parameters should be called via #path (compiled: #compiled)"() {
+        given:
+        ProgramState state = new ProgramState()
+        state.getValueStore().setValue("first", "a")
+        List<ValueAccessor> accessors = parameters.collect {
+            it == "first" ? ValueAccessor.createVariableAccessor(it) : ValueAccessor.createLiteralAccessor(it)
+        }
+        MethodCall call = new MethodCall(method, accessors, ValueMutator.createVariableMutator("result"))
+
+        when:
+        if (compiled) {
+            call.toMethodHandle().invokeWithArguments(state)
+        } else {
+            call.execute(state)
+        }
+
+        then:
+        method.calls == [path]
+        state.getValueStore().getValue("result") == result
+
+        where:
+        method                 | parameters                  | compiled || path      | result
+        new RecordingMethod()  | []                          | false    || "nullary" | ""
+        new RecordingMethod()  | []                          | true     || "nullary" | ""
+        new RecordingMethod()  | ["first"]                   | false    || "unary"   | "a"
+        new RecordingMethod()  | ["first"]                   | true     || "unary"   | "a"
+        new RecordingMethod()  | ["first", "b"]              | false    || "binary"  | "a,b"
+        new RecordingMethod()  | ["first", "b"]              | true     || "binary"  | "a,b"
+        new RecordingMethod()  | ["first", "b", "c"]         | false    || "array"   | "a,b,c"
+        new RecordingMethod()  | ["first", "b", "c"]         | true     || "array"   | "a,b,c"
+        new RecordingMethod()  | ["first", "b", "c", "d"]    | true     || "array"   | "a,b,c,d"
+        new ArrayMethod()      | []                          | false    || "array"   | ""
+        new ArrayMethod()      | ["first"]                   | false    || "array"   | "a"
+        new ArrayMethod()      | ["first"]                   | true     || "array"   | "a"
+        new ArrayMethod()      | ["first", "b"]              | true     || "array"   | "a,b"
+    }
+
+    def "exceptions of methods should be passed on in both modes"() {
+        given:
+        ProgramState state = new ProgramState()
+        UnaryMethod failing = { Object parameter, ProgramState s -> throw new ProgramException("failed $parameter") } as UnaryMethod
+        MethodCall call = new MethodCall(failing, [ValueAccessor.createLiteralAccessor("x")], null)
+
+        when:
+        call.execute(state)
+
+        then:
+        ProgramException interpreted = thrown()
+        interpreted.getMessage() == "failed x"
+
+        when:
+        call.toMethodHandle().invokeWithArguments(state)
+
+        then:
+        ProgramException compiled = thrown()
+        compiled.getMessage() == "failed x"
+    }
+
+    // implements every arity, so that the recorded calls show which one the method call chose
+    static class RecordingMethod implements NullaryMethod, UnaryMethod, BinaryMethod {
+        final List<String> calls = []
+
+        @Override
+        Object call(ProgramState state) {
+            this.calls << "nullary"
+            return ""
+        }
+
+        @Override
+        Object call(Object parameter, ProgramState state) {
+            this.calls << "unary"
+            return parameter
+        }
+
+        @Override
+        Object call(Object parameter1, Object parameter2, ProgramState state) {
+            this.calls << "binary"
+            return "$parameter1,$parameter2".toString()
+        }
+
+        @Override
+        Object call(Object[] parameters, ProgramState state) {
+            this.calls << "array"
+            return parameters.join(",")
+        }
+    }
+
+    static class ArrayMethod implements Method {
+        final List<String> calls = []
+
+        @Override
+        Object call(Object[] parameters, ProgramState state) {
+            this.calls << "array"
+            return parameters.join(",")
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package au.csiro.data61.aap.elf.core.filters
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+import au.csiro.data61.aap.elf.core.Checkpoint
+import au.csiro.data61.aap.elf.core.Instruction
+import au.csiro.data61.aap.elf.core.ProgramState
+import au.csiro.data61.aap.elf.core.readers.BlockStoreSpec
+import au.csiro.data61.aap.elf.core.readers.EthereumClient
+import au.csiro.data61.aap.elf.core.readers.RawBlock
+import au.csiro.data61.aap.elf.core.values.ValueAccessor
+import au.csiro.data61.aap.elf.core.values.VariableSlots
+import spock.lang.Specification
+
+class BlockFilterSpec extends Specification {
+
+    def "switching from backfill to live processing should neither skip nor repeat blocks"() {
+        given:
+        int headQueries = 0
+        List<Integer> rangeSizes = [].asSynchronized()
+        EthereumClient client = Stub(EthereumClient) {
+            queryBlockNumber() >> { BigInteger.valueOf(headQueries++ < 1 ? 150 : 170) }
+            queryBlockData(_ as BigInteger, _ as BigInteger, _ as Set) >> { BigInteger from, BigInteger to, Set data ->
+                rangeSizes << (to - from + 1).intValue()
+                (from..to).collect { BlockStoreSpec.block(it as int) }
+            }
+        }
+        ProgramState state = new ProgramState()
+        state.getReader().@client = client
+        state.getReader().setBackfillWindow(20)
+        List<BigInteger> processed = []
+        BlockFilter filter = new BlockFilter(
+            ValueAccessor.createLiteralAccessor(BigInteger.ONE),
+            { s, block -> block > 160 } as FilterPredicate<BigInteger>,
+            [{ s -> processed << s.getReader().getCurrentBlock().getNumber() } as Instruction]
+        )
+
+        when:
+        filter.execute(state)
+
+        then:
+        processed == (1..160).collect { it as BigInteger }
+        rangeSizes.max() > 1
+        headQueries == 3
+    }
+
+    def "variables changed by orphaned blocks should be rolled back"() {
+        given:
+        boolean reorged = false
+        EthereumClient client = Stub(EthereumClient) {
+            queryBlockNumber() >> BigInteger.valueOf(100)
+            queryBlockData(_ as BigInteger, _ as BigInteger, _ as Set) >> { BigInteger from, BigInteger to, Set data ->
+                (from..to).collect {
+                    RawBlock block = BlockStoreSpec.block(it as int)
+                    if (reorged && it == 4) {
+                        block.setHash("0x04b")
+                    }
+                    if (reorged && it == 5) {
+                        block.setParentHash("0x04b")
+                    }
+                    block
+                }
+            }
+        }
+        ProgramState state = new ProgramState()
+        state.getReader().@client = client
+        state.getReader().setPrefetchWindow(0)
+        state.getReader().setBackfillWindow(0)
+        state.getValueStore().setValue("count", BigInteger.ZERO)
+        state.getWriters().setReorgDepth(reorgDepth)
+        state.getValueStore().setReorgDepth(reorgDepth)
+        List<BigInteger> processed = []
+        BlockFilter filter = new BlockFilter(
+            ValueAccessor.createLiteralAccessor(BigInteger.ONE),
+            { s, block -> block > 5 } as FilterPredicate<BigInteger>,
+            [{ s ->
+                BigInteger number = s.getReader().getCurrentBlock().getNumber()
+                processed << number
+                s.getValueStore().setValue("count", s.getValueStore().getValue("count") + 1)
+                reorged = reorged || number == 4
+            } as Instruction]
+        )
+
+        when:
+        filter.execute(state)
+
+        then:
+        processed == [1, 2, 3, 4, 4, 5].collect { it as BigInteger }
+        state.getValueStore().getValue("count") == count as BigInteger
+
+        where:
+        reorgDepth | count
+        0          | 6
+        3          | 5
+    }
+
+    def "a resumed extraction should continue after the last checkpoint"() {
+        given:
+        Path folder = Files.createTempDirectory("elf-checkpoint")
+        EthereumClient client = Stub(EthereumClient) {
+            queryBlockNumber() >> BigInteger.valueOf(100)
+            queryBlockData(_ as BigInteger, _ as BigInteger, _ as Set) >> { BigInteger from, BigInteger to, Set data ->
+                (from..to).collect { BlockStoreSpec.block(it as int) }
+            }
+        }
+        Closure<ProgramState> createState = { boolean resume ->
+            ProgramState state = new ProgramState()
+            state.getReader().@client = client
+            state.getWriters().setOutputFolder(folder)
+            state.getWriters().setStreaming(true)
+            state.setCheckpointInterval(4)
+            state.setAbortOnException(true)
+            state.setResume(resume)
+            // restored from the checkpoint when resuming
+            state.getValueStore().setValue("count", resume ? BigInteger.valueOf(100) : BigInteger.ZERO)
+            state
+        }
+        Closure<BlockFilter> createFilter = { int crashBlock ->
+            new BlockFilter(
+                ValueAccessor.createLiteralAccessor(BigInteger.ONE),
+                { s, block -> block > 10 } as FilterPredicate<BigInteger>,
+                [{ s ->
+                    BigInteger number = s.getReader().getCurrentBlock().getNumber()
+                    if (number == crashBlock) {
+                        throw new IllegalStateException("crash")
+                    }
+                    s.getValueStore().setValue("count", s.getValueStore().getValue("count") + 1)
+                    s.getWriters().getLogWriter().addLogLine([number])
+                } as Instruction]
+            )
+        }
+
+        when:
+        createFilter(7).execute(createState(false))
+        ProgramState resumed = createState(true)
+        createFilter(-1).execute(resumed)
+
+        then:
+        Checkpoint.read(folder).getFilterIndex() == 1
+        resumed.getValueStore().getValue("count") == 10 as BigInteger
+        (1..10).every { folder.resolve("log_${it}.txt").toFile().text.trim() == "$it" }
+
+        cleanup:
+        folder.toFile().deleteDir()
+    }
+
+    def "parallel processing of independent blocks should produce the sequential output"() {
+        given:
+        EthereumClient client = Stub(EthereumClient) {
+            queryBlockNumber() >> BigInteger.valueOf(400)
+            queryBlockData(_ as BigInteger, _ as BigInteger, _ as Set) >> { BigInteger from, BigInteger to, Set data ->
+                (from..to).collect { BlockStoreSpec.block(it as int) }
+            }
+        }
+        Set<String> threads = [].toSet().asSynchronized()
+        Closure<String> extract = { int parallelism ->
+            Path folder = Files.createTempDirectory("elf-parallel")
+            ProgramState state = new ProgramState()
+            state.getReader().@client = client
+            state.getReader().setBackfillWindow(20)
+            state.getWriters().setOutputFolder(folder)
+            state.setParallelism(parallelism)
+            BlockFilter filter = new BlockFilter(
+                ValueAccessor.createLiteralAccessor(BigInteger.ONE),
+                { s, block -> block > 300 } as FilterPredicate<BigInteger>,
+                [{ s ->
+                    BigInteger number = s.getReader().getCurrentBlock().getNumber()
+                    threads << Thread.currentThread().getName()
+                    s.getWriters().getCsvWriter().beginRow("blocks")
+                    s.getWriters().getCsvWriter().addCell("blocks", "number", number)
+                    if (number % 7 == 0) {
+                        s.getWriters().getCsvWriter().addCell("blocks", "seventh", true)
+                    }
+                    s.getWriters().getCsvWriter().endRow("blocks")
+                    s.getWriters().getLogWriter().addLogLine([number])
+                } as Instruction]
+            )
+            filter.setParallelExecution(ParallelExecution.SHARDED)
+            filter.execute(state)
+            state.getWriters().writeAllData()
+            String output = folder.resolve("blocks.csv").toFile().text + folder.resolve("log.txt").toFile().text
+            folder.toFile().deleteDir()
+            output
+        }
+
+        expect:
+        extract(4) == extract(1)
+        threads.contains("elf-block-worker")
+    }
+
+    def "speculative processing of blocks with shared variables should produce the sequential output"() {
+        given:
+        EthereumClient client = Stub(EthereumClient) {
+            queryBlockNumber() >> BigInteger.valueOf(400)
+            queryBlockData(_ as BigInteger, _ as BigInteger, _ as Set) >> { BigInteger from, BigInteger to, Set data ->
+                (from..to).collect { BlockStoreSpec.block(it as int) }
+            }
+        }
+        Set<String> threads = [].toSet().asSynchronized()
+        Closure<String> extract = { int parallelism ->
+            Path folder = Files.createTempDirectory("elf-speculative")
+            ProgramState state = new ProgramState()
+            state.getReader().@client = client
+            state.getReader().setBackfillWindow(20)
+            state.getWriters().setOutputFolder(folder)
+            state.getValueStore().setValue("total", BigInteger.ZERO)
+            state.getValueStore().setValue("sevenths", [])
+            state.setParallelism(parallelism)
+            BlockFilter filter = new BlockFilter(
+                ValueAccessor.createLiteralAccessor(BigInteger.ONE),
+                { s, block -> block > 300 } as FilterPredicate<BigInteger>,
+                [{ s ->
+                    BigInteger number = s.getReader().getCurrentBlock().getNumber()
+                    threads << Thread.currentThread().getName()
+                    if (number % 7 == 0) {
+                        s.getValueStore().setValue("total", s.getValueStore().getValue("total") + number)
+                        s.getValueStore().getValueForUpdate(VariableSlots.slotOf("sevenths")).add(number)
+                    }
+                    s.getWriters().getLogWriter().addLogLine([number, s.getValueStore().getValue("total")])
+                } as Instruction]
+            )
+            filter.setParallelExecution(ParallelExecution.SPECULATIVE)
+            filter.execute(state)
+            state.getWriters().writeAllData()
+            String output = folder.resolve("log.txt").toFile().text
+            folder.toFile().deleteDir()
+            "${state.getValueStore().getValue("total")} ${state.getValueStore().getValue("sevenths")} $output"
+        }
+
+        expect:
+        extract(4) == extract(1)
+        threads.contains("elf-block-worker")
+    }
+}
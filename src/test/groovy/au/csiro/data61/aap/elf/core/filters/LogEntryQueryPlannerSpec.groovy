@@ -0,0 +1,41 @@
+package au.csiro.data61.aap.elf.core.filters
+
+import au.csiro.data61.aap.elf.core.Instruction
+import au.csiro.data61.aap.elf.core.readers.LogEntryQuery
+import spock.lang.Specification
+
+class LogEntryQueryPlannerSpec extends Specification {
+    static final LogEntrySignature TRANSFER = new LogEntrySignature("Transfer")
+    static final LogEntrySignature APPROVAL = new LogEntrySignature("Approval")
+
+    def "scopes with only static log entry filters should be planned"() {
+        given:
+        List<Instruction> instructions = [
+            logEntryFilter(["0xa", "0xb"], TRANSFER),
+            logEntryFilter(["0xb"], APPROVAL)
+        ]
+
+        when:
+        LogEntryQuery query = LogEntryQueryPlanner.plan(instructions)
+
+        then:
+        query.getAddresses() == ["0xa", "0xb"]
+        query.getTopics() == [TRANSFER.getEncodedSignature(), APPROVAL.getEncodedSignature()]
+    }
+
+    def "scopes with dynamic addresses or other instructions should not be planned"() {
+        expect:
+        LogEntryQueryPlanner.plan(instructions) == null
+
+        where:
+        instructions << [
+            [],
+            [logEntryFilter(null, TRANSFER)],
+            [logEntryFilter(["0xa"], TRANSFER), Mock(Instruction)]
+        ]
+    }
+
+    static LogEntryFilter logEntryFilter(List<String> contracts, LogEntrySignature signature) {
+        new LogEntryFilter({ state, address -> true }, contracts, signature, [])
+    }
+}
@@ -0,0 +1,35 @@
+package au.csiro.data61.aap.elf.core.filters
+
+import spock.lang.Specification
+
+class ReorgWindowSpec extends Specification {
+
+    def "the window should only keep the most recent blocks"() {
+        given:
+        ReorgWindow window = new ReorgWindow(3)
+
+        when:
+        (1..5).each { window.append(it, "0x$it") }
+
+        then:
+        window.size() == 3
+        window.lastNumber() == 5
+        window.lastHash() == "0x5"
+
+        when:
+        window.removeLast()
+        window.removeLast()
+
+        then:
+        window.lastNumber() == 3
+        window.lastHash() == "0x3"
+
+        when:
+        window.removeLast()
+        window.append(7, "0x7")
+
+        then:
+        window.size() == 1
+        window.lastNumber() == 7
+    }
+}
@@ -0,0 +1,69 @@
+package au.csiro.data61.aap.elf.core.readers
+
+import spock.lang.Specification
+
+class BlockPrefetcherSpec extends Specification {
+
+    def "blocks should be returned in the requested order"() {
+        given:
+        EthereumClient client = Stub(EthereumClient) {
+            queryBlockData(_ as BigInteger, _ as BigInteger, _ as Set) >> { BigInteger from, BigInteger to, Set data -> blocks(from, to) }
+        }
+        BlockPrefetcher prefetcher = new BlockPrefetcher(client, 3)
+
+        when:
+        List<BigInteger> numbers = (10..19).collect { prefetcher.queryBlockData(it as BigInteger, 19 as BigInteger).getNumber() }
+
+        then:
+        numbers == (10..19).collect { it as BigInteger }
+
+        cleanup:
+        prefetcher.close()
+    }
+
+    def "blocks beyond the last block should not be fetched"() {
+        given:
+        EthereumClient client = Mock(EthereumClient)
+        BlockPrefetcher prefetcher = new BlockPrefetcher(client, 5)
+
+        when:
+        prefetcher.queryBlockData(1 as BigInteger, 2 as BigInteger)
+        prefetcher.queryBlockData(2 as BigInteger, 2 as BigInteger)
+
+        then:
+        1 * client.queryBlockData(1 as BigInteger, 2 as BigInteger, EnumSet.of(DataClass.HEADER, DataClass.TRANSACTIONS, DataClass.LOGS)) >> blocks(1 as BigInteger, 2 as BigInteger)
+        0 * client.queryBlockData(*_)
+
+        cleanup:
+        prefetcher.close()
+    }
+
+    def "going back to an earlier block should discard prefetched blocks"() {
+        given:
+        EthereumClient client = Stub(EthereumClient) {
+            queryBlockData(_ as BigInteger, _ as BigInteger, _ as Set) >> { BigInteger from, BigInteger to, Set data -> blocks(from, to) }
+        }
+        BlockPrefetcher prefetcher = new BlockPrefetcher(client, 2)
+
+        when:
+        prefetcher.queryBlockData(5 as BigInteger, 10 as BigInteger)
+        EthereumBlock block = prefetcher.queryBlockData(4 as BigInteger, 10 as BigInteger)
+
+        then:
+        block.getNumber() == 4 as BigInteger
+        prefetcher.queryBlockData(5 as BigInteger, 10 as BigInteger).getNumber() == 5 as BigInteger
+
+        cleanup:
+        prefetcher.close()
+    }
+
+    static List<EthereumBlock> blocks(BigInteger from, BigInteger to) {
+        (from.intValueExact()..to.intValueExact()).collect { block(it as BigInteger) }
+    }
+
+    static EthereumBlock block(BigInteger number) {
+        RawBlock block = new RawBlock()
+        block.setNumber(number)
+        block
+    }
+}
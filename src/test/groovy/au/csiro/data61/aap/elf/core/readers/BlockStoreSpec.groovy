@@ -0,0 +1,143 @@
+package au.csiro.data61.aap.elf.core.readers
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+import spock.lang.Specification
+
+class BlockStoreSpec extends Specification {
+
+    Path folder = Files.createTempDirectory("block-store")
+
+    def cleanup() {
+        folder.toFile().deleteDir()
+    }
+
+    def "stored blocks should be loaded with their transactions and logs"() {
+        given:
+        BlockStore store = new BlockStore(folder, 1024 * 1024)
+        store.store(block(7), DataClass.all())
+
+        when:
+        RawBlock loaded = new BlockStore(folder, 1024 * 1024).load(7 as BigInteger, DataClass.all())
+
+        then:
+        loaded.getNumber() == 7 as BigInteger
+        loaded.getHash() == "0x07"
+        loaded.transactionCount() == 1
+        loaded.getTransaction(0).getFrom() == "0xfrom"
+        loaded.getTransaction(0).getStatus() == "0x1"
+        loaded.getTransaction(0).getBlockNumber() == 7 as BigInteger
+        loaded.getTransaction(0).getLog(0).getTopics() == ["0xtopic"]
+        loaded.getTransaction(0).getLog(0).getTransactionHash() == "0xtx7"
+    }
+
+    def "blocks lacking requested data classes should not be loaded"() {
+        given:
+        BlockStore store = new BlockStore(folder, 1024 * 1024)
+        store.store(block(7), EnumSet.of(DataClass.HEADER, DataClass.TRANSACTIONS))
+
+        expect:
+        store.load(7 as BigInteger, EnumSet.of(DataClass.HEADER)) != null
+        store.load(7 as BigInteger, EnumSet.of(DataClass.RECEIPTS)) == null
+        store.load(8 as BigInteger, EnumSet.of(DataClass.HEADER)) == null
+    }
+
+    def "least recently used blocks should be evicted"() {
+        given:
+        BlockStore store = new BlockStore(folder, 1024 * 1024)
+        store.store(block(1), DataClass.all())
+        long blockSize = store.getSize()
+        store = new BlockStore(folder, blockSize * 2 + blockSize / 2 as long)
+        store.store(block(2), DataClass.all())
+        store.load(1 as BigInteger, DataClass.all())
+
+        when:
+        store.store(block(3), DataClass.all())
+
+        then:
+        store.contains(1 as BigInteger)
+        !store.contains(2 as BigInteger)
+        store.contains(3 as BigInteger)
+        store.getSize() <= store.getMaxSize()
+    }
+
+    def "offline clients should only serve stored blocks"() {
+        given:
+        BlockStore store = new BlockStore(folder, 1024 * 1024)
+        store.store(block(1), DataClass.all())
+        BlockStoreClient client = new BlockStoreClient(store, null)
+
+        when:
+        client.queryBlockData(1 as BigInteger, 2 as BigInteger, DataClass.all())
+
+        then:
+        client.queryBlockNumber() == 1 as BigInteger
+        client.queryBlockData(1 as BigInteger).getHash() == "0x01"
+        thrown(Exception)
+    }
+
+    def "confirmed blocks should be written through to the store"() {
+        given:
+        BlockStore store = new BlockStore(folder, 1024 * 1024)
+        EthereumClient delegate = Mock(EthereumClient)
+        BlockStoreClient client = new BlockStoreClient(store, delegate)
+
+        when:
+        List<EthereumBlock> first = client.queryBlockData(1 as BigInteger, 2 as BigInteger, DataClass.all())
+        List<EthereumBlock> second = client.queryBlockData(1 as BigInteger, 2 as BigInteger, DataClass.all())
+
+        then:
+        1 * delegate.queryBlockData(1 as BigInteger, 2 as BigInteger, DataClass.all()) >> [block(1), block(2)]
+        1 * delegate.queryBlockData(2 as BigInteger, 2 as BigInteger, DataClass.all()) >> [block(2)]
+        _ * delegate.queryBlockNumber() >> BigInteger.valueOf(13)
+        first*.getNumber() == [1 as BigInteger, 2 as BigInteger]
+        second*.getNumber() == [1 as BigInteger, 2 as BigInteger]
+        store.contains(1 as BigInteger)
+        !store.contains(2 as BigInteger)
+    }
+
+    def "a stale head reported later should not move the known head backwards"() {
+        given:
+        BlockStore store = new BlockStore(folder, 1024 * 1024)
+        EthereumClient delegate = Mock(EthereumClient)
+        BlockStoreClient client = new BlockStoreClient(store, delegate)
+
+        when:
+        client.queryBlockNumber()
+        client.queryBlockNumber()
+        client.queryBlockData(1 as BigInteger, 1 as BigInteger, DataClass.all())
+
+        then:
+        2 * delegate.queryBlockNumber() >>> [BigInteger.valueOf(13), BigInteger.valueOf(5)]
+        1 * delegate.queryBlockData(1 as BigInteger, 1 as BigInteger, DataClass.all()) >> [block(1)]
+        client.@knownHead.get() == 13 as BigInteger
+        store.contains(1 as BigInteger)
+    }
+
+    static RawBlock block(int number) {
+        RawBlock block = new RawBlock()
+        block.setNumber(number as BigInteger)
+        block.setHash(String.format("0x%02x", number))
+        block.setParentHash(String.format("0x%02x", number - 1))
+        block.setTimestamp(1000 + number as BigInteger)
+        block.setUncles([])
+
+        RawTransaction tx = new RawTransaction()
+        tx.setBlock(block)
+        tx.setHash("0xtx" + number)
+        tx.setTransactionIndex(0 as BigInteger)
+        tx.setFrom("0xfrom")
+        tx.setValue(number as BigInteger)
+        tx.setStatus("0x1")
+        block.addTransaction(tx)
+
+        RawLogEntry log = new RawLogEntry()
+        log.setTransaction(tx)
+        log.setLogIndex(0 as BigInteger)
+        log.setAddress("0xcontract")
+        log.setTopics(["0xtopic"])
+        tx.addLog(log)
+        return block
+    }
+}
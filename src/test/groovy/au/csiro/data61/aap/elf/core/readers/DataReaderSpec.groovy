@@ -0,0 +1,34 @@
+package au.csiro.data61.aap.elf.core.readers
+
+import spock.lang.Specification
+
+class DataReaderSpec extends Specification {
+
+    static final String IPC_PATH = "/tmp/elf-missing.ipc"
+
+    def "blocks should not be backfilled concurrently over ipc unless requested"() {
+        given:
+        DataReader http = new DataReader()
+        DataReader ipc = new DataReader()
+        ipc.connectIpc(IPC_PATH)
+        DataReader pool = new DataReader()
+        pool.connectPool([IPC_PATH])
+
+        expect:
+        http.getBackfillWindow() == DataReader.DEFAULT_BACKFILL_WINDOW
+        ipc.getBackfillWindow() == 0
+        ipc.createWorkerReader().getBackfillWindow() == 0
+        pool.getBackfillWindow() == 0
+
+        when:
+        ipc.setBackfillWindow(20)
+
+        then:
+        ipc.getBackfillWindow() == 20
+        ipc.createWorkerReader().getBackfillWindow() == 20
+
+        cleanup:
+        ipc.close()
+        pool.close()
+    }
+}
@@ -0,0 +1,106 @@
+package au.csiro.data61.aap.elf.core.readers
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.sun.net.httpserver.HttpServer
+import org.web3j.protocol.ObjectMapperFactory
+import org.web3j.protocol.core.methods.response.Transaction
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class EthGetBlockReceiptsSpec extends Specification {
+
+    def "receipts should be deserialized"() {
+        given:
+        String reply = """{"jsonrpc":"2.0","id":1,"result":[
+            {"transactionHash":"0x01","gasUsed":"0x5208","status":"0x1","logs":[]},
+            {"transactionHash":"0x02","gasUsed":"0x10","status":"0x0","logs":[]}
+        ]}"""
+
+        when:
+        EthGetBlockReceipts response = ObjectMapperFactory.getObjectMapper().readValue(reply, EthGetBlockReceipts)
+
+        then:
+        response.getReceipts()*.getTransactionHash() == ["0x01", "0x02"]
+        response.getReceipts()[0].getGasUsed() == 21000 as BigInteger
+    }
+
+    @Unroll
+    def "error '#message' should make the client request receipts per transaction"() {
+        given:
+        List<String> methods = []
+        HttpServer server = receiptServer(methods, code, message)
+        Web3jClient client = new Web3jClient(new BatchService.Http("http://localhost:${server.getAddress().getPort()}/"))
+        Web3jTransaction tx = transaction(client)
+
+        when:
+        client.queryTransactionReceipts(tx.getBlock())
+
+        then:
+        tx.hasReceipt()
+        methods == [METHOD, "eth_getTransactionReceipt"]
+        client.@blockReceiptsSupported == false
+
+        cleanup:
+        client?.close()
+        server?.stop(0)
+
+        where:
+        code   | message
+        -32601 | "the method eth_getBlockReceipts does not exist"
+        -32000 | "Method not supported"
+    }
+
+    def "transient errors should not disable block receipts"() {
+        given:
+        List<String> methods = []
+        HttpServer server = receiptServer(methods, -32000, "request timed out")
+        Web3jClient client = new Web3jClient(new BatchService.Http("http://localhost:${server.getAddress().getPort()}/"))
+        Web3jTransaction tx = transaction(client)
+
+        when:
+        client.queryTransactionReceipts(tx.getBlock())
+
+        then:
+        thrown(IOException)
+        methods == [METHOD]
+        client.@blockReceiptsSupported == null
+
+        cleanup:
+        client?.close()
+        server?.stop(0)
+    }
+
+    static final String METHOD = EthGetBlockReceipts.METHOD
+
+    Web3jTransaction transaction(Web3jClient client) {
+        Transaction tx = new Transaction()
+        tx.setHash("0x01")
+        List<Web3jTransaction> transactions = []
+        EthereumBlock block = Stub(EthereumBlock) {
+            getHash() >> "0x0b"
+            transactionStream() >> { transactions.stream() }
+        }
+        transactions << new Web3jTransaction(client, block, tx)
+        transactions[0]
+    }
+
+    static HttpServer receiptServer(List<String> methods, int code, String message) {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0)
+        server.createContext("/") { exchange ->
+            Object body = new ObjectMapper().readValue(exchange.getRequestBody(), Object)
+            List<Map> requests = body instanceof List ? body : [body]
+            List<String> replies = requests.collect { request ->
+                methods << request.method
+                request.method == METHOD
+                    ? """{"jsonrpc":"2.0","id":${request.id},"error":{"code":$code,"message":"$message"}}"""
+                    : """{"jsonrpc":"2.0","id":${request.id},"result":{"transactionHash":"0x01","logs":[]}}"""
+            }
+            byte[] reply = (body instanceof List ? "[" + replies.join(",") + "]" : replies[0]).getBytes("UTF-8")
+            exchange.getResponseHeaders().add("Content-Type", "application/json")
+            exchange.sendResponseHeaders(200, reply.length)
+            exchange.getResponseBody().withCloseable { it.write(reply) }
+        }
+        server.start()
+        server
+    }
+}
@@ -0,0 +1,67 @@
+package au.csiro.data61.aap.elf.core.readers
+
+import java.util.function.Consumer
+
+import spock.lang.Specification
+
+class HeadTrackerSpec extends Specification {
+
+    def "blocks behind the known head should not cause queries"() {
+        given:
+        EthereumClient client = Mock(EthereumClient)
+        HeadTracker tracker = new HeadTracker(client)
+
+        when:
+        tracker.start()
+        List<BigInteger> heads = (1..100).collect { tracker.awaitBlock(it as BigInteger) }
+
+        then:
+        1 * client.subscribeNewHeads(_, _) >> null
+        1 * client.queryBlockNumber() >> BigInteger.valueOf(100)
+        heads.every { it == 100 as BigInteger }
+        !tracker.isSubscribed()
+    }
+
+    def "the head should be polled until it reaches the block"() {
+        given:
+        int polls = 0
+        EthereumClient client = Stub(EthereumClient) {
+            queryBlockNumber() >> { BigInteger.valueOf(polls++ < 2 ? 9 : 10) }
+        }
+        HeadTracker tracker = new HeadTracker(client)
+
+        expect:
+        tracker.awaitBlock(10 as BigInteger) == 10 as BigInteger
+        polls == 3
+    }
+
+    def "pushed heads should wake up waiting callers"() {
+        given:
+        Consumer<BigInteger> listener = null
+        EthereumClient client = [
+            subscribeNewHeads: { Consumer<BigInteger> onNewHead, Consumer<Throwable> onError ->
+                listener = onNewHead
+                return { } as AutoCloseable
+            },
+            queryBlockNumber: { BigInteger.valueOf(5) }
+        ] as EthereumClient
+        HeadTracker tracker = new HeadTracker(client)
+        tracker.start()
+        Thread.start {
+            Thread.sleep(200)
+            listener.accept(BigInteger.valueOf(6))
+        }
+
+        when:
+        long start = System.currentTimeMillis()
+        BigInteger head = tracker.awaitBlock(6 as BigInteger)
+
+        then:
+        tracker.isSubscribed()
+        head == 6 as BigInteger
+        System.currentTimeMillis() - start < HeadTracker.SUBSCRIPTION_CHECK_INTERVAL
+
+        cleanup:
+        tracker.close()
+    }
+}
@@ -0,0 +1,128 @@
+package au.csiro.data61.aap.elf.core.readers
+
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.zip.GZIPOutputStream
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.sun.net.httpserver.HttpServer
+import org.web3j.protocol.core.Request
+import org.web3j.protocol.core.methods.response.EthBlockNumber
+import org.web3j.protocol.ipc.IOFacade
+import spock.lang.Specification
+
+class JsonRpcBatchSpec extends Specification {
+
+    def "responses should be matched to requests by id"() {
+        given:
+        Request<?, EthBlockNumber> first = new Request<>("eth_blockNumber", [], null, EthBlockNumber)
+        Request<?, EthBlockNumber> second = new Request<>("eth_blockNumber", [], null, EthBlockNumber)
+        BatchService service = Mock(BatchService)
+        JsonRpcBatch batch = new JsonRpcBatch(service)
+        batch.add(first, EthBlockNumber)
+        batch.add(second, EthBlockNumber)
+
+        when:
+        List responses = batch.send()
+
+        then:
+        1 * service.sendBatch([first.getId(), second.getId()], _ as String) >> """[
+            {"jsonrpc":"2.0","id":${second.getId()},"result":"0x2"},
+            {"jsonrpc":"2.0","id":${first.getId()},"result":"0x1"}
+        ]"""
+        responses*.getBlockNumber() == [1 as BigInteger, 2 as BigInteger]
+    }
+
+    def "missing responses should be reported"() {
+        given:
+        Request<?, EthBlockNumber> request = new Request<>("eth_blockNumber", [], null, EthBlockNumber)
+        BatchService service = Stub(BatchService) {
+            sendBatch(_, _) >> "[]"
+        }
+        JsonRpcBatch batch = new JsonRpcBatch(service)
+        batch.add(request, EthBlockNumber)
+
+        when:
+        batch.send()
+
+        then:
+        thrown(IOException)
+    }
+
+    def "single requests and batches should not interleave on an ipc socket"() {
+        given:
+        AtomicInteger active = new AtomicInteger()
+        AtomicInteger maxActive = new AtomicInteger()
+        IOFacade io = new IOFacade() {
+            void write(String payload) {
+                maxActive.accumulateAndGet(active.incrementAndGet(), Math::max)
+                Thread.sleep(2)
+            }
+
+            String read() {
+                active.decrementAndGet()
+                '{"jsonrpc":"2.0","id":1,"result":"0x1"}'
+            }
+
+            void close() {}
+        }
+        BatchService.UnixIpc ipc = new BatchService.UnixIpc("unused.ipc") {
+            protected IOFacade getIO() {
+                io
+            }
+        }
+        def executor = Executors.newFixedThreadPool(4)
+
+        when:
+        List futures = (1..40).collect { i ->
+            executor.submit({
+                i % 2 == 0
+                    ? ipc.sendBatch([1L], "[]")
+                    : new Request<>("eth_blockNumber", [], ipc, EthBlockNumber).send().getBlockNumber().toString()
+            } as Callable)
+        }
+        List replies = futures*.get()
+
+        then:
+        maxActive.get() == 1
+        replies.count { it == "1" } == 20
+        replies.count { it.contains('"result":"0x1"') } == 20
+
+        cleanup:
+        executor.shutdown()
+    }
+
+    def "http batches should be sent in a single gzip compressed request"() {
+        given:
+        List<String> acceptedEncodings = []
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0)
+        server.createContext("/") { exchange ->
+            acceptedEncodings << exchange.getRequestHeaders().getFirst("Accept-Encoding")
+            List<Map> requests = new ObjectMapper().readValue(exchange.getRequestBody(), List)
+            String reply = "[" + requests.collect { """{"jsonrpc":"2.0","id":${it.id},"result":"0x${Long.toHexString(it.id as long)}"}""" }.join(",") + "]"
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream()
+            new GZIPOutputStream(compressed).withCloseable { it.write(reply.getBytes("UTF-8")) }
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip")
+            exchange.getResponseHeaders().add("Content-Type", "application/json")
+            exchange.sendResponseHeaders(200, compressed.size())
+            exchange.getResponseBody().withCloseable { it.write(compressed.toByteArray()) }
+        }
+        server.start()
+        BatchService.Http service = new BatchService.Http("http://localhost:${server.getAddress().getPort()}/")
+        JsonRpcBatch batch = new JsonRpcBatch(service)
+        List<Request<?, EthBlockNumber>> requests = (1..3).collect { new Request<>("eth_blockNumber", [], null, EthBlockNumber) }
+        requests.each { batch.add(it, EthBlockNumber) }
+
+        when:
+        List responses = batch.send()
+
+        then:
+        acceptedEncodings == ["gzip"]
+        responses*.getBlockNumber() == requests.collect { BigInteger.valueOf(it.getId()) }
+
+        cleanup:
+        service?.close()
+        server?.stop(0)
+    }
+}
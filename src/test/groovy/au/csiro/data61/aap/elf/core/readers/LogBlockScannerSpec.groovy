@@ -0,0 +1,101 @@
+package au.csiro.data61.aap.elf.core.readers
+
+import org.web3j.protocol.core.Response
+import spock.lang.Specification
+
+class LogBlockScannerSpec extends Specification {
+    LogEntryQuery query = new LogEntryQuery(["0xa"], [])
+
+    def "matching blocks should be returned in order and only once"() {
+        given:
+        EthereumClient client = Mock(EthereumClient)
+        LogBlockScanner scanner = new LogBlockScanner(client, query)
+
+        when:
+        List<BigInteger> blocks = [
+            scanner.nextBlock(10 as BigInteger, 100 as BigInteger),
+            scanner.nextBlock(13 as BigInteger, 100 as BigInteger),
+            scanner.nextBlock(51 as BigInteger, 100 as BigInteger)
+        ]
+
+        then:
+        1 * client.queryLogBlockNumbers(10 as BigInteger, 100 as BigInteger, query) >> [12, 12, 50].collect { it as BigInteger }
+        0 * client._
+        blocks == [12 as BigInteger, 50 as BigInteger, null]
+    }
+
+    def "rejected ranges should be split and sparse ranges grown"() {
+        given:
+        EthereumClient client = Mock(EthereumClient)
+        LogRangeController controller = new LogRangeController(10, 40, 8)
+        LogBlockScanner scanner = new LogBlockScanner(client, query, controller)
+
+        when:
+        BigInteger block = scanner.nextBlock(1 as BigInteger, 100 as BigInteger)
+
+        then:
+        1 * client.queryLogBlockNumbers(1 as BigInteger, 10 as BigInteger, query) >> { throw new JsonRpcException(new Response.Error(-32000, "query returned more than 10000 results")) }
+        1 * client.queryLogBlockNumbers(1 as BigInteger, 5 as BigInteger, query) >> []
+        1 * client.queryLogBlockNumbers(6 as BigInteger, 15 as BigInteger, query) >> [7 as BigInteger]
+        block == 7 as BigInteger
+        controller.getRange() == 20
+    }
+
+    def "failures unrelated to the range should not shrink it"() {
+        given:
+        EthereumClient client = Mock(EthereumClient)
+        LogRangeController controller = new LogRangeController(10, 40, 8)
+        LogBlockScanner scanner = new LogBlockScanner(client, query, controller)
+
+        when:
+        scanner.nextBlock(1 as BigInteger, 100 as BigInteger)
+
+        then:
+        1 * client.queryLogBlockNumbers(1 as BigInteger, 10 as BigInteger, query) >> { throw new IOException("connection reset") }
+        thrown(IOException)
+        controller.getRange() == 10
+
+        when:
+        scanner.nextBlock(1 as BigInteger, 100 as BigInteger)
+
+        then:
+        1 * client.queryLogBlockNumbers(1 as BigInteger, 10 as BigInteger, query) >> { throw new JsonRpcException(new Response.Error(-32603, "internal error")) }
+        thrown(JsonRpcException)
+        controller.getRange() == 10
+    }
+
+    def "range limit errors should be recognized by code or message"() {
+        expect:
+        LogRangeController.isRangeLimitError(new JsonRpcException(new Response.Error(-32005, "query failed")))
+        LogRangeController.isRangeLimitError(new JsonRpcException(new Response.Error(-32602, "Log response size exceeded.")))
+        LogRangeController.isRangeLimitError(new JsonRpcException(new Response.Error(-32000, "block range is too wide")))
+        !LogRangeController.isRangeLimitError(new JsonRpcException(new Response.Error(-32603, "internal error")))
+        !LogRangeController.isRangeLimitError(new JsonRpcException(new Response.Error(-32005, "project ID request rate exceeded")))
+        !LogRangeController.isRangeLimitError(new IOException("more than 10000 results"))
+    }
+
+    def "short ranges should be screened with the logs blooms of the headers"() {
+        given:
+        EthereumClient client = Mock(EthereumClient)
+        LogBlockScanner scanner = new LogBlockScanner(client, query)
+
+        when:
+        BigInteger block = scanner.nextBlock(1 as BigInteger, 3 as BigInteger)
+
+        then:
+        1 * client.queryBlockHeaders(1 as BigInteger, 3 as BigInteger) >> [
+            header(1, LogsBloomSpec.bloomOf()),
+            header(2, LogsBloomSpec.bloomOf("0xa")),
+            header(3, LogsBloomSpec.bloomOf())
+        ]
+        0 * client.queryLogBlockNumbers(*_)
+        block == 2 as BigInteger
+    }
+
+    static EthereumBlock header(int number, String logsBloom) {
+        RawBlock block = new RawBlock()
+        block.setNumber(number as BigInteger)
+        block.setLogsBloom(logsBloom)
+        block
+    }
+}
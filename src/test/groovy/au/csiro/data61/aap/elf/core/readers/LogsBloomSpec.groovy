@@ -0,0 +1,45 @@
+package au.csiro.data61.aap.elf.core.readers
+
+import org.web3j.crypto.Hash
+import org.web3j.utils.Numeric
+import spock.lang.Specification
+
+class LogsBloomSpec extends Specification {
+    static final String ADDRESS = "0x06012c8cf97bead5deae237070f9587f8e7a266d"
+    static final String TOPIC = "0xddf252ad1be2c89b69c2b068fc378daa952ba7f163c4a11628f55a4df523b3ef"
+
+    def "added values should be contained"() {
+        given:
+        String bloom = bloomOf(ADDRESS, TOPIC)
+
+        expect:
+        LogsBloom.mightContain(bloom, ADDRESS)
+        LogsBloom.mightContain(bloom, TOPIC)
+        new LogEntryQuery([ADDRESS], [TOPIC]).mightMatch(bloom)
+    }
+
+    def "values should not be contained in an empty bloom"() {
+        given:
+        String bloom = bloomOf()
+
+        expect:
+        !LogsBloom.mightContain(bloom, ADDRESS)
+        !new LogEntryQuery([ADDRESS], []).mightMatch(bloom)
+        !new LogEntryQuery([], [TOPIC]).mightMatch(bloom)
+        new LogEntryQuery([], []).mightMatch(bloom)
+    }
+
+    def "missing blooms should not exclude values"() {
+        expect:
+        LogsBloom.mightContain(null, ADDRESS)
+    }
+
+    static String bloomOf(String... values) {
+        BigInteger bloom = BigInteger.ZERO
+        values.each { value ->
+            byte[] hash = Hash.sha3(Numeric.hexStringToByteArray(value))
+            (0..2).each { i -> bloom = bloom.setBit((((hash[2 * i] & 0xFF) << 8) | (hash[2 * i + 1] & 0xFF)) & 2047) }
+        }
+        Numeric.toHexStringWithPrefixZeroPadded(bloom, 512)
+    }
+}
@@ -0,0 +1,199 @@
+package au.csiro.data61.aap.elf.core.readers
+
+import org.web3j.protocol.core.Response
+
+import spock.lang.Specification
+
+class NodePoolClientSpec extends Specification {
+
+    def "requests should not be sent to nodes behind the requested block"() {
+        given:
+        EthereumClient lagging = Mock(EthereumClient)
+        EthereumClient synced = Mock(EthereumClient)
+        NodePoolClient pool = new NodePoolClient([lagging, synced])
+
+        when:
+        EthereumBlock block = pool.queryBlockData(100 as BigInteger)
+
+        then:
+        _ * lagging.queryBlockNumber() >> BigInteger.valueOf(90)
+        _ * synced.queryBlockNumber() >> BigInteger.valueOf(120)
+        0 * lagging.queryBlockData(_)
+        1 * synced.queryBlockData(100 as BigInteger) >> BlockStoreSpec.block(100)
+        block.getNumber() == 100 as BigInteger
+    }
+
+    def "failed nodes should be taken out of rotation"() {
+        given:
+        EthereumClient failing = Mock(EthereumClient)
+        EthereumClient healthy = Mock(EthereumClient)
+        NodePoolClient pool = new NodePoolClient([failing, healthy])
+
+        when:
+        pool.queryBlockData(1 as BigInteger)
+        pool.queryBlockData(1 as BigInteger)
+        pool.queryBlockData(1 as BigInteger)
+
+        then:
+        _ * failing.queryBlockNumber() >> BigInteger.TEN
+        _ * healthy.queryBlockNumber() >> BigInteger.TEN
+        (0..1) * failing.queryBlockData(1 as BigInteger) >> { throw new IOException("node down") }
+        (2..3) * healthy.queryBlockData(1 as BigInteger) >> BlockStoreSpec.block(1)
+    }
+
+    def "error objects returned by a node should not fail over to another node"() {
+        given:
+        EthereumClient first = Mock(EthereumClient)
+        EthereumClient second = Mock(EthereumClient)
+        NodePoolClient pool = new NodePoolClient([first, second])
+
+        when:
+        pool.queryBlockData(1 as BigInteger)
+
+        then:
+        _ * first.queryBlockNumber() >> BigInteger.TEN
+        _ * second.queryBlockNumber() >> BigInteger.TEN
+        1 * _.queryBlockData(1 as BigInteger) >> { throw new JsonRpcException(new Response.Error(-32000, "execution reverted")) }
+        JsonRpcException ex = thrown()
+        ex.getCode() == -32000
+    }
+
+    def "error objects returned by a node should not take the node out of rotation"() {
+        given:
+        EthereumClient node = Mock(EthereumClient)
+        NodePoolClient pool = new NodePoolClient([node])
+
+        when:
+        pool.queryBlockData(1 as BigInteger)
+
+        then:
+        _ * node.queryBlockNumber() >> BigInteger.TEN
+        1 * node.queryBlockData(1 as BigInteger) >> { throw new JsonRpcException(new Response.Error(-32000, "execution reverted")) }
+        thrown(JsonRpcException)
+
+        when:
+        EthereumBlock block = pool.queryBlockData(2 as BigInteger)
+
+        then:
+        _ * node.queryBlockNumber() >> BigInteger.TEN
+        1 * node.queryBlockData(2 as BigInteger) >> BlockStoreSpec.block(2)
+        block.getNumber() == 2 as BigInteger
+    }
+
+    def "the head should be the highest head of all nodes"() {
+        given:
+        EthereumClient first = Stub(EthereumClient) {
+            queryBlockNumber() >> BigInteger.valueOf(7)
+        }
+        EthereumClient second = Stub(EthereumClient) {
+            queryBlockNumber() >> BigInteger.valueOf(9)
+        }
+
+        expect:
+        new NodePoolClient([first, second]).queryBlockNumber() == 9 as BigInteger
+    }
+
+    def "errors should be reported when all nodes fail"() {
+        given:
+        EthereumClient failing = Stub(EthereumClient) {
+            queryBlockNumber() >> BigInteger.TEN
+            queryBlockData(_ as BigInteger) >> { throw new IOException("node down") }
+        }
+
+        when:
+        new NodePoolClient([failing]).queryBlockData(1 as BigInteger)
+
+        then:
+        thrown(IOException)
+    }
+
+    def "slow requests should be hedged to another node"() {
+        given:
+        // spock mocks handle invocations one at a time, so the clients are implemented as maps
+        EthereumClient slow = [
+            queryBlockNumber: { BigInteger.TEN },
+            queryBlockData: { BigInteger number -> Thread.sleep(2000); BlockStoreSpec.block(number as int) },
+            close: {}
+        ] as EthereumClient
+        EthereumClient fast = [
+            queryBlockNumber: { BigInteger.TEN },
+            queryBlockData: { BigInteger number -> BlockStoreSpec.block(number as int) },
+            close: {}
+        ] as EthereumClient
+        NodePoolClient pool = new NodePoolClient([slow, fast])
+        pool.setHedging(0.5, 1)
+        NodePoolClient.MIN_HEDGING_SAMPLES.times { pool.getLatencies("queryBlockData[1]").record(1000000) }
+
+        when:
+        long start = System.nanoTime()
+        List<BigInteger> numbers = (1..5).collect { pool.queryBlockData(it as BigInteger).getNumber() }
+
+        then:
+        numbers == (1..5).collect { it as BigInteger }
+        System.nanoTime() - start < 2000000000L
+
+        cleanup:
+        pool.close()
+    }
+
+    def "latencies should only be recorded for successful attempts"() {
+        given:
+        EthereumClient failing = [
+            queryBlockNumber: { BigInteger.TEN },
+            queryBlockData: { BigInteger number -> Thread.sleep(500); throw new IOException("node down") },
+            close: {}
+        ] as EthereumClient
+        EthereumClient healthy = [
+            queryBlockNumber: { BigInteger.TEN },
+            queryBlockData: { BigInteger number -> BlockStoreSpec.block(number as int) },
+            close: {}
+        ] as EthereumClient
+        NodePoolClient pool = new NodePoolClient([failing, healthy])
+
+        when:
+        (1..4).each { pool.queryBlockData(it as BigInteger) }
+
+        then:
+        pool.getLatencies("queryBlockData[1]").count() == 4
+        pool.getLatencies("queryBlockData[1]").percentile(1) < 500000
+    }
+
+    def "latencies of single blocks and block ranges should be kept apart"() {
+        given:
+        EthereumClient client = [
+            queryBlockNumber: { BigInteger.valueOf(1000) },
+            queryBlockData: { Object[] args -> args.length == 1 ? BlockStoreSpec.block(1) : [] },
+            queryBlockHeaders: { BigInteger from, BigInteger to -> [] },
+            close: {}
+        ] as EthereumClient
+        NodePoolClient pool = new NodePoolClient([client])
+
+        when:
+        pool.queryBlockData(1 as BigInteger)
+        pool.queryBlockData(1 as BigInteger, 100 as BigInteger)
+        pool.queryBlockData(101 as BigInteger, 200 as BigInteger)
+        pool.queryBlockData(1 as BigInteger, 3 as BigInteger, EnumSet.of(DataClass.HEADER))
+        pool.queryBlockHeaders(1 as BigInteger, 2 as BigInteger)
+
+        then:
+        pool.@latencies.keySet() == [
+            "queryBlockData[1]",
+            "queryBlockData[128]",
+            "queryBlockData[HEADER][4]",
+            "queryBlockHeaders[2]"
+        ] as Set
+        pool.getLatencies("queryBlockData[128]").count() == 2
+    }
+
+    def "latency percentiles should be estimated from the histogram"() {
+        given:
+        LatencyHistogram histogram = new LatencyHistogram()
+        (1..100).each { histogram.record(it * 1000000L) }
+
+        expect:
+        histogram.count() == 100
+        histogram.percentile(0.5) >= 50000
+        histogram.percentile(0.5) <= 50000 * 1.2
+        histogram.percentile(0.99) >= 99000
+    }
+}
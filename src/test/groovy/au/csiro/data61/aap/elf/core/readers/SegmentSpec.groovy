@@ -0,0 +1,228 @@
+package au.csiro.data61.aap.elf.core.readers
+
+import java.nio.ByteBuffer
+import java.nio.file.Files
+import java.nio.file.Path
+
+import au.csiro.data61.aap.elf.core.exceptions.ProgramException
+import spock.lang.Specification
+
+class SegmentSpec extends Specification {
+
+    Path folder = Files.createTempDirectory("segments")
+
+    def cleanup() {
+        folder.toFile().deleteDir()
+    }
+
+    def "hex strings and quantities should survive encoding"() {
+        given:
+        ByteArrayOutputStream out = new ByteArrayOutputStream()
+        SegmentCodec.writeHex(out, value)
+        SegmentCodec.writeQuantity(out, quantity)
+
+        when:
+        ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray())
+
+        then:
+        SegmentCodec.readHex(buffer) == value
+        SegmentCodec.readQuantity(buffer) == quantity
+        !buffer.hasRemaining()
+
+        where:
+        value        | quantity
+        null         | null
+        "0x"         | 0 as BigInteger
+        "0x1"        | 127 as BigInteger
+        "0x0abc"     | Long.MAX_VALUE as BigInteger
+        "0xABC"      | new BigInteger("123456789012345678901234567890")
+        "not hex"    | -1 as BigInteger
+    }
+
+    def "blocks should be read back from the segment"() {
+        given:
+        Path file = folder.resolve("1-3.seg")
+        new SegmentWriter(file, DataClass.all()).withCloseable { writer ->
+            (1..3).each { writer.append(BlockStoreSpec.block(it)) }
+        }
+
+        when:
+        SegmentReader reader = new SegmentReader(file)
+        EthereumBlock block = reader.readBlock(2 as BigInteger)
+
+        then:
+        reader.getFirstBlock() == 1 as BigInteger
+        reader.getLastBlock() == 3 as BigInteger
+        reader.getDataClasses() == DataClass.all()
+        block.getNumber() == 2 as BigInteger
+        block.getHash() == "0x02"
+        block.getParentHash() == "0x01"
+        block.getTransaction(0).getFrom() == "0xfrom"
+        block.getTransaction(0).getStatus() == "0x1"
+        block.getTransaction(0).getLog(0).getTopics() == ["0xtopic"]
+        block.getTransaction(0).getLog(0).getTransactionHash() == "0xtx2"
+
+        cleanup:
+        reader?.close()
+    }
+
+    def "every field of every transaction and log entry should be read back"() {
+        given:
+        RawBlock source = richBlock()
+        Path file = folder.resolve("7-7.seg")
+        new SegmentWriter(file, DataClass.all()).withCloseable { writer -> writer.append(source) }
+
+        when:
+        SegmentReader reader = new SegmentReader(file)
+        EthereumBlock block = reader.readBlock(7 as BigInteger)
+
+        then:
+        BLOCK_FIELDS.every { block."$it" == source."$it" }
+        block.transactionCount() == 2
+        (0..1).every { i ->
+            TX_FIELDS.every { block.getTransaction(i)."$it" == source.getTransaction(i)."$it" } &&
+                block.getTransaction(i).logCount() == source.getTransaction(i).logCount()
+        }
+        [[0, 0], [1, 0], [1, 1]].every { tx, log ->
+            LOG_FIELDS.every { block.getTransaction(tx).getLog(log)."$it" == source.getTransaction(tx).getLog(log)."$it" }
+        }
+
+        cleanup:
+        reader?.close()
+    }
+
+    def "fields that are not read should not be decoded"() {
+        given:
+        Path file = folder.resolve("7-7.seg")
+        new SegmentWriter(file, DataClass.all()).withCloseable { writer -> writer.append(richBlock()) }
+        SegmentReader reader = new SegmentReader(file)
+
+        when:
+        SegmentBlock block = reader.readBlock(7 as BigInteger)
+        EthereumTransaction tx = block.getTransaction(1)
+
+        then:
+        block.decodedFieldCount() == 0
+        tx.logCount() == 2
+
+        when:
+        String from = tx.getFrom()
+        String address = tx.getLog(1).getAddress()
+
+        then:
+        from == "0xf1"
+        address == "0xc2"
+        block.decodedFieldCount() == 2
+
+        cleanup:
+        reader?.close()
+    }
+
+    static final List<String> BLOCK_FIELDS = [
+        "number", "hash", "parentHash", "nonce", "sha3uncles", "logsBloom", "transactionsRoot", "stateRoot",
+        "receiptsRoot", "miner", "difficulty", "totalDifficulty", "extraData", "size", "gasLimit", "gasUsed",
+        "timestamp", "uncles"
+    ]
+    static final List<String> TX_FIELDS = [
+        "hash", "transactionIndex", "from", "to", "gas", "gasPrice", "input", "nonce", "value", "v", "r", "s",
+        "cumulativeGasUsed", "gasUsed", "contractAddress", "logsBloom", "root", "status"
+    ]
+    static final List<String> LOG_FIELDS = ["logIndex", "address", "data", "removed", "topics"]
+
+    static RawBlock richBlock() {
+        RawBlock block = new RawBlock()
+        block.setNumber(7 as BigInteger)
+        block.setHash("0x07")
+        block.setParentHash("0x06")
+        block.setNonce(new BigInteger("123456789012345678901234567890"))
+        block.setLogsBloom("0x" + "ab" * 256)
+        block.setMiner("0x931D387731bBbC988B312206c74F77D004D6B84b")
+        block.setDifficulty(12345 as BigInteger)
+        block.setExtraData("0x")
+        block.setGasLimit(8000000 as BigInteger)
+        block.setTimestamp(1000 as BigInteger)
+        block.setUncles(["0xu1", "0xabc"])
+
+        (0..1).each { i ->
+            RawTransaction tx = new RawTransaction()
+            tx.setBlock(block)
+            tx.setHash("0x7$i")
+            tx.setTransactionIndex(i as BigInteger)
+            tx.setFrom("0xf$i")
+            tx.setTo(i == 0 ? null : "0xe$i")
+            tx.setGas(21000 as BigInteger)
+            tx.setInput("0xa9059cbb" + "00" * (32 * i))
+            tx.setValue(BigInteger.TEN.pow(20))
+            tx.setV(37 as BigInteger)
+            tx.setR("0x1$i")
+            tx.setS("0x2$i")
+            tx.setCumulativeGasUsed(21000 * (i + 1) as BigInteger)
+            tx.setGasUsed(21000 as BigInteger)
+            tx.setContractAddress(i == 0 ? "0xc0" : null)
+            tx.setStatus("0x1")
+            block.addTransaction(tx)
+
+            (0..i).each { j ->
+                RawLogEntry log = new RawLogEntry()
+                log.setTransaction(tx)
+                log.setLogIndex(i + j as BigInteger)
+                log.setAddress("0xc${i + j}")
+                log.setData("0x" + "01" * j)
+                log.setRemoved(j == 1)
+                log.setTopics((0..j).collect { "0x${i}${j}${it}".toString() })
+                tx.addLog(log)
+            }
+        }
+        block
+    }
+
+    def "the archive client should replay blocks across segments"() {
+        given:
+        EthereumClient source = Stub(EthereumClient) {
+            queryBlockData(_ as BigInteger, _ as BigInteger, _ as Set) >> { BigInteger from, BigInteger to, Set data ->
+                (from..to).collect { BlockStoreSpec.block(it as int) }
+            }
+        }
+        SegmentArchiveClient.export(source, 1 as BigInteger, 5 as BigInteger, 2, folder, DataClass.all())
+
+        when:
+        SegmentArchiveClient client = new SegmentArchiveClient(folder)
+
+        then:
+        client.queryBlockNumber() == 5 as BigInteger
+        client.queryBlockData(2 as BigInteger, 5 as BigInteger, DataClass.all())*.getNumber() == (2..5).collect { it as BigInteger }
+
+        cleanup:
+        client?.close()
+    }
+
+    def "archives without transactions or receipts should serve headers and logs"() {
+        given:
+        EthereumClient source = Stub(EthereumClient) {
+            queryBlockData(_ as BigInteger, _ as BigInteger, _ as Set) >> { BigInteger from, BigInteger to, Set data ->
+                (from..to).collect { BlockStoreSpec.block(it as int) }
+            }
+        }
+        SegmentArchiveClient.export(source, 1 as BigInteger, 3 as BigInteger, 2, folder, EnumSet.of(DataClass.LOGS))
+
+        when:
+        SegmentArchiveClient client = new SegmentArchiveClient(folder)
+        List<EthereumBlock> headers = client.queryBlockHeaders(1 as BigInteger, 3 as BigInteger)
+        List<EthereumBlock> blocks = client.queryBlockData(2 as BigInteger, 3 as BigInteger)
+        EthereumBlock block = client.queryBlockData(1 as BigInteger)
+
+        then:
+        headers*.getHash() == ["0x01", "0x02", "0x03"]
+        blocks*.getNumber() == [2 as BigInteger, 3 as BigInteger]
+        block.getTransaction(0).getLog(0).getTopics() == ["0xtopic"]
+
+        when:
+        client.queryBlockData(1 as BigInteger, 1 as BigInteger, EnumSet.of(DataClass.RECEIPTS))
+
+        then:
+        thrown(ProgramException)
+
+        cleanup:
+        client?.close()
+    }
+}
@@ -0,0 +1,87 @@
+package au.csiro.data61.aap.elf.core.readers
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.sun.net.httpserver.HttpServer
+import spock.lang.Specification
+
+class Web3jClientSpec extends Specification {
+
+    def "log queries rejected by the node should be split"() {
+        given:
+        List<List<Long>> logRanges = []
+        HttpServer server = chainServer(logRanges, 4)
+        Web3jClient client = new Web3jClient(new BatchService.Http("http://localhost:${server.getAddress().getPort()}/"))
+
+        when:
+        List<EthereumBlock> blocks = client.queryBlockData(1 as BigInteger, 10 as BigInteger)
+
+        then:
+        blocks*.getNumber() == (1..10).collect { it as BigInteger }
+        blocks.every { block -> block.transactionStream().allMatch { it.logCount() == 1 } }
+        logRanges == [[1L, 10L], [1L, 5L], [1L, 2L], [3L, 6L], [7L, 10L]]
+
+        cleanup:
+        client?.close()
+        server?.stop(0)
+    }
+
+    def "log queries should fail once single blocks are rejected"() {
+        given:
+        List<List<Long>> logRanges = []
+        HttpServer server = chainServer(logRanges, 0)
+        Web3jClient client = new Web3jClient(new BatchService.Http("http://localhost:${server.getAddress().getPort()}/"))
+
+        when:
+        client.queryBlockData(1 as BigInteger, 2 as BigInteger)
+
+        then:
+        thrown(JsonRpcException)
+
+        cleanup:
+        client?.close()
+        server?.stop(0)
+    }
+
+    /**
+     * Serves blocks with one transaction and one log entry each. Log queries over more than logLimit blocks are rejected.
+     */
+    static HttpServer chainServer(List<List<Long>> logRanges, int logLimit) {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0)
+        server.createContext("/") { exchange ->
+            Object body = new ObjectMapper().readValue(exchange.getRequestBody(), Object)
+            List<Map> requests = body instanceof List ? body : [body]
+            List<String> replies = requests.collect { request -> "{\"jsonrpc\":\"2.0\",\"id\":${request.id},${reply(request, logRanges, logLimit)}}" }
+            byte[] reply = (body instanceof List ? "[" + replies.join(",") + "]" : replies[0]).getBytes("UTF-8")
+            exchange.getResponseHeaders().add("Content-Type", "application/json")
+            exchange.sendResponseHeaders(200, reply.length)
+            exchange.getResponseBody().withCloseable { it.write(reply) }
+        }
+        server.start()
+        server
+    }
+
+    static String reply(Map request, List<List<Long>> logRanges, int logLimit) {
+        if (request.method == "eth_getBlockByNumber") {
+            String number = request.params[0]
+            return """"result":{"number":"$number","hash":"0xb$number","transactions":[${transaction(number)}]}"""
+        }
+
+        long from = Long.decode(request.params[0].fromBlock)
+        long to = Long.decode(request.params[0].toBlock)
+        synchronized (logRanges) {
+            logRanges << [from, to]
+        }
+        if (logLimit < to - from + 1) {
+            return '"error":{"code":-32005,"message":"query returned more than 10000 results"}'
+        }
+        String logs = (from..to).collect { number ->
+            String hex = "0x" + Long.toHexString(number)
+            """{"blockNumber":"$hex","transactionHash":"0xt$hex","transactionIndex":"0x0","logIndex":"0x0","topics":[]}"""
+        }.join(",")
+        """"result":[$logs]"""
+    }
+
+    static String transaction(String number) {
+        """{"hash":"0xt$number","blockNumber":"$number","blockHash":"0xb$number","transactionIndex":"0x0"}"""
+    }
+}
@@ -0,0 +1,67 @@
+package au.csiro.data61.aap.elf.core.values
+
+import spock.lang.Specification
+
+class MultiVersionValueStoreSpec extends Specification {
+
+    def "blocks that read outdated collections should be executed again"() {
+        given:
+        int slot = VariableSlots.slotOf("numbers")
+        List<BigInteger> numbers = []
+        ValueStore base = new ValueStore()
+        base.setValue("numbers", numbers)
+        MultiVersionValueStore store = new MultiVersionValueStore(base)
+        Map<Integer, String> output = [:]
+        Closure<MultiVersionValueStore.BlockValueStore> execute = { int index, int incarnation ->
+            MultiVersionValueStore.BlockValueStore values = store.createBlockStore(index, incarnation)
+            if (index % 2 == 1) {
+                values.getValueForUpdate(slot).add(index as BigInteger)
+            }
+            output[index] = "$index:${values.getValue(slot).size()}"
+            values
+        }
+
+        when:
+        List<MultiVersionValueStore.BlockValueStore> executions = (0..4).collect { execute(it, 0) }
+        executions.each { store.publish(it) }
+        int reexecutions = 0
+        (0..4).each { index ->
+            MultiVersionValueStore.BlockValueStore execution = executions[index]
+            if (!store.validate(execution)) {
+                reexecutions++
+                execution = execute(index, execution.getIncarnation() + 1)
+                store.publish(execution)
+            }
+            store.commit(execution)
+        }
+
+        then:
+        reexecutions == 3
+        (0..4).collect { output[it] } == ["0:0", "1:1", "2:1", "3:2", "4:2"]
+        base.getValue("numbers") == [1, 3].collect { it as BigInteger }
+        numbers.isEmpty()
+    }
+
+    def "reading a collection should neither copy nor write it"() {
+        given:
+        int slot = VariableSlots.slotOf("numbers")
+        List<BigInteger> numbers = [1 as BigInteger]
+        ValueStore base = new ValueStore()
+        base.setValue("numbers", numbers)
+        MultiVersionValueStore store = new MultiVersionValueStore(base)
+
+        when:
+        MultiVersionValueStore.BlockValueStore reader = store.createBlockStore(0, 0)
+        MultiVersionValueStore.BlockValueStore writer = store.createBlockStore(1, 0)
+        Object read = reader.getValue(slot)
+        writer.setValue(VariableSlots.slotOf("alias"), writer.getValue(slot))
+        writer.getValueForUpdate(VariableSlots.slotOf("alias")).add(2 as BigInteger)
+
+        then:
+        read.is(numbers)
+        reader.getWrites().isEmpty()
+        writer.getWrites().keySet() == [VariableSlots.slotOf("alias")] as Set
+        numbers == [1 as BigInteger]
+        writer.getValue("alias") == [1, 2].collect { it as BigInteger }
+    }
+}
@@ -0,0 +1,107 @@
+package au.csiro.data61.aap.elf.core.values
+
+import au.csiro.data61.aap.elf.configuration.MethodCallSpecification
+import au.csiro.data61.aap.elf.configuration.MethodSpecification
+import au.csiro.data61.aap.elf.configuration.ValueAccessorSpecification
+import au.csiro.data61.aap.elf.core.MethodCall
+import au.csiro.data61.aap.elf.core.ProgramState
+import spock.lang.Specification
+
+class ValueStoreSpec extends Specification {
+
+    def "rolling back should undo the changes of orphaned blocks"() {
+        given:
+        ValueStore store = new ValueStore()
+        store.setReorgDepth(2)
+        store.setValue("count", 1 as BigInteger)
+        store.setValue("senders", ["0xa"])
+
+        when:
+        store.startBlock(10 as BigInteger)
+        store.setValue("count", 2 as BigInteger)
+        store.startBlock(11 as BigInteger)
+        store.setValue("count", 3 as BigInteger)
+        store.setValue("block", 11 as BigInteger)
+        store.getValueForUpdate(VariableSlots.slotOf("senders")).add("0xb")
+        boolean rolledBack = store.rollback(11 as BigInteger)
+
+        then:
+        rolledBack
+        store.getValue("count") == 2 as BigInteger
+        !store.containsName("block")
+        store.getValue("senders") == ["0xa"]
+
+        when:
+        store.startBlock(11 as BigInteger)
+        store.startBlock(12 as BigInteger)
+
+        then:
+        !store.rollback(10 as BigInteger)
+    }
+
+    def "mutable values should only be copied when a library method updates them"() {
+        given:
+        ProgramState state = new ProgramState()
+        ValueStore store = state.getValueStore()
+        store.setReorgDepth(2)
+        List<BigInteger> numbers = [1 as BigInteger]
+        List<BigInteger> untouched = [2 as BigInteger]
+        store.setValue("numbers", numbers)
+        store.setValue("untouched", untouched)
+        MethodCall call = MethodCallSpecification.of(
+            MethodSpecification.of("add", "int[]", "int"),
+            ValueAccessorSpecification.ofVariable("numbers"),
+            ValueAccessorSpecification.integerLiteral(3)
+        ).getInstruction()
+        MethodCall contains = MethodCallSpecification.of(
+            MethodSpecification.of("contains", "int[]", "int"),
+            ValueAccessorSpecification.ofVariable("untouched"),
+            ValueAccessorSpecification.integerLiteral(2)
+        ).getInstruction()
+
+        when:
+        store.startBlock(10 as BigInteger)
+        contains.execute(state)
+        compiled ? call.toMethodHandle().invokeWithArguments(state) : call.execute(state)
+        call.execute(state)
+
+        then:
+        store.getValue("numbers").is(numbers)
+        numbers == [1, 3, 3].collect { it as BigInteger }
+        store.@journals.getLast().previousValues.keySet() == [VariableSlots.slotOf("numbers")] as Set
+
+        when:
+        store.rollback(10 as BigInteger)
+
+        then:
+        store.getValue("numbers") == [1 as BigInteger]
+        store.getValue("untouched").is(untouched)
+
+        where:
+        compiled << [false, true]
+    }
+
+    def "variables should be accessible by name and slot and be released with their frame"() {
+        given:
+        ValueStore store = new ValueStore()
+        int outer = VariableSlots.slotOf("outerCount")
+        int inner = VariableSlots.slotOf("innerValue")
+
+        when:
+        store.setValue("outerCount", 1 as BigInteger)
+        store.setValue(inner, "0xa")
+
+        then:
+        store.getValue(outer) == 1 as BigInteger
+        store.getValue("innerValue") == "0xa"
+        store.snapshot() == [outerCount: 1 as BigInteger, innerValue: "0xa"]
+
+        when:
+        store.releaseFrame([inner] as int[])
+
+        then:
+        store.containsSlot(outer)
+        !store.containsName("innerValue")
+        store.getValue("unknownVariable") == null
+    }
+}
@@ -0,0 +1,87 @@
+package au.csiro.data61.aap.elf.core.writers
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+import au.csiro.data61.aap.elf.library.types.AddressHashMap
+import au.csiro.data61.aap.elf.library.types.AddressHashSet
+import spock.lang.Specification
+
+class DataWritersSpec extends Specification {
+
+    Path folder = Files.createTempDirectory("elf-writers")
+
+    def cleanup() {
+        folder.toFile().deleteDir()
+    }
+
+    private static void writeBlock(DataWriters writers, int number, String line) {
+        writers.startNewBlock(number as BigInteger)
+        writers.getLogWriter().addLogLine([line])
+        writers.writeBlock()
+    }
+
+    def "streamed output should be held back until the block is deep enough"() {
+        given:
+        DataWriters writers = new DataWriters()
+        writers.setOutputFolder(folder)
+        writers.setStreaming(true)
+        writers.setReorgDepth(2)
+
+        when:
+        (1..4).each { writeBlock(writers, it, "block $it") }
+
+        then:
+        folder.resolve("log_1.txt").toFile().text.trim() == "block 1"
+        folder.resolve("log_2.txt").toFile().exists()
+        !folder.resolve("log_3.txt").toFile().exists()
+        !folder.resolve("log_4.txt").toFile().exists()
+
+        when:
+        writers.writeAllData()
+
+        then:
+        folder.resolve("log_4.txt").toFile().exists()
+        !folder.resolve(DataWriters.PENDING_FOLDER).toFile().list()
+    }
+
+    def "output of orphaned blocks should be discarded"() {
+        given:
+        DataWriters writers = new DataWriters()
+        writers.setOutputFolder(folder)
+        writers.setStreaming(true)
+        writers.setReorgDepth(3)
+        (1..4).each { writeBlock(writers, it, "old $it") }
+
+        when:
+        boolean rolledBack = writers.rollback(3 as BigInteger)
+        writeBlock(writers, 3, "new 3")
+        writers.startNewBlock(4 as BigInteger)
+        writers.writeBlock()
+        writers.writeAllData()
+
+        then:
+        rolledBack
+        !writers.rollback(1 as BigInteger)
+        folder.resolve("log_3.txt").toFile().text.trim() == "new 3"
+        !folder.resolve("log_4.txt").toFile().exists()
+    }
+
+    def "sets and maps should be written like lists"() {
+        given:
+        LogWriter writer = new LogWriter()
+        writer.setOutputFolder(folder)
+        AddressHashSet set = new AddressHashSet()
+        set.add("0x931D387731bBbC988B312206c74F77D004D6B84b")
+        AddressHashMap map = new AddressHashMap()
+        map.put("0x931D387731bBbC988B312206c74F77D004D6B84b", BigInteger.ONE)
+
+        when:
+        writer.addLogLine([[1, 2] as List<Object>, " ", set, " ", map])
+        writer.writeState(null)
+
+        then:
+        folder.resolve("log.txt").toFile().text.trim() ==
+            "{1, 2} {0x931D387731bBbC988B312206c74F77D004D6B84b} {0x931D387731bBbC988B312206c74F77D004D6B84b=1}"
+    }
+}
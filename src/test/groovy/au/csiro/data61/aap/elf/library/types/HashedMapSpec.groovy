@@ -0,0 +1,76 @@
+package au.csiro.data61.aap.elf.library.types
+
+import spock.lang.Specification
+
+class HashedMapSpec extends Specification {
+    def "int maps should behave like hash maps under random updates"() {
+        given:
+        Random random = new Random(7)
+        IntHashMap map = new IntHashMap()
+        Map<BigInteger, Object> expected = new HashMap<>()
+
+        when:
+        20000.times {
+            BigInteger key = BigInteger.valueOf(random.nextInt(2000))
+            if (random.nextInt(3) != 0) {
+                map.put(key, "v$it".toString())
+                expected.put(key, "v$it".toString())
+            } else {
+                assert map.remove(key) == (expected.remove(key) != null)
+            }
+        }
+
+        then:
+        map.size() == expected.size()
+        (0..2000).every { map.get(BigInteger.valueOf(it)) == expected.get(BigInteger.valueOf(it)) }
+    }
+
+    def "address maps should ignore the case of keys"() {
+        given:
+        AddressHashMap map = new AddressHashMap()
+
+        when:
+        map.put("0x931D387731bBbC988B312206c74F77D004D6B84b", BigInteger.TEN)
+        map.put("0x931d387731bbbc988b312206c74f77d004d6b84b", BigInteger.ONE)
+
+        then:
+        map.size() == 1
+        map.get("0x931D387731BBBC988B312206C74F77D004D6B84B") == BigInteger.ONE
+        !map.containsKey("0x0000000000000000000000000000000000000000")
+    }
+
+    def "address maps should keep the spelling of the first added key"() {
+        given:
+        AddressHashMap upper = new AddressHashMap()
+        AddressHashMap lower = new AddressHashMap()
+
+        when:
+        upper.put("0x931D387731bBbC988B312206c74F77D004D6B84b", BigInteger.TEN)
+        upper.put("0x931d387731bbbc988b312206c74f77d004d6b84b", BigInteger.ONE)
+        lower.put("0x931d387731bbbc988b312206c74f77d004d6b84b", BigInteger.ONE)
+
+        then:
+        upper.toCollection()*.key == ["0x931D387731bBbC988B312206c74F77D004D6B84b"]
+        upper == lower
+        upper.hashCode() == lower.hashCode()
+    }
+
+    def "copies should be equal but independent"() {
+        given:
+        AddressHashMap map = new AddressHashMap()
+        map.put("0x931d387731bbbc988b312206c74f77d004d6b84b", true)
+
+        when:
+        AddressHashMap copy = map.copy()
+
+        then:
+        copy == map
+
+        when:
+        copy.put("0x931d387731bbbc988b312206c74f77d004d6b84b", false)
+
+        then:
+        copy != map
+        map.get("0x931d387731bbbc988b312206c74f77d004d6b84b") == true
+    }
+}
@@ -0,0 +1,99 @@
+package au.csiro.data61.aap.elf.library.types
+
+import spock.lang.Specification
+
+class HashedSetSpec extends Specification {
+    def "int sets should behave like hash sets under random updates"() {
+        given:
+        Random random = new Random(42)
+        IntHashSet set = new IntHashSet()
+        Set<BigInteger> expected = new HashSet<>()
+
+        when:
+        20000.times {
+            BigInteger value = BigInteger.valueOf(random.nextInt(2000) - 1000)
+            if (random.nextBoolean()) {
+                assert set.add(value) == expected.add(value)
+            } else {
+                assert set.remove(value) == expected.remove(value)
+            }
+        }
+
+        then:
+        set.size() == expected.size()
+        (-1000..1000).every { set.contains(BigInteger.valueOf(it)) == expected.contains(BigInteger.valueOf(it)) }
+    }
+
+    def "int sets should hold values beyond the long range"() {
+        given:
+        IntHashSet set = new IntHashSet()
+        BigInteger large = BigInteger.TWO.pow(200)
+
+        when:
+        set.add(large)
+        set.add(BigInteger.valueOf(Long.MIN_VALUE))
+
+        then:
+        set.contains(large)
+        set.contains(BigInteger.valueOf(Long.MIN_VALUE))
+        !set.contains(large.add(BigInteger.ONE))
+        set.size() == 2
+    }
+
+    def "address sets should ignore the case of addresses"() {
+        given:
+        AddressHashSet set = new AddressHashSet()
+
+        when:
+        set.add("0x931D387731bBbC988B312206c74F77D004D6B84b")
+
+        then:
+        set.contains("0x931d387731bbbc988b312206c74f77d004d6b84b")
+        !set.contains("0x931d387731bbbc988b312206c74f77d004d6b84c")
+        set.toString() == "[0x931D387731bBbC988B312206c74F77D004D6B84b]"
+    }
+
+    def "address sets should keep the spelling of the first added address"() {
+        given:
+        AddressHashSet upper = new AddressHashSet()
+        AddressHashSet lower = new AddressHashSet()
+
+        when:
+        upper.add("0x931D387731bBbC988B312206c74F77D004D6B84b")
+        upper.add("0x931d387731bbbc988b312206c74f77d004d6b84b")
+        lower.add("0x931d387731bbbc988b312206c74f77d004d6b84b")
+
+        then:
+        upper.toCollection() == ["0x931D387731bBbC988B312206c74F77D004D6B84b"]
+        lower.toCollection() == ["0x931d387731bbbc988b312206c74f77d004d6b84b"]
+        upper == lower
+        upper.hashCode() == lower.hashCode()
+    }
+
+    def "address sets should reject values that are not addresses"() {
+        when:
+        new AddressHashSet().add("0x931d")
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    def "copies should be equal but independent"() {
+        given:
+        IntHashSet set = new IntHashSet()
+        (1..100).each { set.add(BigInteger.valueOf(it)) }
+
+        when:
+        IntHashSet copy = set.copy()
+
+        then:
+        copy == set
+
+        when:
+        copy.remove(BigInteger.ONE)
+
+        then:
+        copy != set
+        set.contains(BigInteger.ONE)
+    }
+}
@@ -0,0 +1,50 @@
+package au.csiro.data61.aap.elf.library.types
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class IntegerOperationsSpec extends Specification {
+    static final BigInteger MAX = BigInteger.valueOf(Long.MAX_VALUE)
+    static final BigInteger MIN = BigInteger.valueOf(Long.MIN_VALUE)
+
+    @Unroll
+    def "#operation(#a, #b) should match BigInteger arithmetic"() {
+        expect:
+        IntegerOperations."$operation"(a, b, null) == a."$operation"(b)
+
+        where:
+        [operation, a, b] << [
+                ["add", "subtract", "multiply", "divide"],
+                [BigInteger.valueOf(-7), BigInteger.valueOf(3), MAX, MIN, MAX.multiply(MAX)],
+                [BigInteger.valueOf(-1), BigInteger.valueOf(2), MAX, MIN, MAX.multiply(MAX)]
+        ].combinations()
+    }
+
+    def "small results should be shared instances"() {
+        expect:
+        IntegerOperations.add(BigInteger.valueOf(500), BigInteger.valueOf(24), null).is(IntegerOperations.valueOf(524))
+        IntegerOperations.subtract(BigInteger.ZERO, BigInteger.valueOf(128), null).is(IntegerOperations.valueOf(-128))
+        IntegerOperations.divide(MAX, MAX, null).is(IntegerOperations.valueOf(1))
+        !IntegerOperations.valueOf(IntegerOperations.CACHE_HIGH + 1).is(IntegerOperations.valueOf(IntegerOperations.CACHE_HIGH + 1))
+    }
+
+    @Unroll
+    def "compare(#a, #b) should match compareTo"() {
+        expect:
+        Integer.signum(IntegerOperations.compare(a, b)) == a.compareTo(b)
+
+        where:
+        [a, b] << [
+                [BigInteger.valueOf(-7), BigInteger.valueOf(3), MAX, MIN, MAX.add(BigInteger.ONE), MIN.subtract(BigInteger.ONE)],
+                [BigInteger.valueOf(-7), MAX, MIN, MAX.add(BigInteger.ONE)]
+        ].combinations()
+    }
+
+    def "division by zero should fail like BigInteger division"() {
+        when:
+        IntegerOperations.divide(BigInteger.ONE, BigInteger.ZERO, null)
+
+        then:
+        thrown(ArithmeticException)
+    }
+}
@@ -0,0 +1,28 @@
+package au.csiro.data61.aap.elf.parsing
+
+import au.csiro.data61.aap.elf.core.filters.ParallelExecution
+import au.csiro.data61.aap.elf.parsing.EthqlParser.DocumentContext
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class BlockIndependenceAnalyzerSpec extends Specification {
+
+    @Unroll
+    def "parallel execution of '#script' should be #expected"() {
+        given:
+        DocumentContext document = DataUsageAnalyzerSpec.parse(script) as DocumentContext
+
+        expect:
+        BlockIndependenceAnalyzer.analyze(document.statement().last().scope()) == expected
+
+        where:
+        script                                                                                           | expected
+        'BLOCKS (1) (2) { int a = block.gasUsed; emit log line (a); }'                                    | ParallelExecution.SHARDED
+        'BLOCKS (1) (2) { TRANSACTIONS (ANY) (ANY) { emit csv row ("txs") (tx.hash as hash); } }'         | ParallelExecution.SHARDED
+        'int count = 0; BLOCKS (1) (count) { int a = block.gasUsed; }'                                    | ParallelExecution.SHARDED
+        'int count = 0; BLOCKS (1) (2) { count = block.gasUsed; }'                                        | ParallelExecution.SPECULATIVE
+        'address[] owners = {0x0000000000000000000000000000000000000000}; BLOCKS (1) (2) { add(owners, block.miner); }' | ParallelExecution.SPECULATIVE
+        'BLOCKS (1) (2) { setOutputFolder("./out"); }'                                                    | ParallelExecution.NONE
+        'BLOCKS (1) (2) { emit xes event ()()()(block.hash as xs:string concept:name); }'                 | ParallelExecution.NONE
+    }
+}
@@ -0,0 +1,37 @@
+package au.csiro.data61.aap.elf.parsing
+
+import au.csiro.data61.aap.elf.EthqlProcessingResult
+import org.antlr.v4.runtime.tree.ParseTree
+import org.antlr.v4.runtime.tree.ParseTreeWalker
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import static au.csiro.data61.aap.elf.core.readers.DataClass.*
+
+class DataUsageAnalyzerSpec extends Specification {
+
+    @Unroll
+    def "#script should require #expected"() {
+        given:
+        DataUsageAnalyzer analyzer = new DataUsageAnalyzer()
+
+        when:
+        new ParseTreeWalker().walk(analyzer, parse(script))
+
+        then:
+        analyzer.getRequiredData() == expected as Set
+
+        where:
+        script                                                                                   | expected
+        'BLOCKS (1) (2) { int a = block.gasUsed; }'                                              | [HEADER]
+        'BLOCKS (1) (2) { TRANSACTIONS (ANY) (ANY) { } }'                                        | [HEADER, TRANSACTIONS]
+        'BLOCKS (1) (2) { TRANSACTIONS (ANY) (ANY) { int a = tx.gasUsed; } }'                    | [HEADER, TRANSACTIONS, RECEIPTS]
+        'BLOCKS (1) (2) { LOG ENTRIES (0x06012c8cf97bead5deae237070f9587f8e7a266d) (Birth()) { bytes a = tx.hash; } }' | [HEADER, LOGS]
+    }
+
+    static ParseTree parse(String script) {
+        EthqlProcessingResult<ParseTree> result = new EthqlInterpreter().parseDocument(new ByteArrayInputStream(script.getBytes()), true)
+        assert result.isSuccessful()
+        result.getResult()
+    }
+}